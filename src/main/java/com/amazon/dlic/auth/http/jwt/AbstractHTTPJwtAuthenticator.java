@@ -20,6 +20,7 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Collection;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -59,6 +60,7 @@ public abstract class AbstractHTTPJwtAuthenticator implements HTTPAuthenticator
     private final String jwtUrlParameter;
     private final String subjectKey;
     private final String rolesKey;
+    private final JwtCredentialsCache credentialsCache;
 
     public AbstractHTTPJwtAuthenticator(Settings settings, Path configPath) {
         jwtUrlParameter = settings.get("jwt_url_parameter");
@@ -66,10 +68,12 @@ public abstract class AbstractHTTPJwtAuthenticator implements HTTPAuthenticator
         isDefaultAuthHeader = HttpHeaders.AUTHORIZATION.equalsIgnoreCase(jwtHeaderName);
         rolesKey = settings.get("roles_key");
         subjectKey = settings.get("subject_key");
+        credentialsCache = new JwtCredentialsCache(settings);
 
         try {
             this.keyProvider = this.initKeyProvider(settings, configPath);
-            jwtVerifier = new JwtVerifier(keyProvider);
+            jwtVerifier = new JwtVerifier(keyProvider, JwtCredentialsCache.getClockSkewToleranceSeconds(settings));
+            keyProvider.addKeySetChangeListener(credentialsCache::invalidateAll);
 
         } catch (Exception e) {
             log.error("Error creating JWT authenticator. JWT authentication will not work", e);
@@ -104,6 +108,14 @@ public abstract class AbstractHTTPJwtAuthenticator implements HTTPAuthenticator
             return null;
         }
 
+        final AuthCredentials cached = credentialsCache.get(jwtString);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final long cacheGeneration = credentialsCache.getGeneration();
+
         JwtToken jwt;
 
         try {
@@ -133,6 +145,9 @@ public abstract class AbstractHTTPJwtAuthenticator implements HTTPAuthenticator
             ac.addAttribute("attr.jwt." + claim.getKey(), String.valueOf(claim.getValue()));
         }
 
+        credentialsCache.put(cacheGeneration, jwtString, ac, claims.getNotBefore() != null ? TimeUnit.SECONDS.toMillis(claims.getNotBefore()) : null,
+                claims.getExpiryTime() != null ? TimeUnit.SECONDS.toMillis(claims.getExpiryTime()) : null);
+
         return ac;
 
     }
@@ -61,11 +61,13 @@ public class HTTPJwtAuthenticator implements HTTPAuthenticator {
     private final String jwtUrlParameter;
     private final String rolesKey;
     private final String subjectKey;
+    private final JwtCredentialsCache credentialsCache;
 
     public HTTPJwtAuthenticator(final Settings settings, final Path configPath) {
         super();
 
         JwtParser _jwtParser = null;
+        final int clockSkewToleranceSeconds = JwtCredentialsCache.getClockSkewToleranceSeconds(settings);
 
         try {
             String signingKey = settings.get("signing_key");
@@ -93,9 +95,9 @@ public class HTTPJwtAuthenticator implements HTTPAuthenticator {
                 }
 
                 if(key != null) {
-                    _jwtParser = Jwts.parser().setSigningKey(key);
+                    _jwtParser = Jwts.parser().setSigningKey(key).setAllowedClockSkewSeconds(clockSkewToleranceSeconds);
                 } else {
-                    _jwtParser = Jwts.parser().setSigningKey(decoded);
+                    _jwtParser = Jwts.parser().setSigningKey(decoded).setAllowedClockSkewSeconds(clockSkewToleranceSeconds);
                 }
 
             }
@@ -110,6 +112,7 @@ public class HTTPJwtAuthenticator implements HTTPAuthenticator {
         rolesKey = settings.get("roles_key");
         subjectKey = settings.get("subject_key");
         jwtParser = _jwtParser;
+        credentialsCache = new JwtCredentialsCache(settings);
     }
 
 
@@ -165,6 +168,14 @@ public class HTTPJwtAuthenticator implements HTTPAuthenticator {
             }
         }
 
+        final AuthCredentials cached = credentialsCache.get(jwtToken);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final long cacheGeneration = credentialsCache.getGeneration();
+
         try {
             final Claims claims = jwtParser.parseClaimsJws(jwtToken).getBody();
 
@@ -183,6 +194,9 @@ public class HTTPJwtAuthenticator implements HTTPAuthenticator {
                 ac.addAttribute("attr.jwt."+claim.getKey(), String.valueOf(claim.getValue()));
             }
 
+            credentialsCache.put(cacheGeneration, jwtToken, ac, claims.getNotBefore() != null ? claims.getNotBefore().getTime() : null,
+                    claims.getExpiration() != null ? claims.getExpiration().getTime() : null);
+
             return ac;
 
         } catch (WeakKeyException e) {
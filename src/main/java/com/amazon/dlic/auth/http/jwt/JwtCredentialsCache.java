@@ -0,0 +1,150 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.amazon.dlic.auth.http.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.BaseEncoding;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.user.AuthCredentials;
+
+/**
+ * Bounded cache of the credentials extracted from JWTs whose signature and claims have already been verified.
+ *
+ * Tokens are keyed by their SHA-256 digest, so that the raw tokens are not retained. A cached token is only used
+ * while the current time is within its {@code nbf}/{@code exp} window, widened by the configured clock skew
+ * tolerance just like the verification itself, and never longer than {@link #MAX_TTL_MINUTES}. Tokens which fail
+ * the verification are never cached. Authenticators whose keys can change must call {@link #invalidateAll()} when
+ * they do.
+ */
+final class JwtCredentialsCache {
+
+    static final String CACHE_SIZE_SETTING = "jwt_cache_size";
+    static final String CLOCK_SKEW_TOLERANCE_SETTING = "jwt_clock_skew_tolerance_seconds";
+
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final long MAX_TTL_MINUTES = 10;
+
+    private final Cache<String, Entry> cache;
+    private final long clockSkewToleranceMillis;
+    private final AtomicLong generation = new AtomicLong();
+
+    JwtCredentialsCache(final Settings settings) {
+        final int maxSize = settings.getAsInt(CACHE_SIZE_SETTING, DEFAULT_CACHE_SIZE);
+        this.cache = maxSize > 0 ? CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(MAX_TTL_MINUTES, TimeUnit.MINUTES).build()
+                : null;
+        this.clockSkewToleranceMillis = TimeUnit.SECONDS.toMillis(getClockSkewToleranceSeconds(settings));
+    }
+
+    static int getClockSkewToleranceSeconds(final Settings settings) {
+        return settings.getAsInt(CLOCK_SKEW_TOLERANCE_SETTING, 0);
+    }
+
+    /**
+     * @return a copy of the credentials extracted from the token, or null if the token is not cached or not valid
+     * at the current time
+     */
+    AuthCredentials get(final String token) {
+        if (cache == null) {
+            return null;
+        }
+
+        final String key = digest(token);
+        final Entry entry = cache.getIfPresent(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        final long now = System.currentTimeMillis();
+
+        if (now > entry.validUntilMillis) {
+            cache.invalidate(key);
+            return null;
+        }
+
+        if (now < entry.validFromMillis) {
+            return null;
+        }
+
+        final AuthCredentials credentials = new AuthCredentials(entry.username, entry.backendRoles).markComplete();
+        entry.attributes.forEach(credentials::addAttribute);
+        return credentials;
+    }
+
+    /**
+     * @return the current generation of the cache, which has to be obtained before a token is verified and passed
+     * to {@link #put} afterwards, so that tokens verified concurrently to {@link #invalidateAll()} are not cached
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @param generation the generation of the cache before the token was verified
+     * @param notBeforeMillis the {@code nbf} claim of the token, or null if it has none
+     * @param expiresAtMillis the {@code exp} claim of the token, or null if it has none
+     */
+    void put(final long generation, final String token, final AuthCredentials credentials, final Long notBeforeMillis, final Long expiresAtMillis) {
+        if (cache == null) {
+            return;
+        }
+
+        final long validFromMillis = notBeforeMillis != null ? notBeforeMillis - clockSkewToleranceMillis : Long.MIN_VALUE;
+        final long validUntilMillis = expiresAtMillis != null ? expiresAtMillis + clockSkewToleranceMillis : Long.MAX_VALUE;
+
+        final String key = digest(token);
+        cache.put(key, new Entry(credentials, validFromMillis, validUntilMillis));
+
+        if (generation != this.generation.get()) {
+            cache.invalidate(key);
+        }
+    }
+
+    void invalidateAll() {
+        if (cache != null) {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+
+    long size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    private static String digest(final String token) {
+        try {
+            return BaseEncoding.base64().encode(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final String username;
+        private final String[] backendRoles;
+        private final Map<String, String> attributes;
+        private final long validFromMillis;
+        private final long validUntilMillis;
+
+        private Entry(final AuthCredentials credentials, final long validFromMillis, final long validUntilMillis) {
+            this.username = credentials.getUsername();
+            this.backendRoles = credentials.getBackendRoles().toArray(new String[0]);
+            this.attributes = new HashMap<>(credentials.getAttributes());
+            this.validFromMillis = validFromMillis;
+            this.validUntilMillis = validUntilMillis;
+        }
+    }
+}
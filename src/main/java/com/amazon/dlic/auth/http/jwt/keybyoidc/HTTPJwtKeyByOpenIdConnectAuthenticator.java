@@ -16,16 +16,23 @@
 package com.amazon.dlic.auth.http.jwt.keybyoidc;
 
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
 
 import com.amazon.dlic.auth.http.jwt.AbstractHTTPJwtAuthenticator;
 import com.amazon.dlic.util.SettingsBasedSSLConfigurator;
 
 import org.opensearch.common.settings.Settings;
+import org.opensearch.security.auth.Destroyable;
+import org.opensearch.security.auth.StatsProvider;
 
-public class HTTPJwtKeyByOpenIdConnectAuthenticator extends AbstractHTTPJwtAuthenticator {
+public class HTTPJwtKeyByOpenIdConnectAuthenticator extends AbstractHTTPJwtAuthenticator implements Destroyable, StatsProvider {
 
 	//private final static Logger log = LogManager.getLogger(HTTPJwtKeyByOpenIdConnectAuthenticator.class);
 
+	// Assigned by initKeyProvider(), which is called by the super constructor
+	private SelfRefreshingKeySet selfRefreshingKeySet;
+
 	public HTTPJwtKeyByOpenIdConnectAuthenticator(Settings settings, Path configPath) {
 		super(settings, configPath);
 	}
@@ -37,17 +44,22 @@ public class HTTPJwtKeyByOpenIdConnectAuthenticator extends AbstractHTTPJwtAuthe
 		int refreshRateLimitTimeWindowMs = settings.getAsInt("refresh_rate_limit_time_window_ms", 10000);
 		int refreshRateLimitCount = settings.getAsInt("refresh_rate_limit_count", 10);
 
+		int jwksMinRefreshIntervalMs = settings.getAsInt("jwks_min_refresh_interval_ms", 60 * 1000);
+		int jwksMaxRefreshIntervalMs = settings.getAsInt("jwks_max_refresh_interval_ms", 60 * 60 * 1000);
+
 		KeySetRetriever keySetRetriever = new KeySetRetriever(settings.get("openid_connect_url"),
 				getSSLConfig(settings, configPath), settings.getAsBoolean("cache_jwks_endpoint", false));
 
 		keySetRetriever.setRequestTimeoutMs(idpRequestTimeoutMs);
 
-		SelfRefreshingKeySet selfRefreshingKeySet = new SelfRefreshingKeySet(keySetRetriever);
+		selfRefreshingKeySet = new SelfRefreshingKeySet(keySetRetriever);
 
 		selfRefreshingKeySet.setRequestTimeoutMs(idpRequestTimeoutMs);
 		selfRefreshingKeySet.setQueuedThreadTimeoutMs(idpQueuedThreadTimeoutMs);
 		selfRefreshingKeySet.setRefreshRateLimitTimeWindowMs(refreshRateLimitTimeWindowMs);
 		selfRefreshingKeySet.setRefreshRateLimitCount(refreshRateLimitCount);
+		selfRefreshingKeySet.setMinRefreshIntervalMs(jwksMinRefreshIntervalMs);
+		selfRefreshingKeySet.setMaxRefreshIntervalMs(jwksMaxRefreshIntervalMs);
 
 		return selfRefreshingKeySet;
 	}
@@ -62,4 +74,16 @@ public class HTTPJwtKeyByOpenIdConnectAuthenticator extends AbstractHTTPJwtAuthe
 		return "jwt-key-by-oidc";
 	}
 
+	@Override
+	public Map<String, Object> getStats() {
+		return selfRefreshingKeySet != null ? selfRefreshingKeySet.getStats() : Collections.emptyMap();
+	}
+
+	@Override
+	public void destroy() {
+		if (selfRefreshingKeySet != null) {
+			selfRefreshingKeySet.destroy();
+		}
+	}
+
 }
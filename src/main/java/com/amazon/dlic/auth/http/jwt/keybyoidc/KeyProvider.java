@@ -20,4 +20,11 @@ import org.apache.cxf.rs.security.jose.jwk.JsonWebKey;
 public interface KeyProvider {
 	public JsonWebKey getKey(String kid) throws AuthenticatorUnavailableException, BadCredentialsException;
 	public JsonWebKey getKeyAfterRefresh(String kid) throws AuthenticatorUnavailableException, BadCredentialsException;
+
+	/**
+	 * Registers a listener which is called whenever the keys of this provider are replaced, for example
+	 * after a key rotation. Providers whose keys never change do not need to implement this.
+	 */
+	default void addKeySetChangeListener(Runnable listener) {
+	}
 }
@@ -20,4 +20,12 @@ import org.apache.cxf.rs.security.jose.jwk.JsonWebKeys;
 @FunctionalInterface
 public interface KeySetProvider {
 	JsonWebKeys get() throws AuthenticatorUnavailableException;
+
+	/**
+	 * @return how long the key set returned by the last call of {@link #get()} may be cached according to the IdP,
+	 * in milliseconds, or -1 if the IdP did not say so
+	 */
+	default long getKeySetMaxAgeMs() {
+		return -1;
+	}
 }
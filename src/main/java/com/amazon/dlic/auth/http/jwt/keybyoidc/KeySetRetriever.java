@@ -16,16 +16,23 @@
 package com.amazon.dlic.auth.http.jwt.keybyoidc;
 
 import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.cxf.rs.security.jose.jwk.JsonWebKeys;
 import org.apache.cxf.rs.security.jose.jwk.JwkUtils;
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.cache.HttpCacheContext;
 import org.apache.http.client.cache.HttpCacheStorage;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
@@ -56,6 +63,7 @@ public class KeySetRetriever implements KeySetProvider {
 	private int oidcCacheModuleResponses = 0;
 	private long oidcRequests = 0;
 	private long lastCacheStatusLog = 0;
+	private volatile long keySetMaxAgeMs = -1;
 
 	KeySetRetriever(String openIdConnectEndpoint, SSLConfig sslConfig, boolean useCacheForOidConnectEndpoint) {
 		this.openIdConnectEndpoint = openIdConnectEndpoint;
@@ -95,6 +103,8 @@ public class KeySetRetriever implements KeySetProvider {
 
 				JsonWebKeys keySet = JwkUtils.readJwkSet(httpEntity.getContent());
 
+				keySetMaxAgeMs = getMaxAgeMs(response);
+
 				return keySet;
 			}
 		} catch (IOException e) {
@@ -103,6 +113,47 @@ public class KeySetRetriever implements KeySetProvider {
 
 	}
 
+	@Override
+	public long getKeySetMaxAgeMs() {
+		return keySetMaxAgeMs;
+	}
+
+	static long getMaxAgeMs(HttpResponse response) {
+		Header cacheControl = response.getFirstHeader(HttpHeaders.CACHE_CONTROL);
+
+		if (cacheControl != null) {
+			for (HeaderElement element : cacheControl.getElements()) {
+				if ("no-cache".equalsIgnoreCase(element.getName()) || "no-store".equalsIgnoreCase(element.getName())) {
+					return 0;
+				}
+
+				if ("max-age".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+					try {
+						long maxAge = Long.parseLong(element.getValue().trim());
+						Header ageHeader = response.getFirstHeader(HttpHeaders.AGE);
+						long age = ageHeader != null ? Long.parseLong(ageHeader.getValue().trim()) : 0;
+
+						return TimeUnit.SECONDS.toMillis(Math.max(0, maxAge - age));
+					} catch (NumberFormatException e) {
+						log.debug("Invalid cache headers {} {}", cacheControl, response.getFirstHeader(HttpHeaders.AGE), e);
+					}
+				}
+			}
+		}
+
+		Header expires = response.getFirstHeader(HttpHeaders.EXPIRES);
+
+		if (expires != null) {
+			Date expiryDate = DateUtils.parseDate(expires.getValue());
+
+			if (expiryDate != null) {
+				return Math.max(0, expiryDate.getTime() - System.currentTimeMillis());
+			}
+		}
+
+		return -1;
+	}
+
 	String getJwksUri() throws AuthenticatorUnavailableException {
 
 		try (CloseableHttpClient httpClient = createHttpClient(oidcHttpCacheStorage)) {
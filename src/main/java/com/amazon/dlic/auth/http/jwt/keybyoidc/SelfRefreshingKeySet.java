@@ -13,14 +13,27 @@
  *  permissions and limitations under the License.
  */
 
+
 package com.amazon.dlic.auth.http.jwt.keybyoidc;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.google.common.base.Strings;
 import org.apache.cxf.rs.security.jose.jwk.JsonWebKey;
@@ -28,26 +41,54 @@ import org.apache.cxf.rs.security.jose.jwk.JsonWebKeys;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Key provider which serves the keys of an IdP from an immutable snapshot, without locking.
+ *
+ * The snapshot is replaced by refreshes which run on a private background thread. At most one refresh is in flight
+ * at any time; concurrent requests for a refresh share it. Request threads only wait for a refresh while no keys
+ * are available at all, i.e. before the keys have been loaded for the first time. A token with an unknown kid is
+ * rejected right away and triggers a rate limited refresh, so that subsequent tokens signed with a new key are
+ * accepted once it has completed. After the keys have been loaded, they are proactively refreshed when the cache
+ * headers of the JWKS response say they expire, but within the bounds of {@link #setMinRefreshIntervalMs(int)} and
+ * {@link #setMaxRefreshIntervalMs(int)}.
+ */
 public class SelfRefreshingKeySet implements KeyProvider {
 	private static final Logger log = LogManager.getLogger(SelfRefreshingKeySet.class);
 
 	private final KeySetProvider keySetProvider;
-	private final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(1, 10, 1000, TimeUnit.MILLISECONDS,
-			new LinkedBlockingQueue<Runnable>());
-	private volatile JsonWebKeys jsonWebKeys = new JsonWebKeys();
-	private boolean refreshInProgress = false;
-	private long refreshCount = 0;
-	private long queuedGetCount = 0;
-	private long recentRefreshCount = 0;
-	private long refreshTime = 0;
-	private Throwable lastRefreshFailure = null;
+	private final ScheduledThreadPoolExecutor executor;
+	private final AtomicReference<CompletableFuture<KeySet>> pendingRefresh = new AtomicReference<>();
+	private final List<Runnable> keySetChangeListeners = new CopyOnWriteArrayList<>();
+	private volatile KeySet keySet = KeySet.EMPTY;
+	private volatile Throwable lastRefreshFailure = null;
+	private volatile ScheduledFuture<?> scheduledRefresh = null;
+	private volatile boolean destroyed = false;
+
+	private final AtomicLong refreshCount = new AtomicLong();
+	private final LongAdder failedRefreshCount = new LongAdder();
+	private final LongAdder completedRefreshCount = new LongAdder();
+	private final LongAdder refreshTimeNanos = new LongAdder();
+	private final LongAdder queuedGetCount = new LongAdder();
+	private final LongAdder rejectedGetCount = new LongAdder();
+	private final AtomicLong refreshRateLimitWindowStart = new AtomicLong();
+	private final AtomicInteger recentRefreshCount = new AtomicInteger();
+	private volatile long lastRefreshTimeMs = 0;
+
 	private int requestTimeoutMs = 5000;
 	private int queuedThreadTimeoutMs = 2500;
 	private int refreshRateLimitTimeWindowMs = 10000;
 	private int refreshRateLimitCount = 10;
+	private int minRefreshIntervalMs = 60 * 1000;
+	private int maxRefreshIntervalMs = 60 * 60 * 1000;
 
 	public SelfRefreshingKeySet(KeySetProvider refreshFunction) {
 		this.keySetProvider = refreshFunction;
+		this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "opensearch-security-jwks-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.setRemoveOnCancelPolicy(true);
 	}
 
 	public JsonWebKey getKey(String kid) throws AuthenticatorUnavailableException, BadCredentialsException {
@@ -58,229 +99,290 @@ public class SelfRefreshingKeySet implements KeyProvider {
 		}
 	}
 
-	public synchronized JsonWebKey getKeyAfterRefresh(String kid)
+	/**
+	 * Requests a refresh of the keys, but does not wait for it. Returns the key from the current snapshot, which
+	 * already is the refreshed one if a refresh has completed in the meantime.
+	 */
+	public JsonWebKey getKeyAfterRefresh(String kid)
 			throws AuthenticatorUnavailableException, BadCredentialsException {
-		JsonWebKey result = getKeyAfterRefreshInternal(kid);
+		KeySet keySet = this.keySet;
+
+		if (keySet.keys.isEmpty()) {
+			keySet = awaitRefresh();
+		} else {
+			refresh(true);
+			keySet = this.keySet;
+		}
+
+		JsonWebKey result = keySet.getKey(kid);
 
 		if (result != null) {
 			return result;
-		} else if (jsonWebKeys.getKeys().size() == 0) {
+		} else if (keySet.keys.size() == 0) {
 			throw new AuthenticatorUnavailableException("No JWK are available from IdP");
 		} else {
 			throw new BadCredentialsException("JWT did not contain KID which is required if IdP provides multiple JWK");
 		}
 	}
 
-	private synchronized JsonWebKey getKeyAfterRefreshInternal(String kid) throws AuthenticatorUnavailableException {
-		if (refreshInProgress) {
-			return waitForRefreshToFinish(kid);
-		} else {
-			return performRefresh(kid);
-		}
-	}
-
 	private JsonWebKey getKeyWithoutKeyId() throws AuthenticatorUnavailableException, BadCredentialsException {
-		List<JsonWebKey> keys = jsonWebKeys.getKeys();
+		KeySet keySet = getAvailableKeySet();
 
-		if (keys == null || keys.size() == 0) {
-			JsonWebKey result = getKeyWithRefresh(null);
-
-			if (result != null) {
-				return result;
-			} else {
-				throw new AuthenticatorUnavailableException("No JWK are available from IdP");
-			}
-		} else if (keys.size() == 1) {
-			return keys.get(0);
+		if (keySet.keys.size() == 1) {
+			return keySet.keys.get(0);
+		} else if (keySet.keys.size() == 0) {
+			throw new AuthenticatorUnavailableException("No JWK are available from IdP");
 		} else {
-			JsonWebKey result = getKeyWithRefresh(null);
-
-			if (result != null) {
-				return result;
-			} else {
-				throw new BadCredentialsException(
-						"JWT did not contain KID which is required if IdP provides multiple JWK");
-			}
+			throw new BadCredentialsException("JWT did not contain KID which is required if IdP provides multiple JWK");
 		}
 	}
 
 	private JsonWebKey getKeyWithKeyId(String kid) throws AuthenticatorUnavailableException, BadCredentialsException {
-		JsonWebKey result = jsonWebKeys.getKey(kid);
+		KeySet keySet = this.keySet;
+		boolean loadedNow = false;
+
+		if (keySet.keys.isEmpty()) {
+			keySet = awaitRefresh();
+			loadedNow = true;
+		}
+
+		JsonWebKey result = keySet.keysById.get(kid);
 
 		if (result != null) {
 			return result;
 		}
 
-		result = getKeyWithRefresh(kid);
-
-		if (result == null) {
-			throw new BadCredentialsException("Unknown kid " + kid);
+		if (!loadedNow) {
+			// The IdP might have rotated its keys. The token is rejected, but subsequent ones will be accepted
+			// once the refresh has completed.
+			rejectedGetCount.increment();
+			refresh(true);
 		}
 
-		return result;
+		throw new BadCredentialsException("Unknown kid " + kid);
 	}
 
-	private synchronized JsonWebKey getKeyWithRefresh(String kid) throws AuthenticatorUnavailableException {
-
-		// Always re-check within synchronized to handle any races
+	/**
+	 * @return the current snapshot, unless it does not contain any keys. In that case, the caller waits for a
+	 * refresh, which is the only case where request threads are blocked.
+	 */
+	private KeySet getAvailableKeySet() throws AuthenticatorUnavailableException {
+		KeySet keySet = this.keySet;
 
-		JsonWebKey result = getKeySimple(kid);
-
-		if (result != null) {
-			return result;
+		if (keySet.keys.isEmpty()) {
+			return awaitRefresh();
+		} else {
+			return keySet;
 		}
-
-		return getKeyAfterRefreshInternal(kid);
 	}
 
-	private JsonWebKey getKeySimple(String kid) {
-		if (Strings.isNullOrEmpty(kid)) {
-			List<JsonWebKey> keys = jsonWebKeys.getKeys();
-
-			if (keys != null && keys.size() == 1) {
-				return keys.get(0);
-			} else {
-				return null;
-			}
+	private KeySet awaitRefresh() throws AuthenticatorUnavailableException {
+		CompletableFuture<KeySet> refresh = pendingRefresh.get();
+		long timeoutMs;
 
+		if (refresh != null && !refresh.isDone()) {
+			queuedGetCount.increment();
+			timeoutMs = queuedThreadTimeoutMs;
 		} else {
-			return jsonWebKeys.getKey(kid);
+			refresh = refresh(true);
+			timeoutMs = requestTimeoutMs;
 		}
-	}
-
-	private synchronized JsonWebKey waitForRefreshToFinish(String kid) {
-		queuedGetCount++;
-		long currentRefreshCount = refreshCount;
 
 		try {
-			wait(queuedThreadTimeoutMs);
+			return refresh.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new AuthenticatorUnavailableException("Authentication backend timed out");
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
-			log.debug(e.toString());
+			throw new AuthenticatorUnavailableException("Interrupted while waiting for authentication backend", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof AuthenticatorUnavailableException) {
+				throw (AuthenticatorUnavailableException) cause;
+			} else if (cause instanceof TimeoutException) {
+				throw new AuthenticatorUnavailableException("Authentication backend timed out");
+			} else {
+				throw new AuthenticatorUnavailableException("Authentication backend failed", cause);
+			}
 		}
+	}
 
-		// Just be optimistic and re-check the key
+	/**
+	 * Starts a refresh, unless one is in flight already.
+	 *
+	 * @param rateLimited whether the refresh is triggered by a request and thus subject to the refresh rate limit
+	 * @return the refresh in flight
+	 */
+	private CompletableFuture<KeySet> refresh(boolean rateLimited) throws AuthenticatorUnavailableException {
+		CompletableFuture<KeySet> current = pendingRefresh.get();
+
+		if (current != null && !current.isDone()) {
+			return current;
+		}
 
-		JsonWebKey result = getKeySimple(kid);
+		if (rateLimited && !tryAcquireRefreshPermit()) {
+			throw new AuthenticatorUnavailableException("Too many unknown kids recently: " + recentRefreshCount.get());
+		}
 
-		if (result != null) {
-			return result;
+		CompletableFuture<KeySet> refresh = new CompletableFuture<>();
+
+		if (!pendingRefresh.compareAndSet(current, refresh)) {
+			// Another thread started a refresh concurrently
+			return pendingRefresh.get();
 		}
 
-		if (refreshInProgress && currentRefreshCount == refreshCount) {
-			// The wait() call returned due to the timeout.
-			throw new AuthenticatorUnavailableException("Authentication backend timed out");
-		} else if (lastRefreshFailure != null) {
-			throw new AuthenticatorUnavailableException("Authentication backend failed", lastRefreshFailure);
-		} else {
-			// Refresh was successful, but we did not get a matching key
-			return null;
+		long currentRefreshCount = refreshCount.incrementAndGet();
+
+		log.info("Performing refresh {}", currentRefreshCount);
+
+		try {
+			Future<?> task = executor.submit(() -> performRefresh(refresh));
+
+			refresh.orTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((keySet, e) -> {
+				if (e != null && !task.isDone()) {
+					task.cancel(true);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			refresh.completeExceptionally(new AuthenticatorUnavailableException(
+					"Did not try to call authentication backend because of " + executor.getQueue().size() + " pending refreshes", e));
 		}
+
+		return refresh;
 	}
 
-	private synchronized JsonWebKey performRefresh(String kid) {
-		if (log.isDebugEnabled()) {
-			log.debug("performRefresh({})", kid);
+	private boolean tryAcquireRefreshPermit() {
+		long now = System.currentTimeMillis();
+		long windowStart = refreshRateLimitWindowStart.get();
+
+		if (now - windowStart >= refreshRateLimitTimeWindowMs && refreshRateLimitWindowStart.compareAndSet(windowStart, now)) {
+			recentRefreshCount.set(0);
 		}
 
-		final boolean recentRefresh;
+		return recentRefreshCount.incrementAndGet() <= refreshRateLimitCount;
+	}
+
+	private void performRefresh(CompletableFuture<KeySet> refresh) {
+		long start = System.nanoTime();
 
-		if (System.currentTimeMillis() - refreshTime < refreshRateLimitTimeWindowMs) {
-			recentRefreshCount++;
-			recentRefresh = true;
+		try {
+			JsonWebKeys newKeys = keySetProvider.get();
 
-			if (recentRefreshCount > refreshRateLimitCount) {
-				throw new AuthenticatorUnavailableException("Too many unknown kids recently: " + recentRefreshCount);
+			if (newKeys == null) {
+				throw new RuntimeException("Refresh function " + keySetProvider + " yielded null");
 			}
-		} else {
-			recentRefresh = false;
-		}
 
-		refreshInProgress = true;
-		refreshCount++;
+			KeySet oldKeySet = keySet;
+			KeySet newKeySet = new KeySet(newKeys);
 
-		log.info("Performing refresh {}", refreshCount);
+			keySet = newKeySet;
+			lastRefreshFailure = null;
+			recordRefreshTime(start);
 
-		long currentRefreshCount = refreshCount;
+			log.info("KeySetProvider finished");
 
-		try {
+			refresh.complete(newKeySet);
 
-			Future<?> future = threadPoolExecutor.submit(new Runnable() {
-
-				@Override
-				public void run() {
-					try {
-						JsonWebKeys newKeys = keySetProvider.get();
-
-						if (newKeys == null) {
-							throw new RuntimeException("Refresh function " + keySetProvider + " yielded null");
-						}
-
-						log.info("KeySetProvider finished");
-
-						synchronized (SelfRefreshingKeySet.this) {
-							jsonWebKeys = newKeys;
-							refreshInProgress = false;
-							lastRefreshFailure = null;
-							SelfRefreshingKeySet.this.notifyAll();
-						}
-					} catch (Throwable e) {
-						synchronized (SelfRefreshingKeySet.this) {
-							lastRefreshFailure = e;
-							refreshInProgress = false;
-							SelfRefreshingKeySet.this.notifyAll();
-						}
-						log.warn("KeySetProvider threw error", e);
-					} finally {
-						if (!recentRefresh) {
-							recentRefreshCount = 0;
-							refreshTime = System.currentTimeMillis();
-						}
-					}
+			if (!newKeySet.keys.equals(oldKeySet.keys)) {
+				notifyKeySetChangeListeners();
+			}
 
-				}
-			});
+			scheduleProactiveRefresh(keySetProvider.getKeySetMaxAgeMs());
+		} catch (Throwable e) {
+			failedRefreshCount.increment();
+			lastRefreshFailure = e;
+			recordRefreshTime(start);
 
-			try {
-				wait(requestTimeoutMs);
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				log.debug(e.toString());
-			}
+			log.warn("KeySetProvider threw error", e);
 
-			JsonWebKey result = getKeySimple(kid);
+			refresh.completeExceptionally(e);
 
-			if (result != null) {
-				return result;
-			}
+			scheduleProactiveRefresh(minRefreshIntervalMs);
+		}
+	}
 
-			if (refreshInProgress && currentRefreshCount == refreshCount) {
-				if (!future.isDone()) {
-					future.cancel(true);
-				}
+	private void recordRefreshTime(long startNanos) {
+		long refreshTime = System.nanoTime() - startNanos;
 
-				lastRefreshFailure = new AuthenticatorUnavailableException("Authentication backend timed out");
+		completedRefreshCount.increment();
+		refreshTimeNanos.add(refreshTime);
+		lastRefreshTimeMs = TimeUnit.NANOSECONDS.toMillis(refreshTime);
+	}
 
-				throw new AuthenticatorUnavailableException("Authentication backend timed out");
-			}
+	/**
+	 * @param maxAgeMs how long the IdP allows the keys to be cached, or a negative value if unknown
+	 */
+	private void scheduleProactiveRefresh(long maxAgeMs) {
+		if (destroyed || maxRefreshIntervalMs <= 0 || keySet.keys.isEmpty()) {
+			return;
+		}
 
-			if (lastRefreshFailure != null) {
-				throw new AuthenticatorUnavailableException("Authentication backend failed", lastRefreshFailure);
-			}
+		long delayMs = maxAgeMs < 0 ? maxRefreshIntervalMs : Math.max(minRefreshIntervalMs, Math.min(maxAgeMs, maxRefreshIntervalMs));
 
-			return null;
+		ScheduledFuture<?> previous = scheduledRefresh;
 
+		if (previous != null) {
+			previous.cancel(false);
+		}
+
+		try {
+			scheduledRefresh = executor.schedule(() -> {
+				try {
+					refresh(false);
+				} catch (AuthenticatorUnavailableException e) {
+					log.warn("Proactive refresh of JWKS failed", e);
+				}
+			}, delayMs, TimeUnit.MILLISECONDS);
 		} catch (RejectedExecutionException e) {
-			throw new AuthenticatorUnavailableException("Did not try to call authentication backend because of "
-					+ threadPoolExecutor.getActiveCount() + " pending threads", e);
-		} finally {
-			if (refreshInProgress && currentRefreshCount == refreshCount) {
-				refreshInProgress = false;
-				notifyAll();
+			log.debug("Proactive refresh of JWKS was rejected", e);
+		}
+	}
+
+	@Override
+	public void addKeySetChangeListener(Runnable listener) {
+		keySetChangeListeners.add(listener);
+	}
+
+	private void notifyKeySetChangeListeners() {
+		for (Runnable listener : keySetChangeListeners) {
+			try {
+				listener.run();
+			} catch (Exception e) {
+				log.warn("Key set change listener {} failed", listener, e);
 			}
 		}
 	}
 
+	/**
+	 * Stops the proactive refreshes. Keys which have already been loaded are still served.
+	 */
+	public void destroy() {
+		destroyed = true;
+		executor.shutdownNow();
+
+		CompletableFuture<KeySet> refresh = pendingRefresh.get();
+
+		if (refresh != null) {
+			refresh.completeExceptionally(new AuthenticatorUnavailableException("Key set has been destroyed"));
+		}
+	}
+
+	public Map<String, Object> getStats() {
+		long completedRefreshes = completedRefreshCount.sum();
+		Throwable lastRefreshFailure = this.lastRefreshFailure;
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("keys", keySet.keys.size());
+		result.put("refreshes", refreshCount.get());
+		result.put("failed_refreshes", failedRefreshCount.sum());
+		result.put("last_refresh_time_millis", lastRefreshTimeMs);
+		result.put("avg_refresh_time_millis", completedRefreshes == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(refreshTimeNanos.sum() / completedRefreshes));
+		result.put("queued_gets", queuedGetCount.sum());
+		result.put("rejected_gets", rejectedGetCount.sum());
+		result.put("last_refresh_failure", lastRefreshFailure == null ? null : lastRefreshFailure.toString());
+		return result;
+	}
+
 	public int getRequestTimeoutMs() {
 		return requestTimeoutMs;
 	}
@@ -298,11 +400,23 @@ public class SelfRefreshingKeySet implements KeyProvider {
 	}
 
 	public long getRefreshCount() {
-		return refreshCount;
+		return refreshCount.get();
 	}
 
 	public long getQueuedGetCount() {
-		return queuedGetCount;
+		return queuedGetCount.sum();
+	}
+
+	public long getRejectedGetCount() {
+		return rejectedGetCount.sum();
+	}
+
+	public long getFailedRefreshCount() {
+		return failedRefreshCount.sum();
+	}
+
+	public long getLastRefreshTimeMs() {
+		return lastRefreshTimeMs;
 	}
 
 	public int getRefreshRateLimitTimeWindowMs() {
@@ -320,4 +434,57 @@ public class SelfRefreshingKeySet implements KeyProvider {
 	public void setRefreshRateLimitCount(int refreshRateLimitCount) {
 		this.refreshRateLimitCount = refreshRateLimitCount;
 	}
+
+	public int getMinRefreshIntervalMs() {
+		return minRefreshIntervalMs;
+	}
+
+	public void setMinRefreshIntervalMs(int minRefreshIntervalMs) {
+		this.minRefreshIntervalMs = minRefreshIntervalMs;
+	}
+
+	public int getMaxRefreshIntervalMs() {
+		return maxRefreshIntervalMs;
+	}
+
+	/**
+	 * @param maxRefreshIntervalMs the interval of the proactive refreshes if the IdP does not send cache headers,
+	 * and their maximum interval otherwise. 0 disables proactive refreshes.
+	 */
+	public void setMaxRefreshIntervalMs(int maxRefreshIntervalMs) {
+		this.maxRefreshIntervalMs = maxRefreshIntervalMs;
+	}
+
+	private static final class KeySet {
+		private static final KeySet EMPTY = new KeySet(new JsonWebKeys());
+
+		private final List<JsonWebKey> keys;
+		private final Map<String, JsonWebKey> keysById;
+
+		private KeySet(JsonWebKeys jsonWebKeys) {
+			List<JsonWebKey> keys = jsonWebKeys.getKeys();
+			Map<String, JsonWebKey> keysById = new HashMap<>();
+
+			if (keys == null) {
+				keys = Collections.emptyList();
+			}
+
+			for (JsonWebKey key : keys) {
+				if (key.getKeyId() != null) {
+					keysById.putIfAbsent(key.getKeyId(), key);
+				}
+			}
+
+			this.keys = Collections.unmodifiableList(keys);
+			this.keysById = Collections.unmodifiableMap(keysById);
+		}
+
+		private JsonWebKey getKey(String kid) {
+			if (Strings.isNullOrEmpty(kid)) {
+				return keys.size() == 1 ? keys.get(0) : null;
+			} else {
+				return keysById.get(kid);
+			}
+		}
+	}
 }
@@ -44,6 +44,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -88,6 +89,7 @@ import org.opensearch.common.settings.Setting;
 import org.opensearch.common.settings.Setting.Property;
 import org.opensearch.common.settings.Settings;
 import org.opensearch.common.settings.SettingsFilter;
+import org.opensearch.common.unit.TimeValue;
 import org.opensearch.common.util.BigArrays;
 import org.opensearch.common.util.PageCacheRecycler;
 import org.opensearch.common.util.concurrent.ThreadContext;
@@ -98,11 +100,16 @@ import org.opensearch.http.HttpServerTransport;
 import org.opensearch.http.HttpServerTransport.Dispatcher;
 import org.opensearch.index.Index;
 import org.opensearch.index.IndexModule;
+import org.opensearch.index.IndexSettings;
 import org.opensearch.index.cache.query.QueryCache;
+import org.opensearch.index.shard.IndexEventListener;
+import org.opensearch.index.shard.IndexShard;
 import org.opensearch.index.shard.SearchOperationListener;
+import org.opensearch.index.shard.ShardId;
 import org.opensearch.indices.IndicesService;
 import org.opensearch.indices.SystemIndexDescriptor;
 import org.opensearch.indices.breaker.CircuitBreakerService;
+import org.opensearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
 import org.opensearch.plugins.ClusterPlugin;
 import org.opensearch.plugins.MapperPlugin;
 import org.opensearch.repositories.RepositoriesService;
@@ -130,11 +137,15 @@ import org.opensearch.security.configuration.AdminDNs;
 import org.opensearch.security.configuration.ClusterInfoHolder;
 import org.opensearch.security.configuration.CompatConfig;
 import org.opensearch.security.configuration.ConfigurationRepository;
+import org.opensearch.security.configuration.DlsBitSetCache;
 import org.opensearch.security.configuration.DlsFlsRequestValve;
 import org.opensearch.security.configuration.DlsFlsValveImpl;
+import org.opensearch.security.configuration.DlsQueryCache;
+import org.opensearch.security.configuration.MaskedOrdinalCache;
 import org.opensearch.security.configuration.PrivilegesInterceptorImpl;
 import org.opensearch.security.configuration.Salt;
 import org.opensearch.security.configuration.SecurityFlsDlsIndexSearcherWrapper;
+import org.opensearch.security.configuration.TermsLookupCache;
 import org.opensearch.security.dlic.rest.api.SecurityRestApiActions;
 import org.opensearch.security.filter.SecurityFilter;
 import org.opensearch.security.filter.SecurityRestFilter;
@@ -148,6 +159,7 @@ import org.opensearch.security.rest.DashboardsInfoAction;
 import org.opensearch.security.rest.SecurityConfigUpdateAction;
 import org.opensearch.security.rest.SecurityHealthAction;
 import org.opensearch.security.rest.SecurityInfoAction;
+import org.opensearch.security.rest.SecurityStatsAction;
 import org.opensearch.security.rest.SecurityWhoAmIAction;
 import org.opensearch.security.rest.TenantInfoAction;
 import org.opensearch.security.securityconf.DynamicConfigFactory;
@@ -162,9 +174,11 @@ import org.opensearch.security.ssl.transport.DefaultPrincipalExtractor;
 import org.opensearch.security.ssl.transport.SecuritySSLNettyTransport;
 import org.opensearch.security.ssl.util.SSLConfigConstants;
 import org.opensearch.security.support.ConfigConstants;
+import org.opensearch.security.support.DeserializedHeaderCache;
 import org.opensearch.security.support.HeaderHelper;
 import org.opensearch.security.support.ModuleInfo;
 import org.opensearch.security.support.ReflectionHelper;
+import org.opensearch.security.support.ReverseDnsCache;
 import org.opensearch.security.support.SecuritySettings;
 import org.opensearch.security.support.SecurityUtils;
 import org.opensearch.security.support.WildcardMatcher;
@@ -173,6 +187,8 @@ import org.opensearch.security.transport.InterClusterRequestEvaluator;
 import org.opensearch.security.transport.SecurityInterceptor;
 import org.opensearch.security.user.User;
 import org.opensearch.tasks.Task;
+import org.opensearch.threadpool.ExecutorBuilder;
+import org.opensearch.threadpool.FixedExecutorBuilder;
 import org.opensearch.threadpool.ThreadPool;
 import org.opensearch.transport.RemoteClusterService;
 import org.opensearch.transport.Transport;
@@ -215,6 +231,11 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
     private volatile NamedXContentRegistry namedXContentRegistry = null;
     private volatile DlsFlsRequestValve dlsFlsValve = null;
     private volatile Salt salt;
+    private volatile MaskedOrdinalCache maskedOrdinalCache;
+    private volatile DlsBitSetCache dlsBitSetCache;
+    private volatile TermsLookupCache termsLookupCache;
+    private volatile DlsQueryCache dlsQueryCache;
+    private volatile ReverseDnsCache reverseDnsCache;
     private volatile OpensearchDynamicSetting<Boolean> transportPassiveAuthSetting;
 
     public static boolean isActionTraceEnabled() {
@@ -465,6 +486,8 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
             if(!SSLConfig.isSslOnlyMode()) {
                 handlers.add(new SecurityInfoAction(settings, restController, Objects.requireNonNull(evaluator), Objects.requireNonNull(threadPool)));
                 handlers.add(new SecurityHealthAction(settings, restController, Objects.requireNonNull(backendRegistry)));
+                handlers.add(new SecurityStatsAction(settings, restController, getStatsSections(), Objects.requireNonNull(threadPool),
+                        Objects.requireNonNull(adminDns)));
                 handlers.add(new SecuritySSLCertsInfoAction(settings, restController, sks, Objects.requireNonNull(threadPool), Objects.requireNonNull(adminDns)));
                 handlers.add(new DashboardsInfoAction(settings, restController, Objects.requireNonNull(evaluator), Objects.requireNonNull(threadPool)));
                 handlers.add(new TenantInfoAction(settings, restController, Objects.requireNonNull(evaluator), Objects.requireNonNull(threadPool),
@@ -483,6 +506,21 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
         return handlers;
     }
 
+    /**
+     * @return the statistics of the caches and queues of this node, as returned by {@link SecurityStatsAction}
+     */
+    private Map<String, Supplier<Map<String, Object>>> getStatsSections() {
+        final Map<String, Supplier<Map<String, Object>>> sections = new LinkedHashMap<>();
+        sections.put("audit", Objects.requireNonNull(auditLog)::getStats);
+        sections.put("dls_bitset_cache", Objects.requireNonNull(dlsBitSetCache)::getStats);
+        sections.put("terms_lookup_cache", Objects.requireNonNull(termsLookupCache)::getStats);
+        sections.put("dls_query_cache", Objects.requireNonNull(dlsQueryCache)::getStats);
+        sections.put("reverse_dns_cache", Objects.requireNonNull(reverseDnsCache)::getStats);
+        sections.put("deserialized_header_cache", DeserializedHeaderCache::getStats);
+        sections.put("authenticators", Objects.requireNonNull(backendRegistry)::getAuthenticatorStats);
+        return sections;
+    }
+
     @Override
     public UnaryOperator<RestHandler> getRestHandlerWrapper(final ThreadContext threadContext) {
 
@@ -512,8 +550,22 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
 
             final ComplianceIndexingOperationListener ciol = new ComplianceIndexingOperationListenerImpl(auditLog);
             indexModule.addIndexOperationListener(ciol);
+            indexModule.addIndexOperationListener(termsLookupCache);
+
+            indexModule.setReaderWrapper(indexService -> new SecurityFlsDlsIndexSearcherWrapper(indexService, settings, adminDns, cs, auditLog, ciol, evaluator, salt, maskedOrdinalCache, dlsBitSetCache,
+                    dlsQueryCache));
+            indexModule.addIndexEventListener(new IndexEventListener() {
 
-            indexModule.setReaderWrapper(indexService -> new SecurityFlsDlsIndexSearcherWrapper(indexService, settings, adminDns, cs, auditLog, ciol, evaluator, salt));
+                @Override
+                public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
+                    dlsQueryCache.invalidate(index);
+                }
+
+                @Override
+                public void afterIndexShardClosed(ShardId shardId, IndexShard indexShard, Settings indexSettings) {
+                    termsLookupCache.invalidate(shardId.getIndex());
+                }
+            });
             indexModule.forceQueryCacheProvider((indexSettings,nodeCache)->new QueryCache() {
 
                 @Override
@@ -533,15 +585,13 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
 
                 @Override
                 public Weight doCache(Weight weight, QueryCachingPolicy policy) {
-                    final Map<String, Set<String>> allowedFlsFields = (Map<String, Set<String>>) HeaderHelper.deserializeSafeFromHeader(threadPool.getThreadContext(),
-                            ConfigConstants.OPENDISTRO_SECURITY_FLS_FIELDS_HEADER);
+                    final Map<String, Set<String>> allowedFlsFields = HeaderHelper.getFlsFieldsFromHeader(threadPool.getThreadContext());
 
                     if(SecurityUtils.evalMap(allowedFlsFields, index().getName()) != null) {
                         return weight;
                     } else {
 
-                        final Map<String, Set<String>> maskedFieldsMap = (Map<String, Set<String>>) HeaderHelper.deserializeSafeFromHeader(threadPool.getThreadContext(),
-                                ConfigConstants.OPENDISTRO_SECURITY_MASKED_FIELD_HEADER);
+                        final Map<String, Set<String>> maskedFieldsMap = HeaderHelper.getMaskedFieldsFromHeader(threadPool.getThreadContext());
 
                         if(SecurityUtils.evalMap(maskedFieldsMap, index().getName()) != null) {
                             return weight;
@@ -617,8 +667,7 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
                         return;
                     }
 
-                    final Map<String, Set<String>> maskedFieldsMap = (Map<String, Set<String>>) HeaderHelper.deserializeSafeFromHeader(threadPool.getThreadContext(),
-                            ConfigConstants.OPENDISTRO_SECURITY_MASKED_FIELD_HEADER);
+                    final Map<String, Set<String>> maskedFieldsMap = HeaderHelper.getMaskedFieldsFromHeader(threadPool.getThreadContext());
                     final String maskedEval = SecurityUtils.evalMap(maskedFieldsMap, indexModule.getIndex().getName());
                     if (maskedEval != null) {
                         final Set<String> mf = maskedFieldsMap.get(maskedEval);
@@ -766,6 +815,11 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
         final ClusterInfoHolder cih = new ClusterInfoHolder();
         this.cs.addListener(cih);
         this.salt = Salt.from(settings);
+        this.maskedOrdinalCache = new MaskedOrdinalCache(settings);
+        this.dlsBitSetCache = new DlsBitSetCache(settings);
+        this.termsLookupCache = new TermsLookupCache(settings, clusterService);
+        this.dlsQueryCache = new DlsQueryCache(settings);
+        this.reverseDnsCache = new ReverseDnsCache(settings, threadPool.executor(ReverseDnsCache.THREAD_POOL_NAME));
 
         final IndexNameExpressionResolver resolver = new IndexNameExpressionResolver(threadPool.getThreadContext());
         irr = new IndexResolverReplacer(resolver, clusterService, cih);
@@ -787,7 +841,8 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
             auditLog = new NullAuditLog();
             privilegesInterceptor = new PrivilegesInterceptor(resolver, clusterService, localClient, threadPool);
         } else {
-            dlsFlsValve = new DlsFlsValveImpl(settings, localClient, clusterService, resolver, xContentRegistry, threadPool.getThreadContext());
+            dlsFlsValve = new DlsFlsValveImpl(settings, localClient, clusterService, resolver, xContentRegistry, threadPool.getThreadContext(),
+                    termsLookupCache, dlsQueryCache);
             auditLog = new AuditLogImpl(settings, configPath, localClient, threadPool, resolver, clusterService, environment);
             privilegesInterceptor = new PrivilegesInterceptorImpl(resolver, clusterService, localClient, threadPool);
         }
@@ -821,12 +876,13 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
         securityRestHandler = new SecurityRestFilter(backendRegistry, auditLog, threadPool,
                 principalExtractor, settings, configPath, compatConfig);
 
-        final DynamicConfigFactory dcf = new DynamicConfigFactory(cr, settings, configPath, localClient, threadPool, cih);
+        final DynamicConfigFactory dcf = new DynamicConfigFactory(cr, settings, configPath, localClient, threadPool, cih, reverseDnsCache);
         dcf.registerDCFListener(backendRegistry);
         dcf.registerDCFListener(compatConfig);
         dcf.registerDCFListener(irr);
         dcf.registerDCFListener(xffResolver);
         dcf.registerDCFListener(evaluator);
+        dcf.registerDCFListener(termsLookupCache);
         dcf.registerDCFListener(securityRestHandler);
         if (!(auditLog instanceof NullAuditLog)) {
             // Don't register if advanced modules is disabled in which case auditlog is instance of NullAuditLog
@@ -877,6 +933,17 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
         }
         return builder.build();
     }
+
+    @Override
+    public List<ExecutorBuilder<?>> getExecutorBuilders(Settings settings) {
+        if (disabled || client || SSLConfig.isSslOnlyMode()) {
+            return Collections.emptyList();
+        }
+
+        // reverse DNS lookups for host based role mappings, which must not block request threads
+        return Collections.singletonList(new FixedExecutorBuilder(settings, ReverseDnsCache.THREAD_POOL_NAME, 2, 1000));
+    }
+
     @Override
     public List<Setting<?>> getSettings() {
         List<Setting<?>> settings = new ArrayList<Setting<?>>();
@@ -918,6 +985,10 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
             settings.add(Setting.boolSetting(ConfigConstants.SECURITY_DISABLED, false, Property.NodeScope, Property.Filtered));
     
             settings.add(Setting.intSetting(ConfigConstants.SECURITY_CACHE_TTL_MINUTES, 60, 0, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.positiveTimeSetting(ConfigConstants.SECURITY_HOSTS_RESOLVER_CACHE_TTL, TimeValue.timeValueMinutes(10),
+                    Property.NodeScope, Property.Filtered));
+            settings.add(Setting.positiveTimeSetting(ConfigConstants.SECURITY_HOSTS_RESOLVER_CACHE_NEGATIVE_TTL, TimeValue.timeValueMinutes(1),
+                    Property.NodeScope, Property.Filtered));
     
             //Security
             settings.add(Setting.boolSetting(ConfigConstants.SECURITY_ADVANCED_MODULES_ENABLED, true, Property.NodeScope, Property.Filtered));
@@ -936,6 +1007,12 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
             settings.add(Setting.groupSetting(ConfigConstants.SECURITY_AUDIT_CONFIG_ENDPOINTS + ".",  Property.NodeScope));
             settings.add(Setting.intSetting(ConfigConstants.SECURITY_AUDIT_THREADPOOL_SIZE, 10, Property.NodeScope, Property.Filtered));
             settings.add(Setting.intSetting(ConfigConstants.SECURITY_AUDIT_THREADPOOL_MAX_QUEUE_LEN, 100*1000, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.simpleString(ConfigConstants.SECURITY_AUDIT_THREADPOOL_OVERFLOW_POLICY, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.longSetting(ConfigConstants.SECURITY_AUDIT_THREADPOOL_BLOCK_TIMEOUT_MS, 100L, 0, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.intSetting(ConfigConstants.SECURITY_AUDIT_THREADPOOL_BATCH_SIZE, 64, 1, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.listSetting(ConfigConstants.SECURITY_AUDIT_IGNORE_INDICES, Collections.emptyList(), Function.identity(), Property.NodeScope, Property.Filtered));
+            settings.add(Setting.listSetting(ConfigConstants.SECURITY_AUDIT_SAMPLING_CATEGORIES, Collections.emptyList(), Function.identity(), Property.NodeScope, Property.Filtered));
+            settings.add(Setting.intSetting(ConfigConstants.SECURITY_AUDIT_SAMPLING_RATE, 1, 1, Property.NodeScope, Property.Filtered));
             settings.add(Setting.boolSetting(ConfigConstants.OPENDISTRO_SECURITY_AUDIT_LOG_REQUEST_BODY, true, Property.NodeScope, Property.Filtered));
             settings.add(Setting.boolSetting(ConfigConstants.OPENDISTRO_SECURITY_AUDIT_RESOLVE_INDICES, true, Property.NodeScope, Property.Filtered));
             settings.add(Setting.boolSetting(ConfigConstants.OPENDISTRO_SECURITY_AUDIT_ENABLE_REST, true, Property.NodeScope, Property.Filtered));
@@ -956,6 +1033,12 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
             // Security - Audit - Sink
             settings.add(Setting.simpleString(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_INDEX, Property.NodeScope, Property.Filtered));
             settings.add(Setting.simpleString(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_TYPE, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.boolSetting(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_ENABLED, false, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.intSetting(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_ACTIONS, 500, 1, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.longSetting(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_BYTES, 5L * 1024 * 1024, 1, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.intSetting(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_QUEUE_LEN, 10000, 1, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.intSetting(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_RETRIES, 3, 0, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.longSetting(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_FLUSH_INTERVAL_MS, 1000L, 1, Property.NodeScope, Property.Filtered));
     
             // External OpenSearch
             settings.add(Setting.listSetting(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_EXTERNAL_OPENSEARCH_HTTP_ENDPOINTS, Lists.newArrayList("localhost:9200"), Function.identity(), Property.NodeScope)); //not filtered here
@@ -1007,12 +1090,18 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
             settings.add(Setting.boolSetting(ConfigConstants.OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_WRITE_METADATA_ONLY, false, Property.NodeScope, Property.Filtered));
             settings.add(Setting.boolSetting(ConfigConstants.OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_READ_METADATA_ONLY, false, Property.NodeScope, Property.Filtered));
             settings.add(Setting.boolSetting(ConfigConstants.OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_WRITE_LOG_DIFFS, false, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.listSetting(ConfigConstants.SECURITY_COMPLIANCE_HISTORY_WRITE_DIFF_INCLUDE_FIELDS, Collections.emptyList(), Function.identity(), Property.NodeScope, Property.Filtered));
+            settings.add(Setting.listSetting(ConfigConstants.SECURITY_COMPLIANCE_HISTORY_WRITE_DIFF_EXCLUDE_FIELDS, Collections.emptyList(), Function.identity(), Property.NodeScope, Property.Filtered));
             settings.add(Setting.boolSetting(ConfigConstants.OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_EXTERNAL_CONFIG_ENABLED, false, Property.NodeScope, Property.Filtered));
             settings.add(Setting.listSetting(ConfigConstants.OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_READ_IGNORE_USERS, Collections.emptyList(), Function.identity(), Property.NodeScope)); //not filtered here
             settings.add(Setting.listSetting(ConfigConstants.OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_WRITE_IGNORE_USERS, Collections.emptyList(), Function.identity(), Property.NodeScope)); //not filtered here
             settings.add(Setting.boolSetting(ConfigConstants.SECURITY_COMPLIANCE_DISABLE_ANONYMOUS_AUTHENTICATION, false, Property.NodeScope, Property.Filtered));
             settings.add(Setting.listSetting(ConfigConstants.SECURITY_COMPLIANCE_IMMUTABLE_INDICES, Collections.emptyList(), Function.identity(), Property.NodeScope)); //not filtered here
             settings.add(Setting.simpleString(ConfigConstants.SECURITY_COMPLIANCE_SALT, Property.NodeScope, Property.Filtered));
+            settings.add(Setting.memorySizeSetting(ConfigConstants.SECURITY_MASKED_FIELDS_ORDINAL_CACHE_SIZE, "1%", Property.NodeScope, Property.Filtered));
+            settings.add(Setting.memorySizeSetting(ConfigConstants.SECURITY_DLS_BITSET_CACHE_SIZE, "2%", Property.NodeScope, Property.Filtered));
+            settings.add(Setting.memorySizeSetting(ConfigConstants.SECURITY_DLS_TERMS_LOOKUP_CACHE_SIZE, "1%", Property.NodeScope, Property.Filtered));
+            settings.add(Setting.memorySizeSetting(ConfigConstants.SECURITY_DLS_QUERY_CACHE_SIZE, "1%", Property.NodeScope, Property.Filtered));
             settings.add(Setting.boolSetting(ConfigConstants.SECURITY_COMPLIANCE_HISTORY_INTERNAL_CONFIG_ENABLED, false, Property.NodeScope, Property.Filtered));
             settings.add(transportPassiveAuthSetting.getDynamicSetting());
 
@@ -1081,8 +1170,7 @@ public final class OpenSearchSecurityPlugin extends OpenSearchSecuritySSLPlugin
             if (threadPool == null) {
                 return field -> true;
             }
-            final Map<String, Set<String>> allowedFlsFields = (Map<String, Set<String>>) HeaderHelper
-                    .deserializeSafeFromHeader(threadPool.getThreadContext(), ConfigConstants.OPENDISTRO_SECURITY_FLS_FIELDS_HEADER);
+            final Map<String, Set<String>> allowedFlsFields = HeaderHelper.getFlsFieldsFromHeader(threadPool.getThreadContext());
 
             final String eval = SecurityUtils.evalMap(allowedFlsFields, index);
 
@@ -31,7 +31,9 @@
 package org.opensearch.security.action.configupdate;
 
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -50,6 +52,7 @@ import org.opensearch.security.auth.BackendRegistry;
 import org.opensearch.security.configuration.ConfigurationRepository;
 import org.opensearch.security.securityconf.DynamicConfigFactory;
 import org.opensearch.security.securityconf.impl.CType;
+import org.opensearch.security.securityconf.impl.SecurityDynamicConfiguration;
 import org.opensearch.threadpool.ThreadPool;
 import org.opensearch.transport.TransportService;
 
@@ -57,6 +60,12 @@ public class TransportConfigUpdateAction
 extends
 TransportNodesAction<ConfigUpdateRequest, ConfigUpdateResponse, TransportConfigUpdateAction.NodeConfigUpdateRequest, ConfigUpdateNodeResponse> {
 
+    /**
+     * The configuration types which do not affect the users, impersonated users and backend roles cached by the {@link BackendRegistry}
+     */
+    private static final Set<CType> AUTHC_INDEPENDENT_TYPES = EnumSet.of(CType.ROLES, CType.ROLESMAPPING, CType.ACTIONGROUPS,
+            CType.TENANTS, CType.NODESDN, CType.AUDIT, CType.WHITELIST, CType.ALLOWLIST);
+
     protected Logger logger = LogManager.getLogger(getClass());
     private final Provider<BackendRegistry> backendRegistry;
     private final ConfigurationRepository configurationRepository;
@@ -110,8 +119,26 @@ TransportNodesAction<ConfigUpdateRequest, ConfigUpdateResponse, TransportConfigU
 	
     @Override
     protected ConfigUpdateNodeResponse nodeOperation(final NodeConfigUpdateRequest request) {
-        configurationRepository.reloadConfiguration(CType.fromStringValues((request.request.getConfigTypes())));
-        backendRegistry.get().invalidateCache();
+        final Set<CType> configTypes = CType.fromStringValues((request.request.getConfigTypes()));
+        final boolean internalUsersOnly = configTypes.contains(CType.INTERNALUSERS)
+                && configTypes.stream().allMatch(type -> type == CType.INTERNALUSERS || AUTHC_INDEPENDENT_TYPES.contains(type));
+        final SecurityDynamicConfiguration<?> previousInternalUsers = internalUsersOnly
+                ? configurationRepository.getConfiguration(CType.INTERNALUSERS) : null;
+
+        configurationRepository.reloadConfiguration(configTypes);
+
+        if (previousInternalUsers != null) {
+            final Set<String> changedUsers = previousInternalUsers.changedKeys(configurationRepository.getConfiguration(CType.INTERNALUSERS));
+            if (changedUsers != null) {
+                logger.debug("Invalidating the cached entries of changed internal users {}", changedUsers);
+                backendRegistry.get().invalidateCache(changedUsers);
+            } else {
+                backendRegistry.get().invalidateCache();
+            }
+        } else if (!AUTHC_INDEPENDENT_TYPES.containsAll(configTypes)) {
+            backendRegistry.get().invalidateCache();
+        }
+
         return new ConfigUpdateNodeResponse(clusterService.localNode(), request.request.getConfigTypes(), null);
     }
 
@@ -31,6 +31,7 @@
 package org.opensearch.security.auditlog;
 
 import java.io.Closeable;
+import java.util.Collections;
 import java.util.Map;
 
 import org.opensearch.index.engine.Engine.Delete;
@@ -78,6 +79,11 @@ public interface AuditLog extends Closeable {
 
     // set config
     void setConfig(AuditConfig auditConfig);
+
+    // delivery statistics per sink
+    default Map<String, Object> getStats() {
+        return Collections.emptyMap();
+    }
     
     public enum Origin {
         REST, TRANSPORT, LOCAL
@@ -21,11 +21,35 @@ import org.opensearch.security.support.ConfigConstants;
 public class ThreadPoolConfig {
     private static final int DEFAULT_THREAD_POOL_SIZE = 10;
     private static final int DEFAULT_THREAD_POOL_MAX_QUEUE_LEN = 100_000;
+    private static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.FALLBACK;
+    private static final long DEFAULT_BLOCK_TIMEOUT_MS = 100;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * What happens to an audit message if the queue of its sink is full
+     */
+    public enum OverflowPolicy {
+        /** the new message is dropped */
+        DROP_NEWEST,
+        /** the oldest queued message is dropped to make room for the new one */
+        DROP_OLDEST,
+        /** the caller waits up to block_timeout_ms for free space and drops the message afterwards */
+        BLOCK,
+        /** the message is handed to the fallback sink by a dedicated thread */
+        FALLBACK
+    }
 
     private final int threadPoolSize;
     private final int threadPoolMaxQueueLen;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final int batchSize;
 
     public ThreadPoolConfig(int threadPoolSize, int threadPoolMaxQueueLen) {
+        this(threadPoolSize, threadPoolMaxQueueLen, DEFAULT_OVERFLOW_POLICY, DEFAULT_BLOCK_TIMEOUT_MS, DEFAULT_BATCH_SIZE);
+    }
+
+    public ThreadPoolConfig(int threadPoolSize, int threadPoolMaxQueueLen, OverflowPolicy overflowPolicy, long blockTimeoutMs, int batchSize) {
         if (threadPoolSize <= 0) {
             throw new IllegalArgumentException("Incorrect thread pool size: " + threadPoolSize + " configured for audit logging.");
         }
@@ -34,8 +58,19 @@ public class ThreadPoolConfig {
             throw new IllegalArgumentException("Incorrect thread pool queue length: " + threadPoolMaxQueueLen + " configured for audit logging.");
         }
 
+        if (blockTimeoutMs < 0) {
+            throw new IllegalArgumentException("Incorrect block timeout: " + blockTimeoutMs + " configured for audit logging.");
+        }
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Incorrect batch size: " + batchSize + " configured for audit logging.");
+        }
+
         this.threadPoolSize = threadPoolSize;
         this.threadPoolMaxQueueLen = threadPoolMaxQueueLen;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.batchSize = batchSize;
     }
 
     public int getThreadPoolSize() {
@@ -46,10 +81,32 @@ public class ThreadPoolConfig {
         return threadPoolMaxQueueLen;
     }
 
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getBlockTimeoutMs() {
+        return blockTimeoutMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
     public static ThreadPoolConfig getConfig(Settings settings) {
         int threadPoolSize = settings.getAsInt(ConfigConstants.SECURITY_AUDIT_THREADPOOL_SIZE, DEFAULT_THREAD_POOL_SIZE);
         int threadPoolMaxQueueLen = settings.getAsInt(ConfigConstants.SECURITY_AUDIT_THREADPOOL_MAX_QUEUE_LEN, DEFAULT_THREAD_POOL_MAX_QUEUE_LEN);
+        long blockTimeoutMs = settings.getAsLong(ConfigConstants.SECURITY_AUDIT_THREADPOOL_BLOCK_TIMEOUT_MS, DEFAULT_BLOCK_TIMEOUT_MS);
+        int batchSize = settings.getAsInt(ConfigConstants.SECURITY_AUDIT_THREADPOOL_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+        String overflowPolicyName = settings.get(ConfigConstants.SECURITY_AUDIT_THREADPOOL_OVERFLOW_POLICY, DEFAULT_OVERFLOW_POLICY.name());
+
+        OverflowPolicy overflowPolicy;
+        try {
+            overflowPolicy = OverflowPolicy.valueOf(overflowPolicyName.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Incorrect overflow policy: " + overflowPolicyName + " configured for audit logging.");
+        }
 
-        return new ThreadPoolConfig(threadPoolSize, threadPoolMaxQueueLen);
+        return new ThreadPoolConfig(threadPoolSize, threadPoolMaxQueueLen, overflowPolicy, blockTimeoutMs, batchSize);
     }
 }
@@ -30,8 +30,6 @@ import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.flipkart.zjsonpatch.JsonDiff;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.io.BaseEncoding;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -47,6 +45,7 @@ import org.opensearch.action.update.UpdateRequest;
 import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
 import org.opensearch.cluster.service.ClusterService;
 import org.opensearch.common.Strings;
+import org.opensearch.common.bytes.BytesArray;
 import org.opensearch.common.bytes.BytesReference;
 import org.opensearch.common.collect.Tuple;
 import org.opensearch.common.settings.Settings;
@@ -65,7 +64,6 @@ import org.opensearch.index.engine.Engine.IndexResult;
 import org.opensearch.index.get.GetResult;
 import org.opensearch.index.shard.ShardId;
 import org.opensearch.rest.RestRequest;
-import org.opensearch.security.DefaultObjectMapper;
 import org.opensearch.security.auditlog.AuditLog;
 import org.opensearch.security.auditlog.config.AuditConfig;
 import org.opensearch.security.compliance.ComplianceConfig;
@@ -90,6 +88,7 @@ public abstract class AbstractAuditLog implements AuditLog {
     private final String securityIndex;
     private volatile ComplianceConfig complianceConfig;
     private final Environment environment;
+    private final AuditPreFilter preFilter;
     private AtomicBoolean externalConfigLogged = new AtomicBoolean();
 
     protected abstract void enableRoutes();
@@ -111,6 +110,7 @@ public abstract class AbstractAuditLog implements AuditLog {
         this.clusterService = clusterService;
         this.securityIndex = settings.get(ConfigConstants.SECURITY_CONFIG_INDEX_NAME, ConfigConstants.OPENDISTRO_SECURITY_DEFAULT_CONFIG_INDEX);
         this.environment = environment;
+        this.preFilter = new AuditPreFilter(settings);
     }
 
     protected void onAuditConfigFilterChanged(AuditConfig.Filter auditConfigFilter) {
@@ -136,7 +136,7 @@ public abstract class AbstractAuditLog implements AuditLog {
     @Override
     public void logFailedLogin(String effectiveUser, boolean securityadmin, String initiatingUser, RestRequest request) {
 
-        if(!checkRestFilter(AuditCategory.FAILED_LOGIN, effectiveUser, request)) {
+        if(!checkRestFilter(AuditCategory.FAILED_LOGIN, effectiveUser, request) || isSkipped(AuditCategory.FAILED_LOGIN, request)) {
             return;
         }
 
@@ -154,7 +154,7 @@ public abstract class AbstractAuditLog implements AuditLog {
     @Override
     public void logSucceededLogin(String effectiveUser, boolean securityadmin, String initiatingUser, RestRequest request) {
 
-        if(!checkRestFilter(AuditCategory.AUTHENTICATED, effectiveUser, request)) {
+        if(!checkRestFilter(AuditCategory.AUTHENTICATED, effectiveUser, request) || isSkipped(AuditCategory.AUTHENTICATED, request)) {
             return;
         }
 
@@ -170,7 +170,7 @@ public abstract class AbstractAuditLog implements AuditLog {
 
     @Override
     public void logMissingPrivileges(String privilege, String effectiveUser, RestRequest request) {
-        if(!checkRestFilter(AuditCategory.MISSING_PRIVILEGES, effectiveUser, request)) {
+        if(!checkRestFilter(AuditCategory.MISSING_PRIVILEGES, effectiveUser, request) || isSkipped(AuditCategory.MISSING_PRIVILEGES, request)) {
             return;
         }
 
@@ -184,7 +184,7 @@ public abstract class AbstractAuditLog implements AuditLog {
 
     @Override
     public void logGrantedPrivileges(String effectiveUser, RestRequest request) {
-        if(!checkRestFilter(AuditCategory.GRANTED_PRIVILEGES, effectiveUser, request)) {
+        if(!checkRestFilter(AuditCategory.GRANTED_PRIVILEGES, effectiveUser, request) || isSkipped(AuditCategory.GRANTED_PRIVILEGES, request)) {
             return;
         }
 
@@ -199,12 +199,12 @@ public abstract class AbstractAuditLog implements AuditLog {
     public void logMissingPrivileges(String privilege, TransportRequest request, Task task) {
         final String action = null;
 
-        if(!checkTransportFilter(AuditCategory.MISSING_PRIVILEGES, privilege, getUser(), request)) {
+        if(!checkTransportFilter(AuditCategory.MISSING_PRIVILEGES, privilege, getUser(), request) || isSkipped(AuditCategory.MISSING_PRIVILEGES, task)) {
             return;
         }
 
         final TransportAddress remoteAddress = getRemoteAddress();
-        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.MISSING_PRIVILEGES, getOrigin(), action, privilege, getUser(), null, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), null);
+        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.MISSING_PRIVILEGES, getOrigin(), action, privilege, getUser(), null, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), preFilter, null);
 
         for(AuditMessage msg: msgs) {
             save(msg);
@@ -215,12 +215,12 @@ public abstract class AbstractAuditLog implements AuditLog {
     public void logGrantedPrivileges(String privilege, TransportRequest request, Task task) {
         final String action = null;
 
-        if(!checkTransportFilter(AuditCategory.GRANTED_PRIVILEGES, privilege, getUser(), request)) {
+        if(!checkTransportFilter(AuditCategory.GRANTED_PRIVILEGES, privilege, getUser(), request) || isSkipped(AuditCategory.GRANTED_PRIVILEGES, task)) {
             return;
         }
 
         final TransportAddress remoteAddress = getRemoteAddress();
-        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.GRANTED_PRIVILEGES, getOrigin(), action, privilege, getUser(), null, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), null);
+        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.GRANTED_PRIVILEGES, getOrigin(), action, privilege, getUser(), null, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), preFilter, null);
 
         for(AuditMessage msg: msgs) {
             save(msg);
@@ -229,7 +229,7 @@ public abstract class AbstractAuditLog implements AuditLog {
 
     @Override
     public void logIndexEvent(String privilege, TransportRequest request, Task task) {
-        if(!checkTransportFilter(AuditCategory.INDEX_EVENT, privilege, getUser(), request)) {
+        if(!checkTransportFilter(AuditCategory.INDEX_EVENT, privilege, getUser(), request) || isSkipped(AuditCategory.INDEX_EVENT, task)) {
             return;
         }
         // log only cluster admin action
@@ -237,7 +237,7 @@ public abstract class AbstractAuditLog implements AuditLog {
             return;
         }
         final TransportAddress remoteAddress = getRemoteAddress();
-        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.INDEX_EVENT, getOrigin(), null, privilege, getUser(), null, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), null);
+        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.INDEX_EVENT, getOrigin(), null, privilege, getUser(), null, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), preFilter, null);
 
         msgs.forEach(this::save);
     }
@@ -245,12 +245,12 @@ public abstract class AbstractAuditLog implements AuditLog {
     @Override
     public void logBadHeaders(TransportRequest request, String action, Task task) {
 
-        if(!checkTransportFilter(AuditCategory.BAD_HEADERS, action, getUser(), request)) {
+        if(!checkTransportFilter(AuditCategory.BAD_HEADERS, action, getUser(), request) || isSkipped(AuditCategory.BAD_HEADERS, task)) {
             return;
         }
 
         final TransportAddress remoteAddress = getRemoteAddress();
-        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.BAD_HEADERS, getOrigin(), action, null, getUser(), null, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), null);
+        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.BAD_HEADERS, getOrigin(), action, null, getUser(), null, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), preFilter, null);
 
         for(AuditMessage msg: msgs) {
             save(msg);
@@ -260,7 +260,7 @@ public abstract class AbstractAuditLog implements AuditLog {
     @Override
     public void logBadHeaders(RestRequest request) {
 
-        if(!checkRestFilter(AuditCategory.BAD_HEADERS, getUser(), request)) {
+        if(!checkRestFilter(AuditCategory.BAD_HEADERS, getUser(), request) || isSkipped(AuditCategory.BAD_HEADERS, request)) {
             return;
         }
 
@@ -276,12 +276,12 @@ public abstract class AbstractAuditLog implements AuditLog {
     @Override
     public void logSecurityIndexAttempt(TransportRequest request, String action, Task task) {
 
-        if(!checkTransportFilter(AuditCategory.OPENDISTRO_SECURITY_INDEX_ATTEMPT, action, getUser(), request)) {
+        if(!checkTransportFilter(AuditCategory.OPENDISTRO_SECURITY_INDEX_ATTEMPT, action, getUser(), request) || isSkipped(AuditCategory.OPENDISTRO_SECURITY_INDEX_ATTEMPT, task)) {
             return;
         }
 
         final TransportAddress remoteAddress = getRemoteAddress();
-        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.OPENDISTRO_SECURITY_INDEX_ATTEMPT, getOrigin(), action, null, getUser(), false, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), null);
+        final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.OPENDISTRO_SECURITY_INDEX_ATTEMPT, getOrigin(), action, null, getUser(), false, null, remoteAddress, request, getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), preFilter, null);
 
         for(AuditMessage msg: msgs) {
             save(msg);
@@ -291,14 +291,14 @@ public abstract class AbstractAuditLog implements AuditLog {
     @Override
     public void logSSLException(TransportRequest request, Throwable t, String action, Task task) {
 
-        if(!checkTransportFilter(AuditCategory.SSL_EXCEPTION, action, getUser(), request)) {
+        if(!checkTransportFilter(AuditCategory.SSL_EXCEPTION, action, getUser(), request) || isSkipped(AuditCategory.SSL_EXCEPTION, task)) {
             return;
         }
 
         final TransportAddress remoteAddress = getRemoteAddress();
 
         final List<AuditMessage> msgs = RequestResolver.resolve(AuditCategory.SSL_EXCEPTION, Origin.TRANSPORT, action, null, getUser(), false, null, remoteAddress, request,
-                getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), t);
+                getThreadContextHeaders(), task, resolver, clusterService, settings, auditConfigFilter.shouldLogRequestBody(), auditConfigFilter.shouldResolveIndices(), auditConfigFilter.shouldResolveBulkRequests(), securityIndex, auditConfigFilter.shouldExcludeSensitiveHeaders(), preFilter, t);
 
         for(AuditMessage msg: msgs) {
             save(msg);
@@ -308,7 +308,7 @@ public abstract class AbstractAuditLog implements AuditLog {
     @Override
     public void logSSLException(RestRequest request, Throwable t) {
 
-        if(!checkRestFilter(AuditCategory.SSL_EXCEPTION, getUser(), request)) {
+        if(!checkRestFilter(AuditCategory.SSL_EXCEPTION, getUser(), request) || isSkipped(AuditCategory.SSL_EXCEPTION, request)) {
             return;
         }
 
@@ -416,37 +416,12 @@ public abstract class AbstractAuditLog implements AuditLog {
 
         if(complianceConfig.shouldLogDiffsForWrite() && originalResult != null && originalResult.isExists() && originalResult.internalSourceRef() != null) {
             try {
-                String originalSource = null;
-                String currentSource = null;
                 if (securityIndex.equals(shardId.getIndexName())) {
-                    try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY, THROW_UNSUPPORTED_OPERATION, originalResult.internalSourceRef(), XContentType.JSON)) {
-                        Object base64 = parser.map().values().iterator().next();
-                        if(base64 instanceof String) {
-                            originalSource = (new String(BaseEncoding.base64().decode((String) base64)));
-                        } else {
-                            originalSource = XContentHelper.convertToJson(originalResult.internalSourceRef(), false, XContentType.JSON);
-                        }
-                    } catch (Exception e) {
-                        log.error(e.toString());
-                    }
-
-                    try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY, THROW_UNSUPPORTED_OPERATION, currentIndex.source(), XContentType.JSON)) {
-                        Object base64 = parser.map().values().iterator().next();
-                        if(base64 instanceof String) {
-                            currentSource = (new String(BaseEncoding.base64().decode((String) base64)));
-                        } else {
-                            currentSource = XContentHelper.convertToJson(currentIndex.source(), false, XContentType.JSON);
-                        }
-                    } catch (Exception e) {
-                        log.error(e.toString());
-                    }
-                    final JsonNode diffnode = JsonDiff.asJson(DefaultObjectMapper.objectMapper.readTree(originalSource), DefaultObjectMapper.objectMapper.readTree(currentSource));
-                    msg.addSecurityConfigWriteDiffSource(diffnode.size() == 0 ? "" : diffnode.toString(), id);
+                    final BytesReference originalSource = decodeSecurityConfigSource(originalResult.internalSourceRef());
+                    final BytesReference currentSource = decodeSecurityConfigSource(currentIndex.source());
+                    msg.addSecurityConfigWriteDiffSource(complianceConfig.getWriteDiff().diff(originalSource, currentSource, XContentType.JSON), id);
                 } else {
-                    originalSource = XContentHelper.convertToJson(originalResult.internalSourceRef(), false, XContentType.JSON);
-                    currentSource = XContentHelper.convertToJson(currentIndex.source(), false, XContentType.JSON);
-                    final JsonNode diffnode = JsonDiff.asJson(DefaultObjectMapper.objectMapper.readTree(originalSource), DefaultObjectMapper.objectMapper.readTree(currentSource));
-                    msg.addComplianceWriteDiffSource(diffnode.size() == 0 ? "" : diffnode.toString());
+                    msg.addComplianceWriteDiffSource(complianceConfig.getWriteDiff().diff(originalResult.internalSourceRef(), currentIndex.source(), XContentType.JSON));
                 }
             } catch (Exception e) {
                 log.error("Unable to generate diff for {}",msg.toPrettyString(),e);
@@ -485,6 +460,21 @@ public abstract class AbstractAuditLog implements AuditLog {
         save(msg);
     }
 
+    /**
+     * Documents of the security index hold their configuration base64 encoded in a single field.
+     */
+    private BytesReference decodeSecurityConfigSource(final BytesReference source) {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY, THROW_UNSUPPORTED_OPERATION, source, XContentType.JSON)) {
+            Object base64 = parser.map().values().iterator().next();
+            if(base64 instanceof String) {
+                return new BytesArray(BaseEncoding.base64().decode((String) base64));
+            }
+        } catch (Exception e) {
+            log.error(e.toString());
+        }
+        return source;
+    }
+
     @Override
     public void logDocumentDeleted(ShardId shardId, Delete delete, DeleteResult result) {
 
@@ -739,5 +729,32 @@ public abstract class AbstractAuditLog implements AuditLog {
     }
 
 
+    /**
+     * @return true if messages of the given category would not be stored anywhere, so that they need not be built at all
+     */
+    protected boolean isDiscarding(final AuditCategory category) {
+        return false;
+    }
+
+    private boolean isSkipped(final AuditCategory category, final Task task) {
+        if (isDiscarding(category) || preFilter.isSampledOut(category, task, threadPool.getThreadContext(), clusterService.localNode().getId())) {
+            if (log.isTraceEnabled()) {
+                log.trace("Skipped audit log message because category {} is discarded or sampled out", category);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isSkipped(final AuditCategory category, final RestRequest request) {
+        if (isDiscarding(category) || preFilter.isSampledOut(category, request, threadPool.getThreadContext(), clusterService.localNode().getId())) {
+            if (log.isTraceEnabled()) {
+                log.trace("Skipped audit log message because category {} is discarded or sampled out", category);
+            }
+            return true;
+        }
+        return false;
+    }
+
     protected abstract void save(final AuditMessage msg);
 }
@@ -121,6 +121,16 @@ public final class AuditLogImpl extends AbstractAuditLog {
         }
     }
 
+	@Override
+	public Map<String, Object> getStats() {
+		return messageRouter.getStats();
+	}
+
+	@Override
+	protected boolean isDiscarding(final AuditCategory category) {
+		return !enabled || messageRouter.isDiscarding(category);
+	}
+
 	@Override
 	protected void save(final AuditMessage msg) {
 		if (enabled) {
@@ -16,32 +16,39 @@
 package org.opensearch.security.auditlog.impl;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.http.client.utils.URIBuilder;
-import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
-import org.joda.time.format.DateTimeFormat;
-import org.joda.time.format.DateTimeFormatter;
 
 import org.opensearch.ExceptionsHelper;
 import org.opensearch.cluster.service.ClusterService;
 import org.opensearch.common.Strings;
+import org.opensearch.common.bytes.BytesArray;
 import org.opensearch.common.bytes.BytesReference;
 import org.opensearch.common.collect.Tuple;
+import org.opensearch.common.io.stream.BytesStreamOutput;
 import org.opensearch.common.transport.TransportAddress;
+import org.opensearch.common.xcontent.XContentBuilder;
 import org.opensearch.common.xcontent.XContentHelper;
 import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.common.xcontent.json.JsonXContent;
@@ -124,77 +131,104 @@ public final class AuditMessage {
     public static final String COMPLIANCE_OPERATION = "audit_compliance_operation";
     public static final String COMPLIANCE_DOC_VERSION = "audit_compliance_doc_version";
 
-    private static final DateTimeFormatter DEFAULT_FORMAT = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZZ");
-    private final Map<String, Object> auditInfo = new HashMap<String, Object>(50);
+    private static final DateTimeFormatter DEFAULT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSxxx").withZone(ZoneOffset.UTC);
+    private static final int MAX_REUSED_BUFFER_SIZE = 1024 * 1024;
+    private static final ThreadLocal<BytesStreamOutput> REUSABLE_BUFFER = ThreadLocal.withInitial(BytesStreamOutput::new);
+
     private final AuditCategory msgCategory;
+    private final long timestamp;
+    private final String nodeHostAddress;
+    private final String nodeId;
+    private final String nodeHostName;
+    private final String nodeName;
+    private final String clusterName;
+    private final Origin origin;
+    private final Origin layer;
+
+    private String remoteAddress;
+    private Boolean isAdminDn;
+    private String exception;
+    private String privilege;
+    private String initiatingUser;
+    private String effectiveUser;
+    private String path;
+    private String complianceDiffContent;
+    private Boolean complianceDiffIsNoop;
+    private String requestBody;
+    private String requestType;
+    private String action;
+    private String id;
+    private List<Map<String, Object>> fileInfos;
+    private String[] indices;
+    private String[] resolvedIndices;
+    private String taskId;
+    private Integer shardId;
+    private String taskParentId;
+    private Map<String, String> restParams;
+    private Map<String, List<String>> restHeaders;
+    private RestRequest.Method restMethod;
+    private Map<String, String> transportHeaders;
+    private Operation complianceOperation;
+    private Long complianceDocVersion;
 
     public AuditMessage(final AuditCategory msgCategory, final ClusterService clusterService, final Origin origin, final Origin layer) {
         this.msgCategory = Objects.requireNonNull(msgCategory);
-        final String currentTime = currentTime();
-        auditInfo.put(FORMAT_VERSION, 4);
-        auditInfo.put(CATEGORY, Objects.requireNonNull(msgCategory));
-        auditInfo.put(UTC_TIMESTAMP, currentTime);
-        auditInfo.put(NODE_HOST_ADDRESS, Objects.requireNonNull(clusterService).localNode().getHostAddress());
-        auditInfo.put(NODE_ID, Objects.requireNonNull(clusterService).localNode().getId());
-        auditInfo.put(NODE_HOST_NAME, Objects.requireNonNull(clusterService).localNode().getHostName());
-        auditInfo.put(NODE_NAME, Objects.requireNonNull(clusterService).localNode().getName());
-        auditInfo.put(CLUSTER_NAME, Objects.requireNonNull(clusterService).getClusterName().value());
-
-        if(origin != null) {
-            auditInfo.put(ORIGIN, origin);
-        }
-
-        if(layer != null) {
-            auditInfo.put(REQUEST_LAYER, layer);
-        }
+        this.timestamp = System.currentTimeMillis();
+        this.nodeHostAddress = Objects.requireNonNull(clusterService).localNode().getHostAddress();
+        this.nodeId = clusterService.localNode().getId();
+        this.nodeHostName = clusterService.localNode().getHostName();
+        this.nodeName = clusterService.localNode().getName();
+        this.clusterName = clusterService.getClusterName().value();
+        this.origin = origin;
+        this.layer = layer;
     }
 
     public void addRemoteAddress(TransportAddress remoteAddress) {
         if (remoteAddress != null && remoteAddress.getAddress() != null) {
-            auditInfo.put(REMOTE_ADDRESS, remoteAddress.getAddress());
+            this.remoteAddress = remoteAddress.getAddress();
         }
     }
 
     public void addIsAdminDn(boolean isAdminDn) {
-        auditInfo.put(IS_ADMIN_DN, isAdminDn);
+        this.isAdminDn = isAdminDn;
     }
 
     public void addException(Throwable t) {
         if (t != null) {
-            auditInfo.put(EXCEPTION, ExceptionsHelper.stackTrace(t));
+            this.exception = ExceptionsHelper.stackTrace(t);
         }
     }
 
     public void addPrivilege(String priv) {
         if (priv != null) {
-            auditInfo.put(PRIVILEGE, priv);
+            this.privilege = priv;
         }
     }
 
     public void addInitiatingUser(String user) {
         if (user != null) {
-            auditInfo.put(REQUEST_INITIATING_USER, user);
+            this.initiatingUser = user;
         }
     }
 
     public void addEffectiveUser(String user) {
         if (user != null) {
-            auditInfo.put(REQUEST_EFFECTIVE_USER, user);
+            this.effectiveUser = user;
         }
     }
 
     public void addPath(String path) {
         if (path != null) {
-            auditInfo.put(REST_REQUEST_PATH, path);
+            this.path = path;
         }
     }
 
     public void addComplianceWriteDiffSource(String diff) {
         if (diff != null && !diff.isEmpty()) {
-            auditInfo.put(COMPLIANCE_DIFF_CONTENT, diff);
-            auditInfo.put(COMPLIANCE_DIFF_IS_NOOP, false);
+            this.complianceDiffContent = diff;
+            this.complianceDiffIsNoop = false;
         } else if (diff != null && diff.isEmpty()) {
-            auditInfo.put(COMPLIANCE_DIFF_IS_NOOP, true);
+            this.complianceDiffIsNoop = true;
         }
     }
 
@@ -202,32 +236,25 @@ public final class AuditMessage {
         addComplianceWriteDiffSource(redactSecurityConfigContent(diff, id));
     }
 
-//    public void addComplianceWriteStoredFields0(String diff) {
-//        if (diff != null && !diff.isEmpty()) {
-//            auditInfo.put(COMPLIANCE_STORED_FIELDS_CONTENT, diff);
-//            //auditInfo.put(COMPLIANCE_DIFF_STORED_IS_NOOP, false);
-//        }
-//    }
-
     public void addTupleToRequestBody(Tuple<XContentType, BytesReference> xContentTuple) {
         if (xContentTuple != null) {
             try {
-                auditInfo.put(REQUEST_BODY, XContentHelper.convertToJson(xContentTuple.v2(), false, xContentTuple.v1()));
+                this.requestBody = XContentHelper.convertToJson(xContentTuple.v2(), false, xContentTuple.v1());
             } catch (Exception e) {
-                auditInfo.put(REQUEST_BODY, "ERROR: Unable to convert to json because of "+e.toString());
+                this.requestBody = "ERROR: Unable to convert to json because of "+e.toString();
             }
         }
     }
 
     public void addMapToRequestBody(Map<String, ?> map) {
         if(map != null) {
-            auditInfo.put(REQUEST_BODY, Utils.convertStructuredMapToJson(map));
+            this.requestBody = Utils.convertStructuredMapToJson(map);
         }
     }
 
     public void addUnescapedJsonToRequestBody(String source) {
         if (source != null) {
-            auditInfo.put(REQUEST_BODY, source);
+            this.requestBody = source;
         }
     }
 
@@ -240,8 +267,7 @@ public final class AuditMessage {
 
     void addSecurityConfigContentToRequestBody(final String source, final String id) {
         if (source != null) {
-            final String redactedContent = redactSecurityConfigContent(source, id);
-            auditInfo.put(REQUEST_BODY, redactedContent);
+            this.requestBody = redactSecurityConfigContent(source, id);
         }
     }
 
@@ -250,7 +276,7 @@ public final class AuditMessage {
             try {
                 addSecurityConfigContentToRequestBody(XContentHelper.convertToJson(xContentTuple.v2(), false, xContentTuple.v1()), id);
             } catch (Exception e) {
-                auditInfo.put(REQUEST_BODY, "ERROR: Unable to convert to json");
+                this.requestBody = "ERROR: Unable to convert to json";
             }
         }
     }
@@ -263,37 +289,25 @@ public final class AuditMessage {
 
     public void addRequestType(String requestType) {
         if (requestType != null) {
-            auditInfo.put(TRANSPORT_REQUEST_TYPE, requestType);
+            this.requestType = requestType;
         }
     }
 
     public void addAction(String action) {
         if (action != null) {
-            auditInfo.put(TRANSPORT_ACTION, action);
+            this.action = action;
         }
     }
 
     public void addId(String id) {
         if (id != null) {
-            auditInfo.put(ID, id);
-        }
-    }
-
-    /*public void addTypes(String[] types) {
-        if (types != null && types.length > 0) {
-            auditInfo.put(TYPES, types);
+            this.id = id;
         }
     }
 
-    public void addType(String type) {
-        if (type != null) {
-            auditInfo.put(TYPES, new String[] { type });
-        }
-    }*/
-
     public void addFileInfos(Map<String, Path> paths) {
         if (paths != null && !paths.isEmpty()) {
-            List<Object> infos = new ArrayList<>();
+            List<Map<String, Object>> infos = new ArrayList<>();
             for(Entry<String, Path> path: paths.entrySet()) {
 
                 try {
@@ -311,64 +325,55 @@ public final class AuditMessage {
                     //ignore non readable files
                 }
             }
-            auditInfo.put(COMPLIANCE_FILE_INFOS, infos);
+            this.fileInfos = infos;
         }
     }
 
-    /*public void addSource(Map<String, String> source) {
-        if (source != null && !source.isEmpty()) {
-            auditInfo.put(REQUEST_BODY, source);
-        }
-    }*/
-
     public void addIndices(String[] indices) {
         if (indices != null && indices.length > 0) {
-            auditInfo.put(INDICES, indices);
+            this.indices = indices;
         }
 
     }
 
     public void addResolvedIndices(String[] resolvedIndices) {
         if (resolvedIndices != null && resolvedIndices.length > 0) {
-            auditInfo.put(RESOLVED_INDICES, resolvedIndices);
+            this.resolvedIndices = resolvedIndices;
         }
     }
 
     public void addTaskId(long id) {
-         auditInfo.put(TASK_ID, auditInfo.get(NODE_ID)+":"+id);
+        this.taskId = nodeId+":"+id;
     }
 
     public void addShardId(ShardId id) {
         if(id != null) {
-            auditInfo.put(SHARD_ID, id.getId());
+            this.shardId = id.getId();
         }
    }
 
     public void addTaskParentId(String id) {
         if(id != null) {
-            auditInfo.put(TASK_PARENT_ID, id);
+            this.taskParentId = id;
         }
     }
 
     public void addRestParams(Map<String,String> params) {
         if(params != null && !params.isEmpty()) {
-            auditInfo.put(REST_REQUEST_PARAMS, new HashMap<>(params));
+            // the parameters of a rest request are mutable, so they have to be copied
+            this.restParams = new HashMap<>(params);
         }
     }
 
     public void addRestHeaders(Map<String,List<String>> headers, boolean excludeSensitiveHeaders) {
         if(headers != null && !headers.isEmpty()) {
-            final Map<String, List<String>> headersClone = new HashMap<>(headers);
-            if (excludeSensitiveHeaders) {
-                headersClone.keySet().removeIf(AUTHORIZATION_HEADER);
-            }
-            auditInfo.put(REST_REQUEST_HEADERS, headersClone);
+            this.restHeaders = excludeSensitiveHeaders ? Maps.filterKeys(headers, k -> !AUTHORIZATION_HEADER.test(k)) : headers;
         }
     }
 
     void addRestMethod(final RestRequest.Method method) {
         if (method != null) {
-            auditInfo.put(REST_REQUEST_METHOD, method);
+            this.restMethod = method;
         }
     }
 
@@ -386,12 +391,12 @@ public final class AuditMessage {
                     if (path != null && requestBody != null
                             && SENSITIVE_PATHS.matcher(path).matches()
                             && requestBody.contains(SENSITIVE_KEY)) {
-                        auditInfo.put(REQUEST_BODY, SENSITIVE_REPLACEMENT_VALUE);
+                        this.requestBody = SENSITIVE_REPLACEMENT_VALUE;
                     } else {
-                        auditInfo.put(REQUEST_BODY, requestBody);
+                        this.requestBody = requestBody;
                     }
                 } catch (IOException e) {
-                    auditInfo.put(REQUEST_BODY, "ERROR: Unable to generate request body");
+                    this.requestBody = "ERROR: Unable to generate request body";
                 }
             }
         }
@@ -399,42 +404,119 @@ public final class AuditMessage {
 
     public void addTransportHeaders(Map<String,String> headers, boolean excludeSensitiveHeaders) {
         if(headers != null && !headers.isEmpty()) {
-            final Map<String, String> headersClone = new HashMap<>(headers);
-            if (excludeSensitiveHeaders) {
-                headersClone.keySet().removeIf(AUTHORIZATION_HEADER);
-            }
-            auditInfo.put(TRANSPORT_REQUEST_HEADERS, headersClone);
+            this.transportHeaders = excludeSensitiveHeaders ? Maps.filterKeys(headers, k -> !AUTHORIZATION_HEADER.test(k)) : headers;
         }
     }
 
     public void addComplianceOperation(Operation op) {
         if(op != null) {
-            auditInfo.put(COMPLIANCE_OPERATION, op);
+            this.complianceOperation = op;
         }
     }
 
     public void addComplianceDocVersion(long version) {
-        auditInfo.put(COMPLIANCE_DOC_VERSION, version);
+        this.complianceDocVersion = version;
+    }
+
+    /**
+     * Passes all fields of this message in their serialization order to the given consumer.
+     * Fields which were never set are skipped.
+     */
+    private void forEachField(final BiConsumer<String, Object> consumer) {
+        consumer.accept(FORMAT_VERSION, 4);
+        consumer.accept(CATEGORY, msgCategory);
+        consumer.accept(UTC_TIMESTAMP, formatTime(timestamp));
+        consumer.accept(NODE_HOST_ADDRESS, nodeHostAddress);
+        consumer.accept(NODE_ID, nodeId);
+        consumer.accept(NODE_HOST_NAME, nodeHostName);
+        consumer.accept(NODE_NAME, nodeName);
+        consumer.accept(CLUSTER_NAME, clusterName);
+        acceptIfSet(consumer, ORIGIN, origin);
+        acceptIfSet(consumer, REQUEST_LAYER, layer);
+        acceptIfSet(consumer, REQUEST_INITIATING_USER, initiatingUser);
+        acceptIfSet(consumer, REQUEST_EFFECTIVE_USER, effectiveUser);
+        acceptIfSet(consumer, IS_ADMIN_DN, isAdminDn);
+        acceptIfSet(consumer, REMOTE_ADDRESS, remoteAddress);
+        acceptIfSet(consumer, PRIVILEGE, privilege);
+        acceptIfSet(consumer, REST_REQUEST_PATH, path);
+        acceptIfSet(consumer, REST_REQUEST_METHOD, restMethod);
+        acceptIfSet(consumer, REST_REQUEST_PARAMS, restParams);
+        acceptIfSet(consumer, REST_REQUEST_HEADERS, restHeaders);
+        acceptIfSet(consumer, TRANSPORT_REQUEST_TYPE, requestType);
+        acceptIfSet(consumer, TRANSPORT_ACTION, action);
+        acceptIfSet(consumer, TRANSPORT_REQUEST_HEADERS, transportHeaders);
+        acceptIfSet(consumer, TASK_ID, taskId);
+        acceptIfSet(consumer, TASK_PARENT_ID, taskParentId);
+        acceptIfSet(consumer, ID, id);
+        acceptIfSet(consumer, INDICES, indices);
+        acceptIfSet(consumer, RESOLVED_INDICES, resolvedIndices);
+        acceptIfSet(consumer, SHARD_ID, shardId);
+        acceptIfSet(consumer, COMPLIANCE_OPERATION, complianceOperation);
+        acceptIfSet(consumer, COMPLIANCE_DOC_VERSION, complianceDocVersion);
+        acceptIfSet(consumer, COMPLIANCE_DIFF_IS_NOOP, complianceDiffIsNoop);
+        acceptIfSet(consumer, COMPLIANCE_DIFF_CONTENT, complianceDiffContent);
+        acceptIfSet(consumer, COMPLIANCE_FILE_INFOS, fileInfos);
+        acceptIfSet(consumer, REQUEST_BODY, requestBody);
+        acceptIfSet(consumer, EXCEPTION, exception);
+    }
+
+    private static void acceptIfSet(final BiConsumer<String, Object> consumer, final String key, final Object value) {
+        if (value != null) {
+            consumer.accept(key, value);
+        }
     }
 
     public Map<String, Object> getAsMap() {
-      return new HashMap<>(this.auditInfo);
+        final Map<String, Object> map = new LinkedHashMap<>();
+        forEachField(map::put);
+        return map;
+    }
+
+    /**
+     * Writes all fields of this message as one JSON object to the given builder.
+     */
+    public XContentBuilder toXContent(final XContentBuilder builder) throws IOException {
+        builder.startObject();
+        try {
+            forEachField((key, value) -> {
+                try {
+                    builder.field(key, value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return builder.endObject();
+    }
+
+    /**
+     * @return the JSON representation of this message. It is written to a buffer which is reused by the current thread,
+     * so the only allocation is the returned copy.
+     */
+    public BytesReference toJsonBytes() {
+        return writeToReusableBuffer(false, out -> new BytesArray(BytesReference.toBytes(out.bytes())));
     }
 
     public String getInitiatingUser() {
-        return (String) this.auditInfo.get(REQUEST_INITIATING_USER);
+        return initiatingUser;
     }
 
     public String getEffectiveUser() {
-        return (String) this.auditInfo.get(REQUEST_EFFECTIVE_USER);
+        return effectiveUser;
+    }
+
+    public String[] getIndices() {
+        return indices;
     }
 
     public String getRequestType() {
-        return (String) this.auditInfo.get(TRANSPORT_REQUEST_TYPE);
+        return requestType;
     }
 
     public RestRequest.Method getRequestMethod() {
-        return (RestRequest.Method) this.auditInfo.get(REST_REQUEST_METHOD);
+        return restMethod;
     }
 
 	public AuditCategory getCategory() {
@@ -442,31 +524,41 @@ public final class AuditMessage {
 	}
 
     public String getExceptionStackTrace() {
-        return (String) this.auditInfo.get(EXCEPTION);
+        return exception;
     }
 
 	@Override
 	public String toString() {
-		try {
-			return Strings.toString(JsonXContent.contentBuilder().map(getAsMap()));
-		} catch (final IOException e) {
-		    throw ExceptionsHelper.convertToOpenSearchException(e);
-		}
+		return writeToReusableBuffer(false, out -> out.bytes().utf8ToString());
 	}
 
     public String toPrettyString() {
+        return writeToReusableBuffer(true, out -> out.bytes().utf8ToString());
+    }
+
+    private <T> T writeToReusableBuffer(final boolean pretty, final Function<BytesStreamOutput, T> result) {
+        final BytesStreamOutput out = REUSABLE_BUFFER.get();
         try {
-            return Strings.toString(JsonXContent.contentBuilder().prettyPrint().map(getAsMap()));
+            out.reset();
+            final XContentBuilder builder = new XContentBuilder(JsonXContent.jsonXContent, out);
+            if (pretty) {
+                builder.prettyPrint();
+            }
+            toXContent(builder).close();
+            return result.apply(out);
         } catch (final IOException e) {
             throw ExceptionsHelper.convertToOpenSearchException(e);
+        } finally {
+            if (out.size() > MAX_REUSED_BUFFER_SIZE) {
+                // do not keep the memory of exceptionally large messages
+                REUSABLE_BUFFER.remove();
+            }
         }
     }
 
 	public String toText() {
 		StringBuilder builder = new StringBuilder();
-		for (Entry<String, Object> entry : getAsMap().entrySet()) {
-			addIfNonEmpty(builder, entry.getKey(), stringOrNull(entry.getValue()));
-		}
+		forEachField((key, value) -> addIfNonEmpty(builder, key, stringOrNull(value)));
 		return builder.toString();
 	}
 
@@ -476,9 +568,7 @@ public final class AuditMessage {
 
 	public String toUrlParameters() {
 		URIBuilder builder = new URIBuilder();
-		for (Entry<String, Object> entry : getAsMap().entrySet()) {
-			builder.addParameter(entry.getKey(), stringOrNull(entry.getValue()));
-		}
+		forEachField((key, value) -> builder.addParameter(key, stringOrNull(value)));
 		return builder.toString();
 	}
 
@@ -491,14 +581,8 @@ public final class AuditMessage {
 		}
 	}
 
-    private String currentTime() {
-        DateTime dt = new DateTime(DateTimeZone.UTC);
-        return DEFAULT_FORMAT.print(dt);
-    }
-
     private String formatTime(long epoch) {
-        DateTime dt = new DateTime(epoch, DateTimeZone.UTC);
-        return DEFAULT_FORMAT.print(dt);
+        return DEFAULT_FORMAT.format(Instant.ofEpochMilli(epoch));
     }
 
     protected String stringOrNull(Object object) {
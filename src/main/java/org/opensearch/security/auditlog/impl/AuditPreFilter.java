@@ -0,0 +1,109 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.auditlog.impl;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.security.support.ConfigConstants;
+import org.opensearch.security.support.WildcardMatcher;
+import org.opensearch.tasks.Task;
+import org.opensearch.tasks.TaskId;
+
+/**
+ * Node level audit filters which are evaluated before any audit message of a request is built.
+ *
+ * Events on ignored indices are dropped, and events of the sampled categories are only logged for one out of
+ * sampling.rate requests. The sampling decision is derived from one key per request: the node which audits the
+ * first event of a request derives the key from its node id and the id of the REST request or top-level task and
+ * stores it in a header of the thread context. The header is forwarded with every transport request sent on behalf
+ * of the request, so all of its events share the decision (e.g. a bulk request and its bulk[s] and bulk[s][p]
+ * requests), on every node.
+ */
+final class AuditPreFilter {
+
+    private final WildcardMatcher ignoredIndicesMatcher;
+    private final Set<AuditCategory> sampledCategories;
+    private final int sampleRate;
+
+    AuditPreFilter(final Settings settings) {
+        this.ignoredIndicesMatcher = WildcardMatcher.from(settings.getAsList(ConfigConstants.SECURITY_AUDIT_IGNORE_INDICES));
+        final Set<AuditCategory> categories = AuditCategory.parse(settings.getAsList(ConfigConstants.SECURITY_AUDIT_SAMPLING_CATEGORIES));
+        this.sampledCategories = categories.isEmpty() ? EnumSet.noneOf(AuditCategory.class) : EnumSet.copyOf(categories);
+        this.sampleRate = Math.max(1, settings.getAsInt(ConfigConstants.SECURITY_AUDIT_SAMPLING_RATE, 1));
+    }
+
+    WildcardMatcher getIgnoredIndicesMatcher() {
+        return ignoredIndicesMatcher;
+    }
+
+    /**
+     * @return true if the given indices are not empty and all of them are ignored
+     */
+    boolean areAllIndicesIgnored(final String[] indices) {
+        if (ignoredIndicesMatcher == WildcardMatcher.NONE || indices == null || indices.length == 0) {
+            return false;
+        }
+        for (final String index : indices) {
+            if (index == null || !ignoredIndicesMatcher.test(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isSampledOut(final AuditCategory category, final Task task, final ThreadContext threadContext, final String localNodeId) {
+        if (!isSampled(category) || task == null) {
+            return false;
+        }
+        return isSampledOut(getSamplingKey(threadContext, () -> {
+            final TaskId parentTaskId = task.getParentTaskId();
+            // child requests of nodes which do not forward the sampling key
+            if (parentTaskId != null && parentTaskId.isSet()) {
+                return parentTaskId.toString();
+            }
+            return new TaskId(localNodeId, task.getId()).toString();
+        }));
+    }
+
+    boolean isSampledOut(final AuditCategory category, final RestRequest request, final ThreadContext threadContext, final String localNodeId) {
+        if (!isSampled(category) || request == null) {
+            return false;
+        }
+        return isSampledOut(getSamplingKey(threadContext, () -> new TaskId(localNodeId, request.getRequestId()).toString()));
+    }
+
+    private static String getSamplingKey(final ThreadContext threadContext, final Supplier<String> rootKey) {
+        if (threadContext == null) {
+            return rootKey.get();
+        }
+        String samplingKey = threadContext.getHeader(ConfigConstants.OPENDISTRO_SECURITY_AUDIT_SAMPLING_KEY_HEADER);
+        if (samplingKey == null) {
+            samplingKey = rootKey.get();
+            threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_AUDIT_SAMPLING_KEY_HEADER, samplingKey);
+        }
+        return samplingKey;
+    }
+
+    private boolean isSampled(final AuditCategory category) {
+        return sampleRate > 1 && sampledCategories.contains(category);
+    }
+
+    private boolean isSampledOut(final String samplingKey) {
+        // spread the keys of sequential ids before taking the remainder (fmix64 of MurmurHash3)
+        long hash = samplingKey.hashCode();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return Math.floorMod(hash, (long) sampleRate) != 0;
+    }
+}
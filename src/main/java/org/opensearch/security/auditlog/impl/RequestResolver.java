@@ -87,6 +87,7 @@ public final class RequestResolver {
             final boolean resolveBulk,
             final String securityIndex,
             final boolean excludeSensitiveHeaders,
+            final AuditPreFilter preFilter,
             final Throwable exception)  {
 
         if(resolveBulk && request instanceof BulkShardRequest) {
@@ -95,6 +96,9 @@ public final class RequestResolver {
 
             for(BulkItemRequest ar: innerRequests) {
                 final DocWriteRequest<?> innerRequest = ar.request();
+                if (innerRequest.index() != null && preFilter.getIgnoredIndicesMatcher().test(innerRequest.index())) {
+                    continue;
+                }
                 final AuditMessage msg = resolveInner(
                         category,
                         effectiveUser,
@@ -133,6 +137,10 @@ public final class RequestResolver {
             }
         }
 
+        if (request instanceof IndicesRequest && preFilter.areAllIndicesIgnored(((IndicesRequest) request).indices())) {
+            return Collections.emptyList();
+        }
+
         return Collections.singletonList(resolveInner(
                 category,
                 effectiveUser,
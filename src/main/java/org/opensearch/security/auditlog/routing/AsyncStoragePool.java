@@ -15,10 +15,18 @@
 
 package org.opensearch.security.auditlog.routing;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -27,14 +35,36 @@ import org.opensearch.security.auditlog.config.ThreadPoolConfig;
 import org.opensearch.security.auditlog.impl.AuditMessage;
 import org.opensearch.security.auditlog.sink.AuditLogSink;
 
+/**
+ * Stores audit messages asynchronously.
+ *
+ * Every sink gets a preallocated ring buffer which is drained in batches by a fixed set of worker threads. Submitting
+ * a message never takes a lock unless a worker is idle and has to be woken up. What happens if the buffer of a sink
+ * is full is defined by the configured {@link ThreadPoolConfig.OverflowPolicy}; with the fallback policy messages are
+ * spilled to the fallback sink by a dedicated thread, so the submitting thread never does any I/O. Sinks which fail
+ * to store messages asynchronously, like the Kafka sink in its producer callback, hand them to the same thread.
+ */
 public class AsyncStoragePool {
 	private static final Logger log = LogManager.getLogger(AsyncStoragePool.class);
-	private final ExecutorService pool;
+	private static final long IDLE_WAIT_MS = 100;
+	private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
 	private final ThreadPoolConfig threadPoolConfig;
+	private final ConcurrentMap<AuditLogSink, SinkQueue> sinkQueues = new ConcurrentHashMap<>();
+	private final Workers workers;
+	private final Workers spillWorkers;
+	private volatile boolean closed;
 
 	public AsyncStoragePool(final ThreadPoolConfig threadPoolConfig) {
 		this.threadPoolConfig = threadPoolConfig;
-		this.pool = createExecutor(threadPoolConfig);
+		if (log.isDebugEnabled()) {
+			log.debug("Create new storage pool with threadPoolSize: {}, maxQueueLen: {} and overflowPolicy: {}",
+					threadPoolConfig.getThreadPoolSize(),
+					threadPoolConfig.getThreadPoolMaxQueueLen(),
+					threadPoolConfig.getOverflowPolicy());
+		}
+		this.workers = new Workers("opensearch-security-audit-worker-", threadPoolConfig.getThreadPoolSize());
+		this.spillWorkers = new Workers("opensearch-security-audit-spill-", 1);
 	}
 
 	public ThreadPoolConfig getConfig() {
@@ -42,51 +72,237 @@ public class AsyncStoragePool {
 	}
 
 	public void submit(AuditMessage message, AuditLogSink sink) {
-		try {
-			pool.submit(() -> {
-				sink.store(message);
-				if (log.isTraceEnabled()) {
-					log.trace("stored on delegate {} asynchronously", sink.getClass().getSimpleName());
-				}
-			});
-		} catch (Exception ex) {
-			log.error("Could not submit audit message {} to thread pool for delegate '{}' due to '{}'", message, sink.getClass().getSimpleName(), ex.getMessage());
+		if (closed) {
+			log.error("Could not submit audit message {} for delegate '{}' because the storage pool is closed", message, sink.getClass().getSimpleName());
 			if (sink.getFallbackSink() != null) {
 				sink.getFallbackSink().store(message);
 			}
+			return;
+		}
+
+		final SinkQueue queue = sinkQueues.computeIfAbsent(sink, this::createSinkQueue);
+
+		if (queue.buffer.offer(message)) {
+			queue.enqueued.increment();
+			workers.signal();
+			return;
+		}
+
+		switch (threadPoolConfig.getOverflowPolicy()) {
+			case DROP_OLDEST:
+				while (!queue.buffer.offer(message)) {
+					if (queue.buffer.poll() != null) {
+						queue.dropped.increment();
+					}
+				}
+				queue.enqueued.increment();
+				workers.signal();
+				return;
+			case BLOCK:
+				final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(threadPoolConfig.getBlockTimeoutMs());
+				while (System.nanoTime() < deadline) {
+					LockSupport.parkNanos(BLOCK_PARK_NANOS);
+					if (queue.buffer.offer(message)) {
+						queue.enqueued.increment();
+						workers.signal();
+						return;
+					}
+				}
+				break;
+			case FALLBACK:
+				if (queue.spill != null && queue.spill.buffer.offer(message)) {
+					queue.spilled.increment();
+					spillWorkers.signal();
+					return;
+				}
+				break;
+			default:
+				break;
 		}
-	}
 
-	private static ThreadPoolExecutor createExecutor(final ThreadPoolConfig config) {
+		queue.dropped.increment();
 		if (log.isDebugEnabled()) {
-			log.debug("Create new executor with threadPoolSize: {} and maxQueueLen: {}",
-					config.getThreadPoolSize(),
-					config.getThreadPoolMaxQueueLen());
+			log.debug("Dropped audit message {} for delegate '{}' because its queue is full", message, sink.getClass().getSimpleName());
 		}
-		return new ThreadPoolExecutor(
-				config.getThreadPoolSize(),
-				config.getThreadPoolSize(),
-				0L,
-				TimeUnit.MILLISECONDS,
-				new LinkedBlockingQueue<>(config.getThreadPoolMaxQueueLen()));
+	}
+
+	private SinkQueue createSinkQueue(final AuditLogSink sink) {
+		final SinkQueue spill = sink.getFallbackSink() == null ? null : new SinkQueue(sink.getFallbackSink(), null, threadPoolConfig.getThreadPoolMaxQueueLen());
+		final SinkQueue queue = new SinkQueue(sink, spill, threadPoolConfig.getThreadPoolMaxQueueLen());
+		if (spill != null) {
+			spillWorkers.queues.add(spill);
+			sink.setFallbackQueue(message -> {
+				if (!closed && spill.buffer.offer(message)) {
+					queue.spilled.increment();
+					spillWorkers.signal();
+					return true;
+				}
+				queue.dropped.increment();
+				return false;
+			});
+		}
+		workers.queues.add(queue);
+		return queue;
+	}
+
+	/**
+	 * @return counters of all sinks which have received messages so far, keyed by the sink name
+	 */
+	public Map<String, Object> getStats() {
+		final Map<String, Object> stats = new LinkedHashMap<>();
+		for (SinkQueue queue : workers.queues) {
+			stats.put(queue.sink.getName(), queue.getStats());
+		}
+		return stats;
 	}
 
 	public void close() {
+		closed = true;
+		// workers drain the remaining messages before they terminate
+		workers.close();
+		spillWorkers.close();
+	}
+
+	private static final class SinkQueue {
+		private final AuditLogSink sink;
+		private final SinkQueue spill;
+		private final AuditMessageRingBuffer buffer;
+		private final LongAdder enqueued = new LongAdder();
+		private final LongAdder dropped = new LongAdder();
+		private final LongAdder spilled = new LongAdder();
+		private final LongAdder stored = new LongAdder();
+		private final LongAdder storeNanos = new LongAdder();
+		private final AtomicLong maxStoreNanos = new AtomicLong();
 
-		if (pool != null) {
-			pool.shutdown(); // Disable new tasks from being submitted
+		private SinkQueue(final AuditLogSink sink, final SinkQueue spill, final int capacity) {
+			this.sink = sink;
+			this.spill = spill;
+			this.buffer = new AuditMessageRingBuffer(capacity);
+		}
 
+		private void store(final List<AuditMessage> batch) {
+			for (AuditMessage message : batch) {
+				final long start = System.nanoTime();
+				try {
+					sink.store(message);
+				} catch (Exception e) {
+					log.error("Could not store audit message {} on delegate '{}' due to '{}'", message, sink.getClass().getSimpleName(), e.getMessage());
+				}
+				final long took = System.nanoTime() - start;
+				stored.increment();
+				storeNanos.add(took);
+				maxStoreNanos.accumulateAndGet(took, Math::max);
+			}
+			if (log.isTraceEnabled()) {
+				log.trace("stored {} messages on delegate {} asynchronously", batch.size(), sink.getClass().getSimpleName());
+			}
+		}
+
+		private Map<String, Object> getStats() {
+			final Map<String, Object> stats = new LinkedHashMap<>();
+			final long storedCount = stored.sum();
+			stats.put("enqueued", enqueued.sum());
+			stats.put("dropped", dropped.sum());
+			stats.put("spilled_to_fallback", spilled.sum());
+			stats.put("stored", storedCount);
+			stats.put("queue_depth", buffer.size());
+			stats.put("queue_capacity", buffer.capacity());
+			stats.put("store_latency_avg_micros", storedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(storeNanos.sum() / storedCount));
+			stats.put("store_latency_max_micros", TimeUnit.NANOSECONDS.toMicros(maxStoreNanos.get()));
+			if (spill != null) {
+				stats.put("fallback_queue_depth", spill.buffer.size());
+				stats.put("fallback_stored", spill.stored.sum());
+			}
+			return stats;
+		}
+	}
+
+	/**
+	 * Threads which drain a set of sink queues. Idle threads wait on a monitor which submitters only
+	 * touch if at least one thread is idle.
+	 */
+	private final class Workers {
+		private final List<SinkQueue> queues = new CopyOnWriteArrayList<>();
+		private final AtomicInteger idle = new AtomicInteger();
+		private final Object monitor = new Object();
+		private final Thread[] threads;
+
+		private Workers(final String namePrefix, final int size) {
+			this.threads = new Thread[size];
+			for (int i = 0; i < size; i++) {
+				final int offset = i;
+				threads[i] = new Thread(() -> run(offset), namePrefix + i);
+				threads[i].setDaemon(true);
+				threads[i].start();
+			}
+		}
+
+		private void signal() {
+			if (idle.get() > 0) {
+				synchronized (monitor) {
+					monitor.notify();
+				}
+			}
+		}
+
+		private void run(final int offset) {
+			final List<AuditMessage> batch = new ArrayList<>(threadPoolConfig.getBatchSize());
+
+			while (true) {
+				boolean worked = false;
+				final int size = queues.size();
+
+				for (int i = 0; i < size; i++) {
+					final SinkQueue queue = queues.get((i + offset) % size);
+					if (queue.buffer.drainTo(batch, threadPoolConfig.getBatchSize()) > 0) {
+						queue.store(batch);
+						batch.clear();
+						worked = true;
+					}
+				}
+
+				if (!worked) {
+					if (closed) {
+						return;
+					}
+					waitForMessages();
+				}
+			}
+		}
+
+		private void waitForMessages() {
+			idle.incrementAndGet();
 			try {
-				// Wait a while for existing tasks to terminate
-				if (!pool.awaitTermination(60, TimeUnit.SECONDS)) {
-					pool.shutdownNow(); // Cancel currently executing tasks
-					// Wait a while for tasks to respond to being cancelled
-					if (!pool.awaitTermination(60, TimeUnit.SECONDS))
-						log.error("Pool did not terminate");
+				synchronized (monitor) {
+					if (!closed && queues.stream().allMatch(q -> q.buffer.isEmpty())) {
+						monitor.wait(IDLE_WAIT_MS);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				idle.decrementAndGet();
+			}
+		}
+
+		private void close() {
+			synchronized (monitor) {
+				monitor.notifyAll();
+			}
+
+			try {
+				for (Thread thread : threads) {
+					// Wait a while for the remaining messages to be stored
+					thread.join(TimeUnit.SECONDS.toMillis(60));
+					if (thread.isAlive()) {
+						log.error("Audit worker {} did not terminate", thread.getName());
+						thread.interrupt();
+					}
 				}
 			} catch (InterruptedException ie) {
-				// (Re-)Cancel if current thread also interrupted
-				pool.shutdownNow();
+				for (Thread thread : threads) {
+					thread.interrupt();
+				}
 				// Preserve interrupt status
 				Thread.currentThread().interrupt();
 			}
@@ -0,0 +1,115 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.auditlog.routing;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.opensearch.security.auditlog.impl.AuditMessage;
+
+/**
+ * Bounded lock-free ring buffer of audit messages with preallocated slots.
+ *
+ * Every slot carries a sequence number which tells producers whether the slot is free for the current lap and
+ * consumers whether the message of the current lap has been published. Producers and consumers claim positions with
+ * a CAS on the tail and head counters, so any number of threads can offer and poll concurrently without locks.
+ */
+final class AuditMessageRingBuffer {
+
+    private final int mask;
+    private final AtomicReferenceArray<AuditMessage> messages;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    AuditMessageRingBuffer(final int minCapacity) {
+        final int capacity = minCapacity <= 1 ? 2 : Integer.highestOneBit(minCapacity - 1) << 1;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity too large: " + minCapacity);
+        }
+        this.mask = capacity - 1;
+        this.messages = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    boolean offer(final AuditMessage message) {
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    messages.lazySet(index, message);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return the oldest message or null if the buffer is empty
+     */
+    AuditMessage poll() {
+        while (true) {
+            final long position = head.get();
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    final AuditMessage message = messages.get(index);
+                    messages.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return message;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Moves up to maxMessages of the oldest messages to the given list.
+     *
+     * @return the number of moved messages
+     */
+    int drainTo(final List<AuditMessage> target, final int maxMessages) {
+        int drained = 0;
+        AuditMessage message;
+        while (drained < maxMessages && (message = poll()) != null) {
+            target.add(message);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * @return the number of buffered messages, only an estimate while other threads offer or poll
+     */
+    int size() {
+        return (int) Math.max(0, Math.min(capacity(), tail.get() - head.get()));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
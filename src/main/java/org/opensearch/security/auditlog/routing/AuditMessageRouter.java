@@ -17,6 +17,7 @@ package org.opensearch.security.auditlog.routing;
 
 import java.nio.file.Path;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,7 @@ import org.opensearch.security.auditlog.config.ThreadPoolConfig;
 import org.opensearch.security.auditlog.impl.AuditCategory;
 import org.opensearch.security.auditlog.impl.AuditMessage;
 import org.opensearch.security.auditlog.sink.AuditLogSink;
+import org.opensearch.security.auditlog.sink.NoopSink;
 import org.opensearch.security.auditlog.sink.SinkProvider;
 import org.opensearch.security.dlic.rest.support.Utils;
 import org.opensearch.security.support.ConfigConstants;
@@ -86,6 +88,40 @@ public class AuditMessageRouter {
         }
     }
 
+    /**
+     * @return true if all messages of the given category are routed to noop sinks and need not be created at all
+     */
+    public boolean isDiscarding(final AuditCategory category) {
+        final Map<AuditCategory, List<AuditLogSink>> sinks = categorySinks;
+        if (sinks == null) {
+            return false;
+        }
+        final List<AuditLogSink> auditLogSinks = sinks.get(category);
+        if (auditLogSinks == null) {
+            return defaultSink instanceof NoopSink;
+        }
+        return auditLogSinks.stream().allMatch(sink -> sink instanceof NoopSink);
+    }
+
+    /**
+     * @return the queue counters of the storage pool merged with the counters reported by the sinks themselves
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getStats() {
+        final Map<String, Object> stats = new LinkedHashMap<>(storagePool.getStats());
+        for (AuditLogSink sink : sinkProvider.getAllSinks()) {
+            final Map<String, Object> sinkStats = sink.getStats();
+            if (!sinkStats.isEmpty()) {
+                stats.merge(sink.getName(), sinkStats, (queueStats, ownStats) -> {
+                    final Map<String, Object> merged = new LinkedHashMap<>((Map<String, Object>) queueStats);
+                    merged.putAll((Map<String, Object>) ownStats);
+                    return merged;
+                });
+            }
+        }
+        return stats;
+    }
+
     public final void close() {
         log.info("Closing {}", getClass().getSimpleName());
         // shutdown storage pool
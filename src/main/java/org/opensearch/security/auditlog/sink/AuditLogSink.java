@@ -16,8 +16,11 @@
 package org.opensearch.security.auditlog.sink;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.logging.log4j.LogManager;
@@ -39,6 +42,7 @@ public abstract class AuditLogSink {
     protected final AuditLogSink fallbackSink;
     private final int retryCount;
     private final long delayMs;
+    private volatile Predicate<AuditMessage> fallbackQueue;
 
     protected AuditLogSink(String name, Settings settings, String settingsPrefix, AuditLogSink fallbackSink) {
         this.name = name.toLowerCase();
@@ -68,6 +72,34 @@ public abstract class AuditLogSink {
 		}
     }
 
+    /**
+     * Sets the queue of the storage pool which stores messages in the fallback sink on a thread of its own.
+     * The queue returns false if it cannot take a message.
+     */
+    public void setFallbackQueue(Predicate<AuditMessage> fallbackQueue) {
+        this.fallbackQueue = fallbackQueue;
+    }
+
+    /**
+     * Stores a message which could not be stored asynchronously, e.g. from a callback on a client I/O thread, in the
+     * fallback sink. If the sink is served by a storage pool the message is handed to its fallback queue, so that the
+     * calling thread neither does any I/O nor waits for retries.
+     */
+    void storeInFallbackSink(AuditMessage msg) {
+        final Predicate<AuditMessage> fallbackQueue = this.fallbackQueue;
+
+        if (fallbackQueue != null) {
+            if (!fallbackQueue.test(msg)) {
+                log.error("Dropped audit message of sink {} because the fallback queue is full", name);
+            }
+            return;
+        }
+
+        if (fallbackSink == null || !fallbackSink.doStoreWithRetry(msg)) {
+            System.err.println(msg.toPrettyString());
+        }
+    }
+
     private boolean doStoreWithRetry(AuditMessage msg) {
         //retryCount of 0 means no retry (which is: try exactly once) - delayMs is ignored
         //retryCount of 1 means: try and if this fails wait delayMs and try once again
@@ -98,6 +130,13 @@ public abstract class AuditLogSink {
     	// to be implemented by subclasses
     }
 
+    /**
+     * @return counters of this sink which are reported by the audit stats endpoint, empty if the sink has none
+     */
+    public Map<String, Object> getStats() {
+        return Collections.emptyMap();
+    }
+
     protected String getExpandedIndexName(DateTimeFormatter indexPattern, String index) {
         if(indexPattern == null) {
             return index;
@@ -0,0 +1,209 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.auditlog.sink;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.auditlog.impl.AuditMessage;
+import org.opensearch.security.support.ConfigConstants;
+
+/**
+ * Bounded in-memory buffer which collects audit messages of a sink and writes them with bulk requests.
+ *
+ * The buffer is flushed by a dedicated thread as soon as it holds max_actions messages or max_bytes of
+ * serialized messages, and in any case every flush_interval_ms. Messages which fail within a bulk request are
+ * retried up to max_retries times and then handed to the fallback sink of the owning sink. If the buffer is full,
+ * {@link #add(AuditMessage, String)} refuses the message so that the owning sink reports a failed store and
+ * the message goes to the fallback sink right away.
+ */
+final class AuditMessageBulkBuffer implements Closeable {
+
+    interface BulkWriter {
+        /**
+         * Writes all given documents with one bulk request.
+         *
+         * @return the documents which could not be written
+         */
+        List<Document> write(List<Document> documents) throws Exception;
+    }
+
+    static final class Document {
+        private final AuditMessage message;
+        private final String index;
+        private final String source;
+
+        private Document(final AuditMessage message, final String index, final String source) {
+            this.message = message;
+            this.index = index;
+            this.source = source;
+        }
+
+        AuditMessage getMessage() {
+            return message;
+        }
+
+        String getIndex() {
+            return index;
+        }
+
+        String getSource() {
+            return source;
+        }
+    }
+
+    private static final Logger log = LogManager.getLogger(AuditMessageBulkBuffer.class);
+
+    private final AuditLogSink sink;
+    private final BulkWriter writer;
+    private final int maxActions;
+    private final long maxBytes;
+    private final int maxQueueLen;
+    private final int maxRetries;
+    private final long retryDelayMs;
+    private final ScheduledExecutorService executor;
+
+    private final ArrayDeque<Document> pending = new ArrayDeque<>();
+    private long pendingBytes;
+    private boolean flushScheduled;
+
+    AuditMessageBulkBuffer(final AuditLogSink sink, final Settings settings, final Settings sinkSettings, final BulkWriter writer) {
+        this.sink = sink;
+        this.writer = writer;
+        this.maxActions = Math.max(1, sinkSettings.getAsInt(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_ACTIONS, 500));
+        this.maxBytes = Math.max(1, sinkSettings.getAsLong(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_BYTES, 5L * 1024 * 1024));
+        this.maxQueueLen = Math.max(maxActions, sinkSettings.getAsInt(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_QUEUE_LEN, 10000));
+        this.maxRetries = Math.max(0, sinkSettings.getAsInt(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_RETRIES, 3));
+        this.retryDelayMs = settings.getAsLong(ConfigConstants.SECURITY_AUDIT_RETRY_DELAY_MS, 1000L);
+        final long flushIntervalMs = Math.max(1, sinkSettings.getAsLong(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_FLUSH_INTERVAL_MS, 1000L));
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "opensearch-security-audit-bulk-" + sink.getName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Bulk indexing for sink {} enabled with max_actions: {}, max_bytes: {}, max_queue_len: {}, flush_interval_ms: {}",
+                    sink.getName(), maxActions, maxBytes, maxQueueLen, flushIntervalMs);
+        }
+    }
+
+    /**
+     * @return false if the buffer is full and the message was not added
+     */
+    boolean add(final AuditMessage message, final String index) {
+        final Document document = new Document(message, index, message.toString());
+
+        synchronized (this) {
+            if (pending.size() >= maxQueueLen) {
+                return false;
+            }
+
+            pending.add(document);
+            pendingBytes += document.source.length();
+
+            if (!flushScheduled && (pending.size() >= maxActions || pendingBytes >= maxBytes)) {
+                flushScheduled = true;
+                try {
+                    executor.execute(this::flush);
+                } catch (Exception e) {
+                    // the buffer is closing, the remaining messages are flushed by close()
+                    flushScheduled = false;
+                }
+            }
+        }
+        return true;
+    }
+
+    synchronized int size() {
+        return pending.size();
+    }
+
+    void flush() {
+        List<Document> batch;
+        while (!(batch = nextBatch()).isEmpty()) {
+            writeWithRetries(batch);
+        }
+    }
+
+    private synchronized List<Document> nextBatch() {
+        if (pending.isEmpty()) {
+            flushScheduled = false;
+            return Collections.emptyList();
+        }
+
+        final List<Document> batch = new ArrayList<>(Math.min(maxActions, pending.size()));
+        long batchBytes = 0;
+
+        while (!pending.isEmpty() && batch.size() < maxActions && batchBytes < maxBytes) {
+            final Document document = pending.poll();
+            batch.add(document);
+            batchBytes += document.source.length();
+        }
+
+        pendingBytes -= batchBytes;
+        return batch;
+    }
+
+    private void writeWithRetries(final List<Document> batch) {
+        List<Document> remaining = batch;
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                remaining = writer.write(remaining);
+            } catch (Exception e) {
+                log.error("Unable to bulk index {} audit messages for sink {} due to", remaining.size(), sink.getName(), e);
+            }
+
+            if (remaining.isEmpty()) {
+                return;
+            }
+
+            if (attempt >= maxRetries) {
+                break;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Retry attempt {}/{} for {} audit messages of sink {}", attempt + 1, maxRetries, remaining.size(), sink.getName());
+            }
+            Uninterruptibles.sleepUninterruptibly(retryDelayMs, TimeUnit.MILLISECONDS);
+        }
+
+        log.error("Unable to bulk index {} audit messages for sink {}, storing them in the fallback sink", remaining.size(), sink.getName());
+        for (Document document : remaining) {
+            sink.storeInFallbackSink(document.message);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+}
@@ -20,7 +20,9 @@ import java.nio.file.Path;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 
@@ -42,6 +44,7 @@ public final class ExternalOpenSearchSink extends AuditLogSink {
 	private final String index;
 	private final String type;
 	private final HttpClient client;
+	private final AuditMessageBulkBuffer bulkBuffer;
 	private List<String> servers;
 	private DateTimeFormatter indexPattern;
 
@@ -164,16 +167,29 @@ public final class ExternalOpenSearchSink extends AuditLogSink {
 		}
 
 		client = builder.build();
+
+		if (sinkSettings.getAsBoolean(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_ENABLED, false)) {
+			bulkBuffer = new AuditMessageBulkBuffer(this, settings, sinkSettings, this::bulkIndex);
+		} else {
+			bulkBuffer = null;
+		}
 	}
 
 	@Override
 	public void close() throws IOException {
+		if (bulkBuffer != null) {
+			bulkBuffer.close();
+		}
 		if (client != null) {
 			client.close();
 		}
 	}
 
 	public boolean doStore(final AuditMessage msg) {
+		if (bulkBuffer != null) {
+			return bulkBuffer.add(msg, getExpandedIndexName(indexPattern, index));
+		}
+
 		try {
 			boolean successful = client.index(msg.toString(), getExpandedIndexName(indexPattern, index), type, true);
 			if (!successful) {
@@ -185,4 +201,25 @@ public final class ExternalOpenSearchSink extends AuditLogSink {
 			return false;
 		}
 	}
+
+	private List<AuditMessageBulkBuffer.Document> bulkIndex(final List<AuditMessageBulkBuffer.Document> documents) {
+		final List<String> contents = new ArrayList<>(documents.size());
+		final List<String> indices = new ArrayList<>(documents.size());
+		for (AuditMessageBulkBuffer.Document document : documents) {
+			contents.add(document.getSource());
+			indices.add(document.getIndex());
+		}
+
+		final BitSet failed = client.bulk(contents, indices);
+		if (failed.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		log.error("Unable to send {} of {} audit messages to one of these servers: {}", failed.cardinality(), documents.size(), servers);
+		final List<AuditMessageBulkBuffer.Document> failedDocuments = new ArrayList<>(failed.cardinality());
+		for (int i = failed.nextSetBit(0); i >= 0; i = failed.nextSetBit(i + 1)) {
+			failedDocuments.add(documents.get(i));
+		}
+		return failedDocuments;
+	}
 }
@@ -17,16 +17,23 @@ package org.opensearch.security.auditlog.sink;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequestBuilder;
+import org.opensearch.action.bulk.BulkResponse;
 import org.opensearch.action.index.IndexRequestBuilder;
 import org.opensearch.action.support.WriteRequest.RefreshPolicy;
 import org.opensearch.client.Client;
 import org.opensearch.common.settings.Settings;
 import org.opensearch.common.unit.TimeValue;
 import org.opensearch.common.util.concurrent.ThreadContext.StoredContext;
+import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.security.auditlog.impl.AuditMessage;
 import org.opensearch.security.support.ConfigConstants;
 import org.opensearch.security.support.HeaderHelper;
@@ -39,6 +46,7 @@ public final class InternalOpenSearchSink extends AuditLogSink {
 	final String type;
 	private DateTimeFormatter indexPattern;
 	private final ThreadPool threadPool;
+	private final AuditMessageBulkBuffer bulkBuffer;
 
 	public InternalOpenSearchSink(final String name, final Settings settings, final String settingsPrefix, final Path configPath, final Client clientProvider, ThreadPool threadPool, AuditLogSink fallbackSink) {
 		super(name, settings, settingsPrefix, fallbackSink);
@@ -54,11 +62,19 @@ public final class InternalOpenSearchSink extends AuditLogSink {
 		} catch (IllegalArgumentException e) {
 			log.debug("Unable to parse index pattern due to {}. " + "If you have no date pattern configured you can safely ignore this message", e.getMessage());
 		}
+
+		if (sinkSettings.getAsBoolean(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_ENABLED, false)) {
+			this.bulkBuffer = new AuditMessageBulkBuffer(this, settings, sinkSettings, this::bulkIndex);
+		} else {
+			this.bulkBuffer = null;
+		}
 	}
 
 	@Override
 	public void close() throws IOException {
-
+		if (bulkBuffer != null) {
+			bulkBuffer.close();
+		}
 	}
 
 	public boolean doStore(final AuditMessage msg) {
@@ -70,9 +86,13 @@ public final class InternalOpenSearchSink extends AuditLogSink {
 			return true;
 		}
 
+		if (bulkBuffer != null) {
+			return bulkBuffer.add(msg, getExpandedIndexName(indexPattern, index));
+		}
+
 		try (StoredContext ctx = threadPool.getThreadContext().stashContext()) {
 			try {
-				final IndexRequestBuilder irb = clientProvider.prepareIndex(getExpandedIndexName(indexPattern, index)).setRefreshPolicy(RefreshPolicy.IMMEDIATE).setSource(msg.getAsMap());
+				final IndexRequestBuilder irb = clientProvider.prepareIndex(getExpandedIndexName(indexPattern, index)).setRefreshPolicy(RefreshPolicy.IMMEDIATE).setSource(msg.toJsonBytes(), XContentType.JSON);
 				threadPool.getThreadContext().putHeader(ConfigConstants.OPENDISTRO_SECURITY_CONF_REQUEST_HEADER, "true");
 				irb.setTimeout(TimeValue.timeValueMinutes(1));
 				irb.execute().actionGet();
@@ -83,4 +103,29 @@ public final class InternalOpenSearchSink extends AuditLogSink {
 			}
 		}
 	}
+
+	private List<AuditMessageBulkBuffer.Document> bulkIndex(final List<AuditMessageBulkBuffer.Document> documents) {
+		try (StoredContext ctx = threadPool.getThreadContext().stashContext()) {
+			threadPool.getThreadContext().putHeader(ConfigConstants.OPENDISTRO_SECURITY_CONF_REQUEST_HEADER, "true");
+			final BulkRequestBuilder brb = clientProvider.prepareBulk();
+			for (AuditMessageBulkBuffer.Document document : documents) {
+				brb.add(clientProvider.prepareIndex(document.getIndex()).setSource(document.getSource(), XContentType.JSON));
+			}
+			brb.setTimeout(TimeValue.timeValueMinutes(1));
+			final BulkResponse response = brb.execute().actionGet();
+
+			if (!response.hasFailures()) {
+				return Collections.emptyList();
+			}
+
+			log.error("Unable to index audit log messages due to {}", response.buildFailureMessage());
+			final List<AuditMessageBulkBuffer.Document> failed = new ArrayList<>();
+			for (BulkItemResponse item : response.getItems()) {
+				if (item.isFailed()) {
+					failed.add(documents.get(item.getItemId()));
+				}
+			}
+			return failed;
+		}
+	}
 }
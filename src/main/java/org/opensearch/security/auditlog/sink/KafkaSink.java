@@ -19,27 +19,59 @@ import java.io.IOException;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
 
-import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.clients.producer.RecordMetadata;
-import org.apache.kafka.common.serialization.LongSerializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 
 import org.opensearch.SpecialPermission;
+import org.opensearch.common.bytes.BytesReference;
 import org.opensearch.common.settings.Settings;
 import org.opensearch.security.auditlog.impl.AuditMessage;
 
 public class KafkaSink extends AuditLogSink {
 
-    private final String[] mandatoryProperties = new String []{"bootstrap_servers","topic_name"};
+    /**
+     * Record key which decides the partition of a message. Messages with the same key keep their order.
+     */
+    enum PartitionKey {
+        NONE,
+        USER,
+        INDEX;
+
+        String of(final AuditMessage msg) {
+            switch (this) {
+                case USER:
+                    return msg.getEffectiveUser() != null ? msg.getEffectiveUser() : msg.getInitiatingUser();
+                case INDEX:
+                    final String[] indices = msg.getIndices();
+                    return indices != null && indices.length > 0 ? indices[0] : null;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    static final String TOPIC_NAME = "topic_name";
+    static final String PARTITION_KEY = "partition_key";
+
+    private final String[] mandatoryProperties = new String []{"bootstrap_servers", TOPIC_NAME};
 	private boolean valid = true;
-	private Producer<Long, String> producer;
+	private Producer<String, byte[]> producer;
 	private String topicName;
+	private PartitionKey partitionKey = PartitionKey.NONE;
+
+	private final LongAdder inFlight = new LongAdder();
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder failed = new LongAdder();
 
 	public KafkaSink(final String name, final Settings settings, final String settingsPrefix, AuditLogSink fallbackSink) {
 		super(name, settings, settingsPrefix, fallbackSink);
@@ -52,17 +84,16 @@ public class KafkaSink extends AuditLogSink {
 			return;
 		}
 
-        final Properties producerProps = new Properties();
-
-        for(String key: sinkSettings.names()) {
-            if(!key.equals("topic_name")) {
-                producerProps.put(key.replace('_', '.'), sinkSettings.get(key));
-            }
-        }
+		try {
+			partitionKey = PartitionKey.valueOf(sinkSettings.get(PARTITION_KEY, PartitionKey.NONE.name()).toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			log.error("Invalid value for {}: {}, must be one of none, user, index", PARTITION_KEY, sinkSettings.get(PARTITION_KEY));
+			this.valid = false;
+			return;
+		}
 
-		producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, LongSerializer.class.getName());
-		producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
-		topicName = sinkSettings.get("topic_name");
+        final Properties producerProps = getProducerProperties(sinkSettings);
+		topicName = sinkSettings.get(TOPIC_NAME);
 
 		//map path of
 		//ssl.keystore.location
@@ -76,10 +107,10 @@ public class KafkaSink extends AuditLogSink {
         }
 
         try {
-            this.producer = AccessController.doPrivileged(new PrivilegedExceptionAction<KafkaProducer<Long, String>>() {
+            this.producer = AccessController.doPrivileged(new PrivilegedExceptionAction<KafkaProducer<String, byte[]>>() {
                 @Override
-                public KafkaProducer<Long, String> run() throws Exception {
-                    return new KafkaProducer<Long, String>(producerProps);
+                public KafkaProducer<String, byte[]> run() throws Exception {
+                    return new KafkaProducer<String, byte[]>(producerProps);
                 }
             });
         } catch (PrivilegedActionException e) {
@@ -89,26 +120,53 @@ public class KafkaSink extends AuditLogSink {
 
 	}
 
+	/**
+	 * Maps all sink settings except the ones of the sink itself to producer properties. Batching and compression
+	 * default to values suited for a high volume of small messages unless they are configured explicitly.
+	 */
+	static Properties getProducerProperties(final Settings sinkSettings) {
+		final Properties producerProps = new Properties();
+		producerProps.put(ProducerConfig.LINGER_MS_CONFIG, "20");
+		producerProps.put(ProducerConfig.BATCH_SIZE_CONFIG, String.valueOf(256 * 1024));
+		producerProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+
+		for(String key: sinkSettings.names()) {
+			if(!key.equals(TOPIC_NAME) && !key.equals(PARTITION_KEY)) {
+				producerProps.put(key.replace('_', '.'), sinkSettings.get(key));
+			}
+		}
+
+		producerProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+		producerProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+		return producerProps;
+	}
+
 	@Override
 	protected boolean doStore(AuditMessage msg) {
 		if (!valid || producer == null) {
 			return false;
 		}
 
-		ProducerRecord<Long, String> data = new ProducerRecord<Long, String>(topicName, msg.toJson());
-		producer.send(data, new Callback() {
-
-            @Override
-            public void onCompletion(RecordMetadata metadata, Exception exception) {
-               if(exception == null) {
-                   //log trace?
-               } else {
-                   log.error("Could not store message on Kafka topic {}", topicName, exception);
-                   fallbackSink.store(msg);
-               }
-
-            }
-        });
+		final ProducerRecord<String, byte[]> data = new ProducerRecord<String, byte[]>(topicName, partitionKey.of(msg), BytesReference.toBytes(msg.toJsonBytes()));
+		inFlight.increment();
+		try {
+			producer.send(data, (metadata, exception) -> {
+				inFlight.decrement();
+				if (exception == null) {
+					sent.increment();
+				} else {
+					failed.increment();
+					log.error("Could not store message on Kafka topic {}", topicName, exception);
+					storeInFallbackSink(msg);
+				}
+			});
+		} catch (Exception e) {
+			// the producer did not accept the record, e.g. because its buffer stayed full for max.block.ms
+			inFlight.decrement();
+			failed.increment();
+			log.error("Could not send message to Kafka topic {}", topicName, e);
+			return false;
+		}
 		return true;
 	}
 
@@ -117,11 +175,20 @@ public class KafkaSink extends AuditLogSink {
 		return true;
 	}
 
+	@Override
+	public Map<String, Object> getStats() {
+		final Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("kafka_in_flight", inFlight.sum());
+		stats.put("kafka_sent", sent.sum());
+		stats.put("kafka_failed", failed.sum());
+		return stats;
+	}
+
 	private void checkMandatorySinkSettings(Settings sinkSettings) {
 	    for(String mandatory: mandatoryProperties) {
 	        String value = sinkSettings.get(mandatory);
 	        if (value == null || value.length() == 0) {
-	            log.error("No value for {} provided in configuration, this endpoint will not work.", value);
+	            log.error("No value for {} provided in configuration, this endpoint will not work.", mandatory);
 	            this.valid = false;
 	        }
 	    }
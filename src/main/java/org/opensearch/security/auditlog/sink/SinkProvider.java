@@ -16,6 +16,8 @@
 package org.opensearch.security.auditlog.sink;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -101,6 +103,10 @@ public class SinkProvider {
 		return allSinks.get(sinkName.toLowerCase());
 	}
 
+	public Collection<AuditLogSink> getAllSinks() {
+		return Collections.unmodifiableCollection(allSinks.values());
+	}
+
 	public AuditLogSink getDefaultSink() {
 		return defaultSink;
 	}
@@ -36,7 +36,9 @@ import java.net.InetSocketAddress;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.Callable;
@@ -153,10 +155,26 @@ public class BackendRegistry {
         restRoleCache.invalidateAll();
     }
 
+    /**
+     * Removes the cached entries of the given users only, for example after their internal user entries have changed.
+     */
+    public void invalidateCache(final Set<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+
+        userCache.asMap().entrySet().removeIf(e -> usernames.contains(e.getKey().getUsername()) || usernames.contains(e.getValue().getName()));
+        restImpersonationCache.invalidateAll(usernames);
+        restRoleCache.asMap().keySet().removeIf(user -> usernames.contains(user.getName()));
+    }
+
+    /**
+     * The caches are not invalidated here, as the model is rebuilt for every configuration change. The caller which
+     * reloads the configuration invalidates them depending on the changed configuration types.
+     */
     @Subscribe
     public void onDynamicConfigModelChanged(DynamicConfigModel dcm) {
 
-        invalidateCache();
         anonymousAuthEnabled = dcm.isAnonymousAuthenticationEnabled()//config.dynamic.http.anonymous_auth_enabled
                 && !opensearchSettings.getAsBoolean(ConfigConstants.SECURITY_COMPLIANCE_DISABLE_ANONYMOUS_AUTHENTICATION, false);
 
@@ -172,6 +190,24 @@ public class BackendRegistry {
         initialized = !restAuthDomains.isEmpty() || anonymousAuthEnabled  || injectedUserEnabled;
     }
 
+    /**
+     * @return the statistics of the HTTP authenticators which provide them, by authenticator type and order
+     */
+    public Map<String, Object> getAuthenticatorStats() {
+        final Map<String, Object> stats = new LinkedHashMap<>();
+        final SortedSet<AuthDomain> authDomains = restAuthDomains;
+
+        if (authDomains != null) {
+            for (final AuthDomain authDomain : authDomains) {
+                final HTTPAuthenticator httpAuthenticator = authDomain.getHttpAuthenticator();
+                if (httpAuthenticator instanceof StatsProvider) {
+                    stats.put(httpAuthenticator.getType() + "/" + authDomain.getOrder(), ((StatsProvider) httpAuthenticator).getStats());
+                }
+            }
+        }
+        return stats;
+    }
+
     /**
      *
      * @param request
@@ -0,0 +1,16 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.auth;
+
+import java.util.Map;
+
+/**
+ * Implemented by HTTP authenticators which report statistics, for example about the keys they retrieve from an
+ * identity provider. These are returned by the stats endpoint.
+ */
+public interface StatsProvider {
+    Map<String, Object> getStats();
+}
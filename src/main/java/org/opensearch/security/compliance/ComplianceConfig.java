@@ -107,6 +107,7 @@ public class ComplianceConfig {
     private final DateTimeFormatter auditLogPattern;
     private final String auditLogIndex;
     private final boolean enabled;
+    private final XContentDiff writeDiff;
 
     private ComplianceConfig(
             final boolean enabled,
@@ -121,7 +122,8 @@ public class ComplianceConfig {
             final Set<String> ignoredComplianceUsersForWrite,
             final String securityIndex,
             final String destinationType,
-            final String destinationIndex) {
+            final String destinationIndex,
+            final XContentDiff writeDiff) {
         this.enabled = enabled;
         this.logExternalConfig = logExternalConfig;
         this.logInternalConfig = logInternalConfig;
@@ -160,6 +162,7 @@ public class ComplianceConfig {
         }
         this.auditLogPattern = auditLogPattern;
         this.auditLogIndex = auditLogIndex;
+        this.writeDiff = writeDiff;
 
         this.readEnabledFieldsCache = CacheBuilder.newBuilder()
                 .maximumSize(CACHE_SIZE)
@@ -197,7 +200,10 @@ public class ComplianceConfig {
                 ignoredComplianceUsersForWrite,
                 settings.get(ConfigConstants.SECURITY_CONFIG_INDEX_NAME, ConfigConstants.OPENDISTRO_SECURITY_DEFAULT_CONFIG_INDEX),
                 settings.get(ConfigConstants.SECURITY_AUDIT_TYPE_DEFAULT, null),
-                settings.get(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_INDEX, "'security-auditlog-'YYYY.MM.dd")
+                settings.get(ConfigConstants.SECURITY_AUDIT_CONFIG_DEFAULT_PREFIX + ConfigConstants.SECURITY_AUDIT_OPENSEARCH_INDEX, "'security-auditlog-'YYYY.MM.dd"),
+                new XContentDiff(
+                        settings.getAsList(ConfigConstants.SECURITY_COMPLIANCE_HISTORY_WRITE_DIFF_INCLUDE_FIELDS, Collections.emptyList()),
+                        settings.getAsList(ConfigConstants.SECURITY_COMPLIANCE_HISTORY_WRITE_DIFF_EXCLUDE_FIELDS, Collections.emptyList()))
         );
     }
 
@@ -384,6 +390,13 @@ public class ComplianceConfig {
         return readEnabledFields;
     }
 
+    /**
+     * @return the diff used for write requests, restricted to the fields configured in opensearch.yml
+     */
+    public XContentDiff getWriteDiff() {
+        return writeDiff;
+    }
+
     @VisibleForTesting
     public WildcardMatcher getWatchedWriteIndicesMatcher() {
         return watchedWriteIndicesMatcher;
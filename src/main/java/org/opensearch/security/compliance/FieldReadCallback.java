@@ -71,7 +71,7 @@ public final class FieldReadCallback {
         this.maskedFieldsMatcher = maskedFieldsMatcher;
         this.shardId = shardId;
         try {
-            sfc = (SourceFieldsContext) HeaderHelper.deserializeSafeFromHeader(threadContext, "_opendistro_security_source_field_context");
+            sfc = HeaderHelper.getSourceFieldsContextFromHeader(threadContext);
             if(sfc != null && sfc.hasIncludesOrExcludes()) {
                 if (log.isTraceEnabled()) {
                     log.trace("_opendistro_security_source_field_context: {}", sfc);
@@ -0,0 +1,322 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.compliance;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.flipkart.zjsonpatch.JsonDiff;
+import com.google.common.collect.ImmutableList;
+
+import org.opensearch.common.Strings;
+import org.opensearch.common.bytes.BytesReference;
+import org.opensearch.common.xcontent.NamedXContentRegistry;
+import org.opensearch.common.xcontent.XContentBuilder;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.XContentParser;
+import org.opensearch.common.xcontent.XContentParser.Token;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.common.xcontent.json.JsonXContent;
+import org.opensearch.security.DefaultObjectMapper;
+import org.opensearch.security.support.WildcardMatcher;
+
+import static org.opensearch.common.xcontent.DeprecationHandler.THROW_UNSUPPORTED_OPERATION;
+
+/**
+ * Computes the JSON patch (RFC 6902) between two versions of a document source.
+ *
+ * Both sources are walked with one parser each in lockstep. As long as the fields of an object come in the same order
+ * on both sides, scalar values are compared token by token and only changed values are copied to the patch. Only the
+ * rest of an object whose field order diverges, and arrays which are not equal, are read into memory. Arrays are
+ * diffed element-wise like {@link JsonDiff} does.
+ *
+ * Fields can be restricted with include and exclude patterns on their dotted path, like "user.name" or "meta.*".
+ * Excluded fields and fields which are not included are skipped by the parsers without being read.
+ */
+public final class XContentDiff {
+
+    private static final Object MISSING = new Object();
+
+    private final List<String> includePatterns;
+    private final WildcardMatcher includes;
+    private final WildcardMatcher excludes;
+
+    public XContentDiff(final List<String> includePatterns, final List<String> excludePatterns) {
+        this.includePatterns = includePatterns == null ? ImmutableList.of() : ImmutableList.copyOf(includePatterns);
+        this.includes = this.includePatterns.isEmpty() ? null : WildcardMatcher.from(this.includePatterns);
+        this.excludes = excludePatterns == null ? WildcardMatcher.NONE : WildcardMatcher.from(excludePatterns);
+    }
+
+    /**
+     * @return the patch as JSON array, or an empty string if both sources are equal for all watched fields
+     */
+    public String diff(final BytesReference before, final BytesReference after, final XContentType xContentType) throws IOException {
+        if (before.equals(after)) {
+            return "";
+        }
+
+        try (XContentParser beforeParser = createParser(before, xContentType);
+             XContentParser afterParser = createParser(after, xContentType)) {
+            final Patch patch = new Patch();
+            final Token beforeToken = beforeParser.nextToken();
+            final Token afterToken = afterParser.nextToken();
+
+            if (beforeToken == Token.START_OBJECT && afterToken == Token.START_OBJECT) {
+                diffObjects(beforeParser, afterParser, null, "", false, patch);
+            } else {
+                patch.diffValues("", readValue(beforeParser, null, true), readValue(afterParser, null, true));
+            }
+            return patch.toJson();
+        }
+    }
+
+    private static XContentParser createParser(final BytesReference source, final XContentType xContentType) throws IOException {
+        return XContentHelper.createParser(NamedXContentRegistry.EMPTY, THROW_UNSUPPORTED_OPERATION, source, xContentType);
+    }
+
+    /**
+     * Both parsers must be positioned on the start of the object and are positioned on its end afterwards.
+     */
+    private void diffObjects(final XContentParser before, final XContentParser after, final String path, final String pointer,
+                             final boolean included, final Patch patch) throws IOException {
+        Token beforeToken = before.nextToken();
+        Token afterToken = after.nextToken();
+
+        while (beforeToken == Token.FIELD_NAME && afterToken == Token.FIELD_NAME && before.currentName().equals(after.currentName())) {
+            final String name = before.currentName();
+            before.nextToken();
+            after.nextToken();
+            diffFields(before, after, childPath(path, name), childPointer(pointer, name), included, patch);
+            beforeToken = before.nextToken();
+            afterToken = after.nextToken();
+        }
+
+        if (beforeToken == Token.END_OBJECT && afterToken == Token.END_OBJECT) {
+            return;
+        }
+
+        // fields were added, removed or reordered, compare the rest of the object in memory
+        final Map<String, Object> beforeFields = readFields(before, beforeToken, path, included);
+        final Map<String, Object> afterFields = readFields(after, afterToken, path, included);
+        patch.diffMaps(pointer, beforeFields, afterFields);
+    }
+
+    private void diffFields(final XContentParser before, final XContentParser after, final String path, final String pointer,
+                            final boolean parentIncluded, final Patch patch) throws IOException {
+        if (excludes.test(path)) {
+            before.skipChildren();
+            after.skipChildren();
+            return;
+        }
+
+        final Token beforeToken = before.currentToken();
+        final Token afterToken = after.currentToken();
+        final boolean included = parentIncluded || isIncluded(path);
+
+        if (beforeToken == Token.START_OBJECT && afterToken == Token.START_OBJECT) {
+            if (included || mayContainIncluded(path)) {
+                diffObjects(before, after, path, pointer, included, patch);
+            } else {
+                before.skipChildren();
+                after.skipChildren();
+            }
+        } else if (included && beforeToken.isValue() && afterToken.isValue()) {
+            if (!scalarEquals(before, after)) {
+                patch.replace(pointer, after);
+            }
+        } else {
+            patch.diffValues(pointer, readValue(before, path, parentIncluded), readValue(after, path, parentIncluded));
+        }
+    }
+
+    private Map<String, Object> readFields(final XContentParser parser, final Token firstToken, final String path,
+                                           final boolean included) throws IOException {
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        for (Token token = firstToken; token == Token.FIELD_NAME; token = parser.nextToken()) {
+            final String name = parser.currentName();
+            final String fieldPath = childPath(path, name);
+            parser.nextToken();
+            if (excludes.test(fieldPath)) {
+                parser.skipChildren();
+                continue;
+            }
+            final Object value = readValue(parser, fieldPath, included);
+            if (value != MISSING) {
+                fields.put(name, value);
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * @return the value the parser is positioned on, or MISSING if it contains no watched field
+     */
+    private Object readValue(final XContentParser parser, final String path, final boolean parentIncluded) throws IOException {
+        final Token token = parser.currentToken();
+        final boolean included = parentIncluded || path == null || isIncluded(path);
+
+        if (token == Token.START_OBJECT) {
+            if (!included && !mayContainIncluded(path)) {
+                parser.skipChildren();
+                return MISSING;
+            }
+            final Map<String, Object> fields = readFields(parser, parser.nextToken(), path, included);
+            return fields.isEmpty() && !included ? MISSING : fields;
+        }
+
+        if (!included) {
+            parser.skipChildren();
+            return MISSING;
+        }
+
+        switch (token) {
+            case START_ARRAY:
+                return parser.list();
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_NULL:
+                return null;
+            default:
+                return parser.objectText();
+        }
+    }
+
+    private static boolean scalarEquals(final XContentParser before, final XContentParser after) throws IOException {
+        final Token token = before.currentToken();
+        if (token != after.currentToken()) {
+            return false;
+        }
+        switch (token) {
+            case VALUE_STRING:
+                return before.text().equals(after.text());
+            case VALUE_NUMBER:
+                return before.numberType() == after.numberType() && before.numberValue().equals(after.numberValue());
+            case VALUE_BOOLEAN:
+                return before.booleanValue() == after.booleanValue();
+            case VALUE_NULL:
+                return true;
+            default:
+                return Objects.equals(before.objectText(), after.objectText());
+        }
+    }
+
+    private boolean isIncluded(final String path) {
+        return includes == null || includes.test(path);
+    }
+
+    private boolean mayContainIncluded(final String path) {
+        if (includes == null) {
+            return true;
+        }
+        final String prefix = path + ".";
+        for (String pattern : includePatterns) {
+            if (pattern.startsWith(prefix) || pattern.indexOf('*') >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String childPath(final String path, final String name) {
+        return path == null ? name : path + "." + name;
+    }
+
+    private static String childPointer(final String pointer, final String name) {
+        return pointer + "/" + name.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static final class Patch {
+        private final XContentBuilder builder;
+        private int operations;
+
+        private Patch() throws IOException {
+            this.builder = JsonXContent.contentBuilder().startArray();
+        }
+
+        private void replace(final String pointer, final XContentParser value) throws IOException {
+            startOperation("replace", pointer).field("value");
+            builder.copyCurrentStructure(value);
+            builder.endObject();
+        }
+
+        private void replace(final String pointer, final Object value) throws IOException {
+            startOperation("replace", pointer).field("value", value).endObject();
+        }
+
+        private void add(final String pointer, final Object value) throws IOException {
+            startOperation("add", pointer).field("value", value).endObject();
+        }
+
+        private void remove(final String pointer) throws IOException {
+            startOperation("remove", pointer).endObject();
+        }
+
+        private XContentBuilder startOperation(final String op, final String pointer) throws IOException {
+            operations++;
+            return builder.startObject().field("op", op).field("path", pointer);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void diffValues(final String pointer, final Object before, final Object after) throws IOException {
+            if (before == MISSING && after == MISSING) {
+                return;
+            }
+            if (before == MISSING) {
+                add(pointer, after);
+            } else if (after == MISSING) {
+                remove(pointer);
+            } else if (before instanceof Map && after instanceof Map) {
+                diffMaps(pointer, (Map<String, Object>) before, (Map<String, Object>) after);
+            } else if (before instanceof List && after instanceof List) {
+                if (!before.equals(after)) {
+                    diffArrays(pointer, (List<?>) before, (List<?>) after);
+                }
+            } else if (!Objects.equals(before, after)) {
+                replace(pointer, after);
+            }
+        }
+
+        private void diffMaps(final String pointer, final Map<String, Object> before, final Map<String, Object> after) throws IOException {
+            for (String name : before.keySet()) {
+                if (!after.containsKey(name)) {
+                    remove(childPointer(pointer, name));
+                }
+            }
+            for (Map.Entry<String, Object> entry : after.entrySet()) {
+                final String name = entry.getKey();
+                diffValues(childPointer(pointer, name), before.containsKey(name) ? before.get(name) : MISSING, entry.getValue());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void diffArrays(final String pointer, final List<?> before, final List<?> after) throws IOException {
+            final JsonNode arrayPatch = JsonDiff.asJson(DefaultObjectMapper.objectMapper.valueToTree(before),
+                    DefaultObjectMapper.objectMapper.valueToTree(after));
+            for (JsonNode operation : arrayPatch) {
+                final Map<String, Object> op = DefaultObjectMapper.objectMapper.convertValue(operation, LinkedHashMap.class);
+                op.put("path", pointer + op.get("path"));
+                if (op.containsKey("from")) {
+                    op.put("from", pointer + op.get("from"));
+                }
+                operations++;
+                builder.map(op);
+            }
+        }
+
+        private String toJson() throws IOException {
+            builder.endArray();
+            return operations == 0 ? "" : Strings.toString(builder);
+        }
+    }
+}
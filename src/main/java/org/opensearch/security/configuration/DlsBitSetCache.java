@@ -0,0 +1,133 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.FixedBitSet;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.support.ConfigConstants;
+
+/**
+ * Node wide cache of the documents of a segment which match a DLS query.
+ *
+ * The bitsets are keyed by segment core and by the effective DLS restriction, which is the parsed DLS query
+ * together with the FLS and masking configuration the query is evaluated with. Lucene queries are compared
+ * structurally, so all users whose DLS queries resolve to the same query (for example templated queries with the same
+ * substituted values) share one bitset. The bitsets do not reflect deletions, which differ between readers of the same
+ * segment core. Entries are evicted by size and dropped as soon as their segment is closed.
+ */
+public final class DlsBitSetCache {
+
+    private final Cache<Key, FixedBitSet> cache;
+    private final Set<IndexReader.CacheKey> watchedCoreKeys = ConcurrentHashMap.newKeySet();
+    private final LongAdder bytes = new LongAdder();
+
+    public DlsBitSetCache(final Settings settings) {
+        final long maxBytes = settings.getAsMemory(ConfigConstants.SECURITY_DLS_BITSET_CACHE_SIZE, "2%").getBytes();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, FixedBitSet bits) -> weight(bits))
+                .removalListener(notification -> bytes.add(-weight(notification.getValue())))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param dlsKey the effective DLS restriction, must implement equals and hashCode
+     * @return the cached bitset, which must not be modified, or the one computed by the loader
+     */
+    FixedBitSet getOrCompute(final IndexReader.CacheHelper coreCacheHelper, final Object dlsKey, final BitSetLoader loader)
+            throws IOException {
+        if (coreCacheHelper == null) {
+            return loader.load();
+        }
+
+        final IndexReader.CacheKey coreKey = coreCacheHelper.getKey();
+        if (watchedCoreKeys.add(coreKey)) {
+            coreCacheHelper.addClosedListener(this::onClose);
+        }
+
+        try {
+            return cache.get(new Key(coreKey, dlsKey), () -> {
+                final FixedBitSet bits = loader.load();
+                bytes.add(weight(bits));
+                return bits;
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to evaluate DLS query", e.getCause());
+        }
+    }
+
+    private void onClose(final IndexReader.CacheKey coreKey) {
+        watchedCoreKeys.remove(coreKey);
+        cache.asMap().keySet().removeIf(key -> key.coreKey == coreKey);
+    }
+
+    private static int weight(final FixedBitSet bits) {
+        return (int) Math.min(Integer.MAX_VALUE, bits.ramBytesUsed());
+    }
+
+    public Map<String, Object> getStats() {
+        final CacheStats stats = cache.stats();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.size());
+        result.put("bytes", bytes.sum());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    @FunctionalInterface
+    interface BitSetLoader {
+        FixedBitSet load() throws IOException;
+    }
+
+    private static final class Key {
+        private final IndexReader.CacheKey coreKey;
+        private final Object dlsKey;
+        private final int hashCode;
+
+        private Key(final IndexReader.CacheKey coreKey, final Object dlsKey) {
+            this.coreKey = coreKey;
+            this.dlsKey = dlsKey;
+            this.hashCode = 31 * System.identityHashCode(coreKey) + dlsKey.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return coreKey == other.coreKey && dlsKey.equals(other.dlsKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
@@ -68,6 +69,7 @@ import org.opensearch.security.securityconf.EvaluatedDlsFlsConfig;
 import org.opensearch.security.support.ConfigConstants;
 import org.opensearch.security.support.ReflectiveAttributeAccessors;
 import org.opensearch.security.support.SecurityUtils;
+import org.opensearch.security.user.User;
 
 public class DlsFilterLevelActionHandler {
     private static final Logger log = LogManager.getLogger(DlsFilterLevelActionHandler.class);
@@ -77,7 +79,8 @@ public class DlsFilterLevelActionHandler {
 
     public static boolean handle(String action, ActionRequest request, ActionListener<?> listener, EvaluatedDlsFlsConfig evaluatedDlsFlsConfig,
                                  Resolved resolved, Client nodeClient, ClusterService clusterService, IndicesService indicesService,
-                                 IndexNameExpressionResolver resolver, DlsQueryParser dlsQueryParser, ThreadContext threadContext) {
+                                 IndexNameExpressionResolver resolver, DlsQueryParser dlsQueryParser, ThreadContext threadContext,
+                                 TermsLookupCache termsLookupCache) {
 
         if (threadContext.getHeader(ConfigConstants.OPENDISTRO_SECURITY_FILTER_LEVEL_DLS_DONE) != null) {
             return true;
@@ -103,7 +106,7 @@ public class DlsFilterLevelActionHandler {
         }
 
         return new DlsFilterLevelActionHandler(action, request, listener, evaluatedDlsFlsConfig, resolved, nodeClient, clusterService, indicesService,
-                resolver, dlsQueryParser, threadContext).handle();
+                resolver, dlsQueryParser, threadContext, termsLookupCache).handle();
     }
 
     private final String action;
@@ -118,12 +121,14 @@ public class DlsFilterLevelActionHandler {
     private final IndicesService indicesService;
     private final ThreadContext threadContext;
     private final IndexNameExpressionResolver resolver;
+    private final TermsLookupCache termsLookupCache;
     private BoolQueryBuilder filterLevelQueryBuilder;
     private DocumentAllowList documentWhitelist;
 
     DlsFilterLevelActionHandler(String action, ActionRequest request, ActionListener<?> listener, EvaluatedDlsFlsConfig evaluatedDlsFlsConfig,
                                 Resolved resolved, Client nodeClient, ClusterService clusterService, IndicesService indicesService,
-                                IndexNameExpressionResolver resolver, DlsQueryParser dlsQueryParser, ThreadContext threadContext) {
+                                IndexNameExpressionResolver resolver, DlsQueryParser dlsQueryParser, ThreadContext threadContext,
+                                TermsLookupCache termsLookupCache) {
         this.action = action;
         this.request = request;
         this.listener = listener;
@@ -135,6 +140,7 @@ public class DlsFilterLevelActionHandler {
         this.dlsQueryParser = dlsQueryParser;
         this.threadContext = threadContext;
         this.resolver = resolver;
+        this.termsLookupCache = termsLookupCache;
 
         this.requiresIndexScoping = resolved.isLocalAll() || resolved.getAllIndicesResolved(clusterService, resolver).size() != 1;
     }
@@ -164,28 +170,57 @@ public class DlsFilterLevelActionHandler {
                 return true;
             }
 
-            if (request instanceof SearchRequest) {
-                return handle((SearchRequest) request, ctx);
-            } else if (request instanceof GetRequest) {
-                return handle((GetRequest) request, ctx);
-            } else if (request instanceof MultiGetRequest) {
-                return handle((MultiGetRequest) request, ctx);
-            } else if (request instanceof ClusterSearchShardsRequest) {
-                return handle((ClusterSearchShardsRequest) request, ctx);
-            } else {
-                log.error("Unsupported request type for filter level DLS: " + request);
-                listener.onFailure(new OpenSearchSecurityException(
-                        "Unsupported request type for filter level DLS: " + action + "; " + request.getClass().getName()));
+            if (documentWhitelist != null) {
+                documentWhitelist.applyTo(threadContext);
+            }
+
+            if (termsLookupCache != null && canResolveTermsLookups()) {
+                // The terms lookups are resolved here so that the lookup documents are not fetched again for every shard
+                // and every request. The thread context of the listener is not defined, thus it is restored explicitly.
+                final Supplier<StoredContext> dlsContext = threadContext.newRestorableContext(false);
+                final User user = threadContext.getTransient(ConfigConstants.OPENDISTRO_SECURITY_USER);
+
+                termsLookupCache.resolve(filterLevelQueryBuilder, nodeClient, user, ActionListener.wrap(resolvedQuery -> {
+                    try (StoredContext ignore = dlsContext.get()) {
+                        filterLevelQueryBuilder = (BoolQueryBuilder) resolvedQuery;
+                        dispatch(ctx);
+                    }
+                }, listener::onFailure));
+
                 return false;
             }
+
+            return dispatch(ctx);
         }
     }
 
-    private boolean handle(SearchRequest searchRequest, StoredContext ctx) {
-        if (documentWhitelist != null) {
-            documentWhitelist.applyTo(threadContext);
+    private boolean canResolveTermsLookups() {
+        if (request instanceof SearchRequest) {
+            // Requests with a local cluster alias rebuild the query extension with prefixed index names
+            return LOCAL_CLUSTER_ALIAS_GETTER.apply((SearchRequest) request) == null;
+        } else {
+            return request instanceof GetRequest || request instanceof MultiGetRequest;
+        }
+    }
+
+    private boolean dispatch(StoredContext ctx) {
+        if (request instanceof SearchRequest) {
+            return handle((SearchRequest) request, ctx);
+        } else if (request instanceof GetRequest) {
+            return handle((GetRequest) request, ctx);
+        } else if (request instanceof MultiGetRequest) {
+            return handle((MultiGetRequest) request, ctx);
+        } else if (request instanceof ClusterSearchShardsRequest) {
+            return handle((ClusterSearchShardsRequest) request, ctx);
+        } else {
+            log.error("Unsupported request type for filter level DLS: " + request);
+            listener.onFailure(new OpenSearchSecurityException(
+                    "Unsupported request type for filter level DLS: " + action + "; " + request.getClass().getName()));
+            return false;
         }
+    }
 
+    private boolean handle(SearchRequest searchRequest, StoredContext ctx) {
         String localClusterAlias = LOCAL_CLUSTER_ALIAS_GETTER.apply(searchRequest);
 
         if (localClusterAlias != null) {
@@ -229,10 +264,6 @@ public class DlsFilterLevelActionHandler {
     }
 
     private boolean handle(GetRequest getRequest, StoredContext ctx) {
-        if (documentWhitelist != null) {
-            documentWhitelist.applyTo(threadContext);
-        }
-
         SearchRequest searchRequest = new SearchRequest(getRequest.indices());
         BoolQueryBuilder query = QueryBuilders.boolQuery().must(QueryBuilders.idsQuery().addIds(getRequest.id())).must(filterLevelQueryBuilder);
         searchRequest.source(SearchSourceBuilder.searchSource().query(query));
@@ -274,10 +305,6 @@ public class DlsFilterLevelActionHandler {
     }
 
     private boolean handle(MultiGetRequest multiGetRequest, StoredContext ctx) {
-        if (documentWhitelist != null) {
-            documentWhitelist.applyTo(threadContext);
-        }
-
         Map<String, Set<String>> idsGroupedByIndex = multiGetRequest.getItems().stream()
                 .collect(Collectors.groupingBy((item) -> item.index(), Collectors.mapping((item) -> item.id(), Collectors.toSet())));
         Set<String> indices = idsGroupedByIndex.keySet();
@@ -21,17 +21,15 @@ package org.opensearch.security.configuration;
 //https://github.com/salyh/elasticsearch-security-plugin/blob/4b53974a43b270ae77ebe79d635e2484230c9d01/src/main/java/org/elasticsearch/plugins/security/filter/DlsWriteFilter.java
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 
-import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import org.apache.lucene.codecs.StoredFieldsReader;
@@ -59,6 +57,7 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.AttributeSource;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
@@ -68,39 +67,26 @@ import org.apache.lucene.util.automaton.CompiledAutomaton;
 
 import org.opensearch.ExceptionsHelper;
 import org.opensearch.cluster.service.ClusterService;
-import org.opensearch.common.bytes.BytesArray;
-import org.opensearch.common.bytes.BytesReference;
-import org.opensearch.common.collect.Tuple;
 import org.opensearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.opensearch.common.util.concurrent.ThreadContext;
-import org.opensearch.common.xcontent.XContentBuilder;
-import org.opensearch.common.xcontent.XContentHelper;
-import org.opensearch.common.xcontent.XContentType;
-import org.opensearch.common.xcontent.support.XContentMapValues;
 import org.opensearch.index.IndexService;
 import org.opensearch.index.shard.ShardId;
 import org.opensearch.security.auditlog.AuditLog;
 import org.opensearch.security.compliance.ComplianceConfig;
 import org.opensearch.security.compliance.FieldReadCallback;
-import org.opensearch.security.dlic.rest.support.Utils;
 import org.opensearch.security.support.ConfigConstants;
 import org.opensearch.security.support.HeaderHelper;
-import org.opensearch.security.support.MapUtils;
 import org.opensearch.security.support.SecurityUtils;
 import org.opensearch.security.support.WildcardMatcher;
 
 class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
 
     private static final String KEYWORD = ".keyword";
-    private static final String[] EMPTY_STRING_ARRAY = new String[0];
     private final Set<String> includesSet;
     private final Set<String> excludesSet;
     private final FieldInfos flsFieldInfos;
     private final boolean flsEnabled;
-    private String[] includes;
-    private String[] excludes;
     private boolean canOptimize = true;
-    private Function<Map<String, ?>, Map<String, Object>> filterFunction;
     private final IndexService indexService;
     private final ThreadContext threadContext;
     private final ClusterService clusterService;
@@ -108,7 +94,10 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
     private final MaskedFieldsMap maskedFieldsMap;
     private final ShardId shardId;
     private final boolean maskFields;
+    private final SourceRewriter sourceRewriter;
     private final Salt salt;
+    private final MaskedOrdinalCache maskedOrdinalCache;
+    private final DlsBitSetCache dlsBitSetCache;
 
     private DlsGetEvaluator dge = null;
 
@@ -116,7 +105,8 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
     DlsFlsFilterLeafReader(final LeafReader delegate, final Set<String> includesExcludes,
                            final Query dlsQuery, final IndexService indexService, final ThreadContext threadContext,
                            final ClusterService clusterService,
-                           final AuditLog auditlog, final Set<String> maskedFields, final ShardId shardId, final Salt salt) {
+                           final AuditLog auditlog, final Set<String> maskedFields, final ShardId shardId, final Salt salt,
+                           final MaskedOrdinalCache maskedOrdinalCache, final DlsBitSetCache dlsBitSetCache) {
         super(delegate);
 
         maskFields = (maskedFields != null && maskedFields.size() > 0);
@@ -126,6 +116,8 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         this.clusterService = clusterService;
         this.auditlog = auditlog;
         this.salt = salt;
+        this.maskedOrdinalCache = maskedOrdinalCache;
+        this.dlsBitSetCache = dlsBitSetCache;
         this.maskedFieldsMap = MaskedFieldsMap.extractMaskedFields(maskFields, maskedFields, salt);
 
         this.shardId = shardId;
@@ -177,9 +169,6 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
                             fa[i++] = info;
                         }
                     }
-
-                    this.excludes = excludesSet.toArray(EMPTY_STRING_ARRAY);
-
                 } else {
                     WildcardMatcher matcher = WildcardMatcher.from(includesSet);
                     for (final FieldInfo info : infos) {
@@ -187,14 +176,6 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
                             fa[i++] = info;
                         }
                     }
-
-                    this.includes = includesSet.toArray(EMPTY_STRING_ARRAY);
-                }
-
-                if (!excludesSet.isEmpty()) {
-                    filterFunction = XContentMapValues.filter(null, excludes);
-                } else {
-                    filterFunction = XContentMapValues.filter(includes, null);
                 }
             }
 
@@ -210,8 +191,16 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
             this.flsFieldInfos = null;
         }
 
+        if (flsEnabled || maskFields) {
+            this.sourceRewriter = new SourceRewriter(includesSet, excludesSet, canOptimize,
+                    maskFields ? field -> this.maskedFieldsMap.getMaskedField(field).orElse(null) : null);
+        } else {
+            this.sourceRewriter = null;
+        }
+
         try {
-            dge = new DlsGetEvaluator(dlsQuery, in, applyDlsHere());
+            // the DLS query is evaluated against this reader, so FLS and masking are part of the effective restriction
+            dge = new DlsGetEvaluator(dlsQuery, Arrays.asList(dlsQuery, includesExcludes, maskedFields), in, applyDlsHere());
         } catch (IOException e) {
             throw ExceptionsHelper.convertToOpenSearchException(e);
         }
@@ -223,23 +212,14 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         private final CacheHelper readerCacheHelper;
         private final boolean hasDeletions;
 
-        public DlsGetEvaluator(final Query dlsQuery, final LeafReader in, boolean applyDlsHere) throws IOException {
+        public DlsGetEvaluator(final Query dlsQuery, final Object dlsKey, final LeafReader in, boolean applyDlsHere) throws IOException {
             if(dlsQuery != null && applyDlsHere) {
-                //borrowed from Apache Lucene (Copyright Apache Software Foundation (ASF))
-                //https://github.com/apache/lucene-solr/blob/branch_6_3/lucene/misc/src/java/org/apache/lucene/index/PKIndexSplitter.java
-                final IndexSearcher searcher = new IndexSearcher(DlsFlsFilterLeafReader.this);
-                searcher.setQueryCache(null);
-                final Weight preserveWeight = searcher.createWeight(dlsQuery, ScoreMode.COMPLETE_NO_SCORES, 1f);
-
-                final int maxDoc = in.maxDoc();
-                final FixedBitSet bits = new FixedBitSet(maxDoc);
-                final Scorer preserveScorer = preserveWeight.scorer(DlsFlsFilterLeafReader.this.getContext());
-
-                if (preserveScorer != null) {
-                    bits.or(preserveScorer.iterator());
-                }
+                final FixedBitSet matching = getMatchingDocs(dlsQuery, dlsKey, in);
+                final FixedBitSet bits;
 
                 if (in.hasDeletions()) {
+                    // the matching docs may be shared with other readers of this segment, so never modify them
+                    bits = matching.clone();
                     final Bits oldLiveDocs = in.getLiveDocs();
                     assert oldLiveDocs != null;
                     final DocIdSetIterator it = new BitSetIterator(bits, 0L);
@@ -248,6 +228,8 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
                             bits.clear(i);
                         }
                     }
+                } else {
+                    bits = matching;
                 }
 
                 liveBits = bits;
@@ -264,6 +246,29 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
             }
         }
 
+        private FixedBitSet getMatchingDocs(final Query dlsQuery, final Object dlsKey, final LeafReader in) throws IOException {
+            final DlsBitSetCache.BitSetLoader loader = () -> {
+                //borrowed from Apache Lucene (Copyright Apache Software Foundation (ASF))
+                //https://github.com/apache/lucene-solr/blob/branch_6_3/lucene/misc/src/java/org/apache/lucene/index/PKIndexSplitter.java
+                final IndexSearcher searcher = new IndexSearcher(DlsFlsFilterLeafReader.this);
+                searcher.setQueryCache(null);
+                final Weight preserveWeight = searcher.createWeight(dlsQuery, ScoreMode.COMPLETE_NO_SCORES, 1f);
+
+                final FixedBitSet bits = new FixedBitSet(in.maxDoc());
+                final Scorer preserveScorer = preserveWeight.scorer(DlsFlsFilterLeafReader.this.getContext());
+
+                if (preserveScorer != null) {
+                    bits.or(preserveScorer.iterator());
+                }
+                return bits;
+            };
+
+            if (dlsBitSetCache == null) {
+                return loader.load();
+            }
+            return dlsBitSetCache.getOrCompute(in.getCoreCacheHelper(), dlsKey, loader);
+        }
+
         //return null means no hidden docs
         public Bits getLiveDocs() {
             return liveBits;
@@ -328,11 +333,14 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         private final Set<String> maskedFields;
         private final ShardId shardId;
         private final Salt salt;
+        private final MaskedOrdinalCache maskedOrdinalCache;
+        private final DlsBitSetCache dlsBitSetCache;
 
         public DlsFlsSubReaderWrapper(final Set<String> includes, final Query dlsQuery,
                                       final IndexService indexService, final ThreadContext threadContext,
                                       final ClusterService clusterService,
-                                      final AuditLog auditlog, final Set<String> maskedFields, ShardId shardId, final Salt salt) {
+                                      final AuditLog auditlog, final Set<String> maskedFields, ShardId shardId, final Salt salt,
+                                      final MaskedOrdinalCache maskedOrdinalCache, final DlsBitSetCache dlsBitSetCache) {
             this.includes = includes;
             this.dlsQuery = dlsQuery;
             this.indexService = indexService;
@@ -342,11 +350,13 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
             this.maskedFields = maskedFields;
             this.shardId = shardId;
             this.salt = salt;
+            this.maskedOrdinalCache = maskedOrdinalCache;
+            this.dlsBitSetCache = dlsBitSetCache;
         }
 
         @Override
         public LeafReader wrap(final LeafReader reader) {
-            return new DlsFlsFilterLeafReader(reader, includes, dlsQuery, indexService, threadContext, clusterService, auditlog, maskedFields, shardId, salt);
+            return new DlsFlsFilterLeafReader(reader, includes, dlsQuery, indexService, threadContext, clusterService, auditlog, maskedFields, shardId, salt, maskedOrdinalCache, dlsBitSetCache);
         }
 
     }
@@ -362,12 +372,16 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         private final Set<String> maskedFields;
         private final ShardId shardId;
         private final Salt salt;
+        private final MaskedOrdinalCache maskedOrdinalCache;
+        private final DlsBitSetCache dlsBitSetCache;
 
         public DlsFlsDirectoryReader(final DirectoryReader in, final Set<String> includes, final Query dlsQuery,
                                      final IndexService indexService, final ThreadContext threadContext,
                                      final ClusterService clusterService,
-                                     final AuditLog auditlog, final Set<String> maskedFields, ShardId shardId, final Salt salt) throws IOException {
-            super(in, new DlsFlsSubReaderWrapper(includes, dlsQuery, indexService, threadContext, clusterService, auditlog, maskedFields, shardId, salt));
+                                     final AuditLog auditlog, final Set<String> maskedFields, ShardId shardId, final Salt salt,
+                                     final MaskedOrdinalCache maskedOrdinalCache, final DlsBitSetCache dlsBitSetCache) throws IOException {
+            super(in, new DlsFlsSubReaderWrapper(includes, dlsQuery, indexService, threadContext, clusterService, auditlog, maskedFields,
+                    shardId, salt, maskedOrdinalCache, dlsBitSetCache));
             this.includes = includes;
             this.dlsQuery = dlsQuery;
             this.indexService = indexService;
@@ -377,11 +391,13 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
             this.maskedFields = maskedFields;
             this.shardId = shardId;
             this.salt = salt;
+            this.maskedOrdinalCache = maskedOrdinalCache;
+            this.dlsBitSetCache = dlsBitSetCache;
         }
 
         @Override
         protected DirectoryReader doWrapDirectoryReader(final DirectoryReader in) throws IOException {
-            return new DlsFlsDirectoryReader(in, includes, dlsQuery, indexService, threadContext, clusterService, auditlog, maskedFields, shardId, salt);
+            return new DlsFlsDirectoryReader(in, includes, dlsQuery, indexService, threadContext, clusterService, auditlog, maskedFields, shardId, salt, maskedOrdinalCache, dlsBitSetCache);
         }
 
         @Override
@@ -433,10 +449,7 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         if (complianceConfig != null && complianceConfig.readHistoryEnabledForIndex(indexService.index().getName())) {
             visitor = new ComplianceAwareStoredFieldVisitor(visitor);
         }
-        if (maskFields) {
-            visitor = new HashingStoredFieldVisitor(visitor);
-        }
-        if (flsEnabled) {
+        if (sourceRewriter != null) {
             visitor = new FlsStoredFieldVisitor(visitor);
         }
         return visitor;
@@ -446,9 +459,6 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         if (visitor instanceof FlsStoredFieldVisitor) {
             visitor = ((FlsStoredFieldVisitor) visitor).delegate;
         }
-        if (visitor instanceof HashingStoredFieldVisitor) {
-            visitor = ((HashingStoredFieldVisitor) visitor).delegate;
-        }
         if (visitor instanceof ComplianceAwareStoredFieldVisitor) {
             ((ComplianceAwareStoredFieldVisitor) visitor).finished();
         }
@@ -569,19 +579,7 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         public void binaryField(final FieldInfo fieldInfo, final byte[] value) throws IOException {
 
             if (fieldInfo.name.equals("_source")) {
-                Map<String, Object> filteredSource = Utils.byteArrayToMutableJsonMap(value);
-
-                if (!canOptimize) {
-                    filteredSource = filterFunction.apply(filteredSource);
-                } else {
-                    if (!excludesSet.isEmpty()) {
-                        filteredSource.keySet().removeAll(excludesSet);
-                    } else {
-                        filteredSource.keySet().retainAll(includesSet);
-                    }
-                }
-
-                delegate.binaryField(fieldInfo, Utils.jsonMapToByteArray(filteredSource));
+                delegate.binaryField(fieldInfo, sourceRewriter.rewrite(value));
             } else {
                 delegate.binaryField(fieldInfo, value);
             }
@@ -629,113 +627,6 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         }
     }
 
-    private class HashingStoredFieldVisitor extends StoredFieldVisitor {
-
-        private final StoredFieldVisitor delegate;
-
-        public HashingStoredFieldVisitor(final StoredFieldVisitor delegate) {
-            super();
-            this.delegate = delegate;
-        }
-
-        @Override
-        public void binaryField(final FieldInfo fieldInfo, final byte[] value) throws IOException {
-
-            if (fieldInfo.name.equals("_source")) {
-                final BytesReference bytesRef = new BytesArray(value);
-                final Tuple<XContentType, Map<String, Object>> bytesRefTuple = XContentHelper.convertToMap(bytesRef, false, XContentType.JSON);
-                Map<String, Object> filteredSource = bytesRefTuple.v2();
-                MapUtils.deepTraverseMap(filteredSource, HASH_CB);
-                final XContentBuilder xBuilder = XContentBuilder.builder(bytesRefTuple.v1().xContent()).map(filteredSource);
-                delegate.binaryField(fieldInfo, BytesReference.toBytes(BytesReference.bytes(xBuilder)));
-            } else {
-                delegate.binaryField(fieldInfo, value);
-            }
-        }
-
-
-        @Override
-        public Status needsField(final FieldInfo fieldInfo) throws IOException {
-            return delegate.needsField(fieldInfo);
-        }
-
-        @Override
-        public int hashCode() {
-            return delegate.hashCode();
-        }
-
-        @Override
-        public void intField(final FieldInfo fieldInfo, final int value) throws IOException {
-            delegate.intField(fieldInfo, value);
-        }
-
-        @Override
-        public void longField(final FieldInfo fieldInfo, final long value) throws IOException {
-            delegate.longField(fieldInfo, value);
-        }
-
-        @Override
-        public void floatField(final FieldInfo fieldInfo, final float value) throws IOException {
-            delegate.floatField(fieldInfo, value);
-        }
-
-        @Override
-        public void doubleField(final FieldInfo fieldInfo, final double value) throws IOException {
-            delegate.doubleField(fieldInfo, value);
-        }
-
-        @Override
-        public boolean equals(final Object obj) {
-            return delegate.equals(obj);
-        }
-
-        @Override
-        public String toString() {
-            return delegate.toString();
-        }
-    }
-
-    private final MapUtils.Callback HASH_CB = new HashingCallback();
-
-    private class HashingCallback implements MapUtils.Callback {
-        @SuppressWarnings({ "rawtypes", "unchecked" })
-        @Override
-        public void call(String key, Map<String, Object> map, List<String> stack) {
-            Object v = map.get(key);
-
-            if (v instanceof List) {
-                final String field = stack.isEmpty() ? key : Joiner.on('.').join(stack) + "." + key;
-                final MaskedField mf = maskedFieldsMap.getMaskedField(field).orElse(null);
-                if (mf != null) {
-                    final List listField = (List) v;
-                    for (ListIterator iterator = listField.listIterator(); iterator.hasNext();) {
-                        final Object listFieldItem = iterator.next();
-
-                        if (listFieldItem instanceof String) {
-                            iterator.set(mf.mask(((String) listFieldItem)));
-                        } else if (listFieldItem instanceof byte[]) {
-                            iterator.set(mf.mask(((byte[]) listFieldItem)));
-                        }
-                    }
-                }
-            }
-
-            if (v != null && (v instanceof String || v instanceof byte[])) {
-
-                final String field = stack.isEmpty() ? key : Joiner.on('.').join(stack) + "." + key;
-                final MaskedField mf = maskedFieldsMap.getMaskedField(field).orElse(null);
-                if (mf != null) {
-                    if (v instanceof String) {
-                        map.replace(key, mf.mask(((String) v)));
-                    } else {
-                        map.replace(key, mf.mask(((byte[]) v)));
-                    }
-                }
-            }
-        }
-
-    }
-
     @Override
     public Fields getTermVectors(final int docID) throws IOException {
         final Fields fields = in.getTermVectors(docID);
@@ -831,7 +722,7 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         return isFls(field) ? wrapSortedDocValues(field, in.getSortedDocValues(field)) : null;
     }
 
-    private SortedDocValues wrapSortedDocValues(final String field, final SortedDocValues sortedDocValues) {
+    private SortedDocValues wrapSortedDocValues(final String field, final SortedDocValues sortedDocValues) throws IOException {
 
         final MaskedFieldsMap maskedFieldsMap;
 
@@ -839,6 +730,12 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
             final MaskedField mf = maskedFieldsMap.getMaskedField(handleKeyword(field)).orElse(null);
 
             if (mf != null) {
+                final MaskedOrdinalCache.MaskedOrdinals maskedOrdinals = getMaskedOrdinals(field, mf, sortedDocValues.getValueCount(),
+                        sortedDocValues::termsEnum);
+                if (maskedOrdinals != null) {
+                    return new OrderedMaskedSortedDocValues(sortedDocValues, maskedOrdinals);
+                }
+
                 return new SortedDocValues() {
 
                     @Override
@@ -912,7 +809,7 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         return isFls(field) ? wrapSortedSetDocValues(field, in.getSortedSetDocValues(field)) : null;
     }
 
-    private SortedSetDocValues wrapSortedSetDocValues(final String field, final SortedSetDocValues sortedSetDocValues) {
+    private SortedSetDocValues wrapSortedSetDocValues(final String field, final SortedSetDocValues sortedSetDocValues) throws IOException {
 
         final MaskedFieldsMap maskedFieldsMap;
 
@@ -921,6 +818,12 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
             MaskedField mf = maskedFieldsMap.getMaskedField(handleKeyword(field)).orElse(null);
 
             if (mf != null) {
+                final MaskedOrdinalCache.MaskedOrdinals maskedOrdinals = getMaskedOrdinals(field, mf, sortedSetDocValues.getValueCount(),
+                        sortedSetDocValues::termsEnum);
+                if (maskedOrdinals != null) {
+                    return new OrderedMaskedSortedSetDocValues(sortedSetDocValues, maskedOrdinals);
+                }
+
                 return new SortedSetDocValues() {
 
                     @Override
@@ -1119,10 +1022,8 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         return dge.hasDeletions();
     }
 
-    @SuppressWarnings("unchecked")
     private MaskedFieldsMap getRuntimeMaskedFieldInfo() {
-        final Map<String, Set<String>> maskedFieldsMap = (Map<String, Set<String>>) HeaderHelper.deserializeSafeFromHeader(threadContext,
-                ConfigConstants.OPENDISTRO_SECURITY_MASKED_FIELD_HEADER);
+        final Map<String, Set<String>> maskedFieldsMap = HeaderHelper.getMaskedFieldsFromHeader(threadContext);
         final String maskedEval = SecurityUtils.evalMap(maskedFieldsMap, indexService.index().getName());
 
         if(maskedEval != null) {
@@ -1136,6 +1037,14 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         return null;
     }
 
+    private MaskedOrdinalCache.MaskedOrdinals getMaskedOrdinals(final String field, final MaskedField mf, final long valueCount,
+                                                                final MaskedOrdinalCache.TermsEnumSupplier terms) throws IOException {
+        if (maskedOrdinalCache == null) {
+            return null;
+        }
+        return maskedOrdinalCache.get(in.getCoreCacheHelper(), field, mf, salt, valueCount, terms);
+    }
+
     private String handleKeyword(final String field) {
         if(field != null && field.endsWith(KEYWORD)) {
             return field.substring(0, field.length()-KEYWORD.length());
@@ -1143,6 +1052,160 @@ class DlsFlsFilterLeafReader extends SequentialStoredFieldsLeafReader  {
         return field;
     }
 
+    /**
+     * Masked sorted doc values whose ordinals follow the order of the masked terms, so consumers which rely on
+     * ordinal order (sorting, ordinal based aggregations) see consistent results
+     */
+    private static class OrderedMaskedSortedDocValues extends SortedDocValues {
+
+        private final SortedDocValues delegate;
+        private final MaskedOrdinalCache.MaskedOrdinals maskedOrdinals;
+
+        OrderedMaskedSortedDocValues(final SortedDocValues delegate, final MaskedOrdinalCache.MaskedOrdinals maskedOrdinals) {
+            this.delegate = delegate;
+            this.maskedOrdinals = maskedOrdinals;
+        }
+
+        @Override
+        public int ordValue() throws IOException {
+            return maskedOrdinals.maskedOrd(delegate.ordValue());
+        }
+
+        @Override
+        public BytesRef lookupOrd(int ord) throws IOException {
+            return maskedOrdinals.lookupOrd(ord);
+        }
+
+        @Override
+        public int lookupTerm(BytesRef key) throws IOException {
+            return maskedOrdinals.lookupTerm(key);
+        }
+
+        @Override
+        public int getValueCount() {
+            return maskedOrdinals.getValueCount();
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            return delegate.advanceExact(target);
+        }
+
+        @Override
+        public int docID() {
+            return delegate.docID();
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            return delegate.nextDoc();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            return delegate.advance(target);
+        }
+
+        @Override
+        public long cost() {
+            return delegate.cost();
+        }
+    }
+
+    /**
+     * Masked sorted set doc values whose ordinals follow the order of the masked terms. The ordinals of a document
+     * are remapped, sorted and deduplicated when the document is positioned.
+     */
+    private static class OrderedMaskedSortedSetDocValues extends SortedSetDocValues {
+
+        private final SortedSetDocValues delegate;
+        private final MaskedOrdinalCache.MaskedOrdinals maskedOrdinals;
+        private long[] ords = new long[8];
+        private int ordCount;
+        private int ordUpto;
+
+        OrderedMaskedSortedSetDocValues(final SortedSetDocValues delegate, final MaskedOrdinalCache.MaskedOrdinals maskedOrdinals) {
+            this.delegate = delegate;
+            this.maskedOrdinals = maskedOrdinals;
+        }
+
+        private void loadOrds() throws IOException {
+            ordCount = 0;
+            ordUpto = 0;
+            for (long ord = delegate.nextOrd(); ord != NO_MORE_ORDS; ord = delegate.nextOrd()) {
+                ords = ArrayUtil.grow(ords, ordCount + 1);
+                ords[ordCount++] = maskedOrdinals.maskedOrd(ord);
+            }
+            if (ordCount > 1) {
+                Arrays.sort(ords, 0, ordCount);
+                int distinct = 1;
+                for (int i = 1; i < ordCount; i++) {
+                    if (ords[i] != ords[distinct - 1]) {
+                        ords[distinct++] = ords[i];
+                    }
+                }
+                ordCount = distinct;
+            }
+        }
+
+        @Override
+        public long nextOrd() throws IOException {
+            return ordUpto < ordCount ? ords[ordUpto++] : NO_MORE_ORDS;
+        }
+
+        @Override
+        public BytesRef lookupOrd(long ord) throws IOException {
+            return maskedOrdinals.lookupOrd(ord);
+        }
+
+        @Override
+        public long lookupTerm(BytesRef key) throws IOException {
+            return maskedOrdinals.lookupTerm(key);
+        }
+
+        @Override
+        public long getValueCount() {
+            return maskedOrdinals.getValueCount();
+        }
+
+        @Override
+        public boolean advanceExact(int target) throws IOException {
+            final boolean found = delegate.advanceExact(target);
+            if (found) {
+                loadOrds();
+            }
+            return found;
+        }
+
+        @Override
+        public int docID() {
+            return delegate.docID();
+        }
+
+        @Override
+        public int nextDoc() throws IOException {
+            final int doc = delegate.nextDoc();
+            if (doc != NO_MORE_DOCS) {
+                loadOrds();
+            }
+            return doc;
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+            final int doc = delegate.advance(target);
+            if (doc != NO_MORE_DOCS) {
+                loadOrds();
+            }
+            return doc;
+        }
+
+        @Override
+        public long cost() {
+            return delegate.cost();
+        }
+    }
+
     private static class MaskedTermsEnum extends TermsEnum {
 
         private final TermsEnum delegate;
@@ -17,22 +17,31 @@ package org.opensearch.security.configuration;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.security.AccessController;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Ints;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
-import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.util.BytesRef;
 
 import org.opensearch.OpenSearchException;
@@ -52,7 +61,6 @@ import org.opensearch.action.update.UpdateRequest;
 import org.opensearch.client.Client;
 import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
 import org.opensearch.cluster.service.ClusterService;
-import org.opensearch.common.Strings;
 import org.opensearch.common.settings.Settings;
 import org.opensearch.common.util.concurrent.ThreadContext;
 import org.opensearch.common.xcontent.NamedXContentRegistry;
@@ -71,6 +79,7 @@ import org.opensearch.search.aggregations.bucket.terms.SignificantTermsAggregati
 import org.opensearch.search.aggregations.bucket.terms.StringTerms;
 import org.opensearch.search.aggregations.bucket.terms.StringTerms.Bucket;
 import org.opensearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.opensearch.search.aggregations.support.ValuesSourceAggregationBuilder;
 import org.opensearch.search.builder.SearchSourceBuilder;
 import org.opensearch.search.internal.SearchContext;
 import org.opensearch.search.query.QuerySearchResult;
@@ -81,29 +90,37 @@ import org.opensearch.security.support.Base64Helper;
 import org.opensearch.security.support.ConfigConstants;
 import org.opensearch.security.support.HeaderHelper;
 import org.opensearch.security.support.SecurityUtils;
+import org.opensearch.security.support.WildcardMatcher;
 import org.opensearch.threadpool.ThreadPool;
 
 public class DlsFlsValveImpl implements DlsFlsRequestValve {
 
 	private static final String MAP_EXECUTION_HINT = "map";
+    private static final String REQUEST_CACHE_DIGEST_PREFIX = "_opendistro_security_dls_fls_";
+    private static final String KEYWORD = ".keyword";
 	private static final Logger log = LogManager.getLogger(DlsFlsValveImpl.class);
 
     private final Client nodeClient;
+    private final TermsLookupCache termsLookupCache;
     private final ClusterService clusterService;
     private final ThreadContext threadContext;
     private final Mode mode;
+    private final boolean allowNowInDlsQueries;
     private final DlsQueryParser dlsQueryParser;
     private final IndexNameExpressionResolver resolver;
 
     public DlsFlsValveImpl(Settings settings, Client nodeClient, ClusterService clusterService, IndexNameExpressionResolver resolver,
-    		NamedXContentRegistry namedXContentRegistry, ThreadContext threadContext) {
+    		NamedXContentRegistry namedXContentRegistry, ThreadContext threadContext, TermsLookupCache termsLookupCache,
+    		DlsQueryCache dlsQueryCache) {
         super();
         this.nodeClient = nodeClient;
+        this.termsLookupCache = termsLookupCache;
         this.clusterService = clusterService;
         this.resolver = resolver;
         this.threadContext = threadContext;
         this.mode = Mode.get(settings);
-        this.dlsQueryParser = new DlsQueryParser(namedXContentRegistry);
+        this.allowNowInDlsQueries = settings.getAsBoolean(ConfigConstants.SECURITY_UNSUPPORTED_ALLOW_NOW_IN_DLS, false);
+        this.dlsQueryParser = new DlsQueryParser(namedXContentRegistry, dlsQueryCache);
     }
 
     /**
@@ -176,13 +193,21 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
 
             SearchRequest searchRequest = ((SearchRequest) request);
 
-            //When we encounter a terms or sampler aggregation with masked fields activated we forcibly
-            //need to switch off global ordinals because field masking can break ordering
+            //When we encounter a terms or sampler aggregation on a masked field we forcibly need to switch off global ordinals.
+            //The segment ordinals of masked fields follow the order of the masked terms, but global ordinals are cached per
+            //shard reader and shared with users who see other masks or none at all.
             //https://www.elastic.co/guide/en/elasticsearch/reference/master/eager-global-ordinals.html#_avoiding_global_ordinal_loading
             if (evaluatedDlsFlsConfig.hasFieldMasking()) {
 
                 if (searchRequest.source() != null && searchRequest.source().aggregations() != null) {
+                    final WildcardMatcher maskedFieldsMatcher = getMaskedFieldsMatcher(evaluatedDlsFlsConfig);
+
                     for (AggregationBuilder aggregationBuilder : searchRequest.source().aggregations().getAggregatorFactories()) {
+                        if (!(aggregationBuilder instanceof ValuesSourceAggregationBuilder)
+                                || !mayUseMaskedField(maskedFieldsMatcher, (ValuesSourceAggregationBuilder<?>) aggregationBuilder)) {
+                            continue;
+                        }
+
                         if (aggregationBuilder instanceof TermsAggregationBuilder) {
                             ((TermsAggregationBuilder) aggregationBuilder).executionHint(MAP_EXECUTION_HINT);
                         }
@@ -198,38 +223,10 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
                 }
             }
 
-            if (!evaluatedDlsFlsConfig.hasFls() && !evaluatedDlsFlsConfig.hasDls()
-                    && searchRequest.source().aggregations() != null) {
-
-                boolean cacheable = true;
-
-                for (AggregationBuilder af : searchRequest.source().aggregations().getAggregatorFactories()) {
-
-                    if (!af.getType().equals("cardinality") && !af.getType().equals("count")) {
-                        cacheable = false;
-                        continue;
-                    }
-
-                    StringBuilder sb = new StringBuilder();
-
-                    if (searchRequest.source() != null) {
-                        sb.append(Strings.toString(searchRequest.source()) + System.lineSeparator());
-                    }
-
-                    sb.append(Strings.toString(af) + System.lineSeparator());
-
-                    LogManager.getLogger("debuglogger").error(sb.toString());
-
-                }
-
-                if (!cacheable) {
-                    searchRequest.requestCache(Boolean.FALSE);
-                } else {
-                	LogManager.getLogger("debuglogger").error("Shard requestcache enabled for "
-                            + (searchRequest.source() == null ? "<NULL>" : Strings.toString(searchRequest.source())));
-                }
-
-            } else {
+            //The shards add a digest of the DLS/FLS/masked fields restrictions of their index to the request cache key (see
+            //handleSearchContext()). Filter-level DLS depends on the results of terms lookups and DLS queries may depend
+            //on 'now', neither of which is part of that key.
+            if (searchRequest.source() == null || (filteredDlsFlsConfig.hasDls() && (doFilterLevelDls || allowNowInDlsQueries))) {
                 searchRequest.requestCache(Boolean.FALSE);
             }
         }
@@ -294,7 +291,7 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
 
         if (doFilterLevelDls && filteredDlsFlsConfig.hasDls()) {
             return DlsFilterLevelActionHandler.handle(action, request, listener, evaluatedDlsFlsConfig, resolved, nodeClient, clusterService,
-            		OpenSearchSecurityPlugin.GuiceHolder.getIndicesService(), resolver, dlsQueryParser, threadContext);
+            		OpenSearchSecurityPlugin.GuiceHolder.getIndicesService(), resolver, dlsQueryParser, threadContext, termsLookupCache);
         } else {
             return true;
         }
@@ -303,11 +300,20 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
     @Override
     public void handleSearchContext(SearchContext context, ThreadPool threadPool, NamedXContentRegistry namedXContentRegistry) {
         try {
-            @SuppressWarnings("unchecked")
-            final Map<String, Set<String>> queries = (Map<String, Set<String>>) HeaderHelper.deserializeSafeFromHeader(threadPool.getThreadContext(),
-                    ConfigConstants.OPENDISTRO_SECURITY_DLS_QUERY_HEADER);
+            final String index = context.indexShard().indexSettings().getIndex().getName();
+            final Map<String, Set<String>> queries = HeaderHelper.getDlsQueriesFromHeader(threadPool.getThreadContext());
+
+            if (!Boolean.FALSE.equals(context.request().requestCache())) {
+                final SearchSourceBuilder source = context.request().source();
+                final SearchSourceBuilder keyedSource = withRestrictionsDigest(source,
+                        getRestrictionsDigest(threadPool.getThreadContext(), queries, index));
+                if (keyedSource != source) {
+                    //only the request cache key is affected, the source has already been parsed into the context
+                    context.request().source(keyedSource);
+                }
+            }
 
-            final String dlsEval = SecurityUtils.evalMap(queries, context.indexShard().indexSettings().getIndex().getName());
+            final String dlsEval = SecurityUtils.evalMap(queries, index);
 
             if (dlsEval != null) {
 
@@ -320,8 +326,7 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
                 final Set<String> unparsedDlsQueries = queries.get(dlsEval);
                 
                 if (unparsedDlsQueries != null && !unparsedDlsQueries.isEmpty()) {
-                    BooleanQuery.Builder queryBuilder = dlsQueryParser.parse(unparsedDlsQueries, context.getQueryShardContext(),
-                            (q) -> new ConstantScoreQuery(q));
+                    BooleanQuery.Builder queryBuilder = dlsQueryParser.parse(unparsedDlsQueries, context.getQueryShardContext(), true);
 
                     queryBuilder.add(context.parsedQuery().query(), Occur.MUST);
 
@@ -352,6 +357,87 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
         );
     }
 
+    /**
+     * @return a digest of the DLS queries, FLS fields and masked fields of the index, or null if there are no restrictions
+     */
+    static String getRestrictionsDigest(final ThreadContext threadContext, final Map<String, Set<String>> queries, final String index) {
+        final Set<String> dlsQueries = getForIndex(queries, index);
+        final Set<String> flsFields = getForIndex(HeaderHelper.getFlsFieldsFromHeader(threadContext), index);
+        final Set<String> maskedFields = getForIndex(HeaderHelper.getMaskedFieldsFromHeader(threadContext), index);
+
+        if (dlsQueries.isEmpty() && flsFields.isEmpty() && maskedFields.isEmpty()) {
+            return null;
+        }
+
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Set<String> values : Arrays.asList(dlsQueries, flsFields, maskedFields)) {
+                final String[] sorted = values.toArray(new String[0]);
+                Arrays.sort(sorted);
+                digest.update(Ints.toByteArray(sorted.length));
+                for (String value : sorted) {
+                    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    digest.update(Ints.toByteArray(bytes.length));
+                    digest.update(bytes);
+                }
+            }
+            return BaseEncoding.base64Url().omitPadding().encode(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<String> getForIndex(final Map<String, Set<String>> map, final String index) {
+        final String key = SecurityUtils.evalMap(map, index);
+        final Set<String> values = key == null ? null : map.get(key);
+        return values == null ? Collections.emptySet() : values;
+    }
+
+    /**
+     * The shard request cache key is derived from the serialized shard request, so the restrictions digest is added as a
+     * stats group to the search source. Stats groups do not change the search response and, as the source has already
+     * been parsed, do not show up in the search stats either. Digests sent by clients are removed, otherwise unrestricted
+     * users could fill the cache entries of restricted users.
+     *
+     * @return the given source if no change is necessary, otherwise a modified copy
+     */
+    static SearchSourceBuilder withRestrictionsDigest(final SearchSourceBuilder source, final String digest) {
+        if (source == null) {
+            return null;
+        }
+
+        final List<String> stats = source.stats() == null ? Collections.emptyList() : source.stats();
+        final List<String> keyedStats = stats.stream()
+                .filter(group -> !group.startsWith(REQUEST_CACHE_DIGEST_PREFIX))
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        if (digest != null) {
+            keyedStats.add(REQUEST_CACHE_DIGEST_PREFIX + digest);
+        } else if (keyedStats.size() == stats.size()) {
+            return source;
+        }
+
+        return source.shallowCopy().stats(keyedStats);
+    }
+
+    private static WildcardMatcher getMaskedFieldsMatcher(EvaluatedDlsFlsConfig evaluatedDlsFlsConfig) {
+        return WildcardMatcher.from(evaluatedDlsFlsConfig.getFieldMaskingByIndex().values().stream()
+                .flatMap(Set::stream)
+                .map(maskedField -> Splitter.on("::").split(maskedField).iterator().next()));
+    }
+
+    /**
+     * @return true if the aggregation is on a masked field or its keyword sub field, or uses a script
+     */
+    private static boolean mayUseMaskedField(WildcardMatcher maskedFieldsMatcher, ValuesSourceAggregationBuilder<?> aggregationBuilder) {
+        final String field = aggregationBuilder.field();
+        if (field == null || aggregationBuilder.script() != null) {
+            return true;
+        }
+        return maskedFieldsMatcher.test(field)
+                || (field.endsWith(KEYWORD) && maskedFieldsMatcher.test(field.substring(0, field.length() - KEYWORD.length())));
+    }
+
     private static InternalAggregation aggregateBuckets(InternalAggregation aggregation) {
         if (aggregation instanceof StringTerms) {
             StringTerms stringTerms = (StringTerms) aggregation;
@@ -384,7 +470,8 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
             Map<String, Set<String>> dlsQueries = dlsFls.getDlsQueriesByIndex();
 
             if (request instanceof ClusterSearchShardsRequest && HeaderHelper.isTrustedClusterRequest(threadContext)) {
-                threadContext.addResponseHeader(ConfigConstants.OPENDISTRO_SECURITY_DLS_QUERY_HEADER, Base64Helper.serializeObject((Serializable) dlsQueries));
+                // the requesting cluster may run an older version which only reads JDK serialized headers
+                threadContext.addResponseHeader(ConfigConstants.OPENDISTRO_SECURITY_DLS_QUERY_HEADER, Base64Helper.serializeObject((Serializable) dlsQueries, true));
                 if (log.isDebugEnabled()) {
                     log.debug("added response header for DLS info: {}", dlsQueries);
                 }
@@ -431,7 +518,7 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
             Map<String, Set<String>> maskedFieldsMap = dlsFls.getFieldMaskingByIndex();
 
             if (request instanceof ClusterSearchShardsRequest && HeaderHelper.isTrustedClusterRequest(threadContext)) {
-                threadContext.addResponseHeader(ConfigConstants.OPENDISTRO_SECURITY_MASKED_FIELD_HEADER, Base64Helper.serializeObject((Serializable) maskedFieldsMap));
+                threadContext.addResponseHeader(ConfigConstants.OPENDISTRO_SECURITY_MASKED_FIELD_HEADER, Base64Helper.serializeObject((Serializable) maskedFieldsMap, true));
                 if (log.isDebugEnabled()) {
                     log.debug("added response header for masked fields info: {}", maskedFieldsMap);
                 }
@@ -458,7 +545,7 @@ public class DlsFlsValveImpl implements DlsFlsRequestValve {
             Map<String, Set<String>> flsFields = dlsFls.getFlsByIndex();
 
             if (request instanceof ClusterSearchShardsRequest && HeaderHelper.isTrustedClusterRequest(threadContext)) {
-                threadContext.addResponseHeader(ConfigConstants.OPENDISTRO_SECURITY_FLS_FIELDS_HEADER, Base64Helper.serializeObject((Serializable) flsFields));
+                threadContext.addResponseHeader(ConfigConstants.OPENDISTRO_SECURITY_FLS_FIELDS_HEADER, Base64Helper.serializeObject((Serializable) flsFields, true));
                 if (log.isDebugEnabled()) {
                     log.debug("added response header for FLS info: {}", flsFields);
                 }
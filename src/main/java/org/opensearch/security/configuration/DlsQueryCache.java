@@ -0,0 +1,139 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.index.Index;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.security.support.ConfigConstants;
+
+/**
+ * Node wide cache of the Lucene queries which the DLS queries of a role set are turned into on a shard.
+ *
+ * The queries are keyed by shard and mapping version, as the mapping determines how a query is built. Queries which
+ * depend on the search they are built for, like queries using scripts or {@code now}, mark the query shard context
+ * as not cacheable and are never cached. Entries are evicted by their estimated size and dropped when their index is
+ * removed from the node.
+ */
+public final class DlsQueryCache {
+
+    private final Cache<Key, BooleanQuery> cache;
+
+    public DlsQueryCache(final Settings settings) {
+        final long maxBytes = settings.getAsMemory(ConfigConstants.SECURITY_DLS_QUERY_CACHE_SIZE, "1%").getBytes();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, BooleanQuery query) -> (int) Math.min(Integer.MAX_VALUE, key.ramBytesUsed() + ramBytesUsed(query)))
+                .recordStats()
+                .build();
+    }
+
+    BooleanQuery get(final QueryShardContext queryShardContext, final Set<String> unparsedDlsQueries, final boolean constantScoreClauses) {
+        return cache.getIfPresent(new Key(queryShardContext, unparsedDlsQueries, constantScoreClauses));
+    }
+
+    void put(final QueryShardContext queryShardContext, final Set<String> unparsedDlsQueries, final boolean constantScoreClauses,
+            final BooleanQuery query) {
+        cache.put(new Key(queryShardContext, unparsedDlsQueries, constantScoreClauses), query);
+    }
+
+    public void invalidate(final Index index) {
+        cache.asMap().keySet().removeIf(key -> key.indexUuid.equals(index.getUUID()));
+    }
+
+    /**
+     * @return the estimated size of the query; queries which do not account for their size are estimated with
+     * {@link RamUsageEstimator#QUERY_DEFAULT_RAM_BYTES_USED}
+     */
+    static long ramBytesUsed(final Query query) {
+        if (query instanceof BooleanQuery) {
+            long bytes = RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED;
+            for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                bytes += ramBytesUsed(clause.getQuery());
+            }
+            return bytes;
+        } else if (query instanceof ConstantScoreQuery) {
+            return RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED + ramBytesUsed(((ConstantScoreQuery) query).getQuery());
+        } else if (query instanceof BoostQuery) {
+            return RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED + ramBytesUsed(((BoostQuery) query).getQuery());
+        } else {
+            return RamUsageEstimator.sizeOf(query, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED);
+        }
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    public Map<String, Object> getStats() {
+        final CacheStats stats = cache.stats();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.size());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    private static final class Key {
+        private final String indexUuid;
+        private final int shardId;
+        private final long mappingVersion;
+        private final Set<String> unparsedDlsQueries;
+        private final boolean constantScoreClauses;
+        private final int hashCode;
+
+        private Key(final QueryShardContext queryShardContext, final Set<String> unparsedDlsQueries, final boolean constantScoreClauses) {
+            this.indexUuid = queryShardContext.getIndexSettings().getUUID();
+            this.shardId = queryShardContext.getShardId();
+            this.mappingVersion = queryShardContext.getIndexSettings().getIndexMetadata().getMappingVersion();
+            this.unparsedDlsQueries = unparsedDlsQueries;
+            this.constantScoreClauses = constantScoreClauses;
+            this.hashCode = Objects.hash(indexUuid, shardId, mappingVersion, unparsedDlsQueries, constantScoreClauses);
+        }
+
+        private long ramBytesUsed() {
+            long bytes = 64 + 2L * indexUuid.length();
+            for (String unparsedDlsQuery : unparsedDlsQueries) {
+                bytes += 48 + 2L * unparsedDlsQuery.length();
+            }
+            return bytes;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return shardId == other.shardId && mappingVersion == other.mappingVersion && constantScoreClauses == other.constantScoreClauses
+                    && indexUuid.equals(other.indexUuid) && unparsedDlsQueries.equals(other.unparsedDlsQueries);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
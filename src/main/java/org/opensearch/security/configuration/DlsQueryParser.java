@@ -19,7 +19,6 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -27,7 +26,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
@@ -65,22 +66,58 @@ public final class DlsQueryParser {
             .build();
 
     private final NamedXContentRegistry namedXContentRegistry;
+    private final DlsQueryCache dlsQueryCache;
 
     public DlsQueryParser(NamedXContentRegistry namedXContentRegistry) {
+        this(namedXContentRegistry, null);
+    }
+
+    public DlsQueryParser(NamedXContentRegistry namedXContentRegistry, DlsQueryCache dlsQueryCache) {
         this.namedXContentRegistry = namedXContentRegistry;
+        this.dlsQueryCache = dlsQueryCache;
     }
 
     public BooleanQuery.Builder parse(Set<String> unparsedDlsQueries, QueryShardContext queryShardContext) {
-        return parse(unparsedDlsQueries, queryShardContext, null);
+        return parse(unparsedDlsQueries, queryShardContext, false);
     }
 
-    public BooleanQuery.Builder parse(Set<String> unparsedDlsQueries, QueryShardContext queryShardContext,
-            Function<Query, Query> queryMapFunction) {
+    /**
+     * @param constantScoreClauses whether each DLS query is wrapped in a {@link ConstantScoreQuery}
+     * @return a builder with one optional clause per DLS query (and per nested block join) which the caller may add further clauses to
+     */
+    public BooleanQuery.Builder parse(Set<String> unparsedDlsQueries, QueryShardContext queryShardContext, boolean constantScoreClauses) {
 
         if (unparsedDlsQueries == null || unparsedDlsQueries.isEmpty()) {
             return null;
         }
 
+        if (dlsQueryCache == null) {
+            return build(unparsedDlsQueries, queryShardContext, constantScoreClauses);
+        }
+
+        BooleanQuery cachedQuery = dlsQueryCache.get(queryShardContext, unparsedDlsQueries, constantScoreClauses);
+
+        if (cachedQuery != null) {
+            BooleanQuery.Builder dlsQueryBuilder = new BooleanQuery.Builder();
+            dlsQueryBuilder.setMinimumNumberShouldMatch(cachedQuery.getMinimumNumberShouldMatch());
+            for (BooleanClause clause : cachedQuery.clauses()) {
+                dlsQueryBuilder.add(clause);
+            }
+            return dlsQueryBuilder;
+        }
+
+        // a context which is not cacheable before already does not tell whether the DLS queries are cacheable
+        boolean cacheable = queryShardContext.isCacheable();
+        BooleanQuery.Builder dlsQueryBuilder = build(unparsedDlsQueries, queryShardContext, constantScoreClauses);
+
+        if (cacheable && queryShardContext.isCacheable()) {
+            dlsQueryCache.put(queryShardContext, unparsedDlsQueries, constantScoreClauses, dlsQueryBuilder.build());
+        }
+
+        return dlsQueryBuilder;
+    }
+
+    private BooleanQuery.Builder build(Set<String> unparsedDlsQueries, QueryShardContext queryShardContext, boolean constantScoreClauses) {
         boolean hasNestedMapping = queryShardContext.getMapperService().hasNested();
 
         BooleanQuery.Builder dlsQueryBuilder = new BooleanQuery.Builder();
@@ -90,8 +127,8 @@ public final class DlsQueryParser {
             ParsedQuery parsedQuery = queryShardContext.toQuery(parse(unparsedDlsQuery));
             Query dlsQuery = parsedQuery.query();
 
-            if (queryMapFunction != null) {
-                dlsQuery = queryMapFunction.apply(dlsQuery);
+            if (constantScoreClauses) {
+                dlsQuery = new ConstantScoreQuery(dlsQuery);
             }
 
             dlsQueryBuilder.add(dlsQuery, Occur.SHOULD);
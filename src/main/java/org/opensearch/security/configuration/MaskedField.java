@@ -20,16 +20,25 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 import com.google.common.base.Splitter;
 import org.apache.lucene.util.BytesRef;
 import org.bouncycastle.crypto.digests.Blake2bDigest;
-import org.bouncycastle.util.encoders.Hex;
 
 public class MaskedField {
 
+    private static final int BLAKE2B_DIGEST_SIZE = 32;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    // digests are stateful, so every thread keeps its own instances and resets them after use
+    private static final ThreadLocal<SaltedBlake2bDigest> BLAKE2B_DIGEST = new ThreadLocal<>();
+    private static final ThreadLocal<Map<String, MessageDigest>> MESSAGE_DIGESTS = ThreadLocal.withInitial(HashMap::new);
+
     private final String name;
     private String algo = null;
     private List<RegexReplacement> regexReplacements;
@@ -60,19 +69,15 @@ public class MaskedField {
     }
 
     public byte[] mask(byte[] value) {
-        if (isDefault()) {
-            return blake2bHash(value);
-        } else {
-            return customHash(value);
-        }
+        return mask(value, 0, value.length);
     }
 
     public String mask(String value) {
-        if (isDefault()) {
-            return blake2bHash(value);
-        } else {
-            return customHash(value);
+        if (regexReplacements != null) {
+            return replace(value);
         }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return new String(mask(bytes, 0, bytes.length), StandardCharsets.US_ASCII);
     }
 
     public BytesRef mask(BytesRef value) {
@@ -80,10 +85,18 @@ public class MaskedField {
             return null;
         }
 
+        return new BytesRef(mask(value.bytes, value.offset, value.length));
+    }
+
+    private byte[] mask(final byte[] value, final int offset, final int length) {
         if (isDefault()) {
-            return blake2bHash(value);
+            return blake2bHash(value, offset, length);
+        } else if (algo != null) {
+            return digestHash(value, offset, length);
+        } else if (regexReplacements != null) {
+            return replace(new String(value, offset, length, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
         } else {
-            return customHash(value);
+            throw new IllegalArgumentException();
         }
     }
 
@@ -142,60 +155,76 @@ public class MaskedField {
         return regexReplacements == null && algo == null;
     }
 
-    private byte[] customHash(byte[] in) {
-        if (algo != null) {
+    private byte[] blake2bHash(final byte[] in, final int offset, final int length) {
+        SaltedBlake2bDigest digest = BLAKE2B_DIGEST.get();
+        if (digest == null || !Arrays.equals(digest.salt, defaultSalt)) {
+            digest = new SaltedBlake2bDigest(defaultSalt);
+            BLAKE2B_DIGEST.set(digest);
+        }
+        final byte[] out = digest.out;
+        digest.update(in, offset, length);
+        digest.doFinal(out, 0);
+        return toHex(out);
+    }
+
+    private byte[] digestHash(final byte[] in, final int offset, final int length) {
+        MessageDigest digest = MESSAGE_DIGESTS.get().get(algo);
+        if (digest == null) {
             try {
-                MessageDigest digest = MessageDigest.getInstance(algo);
-                return Hex.encode(digest.digest(in));
+                digest = MessageDigest.getInstance(algo);
             } catch (NoSuchAlgorithmException e) {
                 throw new IllegalArgumentException(e);
             }
-        } else if (regexReplacements != null) {
-            String cur = new String(in, StandardCharsets.UTF_8);
-            for(RegexReplacement rr: regexReplacements) {
-                cur = cur.replaceAll(rr.getRegex(), rr.getReplacement());
-            }
-            return cur.getBytes(StandardCharsets.UTF_8);
-
-        } else {
-            throw new IllegalArgumentException();
+            MESSAGE_DIGESTS.get().put(algo, digest);
         }
+        digest.update(in, offset, length);
+        return toHex(digest.digest());
     }
 
-    private BytesRef customHash(BytesRef in) {
-        final BytesRef copy = BytesRef.deepCopyOf(in);
-        return new BytesRef(customHash(copy.bytes));
-    }
-
-    private String customHash(String in) {
-        return new String(customHash(in.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    private String replace(final String in) {
+        String cur = in;
+        for(RegexReplacement rr: regexReplacements) {
+            cur = rr.replaceAll(cur);
+        }
+        return cur;
     }
 
-    private byte[] blake2bHash(byte[] in) {
-        final Blake2bDigest hash = new Blake2bDigest(null, 32, null, defaultSalt);
-        hash.update(in, 0, in.length);
-        final byte[] out = new byte[hash.getDigestSize()];
-        hash.doFinal(out, 0);
-        return Hex.encode(out);
+    private static byte[] toHex(final byte[] in) {
+        final byte[] hex = new byte[in.length * 2];
+        for (int i = 0; i < in.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(in[i] >> 4) & 0xF];
+            hex[2 * i + 1] = HEX_DIGITS[in[i] & 0xF];
+        }
+        return hex;
     }
 
-    private BytesRef blake2bHash(BytesRef in) {
-        final BytesRef copy = BytesRef.deepCopyOf(in);
-        return new BytesRef(blake2bHash(copy.bytes));
-    }
+    /**
+     * Blake2b digest initialized with a salt, which is reset to the salted state after every doFinal
+     */
+    private static class SaltedBlake2bDigest extends Blake2bDigest {
+        private final byte[] salt;
+        private final byte[] out = new byte[BLAKE2B_DIGEST_SIZE];
 
-    private String blake2bHash(String in) {
-        return new String(blake2bHash(in.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        private SaltedBlake2bDigest(final byte[] salt) {
+            super(null, BLAKE2B_DIGEST_SIZE, null, salt);
+            this.salt = salt;
+        }
     }
 
     private static class RegexReplacement {
         private final String regex;
         private final String replacement;
+        private final Pattern pattern;
 
         public RegexReplacement(String regex, String replacement) {
             super();
             this.regex = regex.substring(1).substring(0, regex.length()-2);
             this.replacement = replacement;
+            this.pattern = Pattern.compile(this.regex);
+        }
+
+        public String replaceAll(String value) {
+            return pattern.matcher(value).replaceAll(replacement);
         }
 
         public String getRegex() {
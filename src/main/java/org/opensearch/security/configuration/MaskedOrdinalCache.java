@@ -0,0 +1,273 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IntroSorter;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.support.ConfigConstants;
+
+/**
+ * Node wide cache of the masked terms dictionaries of doc values fields, so that aggregations and sorts on a masked
+ * field hash every distinct term of a segment once instead of on every ordinal lookup.
+ *
+ * There is one dictionary per segment core, field and masking configuration (masked field definition and salt). It
+ * is built on first access and holds the distinct masked terms in sorted order together with the mapping from the
+ * segment ordinals to the masked ordinals, so the masked doc values expose an ordinal space whose order matches the
+ * order of the masked terms. Dictionaries are evicted by size and dropped as soon as their segment is closed.
+ */
+public final class MaskedOrdinalCache {
+
+    /**
+     * Estimated heap usage of one ordinal: ordinal mapping, term offset and a hex encoded 32 byte hash
+     */
+    private static final int BYTES_PER_ORDINAL = 4 + 4 + 64;
+
+    @FunctionalInterface
+    interface TermsEnumSupplier {
+        TermsEnum termsEnum() throws IOException;
+    }
+
+    private final long maxBytes;
+    private final Cache<Key, MaskedOrdinals> cache;
+    private final Set<IndexReader.CacheKey> watchedCoreKeys = ConcurrentHashMap.newKeySet();
+
+    public MaskedOrdinalCache(final Settings settings) {
+        this.maxBytes = settings.getAsMemory(ConfigConstants.SECURITY_MASKED_FIELDS_ORDINAL_CACHE_SIZE, "1%").getBytes();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, MaskedOrdinals value) -> value.weight)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param terms supplies the terms of the segment in ordinal order, only called if the dictionary is not cached yet
+     * @return the masked terms dictionary for the given segment and field, or null if it can not be cached
+     */
+    MaskedOrdinals get(final IndexReader.CacheHelper coreCacheHelper, final String field, final MaskedField maskedField,
+                       final Salt salt, final long valueCount, final TermsEnumSupplier terms) throws IOException {
+        if (coreCacheHelper == null || valueCount <= 0 || valueCount > Integer.MAX_VALUE - 8 || valueCount * BYTES_PER_ORDINAL > maxBytes) {
+            return null;
+        }
+
+        final IndexReader.CacheKey coreKey = coreCacheHelper.getKey();
+        if (watchedCoreKeys.add(coreKey)) {
+            coreCacheHelper.addClosedListener(this::onClose);
+        }
+
+        try {
+            return cache.get(new Key(coreKey, field, maskedField, salt.getSalt16()),
+                    () -> MaskedOrdinals.build(maskedField, (int) valueCount, terms.termsEnum()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to build masked terms of field " + field, e.getCause());
+        }
+    }
+
+    private void onClose(final IndexReader.CacheKey coreKey) {
+        watchedCoreKeys.remove(coreKey);
+        cache.asMap().keySet().removeIf(key -> key.coreKey == coreKey);
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.size();
+    }
+
+    long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * The distinct masked terms of a segment in sorted order. Terms which are masked to the same value share one
+     * masked ordinal.
+     */
+    static final class MaskedOrdinals {
+        private final int[] ordinalMap;
+        private final byte[] bytes;
+        private final int[] offsets;
+        private final int weight;
+
+        private MaskedOrdinals(final int[] ordinalMap, final byte[] bytes, final int[] offsets) {
+            this.ordinalMap = ordinalMap;
+            this.bytes = bytes;
+            this.offsets = offsets;
+            this.weight = (int) Math.min(Integer.MAX_VALUE, bytes.length + 4L * (ordinalMap.length + offsets.length));
+        }
+
+        static MaskedOrdinals build(final MaskedField maskedField, final int valueCount, final TermsEnum termsEnum) throws IOException {
+            final BytesRef[] masked = new BytesRef[valueCount];
+            int count = 0;
+            for (BytesRef term = termsEnum.next(); term != null && count < valueCount; term = termsEnum.next()) {
+                masked[count++] = maskedField.mask(term);
+            }
+            if (count != valueCount) {
+                throw new IOException("Expected " + valueCount + " terms but got " + count);
+            }
+
+            final int[] order = new int[valueCount];
+            for (int i = 0; i < valueCount; i++) {
+                order[i] = i;
+            }
+            new IntroSorter() {
+                private BytesRef pivot;
+
+                @Override
+                protected void swap(int i, int j) {
+                    final int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                }
+
+                @Override
+                protected int compare(int i, int j) {
+                    return masked[order[i]].compareTo(masked[order[j]]);
+                }
+
+                @Override
+                protected void setPivot(int i) {
+                    pivot = masked[order[i]];
+                }
+
+                @Override
+                protected int comparePivot(int j) {
+                    return pivot.compareTo(masked[order[j]]);
+                }
+            }.sort(0, valueCount);
+
+            final int[] ordinalMap = new int[valueCount];
+            int distinct = 0;
+            long totalBytes = 0;
+            for (int i = 0; i < valueCount; i++) {
+                final BytesRef term = masked[order[i]];
+                if (i == 0 || !term.bytesEquals(masked[order[i - 1]])) {
+                    distinct++;
+                    totalBytes += term.length;
+                }
+                ordinalMap[order[i]] = distinct - 1;
+            }
+            if (totalBytes > Integer.MAX_VALUE - 8) {
+                throw new IOException("Masked terms too large: " + totalBytes + " bytes");
+            }
+
+            final byte[] bytes = new byte[(int) totalBytes];
+            final int[] offsets = new int[distinct + 1];
+            int offset = 0;
+            for (int i = 0; i < valueCount; i++) {
+                final int ord = ordinalMap[order[i]];
+                if (i == 0 || ord != ordinalMap[order[i - 1]]) {
+                    final BytesRef term = masked[order[i]];
+                    System.arraycopy(term.bytes, term.offset, bytes, offset, term.length);
+                    offsets[ord] = offset;
+                    offset += term.length;
+                }
+            }
+            offsets[distinct] = offset;
+            return new MaskedOrdinals(ordinalMap, bytes, offsets);
+        }
+
+        /**
+         * @return the number of distinct masked terms
+         */
+        int getValueCount() {
+            return offsets.length - 1;
+        }
+
+        /**
+         * @return the masked ordinal of the given segment ordinal
+         */
+        int maskedOrd(final long segmentOrd) {
+            return ordinalMap[(int) segmentOrd];
+        }
+
+        /**
+         * @return the masked term of the given masked ordinal, the returned bytes must not be modified
+         */
+        BytesRef lookupOrd(final long maskedOrd) {
+            final int ord = (int) maskedOrd;
+            return new BytesRef(bytes, offsets[ord], offsets[ord + 1] - offsets[ord]);
+        }
+
+        /**
+         * @return the masked ordinal of the given masked term, or -insertionPoint-1 if it does not exist
+         */
+        int lookupTerm(final BytesRef key) {
+            final BytesRef scratch = new BytesRef(bytes);
+            int low = 0;
+            int high = getValueCount() - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                scratch.offset = offsets[mid];
+                scratch.length = offsets[mid + 1] - offsets[mid];
+                final int cmp = scratch.compareTo(key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    private static final class Key {
+        private final IndexReader.CacheKey coreKey;
+        private final String field;
+        private final MaskedField maskedField;
+        private final byte[] salt;
+        private final int hashCode;
+
+        private Key(final IndexReader.CacheKey coreKey, final String field, final MaskedField maskedField, final byte[] salt) {
+            this.coreKey = coreKey;
+            this.field = field;
+            this.maskedField = maskedField;
+            this.salt = salt;
+            this.hashCode = Objects.hash(System.identityHashCode(coreKey), field, maskedField, Arrays.hashCode(salt));
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return coreKey == other.coreKey
+                    && field.equals(other.field)
+                    && maskedField.equals(other.maskedField)
+                    && Arrays.equals(salt, other.salt);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -54,16 +54,20 @@ public class SecurityFlsDlsIndexSearcherWrapper extends SecurityIndexSearcherWra
     private final LongSupplier nowInMillis;
     private final DlsQueryParser dlsQueryParser;
     private final Salt salt;
+    private final MaskedOrdinalCache maskedOrdinalCache;
+    private final DlsBitSetCache dlsBitSetCache;
 
     public SecurityFlsDlsIndexSearcherWrapper(final IndexService indexService, final Settings settings,
                                               final AdminDNs adminDNs, final ClusterService clusterService, final AuditLog auditlog,
-                                              final ComplianceIndexingOperationListener ciol, final PrivilegesEvaluator evaluator, final Salt salt) {
+                                              final ComplianceIndexingOperationListener ciol, final PrivilegesEvaluator evaluator, final Salt salt,
+                                              final MaskedOrdinalCache maskedOrdinalCache, final DlsBitSetCache dlsBitSetCache,
+                                              final DlsQueryCache dlsQueryCache) {
         super(indexService, settings, adminDNs, evaluator);
         ciol.setIs(indexService);
         this.clusterService = clusterService;
         this.indexService = indexService;
         this.auditlog = auditlog;
-        this.dlsQueryParser = new DlsQueryParser(indexService.xContentRegistry());
+        this.dlsQueryParser = new DlsQueryParser(indexService.xContentRegistry(), dlsQueryCache);
         final boolean allowNowinDlsQueries = settings.getAsBoolean(ConfigConstants.SECURITY_UNSUPPORTED_ALLOW_NOW_IN_DLS, false);
         if (allowNowinDlsQueries) {
             nowInMillis = () -> System.currentTimeMillis();
@@ -72,9 +76,10 @@ public class SecurityFlsDlsIndexSearcherWrapper extends SecurityIndexSearcherWra
         }
         log.debug("FLS/DLS {} enabled for index {}", this, indexService.index().getName());
         this.salt = salt;
+        this.maskedOrdinalCache = maskedOrdinalCache;
+        this.dlsBitSetCache = dlsBitSetCache;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     protected DirectoryReader dlsFlsWrap(final DirectoryReader reader, boolean isAdmin) throws IOException {
 
@@ -86,12 +91,9 @@ public class SecurityFlsDlsIndexSearcherWrapper extends SecurityIndexSearcherWra
 
         if(!isAdmin) {
 
-            final Map<String, Set<String>> allowedFlsFields = (Map<String, Set<String>>) HeaderHelper.deserializeSafeFromHeader(threadContext,
-                    ConfigConstants.OPENDISTRO_SECURITY_FLS_FIELDS_HEADER);
-            final Map<String, Set<String>> queries = (Map<String, Set<String>>) HeaderHelper.deserializeSafeFromHeader(threadContext,
-                    ConfigConstants.OPENDISTRO_SECURITY_DLS_QUERY_HEADER);
-            final Map<String, Set<String>> maskedFieldsMap = (Map<String, Set<String>>) HeaderHelper.deserializeSafeFromHeader(threadContext,
-                    ConfigConstants.OPENDISTRO_SECURITY_MASKED_FIELD_HEADER);
+            final Map<String, Set<String>> allowedFlsFields = HeaderHelper.getFlsFieldsFromHeader(threadContext);
+            final Map<String, Set<String>> queries = HeaderHelper.getDlsQueriesFromHeader(threadContext);
+            final Map<String, Set<String>> maskedFieldsMap = HeaderHelper.getMaskedFieldsFromHeader(threadContext);
 
             final String flsEval = SecurityUtils.evalMap(allowedFlsFields, index.getName());
             final String dlsEval = SecurityUtils.evalMap(queries, index.getName());
@@ -119,6 +121,6 @@ public class SecurityFlsDlsIndexSearcherWrapper extends SecurityIndexSearcherWra
         }
 
         return new DlsFlsFilterLeafReader.DlsFlsDirectoryReader(reader, flsFields, dlsQuery,
-                indexService, threadContext, clusterService, auditlog, maskedFields, shardId, salt);
+                indexService, threadContext, clusterService, auditlog, maskedFields, shardId, salt, maskedOrdinalCache, dlsBitSetCache);
     }
 }
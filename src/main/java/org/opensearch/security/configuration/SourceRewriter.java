@@ -0,0 +1,396 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+
+import org.opensearch.common.bytes.BytesReference;
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.common.regex.Regex;
+import org.opensearch.common.xcontent.NamedXContentRegistry;
+import org.opensearch.common.xcontent.XContentFactory;
+import org.opensearch.common.xcontent.XContentGenerator;
+import org.opensearch.common.xcontent.XContentParser;
+import org.opensearch.common.xcontent.XContentParser.Token;
+import org.opensearch.common.xcontent.XContentType;
+
+import static org.opensearch.common.xcontent.DeprecationHandler.THROW_UNSUPPORTED_OPERATION;
+
+/**
+ * Applies field level security and field masking to a document source in a single pass.
+ *
+ * The source is copied token by token from a parser to a generator. Excluded subtrees are skipped by the parser
+ * without being read into memory, and the start of an object or array is only written once it turns out to contain
+ * any field which is not filtered out. Include and exclude patterns are evaluated with the same automata and rules as
+ * {@link org.opensearch.common.xcontent.support.XContentMapValues#filter(String[], String[])}, or, if no pattern
+ * contains dots or wildcards, by comparing the top level field names.
+ *
+ * Masking follows the former map based implementation: strings (and binary values) are masked if the dotted path of
+ * their field matches a masked field, and arrays of strings are masked element wise. Objects nested in arrays are
+ * not masked.
+ */
+final class SourceRewriter {
+
+    private static final int MAX_REUSED_BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_CACHED_PATHS = 10_000;
+    private static final ThreadLocal<BytesStreamOutput> REUSABLE_BUFFER = ThreadLocal.withInitial(BytesStreamOutput::new);
+    private static final CharacterRunAutomaton MATCH_ALL = new CharacterRunAutomaton(Automata.makeAnyString());
+    private static final CharacterRunAutomaton MATCH_NONE = new CharacterRunAutomaton(Automata.makeEmpty());
+
+    private final boolean filtering;
+    private final Set<String> topLevelFields;
+    private final boolean topLevelFieldsExcluded;
+    private final CharacterRunAutomaton include;
+    private final CharacterRunAutomaton exclude;
+    private final Function<String, MaskedField> maskedFields;
+    private final Map<String, Optional<MaskedField>> maskedFieldsByPath = new ConcurrentHashMap<>();
+
+    /**
+     * @param includes fields to keep, ignored if excludes is not empty; null if field level security is not enabled
+     * @param excludes fields to remove; null if field level security is not enabled
+     * @param topLevelOnly true if no pattern contains dots or wildcards
+     * @param maskedFields returns the masked field for a dotted field path or null; null if masking is not enabled
+     */
+    SourceRewriter(final Set<String> includes, final Set<String> excludes, final boolean topLevelOnly,
+                   final Function<String, MaskedField> maskedFields) {
+        this.filtering = includes != null || excludes != null;
+        final boolean excluding = excludes != null && !excludes.isEmpty();
+        final Set<String> patterns = excluding ? excludes : includes;
+
+        if (filtering && topLevelOnly) {
+            this.topLevelFields = patterns;
+            this.topLevelFieldsExcluded = excluding;
+            this.include = MATCH_ALL;
+            this.exclude = MATCH_NONE;
+        } else {
+            this.topLevelFields = null;
+            this.topLevelFieldsExcluded = false;
+            this.include = filtering && !excluding ? toAutomaton(patterns) : MATCH_ALL;
+            this.exclude = filtering && excluding ? toAutomaton(patterns) : MATCH_NONE;
+        }
+        this.maskedFields = maskedFields;
+    }
+
+    private static CharacterRunAutomaton toAutomaton(final Set<String> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return MATCH_NONE;
+        }
+        final Automaton automaton = Regex.simpleMatchToAutomaton(patterns.toArray(new String[0]));
+        // like XContentMapValues, "a.b" also matches the field "c" of a field which is literally called "a.b"
+        final Automaton matchDotsInFieldNames = Operations.union(automaton,
+                Operations.concatenate(Arrays.asList(automaton, Automata.makeChar('.'), Automata.makeAnyString())));
+        return new CharacterRunAutomaton(matchDotsInFieldNames, Operations.DEFAULT_DETERMINIZE_WORK_LIMIT);
+    }
+
+    byte[] rewrite(final byte[] source) throws IOException {
+        XContentType xContentType = XContentFactory.xContentType(source, 0, source.length);
+        if (xContentType == null) {
+            xContentType = XContentType.JSON;
+        }
+
+        final BytesStreamOutput out = REUSABLE_BUFFER.get();
+        try {
+            out.reset();
+            try (XContentParser parser = xContentType.xContent().createParser(NamedXContentRegistry.EMPTY, THROW_UNSUPPORTED_OPERATION, source);
+                 XContentGenerator generator = xContentType.xContent().createGenerator(out)) {
+                final Output output = new Output(generator);
+                if (parser.nextToken() != Token.START_OBJECT) {
+                    throw new IOException("Expected the source to be an object but got " + parser.currentToken());
+                }
+                generator.writeStartObject();
+                if (filtering) {
+                    filterObject(parser, output, new StringBuilder(), include, 0, 0, true, true);
+                } else {
+                    copyObject(parser, output, new StringBuilder());
+                }
+                generator.writeEndObject();
+            }
+            return BytesReference.toBytes(out.bytes());
+        } finally {
+            if (out.size() > MAX_REUSED_BUFFER_SIZE) {
+                // do not keep the memory of exceptionally large documents
+                REUSABLE_BUFFER.remove();
+            }
+        }
+    }
+
+    /**
+     * The parser must be positioned on the start of the object and is positioned on its end afterwards.
+     */
+    private void filterObject(final XContentParser parser, final Output output, final StringBuilder path,
+                              final CharacterRunAutomaton include, final int includeState, final int excludeState,
+                              final boolean topLevel, final boolean mask) throws IOException {
+        final int pathLength = path.length();
+
+        for (Token token = parser.nextToken(); token != Token.END_OBJECT; token = parser.nextToken()) {
+            final String key = parser.currentName();
+            parser.nextToken();
+            appendPath(path, pathLength, key);
+
+            if (topLevel && topLevelFields != null) {
+                if (topLevelFields.contains(key) != topLevelFieldsExcluded) {
+                    output.fieldName(key);
+                    copyValue(parser, output, path, mask);
+                } else {
+                    parser.skipChildren();
+                }
+                continue;
+            }
+
+            final int fieldIncludeState = step(include, key, includeState);
+            if (fieldIncludeState == -1) {
+                parser.skipChildren();
+                continue;
+            }
+            final int fieldExcludeState = step(exclude, key, excludeState);
+            if (fieldExcludeState != -1 && exclude.isAccept(fieldExcludeState)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            final boolean included = include.isAccept(fieldIncludeState);
+            CharacterRunAutomaton subInclude = include;
+            int subIncludeState = fieldIncludeState;
+            if (included) {
+                if (fieldExcludeState == -1 || exclude.step(fieldExcludeState, '.') == -1) {
+                    // the exclude has no chance to match inner fields
+                    output.fieldName(key);
+                    copyValue(parser, output, path, mask);
+                    continue;
+                }
+                // the field matched, so the include matches every inner field and only excludes are of interest
+                subInclude = MATCH_ALL;
+                subIncludeState = 0;
+            }
+
+            switch (parser.currentToken()) {
+                case START_OBJECT:
+                    subIncludeState = subInclude.step(subIncludeState, '.');
+                    if (subIncludeState == -1) {
+                        parser.skipChildren();
+                        break;
+                    }
+                    output.startObject(key);
+                    filterObject(parser, output, path, subInclude, subIncludeState,
+                            fieldExcludeState == -1 ? -1 : exclude.step(fieldExcludeState, '.'), false, mask);
+                    output.endObject(included);
+                    break;
+                case START_ARRAY:
+                    output.startArray(key);
+                    filterArray(parser, output, path, subInclude, subIncludeState, fieldExcludeState, mask);
+                    output.endArray(included);
+                    break;
+                default:
+                    if (included) {
+                        output.fieldName(key);
+                        copyValue(parser, output, path, mask);
+                    }
+            }
+        }
+        path.setLength(pathLength);
+    }
+
+    /**
+     * The parser must be positioned on the start of the array and is positioned on its end afterwards.
+     */
+    private void filterArray(final XContentParser parser, final Output output, final StringBuilder path,
+                             final CharacterRunAutomaton include, final int includeState, final int excludeState,
+                             final boolean mask) throws IOException {
+        final boolean included = include.isAccept(includeState);
+
+        for (Token token = parser.nextToken(); token != Token.END_ARRAY; token = parser.nextToken()) {
+            if (token == Token.START_OBJECT) {
+                final int objectIncludeState = include.step(includeState, '.');
+                if (objectIncludeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                output.startObject(null);
+                filterObject(parser, output, path, include, objectIncludeState,
+                        excludeState == -1 ? -1 : exclude.step(excludeState, '.'), false, false);
+                output.endObject(false);
+            } else if (token == Token.START_ARRAY) {
+                output.startArray(null);
+                filterArray(parser, output, path, include, includeState, excludeState, false);
+                output.endArray(false);
+            } else if (included) {
+                copyScalar(parser, output, path, mask);
+            }
+        }
+    }
+
+    private void copyObject(final XContentParser parser, final Output output, final StringBuilder path) throws IOException {
+        final int pathLength = path.length();
+        for (Token token = parser.nextToken(); token != Token.END_OBJECT; token = parser.nextToken()) {
+            final String key = parser.currentName();
+            parser.nextToken();
+            appendPath(path, pathLength, key);
+            output.fieldName(key);
+            copyValue(parser, output, path, true);
+        }
+        path.setLength(pathLength);
+    }
+
+    private void copyValue(final XContentParser parser, final Output output, final StringBuilder path, final boolean mask)
+            throws IOException {
+        final Token token = parser.currentToken();
+        if (token == Token.START_OBJECT) {
+            if (mask && maskedFields != null) {
+                output.generator.writeStartObject();
+                copyObject(parser, output, path);
+                output.generator.writeEndObject();
+            } else {
+                output.generator.copyCurrentStructure(parser);
+            }
+        } else if (token == Token.START_ARRAY) {
+            if (mask && maskedFields != null) {
+                output.generator.writeStartArray();
+                for (Token element = parser.nextToken(); element != Token.END_ARRAY; element = parser.nextToken()) {
+                    if (element == Token.START_OBJECT || element == Token.START_ARRAY) {
+                        output.generator.copyCurrentStructure(parser);
+                    } else {
+                        copyScalar(parser, output, path, true);
+                    }
+                }
+                output.generator.writeEndArray();
+            } else {
+                output.generator.copyCurrentStructure(parser);
+            }
+        } else {
+            copyScalar(parser, output, path, mask);
+        }
+    }
+
+    private void copyScalar(final XContentParser parser, final Output output, final StringBuilder path, final boolean mask)
+            throws IOException {
+        output.flush();
+        final Token token = parser.currentToken();
+        if (mask && maskedFields != null && (token == Token.VALUE_STRING || token == Token.VALUE_EMBEDDED_OBJECT)) {
+            final MaskedField maskedField = getMaskedField(path);
+            if (maskedField != null) {
+                if (token == Token.VALUE_STRING) {
+                    output.generator.writeString(maskedField.mask(parser.text()));
+                } else {
+                    output.generator.writeBinary(maskedField.mask(parser.binaryValue()));
+                }
+                return;
+            }
+        }
+        output.generator.copyCurrentEvent(parser);
+    }
+
+    private MaskedField getMaskedField(final StringBuilder path) {
+        final String field = path.toString();
+        if (maskedFieldsByPath.size() >= MAX_CACHED_PATHS) {
+            return maskedFieldsByPath.getOrDefault(field, Optional.ofNullable(maskedFields.apply(field))).orElse(null);
+        }
+        return maskedFieldsByPath.computeIfAbsent(field, f -> Optional.ofNullable(maskedFields.apply(f))).orElse(null);
+    }
+
+    private void appendPath(final StringBuilder path, final int parentLength, final String key) {
+        if (maskedFields == null) {
+            return;
+        }
+        path.setLength(parentLength);
+        if (parentLength > 0) {
+            path.append('.');
+        }
+        path.append(key);
+    }
+
+    private static int step(final CharacterRunAutomaton automaton, final String key, int state) {
+        for (int i = 0; state != -1 && i < key.length(); ++i) {
+            state = automaton.step(state, key.charAt(i));
+        }
+        return state;
+    }
+
+    /**
+     * Defers writing the start of filtered objects and arrays until their first value is written, so that objects
+     * and arrays which turn out to be empty can be dropped.
+     */
+    private static final class Output {
+        private final XContentGenerator generator;
+        private final List<String> pendingNames = new ArrayList<>();
+        private final List<Boolean> pendingArrays = new ArrayList<>();
+
+        private Output(final XContentGenerator generator) {
+            this.generator = generator;
+        }
+
+        void fieldName(final String name) throws IOException {
+            flush();
+            generator.writeFieldName(name);
+        }
+
+        void startObject(final String name) {
+            pendingNames.add(name);
+            pendingArrays.add(Boolean.FALSE);
+        }
+
+        void startArray(final String name) {
+            pendingNames.add(name);
+            pendingArrays.add(Boolean.TRUE);
+        }
+
+        /**
+         * @param keepEmpty whether the object is written even if it turned out to be empty
+         */
+        void endObject(final boolean keepEmpty) throws IOException {
+            if (end(keepEmpty)) {
+                generator.writeEndObject();
+            }
+        }
+
+        void endArray(final boolean keepEmpty) throws IOException {
+            if (end(keepEmpty)) {
+                generator.writeEndArray();
+            }
+        }
+
+        private boolean end(final boolean keepEmpty) throws IOException {
+            if (pendingNames.isEmpty()) {
+                return true;
+            }
+            if (keepEmpty) {
+                flush();
+                return true;
+            }
+            // nothing has been written since this object or array was started
+            pendingNames.remove(pendingNames.size() - 1);
+            pendingArrays.remove(pendingArrays.size() - 1);
+            return false;
+        }
+
+        void flush() throws IOException {
+            for (int i = 0; i < pendingNames.size(); i++) {
+                if (pendingNames.get(i) != null) {
+                    generator.writeFieldName(pendingNames.get(i));
+                }
+                if (pendingArrays.get(i)) {
+                    generator.writeStartArray();
+                } else {
+                    generator.writeStartObject();
+                }
+            }
+            pendingNames.clear();
+            pendingArrays.clear();
+        }
+    }
+}
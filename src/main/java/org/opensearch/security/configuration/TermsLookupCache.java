@@ -0,0 +1,520 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.greenrobot.eventbus.Subscribe;
+
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.get.GetRequest;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.action.support.GroupedActionListener;
+import org.opensearch.client.Client;
+import org.opensearch.cluster.ClusterState;
+import org.opensearch.cluster.metadata.IndexAbstraction;
+import org.opensearch.cluster.routing.ShardRouting;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.xcontent.support.XContentMapValues;
+import org.opensearch.index.Index;
+import org.opensearch.index.engine.Engine;
+import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.BoostingQueryBuilder;
+import org.opensearch.index.query.ConstantScoreQueryBuilder;
+import org.opensearch.index.query.DisMaxQueryBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.TermsQueryBuilder;
+import org.opensearch.index.shard.IndexingOperationListener;
+import org.opensearch.index.shard.ShardId;
+import org.opensearch.indices.TermsLookup;
+import org.opensearch.security.queries.QueryBuilderTraverser;
+import org.opensearch.security.securityconf.ConfigModel;
+import org.opensearch.security.support.ConfigConstants;
+import org.opensearch.security.user.User;
+
+/**
+ * Node wide cache of the terms which the terms lookup queries of filter level DLS fetch from their lookup documents.
+ *
+ * Terms are only cached on nodes which hold an active copy of the shard of the lookup document, because the entries
+ * are invalidated by the indexing operations on that copy, which the cache observes as {@link IndexingOperationListener}.
+ * The lookups are executed with the privileges and the DLS/FLS restrictions of the user, so each entry is scoped to
+ * the user, its roles and attributes, and all entries are dropped when the security configuration changes.
+ *
+ * The entries of all users are grouped by their lookup document, so that an indexing operation only drops the
+ * entries of the document it changed.
+ */
+public final class TermsLookupCache implements IndexingOperationListener {
+
+    private static final Logger log = LogManager.getLogger(TermsLookupCache.class);
+
+    private final Cache<Document, Entry> cache;
+    private final Function<TermsLookup, String> localIndexResolver;
+    private final Set<String> lookupIndices = ConcurrentHashMap.newKeySet();
+    // only modified within compute calls, which are atomic per document
+    private final ConcurrentMap<Document, PendingFetches> pendingFetches = new ConcurrentHashMap<>();
+
+    public TermsLookupCache(final Settings settings, final ClusterService clusterService) {
+        this.cache = newCache(settings);
+        this.localIndexResolver = termsLookup -> resolveLocalIndex(clusterService, termsLookup);
+    }
+
+    /**
+     * @param localIndexResolver returns the concrete index of the lookup document if the local node holds an active
+     * copy of its shard, null otherwise
+     */
+    TermsLookupCache(final Settings settings, final Function<TermsLookup, String> localIndexResolver) {
+        this.cache = newCache(settings);
+        this.localIndexResolver = localIndexResolver;
+    }
+
+    private static Cache<Document, Entry> newCache(final Settings settings) {
+        final long maxBytes = settings.getAsMemory(ConfigConstants.SECURITY_DLS_TERMS_LOOKUP_CACHE_SIZE, "1%").getBytes();
+        return CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Document document, Entry entry) -> entry.weight)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Replaces the terms lookup queries within the given query by terms queries with the looked up terms. The query is
+     * passed on unchanged if it contains terms lookup queries which cannot be replaced; these are resolved by the
+     * search itself then.
+     *
+     * @param user the user on whose behalf the lookup documents are fetched; nothing is cached if it is null
+     */
+    void resolve(final QueryBuilder query, final Client client, final User user, final ActionListener<QueryBuilder> listener) {
+        final Set<QueryBuilder> termsLookupQueries = QueryBuilderTraverser.findAll(query, TermsLookupCache::isTermsLookupQuery);
+
+        if (termsLookupQueries.isEmpty() || replace(query, Collections.emptyMap()) == null) {
+            listener.onResponse(query);
+            return;
+        }
+
+        final Map<Key, TermsLookup> lookups = new HashMap<>();
+        for (QueryBuilder termsLookupQuery : termsLookupQueries) {
+            final TermsLookup termsLookup = ((TermsQueryBuilder) termsLookupQuery).termsLookup();
+            lookups.put(new Key(termsLookup), termsLookup);
+        }
+
+        final GroupedActionListener<Map.Entry<Key, List<Object>>> groupedListener = new GroupedActionListener<>(
+                ActionListener.wrap(results -> {
+                    final Map<Key, List<Object>> terms = new HashMap<>(results.size());
+                    for (Map.Entry<Key, List<Object>> result : results) {
+                        terms.put(result.getKey(), result.getValue());
+                    }
+                    listener.onResponse(replace(query, terms));
+                }, listener::onFailure), lookups.size());
+
+        final List<Object> principal = user != null ? principalOf(user) : null;
+
+        for (Map.Entry<Key, TermsLookup> lookup : lookups.entrySet()) {
+            lookup(lookup.getValue(), principal, client, ActionListener.map(groupedListener,
+                    terms -> new AbstractMap.SimpleImmutableEntry<>(lookup.getKey(), terms)));
+        }
+    }
+
+    private void lookup(final TermsLookup termsLookup, final List<Object> principal, final Client client,
+            final ActionListener<List<Object>> listener) {
+        final String concreteIndex = principal != null ? localIndexResolver.apply(termsLookup) : null;
+
+        if (concreteIndex == null) {
+            client.get(getRequest(termsLookup), ActionListener.map(listener, response -> extractTerms(termsLookup, response)));
+            return;
+        }
+
+        final Document document = new Document(concreteIndex, termsLookup.id());
+        final Key key = new Key(termsLookup, principal);
+        final Entry cached = cache.getIfPresent(document);
+        final List<Object> cachedTerms = cached != null ? cached.terms.get(key) : null;
+
+        if (cachedTerms != null) {
+            listener.onResponse(cachedTerms);
+            return;
+        }
+
+        // registered before the fetch, so that the indexing operations which the fetch does not see discard its result
+        lookupIndices.add(concreteIndex);
+        final long writes = startFetch(document);
+
+        client.get(getRequest(termsLookup), new ActionListener<GetResponse>() {
+
+            @Override
+            public void onResponse(final GetResponse response) {
+                final List<Object> terms;
+                try {
+                    terms = extractTerms(termsLookup, response);
+                } catch (RuntimeException e) {
+                    onFailure(e);
+                    return;
+                }
+                if (response.isExists()) {
+                    cache.asMap().compute(document, (d, entry) -> (entry != null ? entry : Entry.EMPTY).with(d, key, terms));
+                }
+                if (finishFetch(document, writes)) {
+                    cache.asMap().computeIfPresent(document, (d, entry) -> entry.without(d, key));
+                }
+                listener.onResponse(terms);
+            }
+
+            @Override
+            public void onFailure(final Exception e) {
+                finishFetch(document, writes);
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * @return the number of writes to the document seen so far
+     */
+    private long startFetch(final Document document) {
+        return pendingFetches.compute(document, (d, pending) -> {
+            final PendingFetches result = pending != null ? pending : new PendingFetches();
+            result.fetches++;
+            return result;
+        }).writes;
+    }
+
+    /**
+     * @return true if the document was written since the fetch has been started, so that its result must not be cached
+     */
+    private boolean finishFetch(final Document document, final long writes) {
+        final boolean[] stale = new boolean[1];
+        pendingFetches.computeIfPresent(document, (d, pending) -> {
+            stale[0] = pending.writes != writes;
+            return --pending.fetches == 0 ? null : pending;
+        });
+        return stale[0];
+    }
+
+    private void discardPendingFetches(final Document document) {
+        pendingFetches.computeIfPresent(document, (d, pending) -> {
+            pending.writes++;
+            return pending;
+        });
+    }
+
+    private static GetRequest getRequest(final TermsLookup termsLookup) {
+        return new GetRequest(termsLookup.index(), termsLookup.id()).preference("_local").routing(termsLookup.routing());
+    }
+
+    private static List<Object> extractTerms(final TermsLookup termsLookup, final GetResponse response) {
+        // same as TermsQueryBuilder
+        return response.isSourceEmpty() ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(XContentMapValues.extractRawValues(termsLookup.path(), response.getSourceAsMap())));
+    }
+
+    @Override
+    public void postIndex(final ShardId shardId, final Engine.Index index, final Engine.IndexResult result) {
+        invalidate(shardId.getIndexName(), index.id());
+    }
+
+    @Override
+    public void postIndex(final ShardId shardId, final Engine.Index index, final Exception ex) {
+        invalidate(shardId.getIndexName(), index.id());
+    }
+
+    @Override
+    public void postDelete(final ShardId shardId, final Engine.Delete delete, final Engine.DeleteResult result) {
+        invalidate(shardId.getIndexName(), delete.id());
+    }
+
+    @Override
+    public void postDelete(final ShardId shardId, final Engine.Delete delete, final Exception ex) {
+        invalidate(shardId.getIndexName(), delete.id());
+    }
+
+    private void invalidate(final String index, final String id) {
+        if (!lookupIndices.contains(index)) {
+            return;
+        }
+        final Document document = new Document(index, id);
+        // before the entries are dropped, so that fetches completing in between are discarded as well
+        discardPendingFetches(document);
+        if (cache.asMap().remove(document) != null && log.isDebugEnabled()) {
+            log.debug("Terms lookup document {}/{} has changed", index, id);
+        }
+    }
+
+    /**
+     * Drops the entries of the given index, as its indexing operations cannot be observed any more once the local
+     * shard copy is closed.
+     */
+    public void invalidate(final Index index) {
+        final String indexName = index.getName();
+        if (lookupIndices.remove(indexName)) {
+            for (Document document : pendingFetches.keySet()) {
+                if (document.index.equals(indexName)) {
+                    discardPendingFetches(document);
+                }
+            }
+            cache.asMap().keySet().removeIf(document -> document.index.equals(indexName));
+        }
+    }
+
+    @Subscribe
+    public void onConfigModelChanged(final ConfigModel configModel) {
+        pendingFetches.keySet().forEach(this::discardPendingFetches);
+        cache.invalidateAll();
+    }
+
+    private static String resolveLocalIndex(final ClusterService clusterService, final TermsLookup termsLookup) {
+        final ClusterState state = clusterService.state();
+        final IndexAbstraction indexAbstraction = state.metadata().getIndicesLookup().get(termsLookup.index());
+
+        if (indexAbstraction == null || indexAbstraction.getIndices().size() != 1) {
+            return null;
+        }
+
+        final String concreteIndex = indexAbstraction.getIndices().get(0).getIndex().getName();
+
+        try {
+            final String routing = state.metadata().resolveIndexRouting(termsLookup.routing(), termsLookup.index());
+            final ShardId shardId = clusterService.operationRouting().shardId(state, concreteIndex, termsLookup.id(), routing);
+            final String localNodeId = state.nodes().getLocalNodeId();
+
+            for (ShardRouting shardRouting : state.routingTable().shardRoutingTable(shardId).activeShards()) {
+                if (shardRouting.currentNodeId().equals(localNodeId)) {
+                    return concreteIndex;
+                }
+            }
+        } catch (RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to resolve the shard of terms lookup document {}/{}", termsLookup.index(), termsLookup.id(), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return everything the privileges and DLS/FLS restrictions of the user on the lookup index can depend on
+     */
+    private static List<Object> principalOf(final User user) {
+        return Arrays.asList(user.getName(), new TreeSet<>(user.getRoles()), new TreeSet<>(user.getSecurityRoles()),
+                new TreeMap<>(user.getCustomAttributesMap()));
+    }
+
+    private static boolean isTermsLookupQuery(final QueryBuilder queryBuilder) {
+        return queryBuilder instanceof TermsQueryBuilder && ((TermsQueryBuilder) queryBuilder).termsLookup() != null;
+    }
+
+    /**
+     * @return the query with the terms lookup queries replaced, or null if a terms lookup query is nested in a query type
+     * which cannot be rebuilt here
+     */
+    static QueryBuilder replace(final QueryBuilder query, final Map<Key, List<Object>> terms) {
+        if (query == null || !QueryBuilderTraverser.exists(query, TermsLookupCache::isTermsLookupQuery)) {
+            return query;
+        }
+
+        if (query instanceof TermsQueryBuilder) {
+            final TermsQueryBuilder termsQuery = (TermsQueryBuilder) query;
+            final List<Object> values = terms.getOrDefault(new Key(termsQuery.termsLookup()), Collections.emptyList());
+            return new TermsQueryBuilder(termsQuery.fieldName(), values).boost(termsQuery.boost()).queryName(termsQuery.queryName());
+        } else if (query instanceof BoolQueryBuilder) {
+            final BoolQueryBuilder boolQuery = (BoolQueryBuilder) query;
+            final List<QueryBuilder> must = replace(boolQuery.must(), terms);
+            final List<QueryBuilder> filter = replace(boolQuery.filter(), terms);
+            final List<QueryBuilder> should = replace(boolQuery.should(), terms);
+            final List<QueryBuilder> mustNot = replace(boolQuery.mustNot(), terms);
+            if (must == null || filter == null || should == null || mustNot == null) {
+                return null;
+            }
+            final BoolQueryBuilder result = new BoolQueryBuilder();
+            must.forEach(result::must);
+            filter.forEach(result::filter);
+            should.forEach(result::should);
+            mustNot.forEach(result::mustNot);
+            return result.minimumShouldMatch(boolQuery.minimumShouldMatch()).adjustPureNegative(boolQuery.adjustPureNegative())
+                    .boost(boolQuery.boost()).queryName(boolQuery.queryName());
+        } else if (query instanceof ConstantScoreQueryBuilder) {
+            final ConstantScoreQueryBuilder constantScoreQuery = (ConstantScoreQueryBuilder) query;
+            final QueryBuilder inner = replace(constantScoreQuery.innerQuery(), terms);
+            return inner == null ? null
+                    : new ConstantScoreQueryBuilder(inner).boost(constantScoreQuery.boost()).queryName(constantScoreQuery.queryName());
+        } else if (query instanceof DisMaxQueryBuilder) {
+            final DisMaxQueryBuilder disMaxQuery = (DisMaxQueryBuilder) query;
+            final List<QueryBuilder> innerQueries = replace(disMaxQuery.innerQueries(), terms);
+            if (innerQueries == null) {
+                return null;
+            }
+            final DisMaxQueryBuilder result = new DisMaxQueryBuilder().tieBreaker(disMaxQuery.tieBreaker());
+            innerQueries.forEach(result::add);
+            return result.boost(disMaxQuery.boost()).queryName(disMaxQuery.queryName());
+        } else if (query instanceof BoostingQueryBuilder) {
+            final BoostingQueryBuilder boostingQuery = (BoostingQueryBuilder) query;
+            final QueryBuilder positive = replace(boostingQuery.positiveQuery(), terms);
+            final QueryBuilder negative = replace(boostingQuery.negativeQuery(), terms);
+            return positive == null || negative == null ? null
+                    : new BoostingQueryBuilder(positive, negative).negativeBoost(boostingQuery.negativeBoost())
+                            .boost(boostingQuery.boost()).queryName(boostingQuery.queryName());
+        } else {
+            return null;
+        }
+    }
+
+    private static List<QueryBuilder> replace(final List<QueryBuilder> queries, final Map<Key, List<Object>> terms) {
+        final List<QueryBuilder> result = new ArrayList<>(queries.size());
+        for (QueryBuilder query : queries) {
+            final QueryBuilder replaced = replace(query, terms);
+            if (replaced == null) {
+                return null;
+            }
+            result.add(replaced);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        final CacheStats stats = cache.stats();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("documents", cache.size());
+        result.put("entries", cache.asMap().values().stream().mapToLong(entry -> entry.terms.size()).sum());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    static final class Key {
+        private final String index;
+        private final String id;
+        private final String path;
+        private final String routing;
+        private final List<Object> principal;
+
+        Key(final TermsLookup termsLookup) {
+            this(termsLookup, null);
+        }
+
+        Key(final TermsLookup termsLookup, final List<Object> principal) {
+            this.index = termsLookup.index();
+            this.id = termsLookup.id();
+            this.path = termsLookup.path();
+            this.routing = termsLookup.routing();
+            this.principal = principal;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return index.equals(other.index) && id.equals(other.id) && path.equals(other.path) && Objects.equals(routing, other.routing)
+                    && Objects.equals(principal, other.principal);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, id, path, routing, principal);
+        }
+    }
+
+    private static final class Document {
+        private final String index;
+        private final String id;
+
+        private Document(final String index, final String id) {
+            this.index = index;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Document)) {
+                return false;
+            }
+            final Document other = (Document) obj;
+            return index.equals(other.index) && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * index.hashCode() + id.hashCode();
+        }
+    }
+
+    /**
+     * The terms of one lookup document by user, path and routing. Entries are immutable, so that their weight stays
+     * correct; adding the terms of another user replaces the entry.
+     */
+    private static final class Entry {
+        private static final Entry EMPTY = new Entry(Collections.emptyMap(), 0);
+
+        private final Map<Key, List<Object>> terms;
+        private final int weight;
+
+        private Entry(final Map<Key, List<Object>> terms, final int weight) {
+            this.terms = terms;
+            this.weight = weight;
+        }
+
+        private Entry with(final Document document, final Key key, final List<Object> keyTerms) {
+            final Map<Key, List<Object>> result = new HashMap<>(terms);
+            result.put(key, keyTerms);
+            return new Entry(Collections.unmodifiableMap(result), weigh(document, result));
+        }
+
+        /**
+         * @return the entry without the terms of the given key, or null if nothing is left
+         */
+        private Entry without(final Document document, final Key key) {
+            if (!terms.containsKey(key)) {
+                return this;
+            }
+            if (terms.size() == 1) {
+                return null;
+            }
+            final Map<Key, List<Object>> result = new HashMap<>(terms);
+            result.remove(key);
+            return new Entry(Collections.unmodifiableMap(result), weigh(document, result));
+        }
+
+        private static int weigh(final Document document, final Map<Key, List<Object>> terms) {
+            long weight = 64 + 2L * (document.index.length() + document.id.length());
+            for (List<Object> keyTerms : terms.values()) {
+                weight += 64;
+                for (Object term : keyTerms) {
+                    weight += 32 + (term instanceof String ? 2L * ((String) term).length() : 16);
+                }
+            }
+            return (int) Math.min(Integer.MAX_VALUE, weight);
+        }
+    }
+
+    private static final class PendingFetches {
+        private int fetches;
+        private long writes;
+    }
+}
@@ -390,14 +390,14 @@ public class SecurityFilter implements ActionFilter {
     private void attachSourceFieldContext(ActionRequest request) {
         
         if(request instanceof SearchRequest && SourceFieldsContext.isNeeded((SearchRequest) request)) {
-            if(threadContext.getHeader("_opendistro_security_source_field_context") == null) {
+            if(threadContext.getHeader(ConfigConstants.OPENDISTRO_SECURITY_SOURCE_FIELD_CONTEXT_HEADER) == null) {
                 final String serializedSourceFieldContext = Base64Helper.serializeObject(new SourceFieldsContext((SearchRequest) request));
-                threadContext.putHeader("_opendistro_security_source_field_context", serializedSourceFieldContext);
+                threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_SOURCE_FIELD_CONTEXT_HEADER, serializedSourceFieldContext);
             }
         } else if (request instanceof GetRequest && SourceFieldsContext.isNeeded((GetRequest) request)) {
-            if(threadContext.getHeader("_opendistro_security_source_field_context") == null) {
+            if(threadContext.getHeader(ConfigConstants.OPENDISTRO_SECURITY_SOURCE_FIELD_CONTEXT_HEADER) == null) {
                 final String serializedSourceFieldContext = Base64Helper.serializeObject(new SourceFieldsContext((GetRequest) request));
-                threadContext.putHeader("_opendistro_security_source_field_context", serializedSourceFieldContext);
+                threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_SOURCE_FIELD_CONTEXT_HEADER, serializedSourceFieldContext);
             }
         }
     }
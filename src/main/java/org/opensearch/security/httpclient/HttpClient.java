@@ -27,6 +27,8 @@ import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -50,6 +52,9 @@ import org.apache.http.ssl.SSLContexts;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import org.opensearch.action.bulk.BulkItemResponse;
+import org.opensearch.action.bulk.BulkRequest;
+import org.opensearch.action.bulk.BulkResponse;
 import org.opensearch.action.index.IndexRequest;
 import org.opensearch.action.index.IndexResponse;
 import org.opensearch.action.support.WriteRequest.RefreshPolicy;
@@ -205,6 +210,43 @@ public class HttpClient implements Closeable {
             }
     }
 
+    /**
+     * Indexes the given JSON documents with one bulk request, without refresh.
+     *
+     * @return the positions of the documents which could not be indexed, all positions if the request failed as a whole
+     */
+    public BitSet bulk(final List<String> contents, final List<String> indices) {
+
+            final BitSet failed = new BitSet(contents.size());
+
+            try {
+
+                final BulkRequest br = new BulkRequest();
+
+                for (int i = 0; i < contents.size(); i++) {
+                    br.add(new IndexRequest(indices.get(i)).source(contents.get(i), XContentType.JSON));
+                }
+
+                final BulkResponse response = rclient.bulk(br, RequestOptions.DEFAULT);
+
+                for (BulkItemResponse item : response.getItems()) {
+                    if (item.isFailed()) {
+                        failed.set(item.getItemId());
+                    }
+                }
+
+                if (response.hasFailures() && log.isDebugEnabled()) {
+                    log.debug(response.buildFailureMessage());
+                }
+
+            } catch (Exception e) {
+                log.error(e.toString(),e);
+                failed.set(0, contents.size());
+            }
+
+            return failed;
+    }
+
     private final HttpAsyncClientBuilder asyncClientBuilder(HttpAsyncClientBuilder httpClientBuilder)
             throws NoSuchAlgorithmException, KeyStoreException, UnrecoverableKeyException, KeyManagementException {
 
@@ -15,9 +15,17 @@
 
 package org.opensearch.security.privileges;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
+import com.google.common.io.BaseEncoding;
+
+import org.opensearch.common.bytes.BytesReference;
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.common.io.stream.StreamInput;
 import org.opensearch.common.util.concurrent.ThreadContext;
 import org.opensearch.security.support.ConfigConstants;
 
@@ -26,10 +34,18 @@ import org.opensearch.security.support.ConfigConstants;
  * explicit permissions for it. This is required for executing TLQ in DLS queries. In this case
  * the user does not have direct access to the index for the term lookup. However, we need to allow
  * access for executing the actual TLQ. The document allow list is scoped to individual requests.
+ *
+ * The header value is a base64 encoded binary format which lists the ids grouped by index. Its first byte is the
+ * format version, thus the encoded value starts with an upper case letter and cannot be confused with the former
+ * text format, which starts with an index name and is still accepted by {@link #parse(String)}.
  */
 public class DocumentAllowList {
 
-    private final Set<Entry> entries = new HashSet<>();
+    static final byte FORMAT_VERSION = 1;
+
+    private final Map<String, Set<String>> idsByIndex = new HashMap<>();
+    private int size;
+    private String headerValue;
 
     public DocumentAllowList() {
 
@@ -40,47 +56,115 @@ public class DocumentAllowList {
     }
 
     public void add(Entry entry) {
-        this.entries.add(entry);
+        if (this.idsByIndex.computeIfAbsent(entry.index, (k) -> new HashSet<>()).add(entry.id)) {
+            this.size++;
+            this.headerValue = null;
+        }
     }
 
     public boolean isEmpty() {
-        return this.entries.isEmpty();
+        return this.size == 0;
     }
 
+    /**
+     * Puts the encoded allow list into the header and the allow list itself into the transient of the thread context,
+     * so that it does not need to be decoded again on this node.
+     */
     public void applyTo(ThreadContext threadContext) {
         if (!isEmpty()) {
-            threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER, toString());
+            threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER, toHeaderValue());
+            if (threadContext.getTransient(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_TRANSIENT) == null) {
+                threadContext.putTransient(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_TRANSIENT, this);
+            }
         }
     }
 
+    /**
+     * @return the allow list of the thread context, which is decoded only once per thread context, or null if there is none
+     */
+    public static DocumentAllowList get(ThreadContext threadContext) {
+        String header = threadContext.getHeader(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER);
+
+        if (header == null) {
+            return null;
+        }
+
+        Object cached = threadContext.getTransient(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_TRANSIENT);
+
+        if (cached instanceof DocumentAllowList && header.equals(((DocumentAllowList) cached).headerValue)) {
+            return (DocumentAllowList) cached;
+        }
+
+        DocumentAllowList result = parse(header);
+
+        if (cached == null) {
+            threadContext.putTransient(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_TRANSIENT, result);
+        }
+
+        return result;
+    }
+
     public boolean isAllowed(String index, String id) {
-        for (Entry entry : entries) {
-            if (entry.index.equals(index) && entry.id.equals(id)) {
-                return true;
+        Set<String> ids = idsByIndex.get(index);
+        return ids != null && ids.contains(id);
+    }
+
+    String toHeaderValue() {
+        if (headerValue != null) {
+            return headerValue;
+        }
+
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeVInt(idsByIndex.size());
+            for (Map.Entry<String, Set<String>> entry : idsByIndex.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeStringCollection(entry.getValue());
             }
+            headerValue = BaseEncoding.base64().encode(BytesReference.toBytes(out.bytes()));
+            return headerValue;
+        } catch (IOException e) {
+            // Cannot happen with an in-memory stream
+            throw new IllegalStateException(e);
         }
+    }
 
-        return false;
+    /**
+     * @return the header value in the text format, which is the only format understood by nodes before
+     * {@link org.opensearch.security.support.Base64Helper#FIRST_CUSTOM_SERIALIZATION_SUPPORTED_VERSION}
+     */
+    public static String ensureTextFormat(String headerValue) {
+        if (!headerValue.isEmpty() && Character.isUpperCase(headerValue.charAt(0))) {
+            return decode(headerValue).toString();
+        } else {
+            return headerValue;
+        }
     }
 
     public String toString() {
-        if (this.entries.isEmpty()) {
+        if (isEmpty()) {
             return "";
         }
 
         StringBuilder stringBuilder = new StringBuilder();
 
-        for (Entry entry : entries) {
-            if (stringBuilder.length() != 0) {
-                stringBuilder.append('|');
+        for (Map.Entry<String, Set<String>> entry : idsByIndex.entrySet()) {
+            for (String id : entry.getValue()) {
+                if (stringBuilder.length() != 0) {
+                    stringBuilder.append('|');
+                }
+                stringBuilder.append(entry.getKey()).append("/").append(escapeId(id));
             }
-            stringBuilder.append(entry.index).append("/").append(escapeId(entry.id));
         }
 
         return stringBuilder.toString();
     }
 
     public static DocumentAllowList parse(String string) {
+        if (!string.isEmpty() && Character.isUpperCase(string.charAt(0))) {
+            return decode(string);
+        }
+
         DocumentAllowList result = new DocumentAllowList();
 
         int length = string.length();
@@ -129,6 +213,30 @@ public class DocumentAllowList {
         return result;
     }
 
+    private static DocumentAllowList decode(String string) {
+        DocumentAllowList result = new DocumentAllowList();
+
+        try (StreamInput in = StreamInput.wrap(BaseEncoding.base64().decode(string))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported DocumentAllowList format version " + version);
+            }
+
+            int indexCount = in.readVInt();
+            for (int i = 0; i < indexCount; i++) {
+                String index = in.readString();
+                for (String id : in.readStringList()) {
+                    result.add(index, id);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed DocumentAllowList string: " + string, e);
+        }
+
+        result.headerValue = string;
+        return result;
+    }
+
     private static String escapeId(String id) {
         int length = id.length();
         boolean needsEscaping = false;
@@ -250,7 +358,7 @@ public class DocumentAllowList {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
-        result = prime * result + ((entries == null) ? 0 : entries.hashCode());
+        result = prime * result + idsByIndex.hashCode();
         return result;
     }
 
@@ -266,13 +374,6 @@ public class DocumentAllowList {
             return false;
         }
         DocumentAllowList other = (DocumentAllowList) obj;
-        if (entries == null) {
-            if (other.entries != null) {
-                return false;
-            }
-        } else if (!entries.equals(other.entries)) {
-            return false;
-        }
-        return true;
+        return idsByIndex.equals(other.idsByIndex);
     }
 }
@@ -687,18 +687,17 @@ public class PrivilegesEvaluator {
 
 
     private boolean checkDocAllowListHeader(User user, String action, ActionRequest request) {
-        String docAllowListHeader = threadContext.getHeader(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER);
-
-        if (docAllowListHeader == null) {
-            return false;
-        }
-
         if (!(request instanceof GetRequest)) {
             return false;
         }
 
         try {
-            DocumentAllowList documentAllowList = DocumentAllowList.parse(docAllowListHeader);
+            DocumentAllowList documentAllowList = DocumentAllowList.get(threadContext);
+
+            if (documentAllowList == null) {
+                return false;
+            }
+
             GetRequest getRequest = (GetRequest) request;
 
             if (documentAllowList.isAllowed(getRequest.index(), getRequest.id())) {
@@ -712,7 +711,7 @@ public class PrivilegesEvaluator {
             }
 
         } catch (Exception e) {
-            log.error("Error while handling document allow list: " + docAllowListHeader, e);
+            log.error("Error while handling document allow list: " + threadContext.getHeader(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER), e);
             return false;
         }
     }
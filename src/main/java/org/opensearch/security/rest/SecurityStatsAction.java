@@ -0,0 +1,111 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.rest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+
+import org.opensearch.client.node.NodeClient;
+import org.opensearch.common.Strings;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.common.xcontent.XContentBuilder;
+import org.opensearch.rest.BaseRestHandler;
+import org.opensearch.rest.BytesRestResponse;
+import org.opensearch.rest.RestChannel;
+import org.opensearch.rest.RestController;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.rest.RestStatus;
+import org.opensearch.security.configuration.AdminDNs;
+import org.opensearch.security.support.ConfigConstants;
+import org.opensearch.security.user.User;
+import org.opensearch.threadpool.ThreadPool;
+
+import static org.opensearch.rest.RestRequest.Method.GET;
+import static org.opensearch.security.dlic.rest.support.Utils.addRoutesPrefix;
+
+/**
+ * Returns the statistics of the caches and queues of the local node, either all of them or the comma separated
+ * sections given in the path, for example {@code GET _plugins/_security/stats/dls_query_cache,reverse_dns_cache}.
+ * Only super admin users are allowed to access this API.
+ */
+public class SecurityStatsAction extends BaseRestHandler {
+    private static final List<Route> routes = addRoutesPrefix(ImmutableList.of(
+            new Route(GET, "/stats"),
+            new Route(GET, "/stats/{sections}")
+    ), "/_opendistro/_security", "/_plugins/_security");
+
+    private final Map<String, Supplier<Map<String, Object>>> sections;
+    private final AdminDNs adminDns;
+    private final ThreadContext threadContext;
+
+    /**
+     * @param sections the statistics by section name, in the order they are returned
+     */
+    public SecurityStatsAction(final Settings settings, final RestController controller, final Map<String, Supplier<Map<String, Object>>> sections,
+            final ThreadPool threadPool, final AdminDNs adminDns) {
+        super();
+        this.sections = new LinkedHashMap<>(sections);
+        this.adminDns = adminDns;
+        this.threadContext = threadPool.getThreadContext();
+    }
+
+    @Override
+    public List<Route> routes() {
+        return routes;
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        final Set<String> requestedSections = Strings.splitStringByCommaToSet(request.param("sections"));
+
+        return new RestChannelConsumer() {
+
+            @Override
+            public void accept(RestChannel channel) throws Exception {
+                final User user = (User) threadContext.getTransient(ConfigConstants.OPENDISTRO_SECURITY_USER);
+
+                try (XContentBuilder builder = channel.newBuilder()) {
+                    if (user == null || !adminDns.isAdmin(user)) {
+                        channel.sendResponse(new BytesRestResponse(RestStatus.FORBIDDEN, builder));
+                        return;
+                    }
+
+                    for (String section : requestedSections) {
+                        if (!sections.containsKey(section)) {
+                            builder.startObject();
+                            builder.field("status", "NOT_FOUND");
+                            builder.field("message", "Unknown stats section " + section + ", expected one of " + sections.keySet());
+                            builder.endObject();
+                            channel.sendResponse(new BytesRestResponse(RestStatus.NOT_FOUND, builder));
+                            return;
+                        }
+                    }
+
+                    builder.startObject();
+                    for (Map.Entry<String, Supplier<Map<String, Object>>> section : sections.entrySet()) {
+                        if (requestedSections.isEmpty() || requestedSections.contains(section.getKey())) {
+                            builder.field(section.getKey(), section.getValue().get());
+                        }
+                    }
+                    builder.endObject();
+                    channel.sendResponse(new BytesRestResponse(RestStatus.OK, builder));
+                }
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return "OpenSearch Security Stats";
+    }
+}
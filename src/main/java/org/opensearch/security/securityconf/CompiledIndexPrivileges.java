@@ -0,0 +1,246 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.securityconf;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.metadata.Metadata;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.security.securityconf.ConfigModelV7.IndexPattern;
+import org.opensearch.security.securityconf.ConfigModelV7.SecurityRole;
+import org.opensearch.security.support.WildcardMatcher;
+
+/**
+ * Precompiled index permissions of all configured roles.
+ *
+ * Every (role, index pattern) pair without user attribute placeholders gets a fixed position. Roles, actions and indices
+ * are translated into bitsets over these positions, so that checking whether a set of roles grants an action on an
+ * index is a matter of a few hash lookups and bitset intersections. Role and action bitsets live as long as the
+ * configuration, index bitsets are bound to the indices and aliases of the cluster and are rebuilt when those change.
+ *
+ * Index patterns containing placeholders like ${user.name} can only be resolved per user and are not compiled, they are
+ * returned by {@link #getTemplatedPatterns(Collection)} and have to be evaluated by the caller.
+ */
+public class CompiledIndexPrivileges {
+
+    private static final int MAX_CACHED_ACTIONS = 4096;
+    private static final int MAX_CACHED_INDICES = 100000;
+
+    protected final Logger log = LogManager.getLogger(this.getClass());
+
+    private final List<IndexPattern> patterns;
+    private final WildcardMatcher[] patternMatchers;
+    private final WildcardMatcher[] permMatchers;
+    private final BitSet localAllPatterns;
+    private final Map<String, BitSet> patternsByRole;
+    private final Map<String, Set<IndexPattern>> templatedPatternsByRole;
+    private final ConcurrentMap<String, BitSet> patternsByAction = new ConcurrentHashMap<>();
+    private volatile IndexTable indexTable;
+
+    public CompiledIndexPrivileges(Collection<SecurityRole> roles) {
+        final List<IndexPattern> patterns = new ArrayList<>();
+        final Map<String, BitSet> patternsByRole = new HashMap<>(roles.size());
+        final Map<String, Set<IndexPattern>> templatedPatternsByRole = new HashMap<>();
+
+        for (SecurityRole role : roles) {
+            final BitSet rolePatterns = new BitSet();
+            for (IndexPattern ip : role.getIpatterns()) {
+                if (ip.isTemplated()) {
+                    templatedPatternsByRole.computeIfAbsent(role.getName(), k -> new HashSet<>()).add(ip);
+                } else {
+                    rolePatterns.set(patterns.size());
+                    patterns.add(ip);
+                }
+            }
+            patternsByRole.put(role.getName(), rolePatterns);
+        }
+
+        this.patterns = Collections.unmodifiableList(patterns);
+        this.patternMatchers = new WildcardMatcher[patterns.size()];
+        this.permMatchers = new WildcardMatcher[patterns.size()];
+        this.localAllPatterns = new BitSet(patterns.size());
+
+        for (int i = 0; i < patterns.size(); i++) {
+            final String unresolved = patterns.get(i).getUnresolvedIndexPattern(null);
+            patternMatchers[i] = WildcardMatcher.from(unresolved);
+            permMatchers[i] = patterns.get(i).getPerms();
+            if ("*".equals(unresolved)) {
+                localAllPatterns.set(i);
+            }
+        }
+
+        this.patternsByRole = Collections.unmodifiableMap(patternsByRole);
+        this.templatedPatternsByRole = Collections.unmodifiableMap(templatedPatternsByRole);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Compiled {} index patterns of {} roles ({} roles with templated index patterns)", patterns.size(), roles.size(),
+                    templatedPatternsByRole.size());
+        }
+    }
+
+    /**
+     * @return the positions of all compiled index patterns of the given roles
+     */
+    public BitSet getPatterns(Collection<SecurityRole> roles) {
+        final BitSet result = new BitSet(patterns.size());
+        for (SecurityRole role : roles) {
+            final BitSet rolePatterns = patternsByRole.get(role.getName());
+            if (rolePatterns != null) {
+                result.or(rolePatterns);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the index patterns of the given roles which contain user attribute placeholders and thus are not compiled
+     */
+    public Set<IndexPattern> getTemplatedPatterns(Collection<SecurityRole> roles) {
+        if (templatedPatternsByRole.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Set<IndexPattern> result = new HashSet<>();
+        for (SecurityRole role : roles) {
+            result.addAll(templatedPatternsByRole.getOrDefault(role.getName(), Collections.emptySet()));
+        }
+        return result;
+    }
+
+    /**
+     * @return the positions of all compiled index patterns which grant the given action
+     */
+    public BitSet getPatternsForAction(String action) {
+        BitSet result = patternsByAction.get(action);
+        if (result == null) {
+            result = new BitSet(patterns.size());
+            for (int i = 0; i < permMatchers.length; i++) {
+                if (permMatchers[i].test(action)) {
+                    result.set(i);
+                }
+            }
+            if (patternsByAction.size() < MAX_CACHED_ACTIONS) {
+                patternsByAction.putIfAbsent(action, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the positions of all compiled index patterns which are literally "*"
+     */
+    public BitSet getLocalAllPatterns() {
+        return localAllPatterns;
+    }
+
+    /**
+     * Returns the index table for the current cluster state. The table is only rebuilt if indices were created, deleted,
+     * opened, closed, hidden or their aliases changed since the last call, all other metadata changes keep the current table.
+     */
+    public IndexTable getIndexTable(IndexNameExpressionResolver resolver, ClusterService cs) {
+        final Metadata metadata = cs.state().metadata();
+        IndexTable current = indexTable;
+
+        if (current != null && current.metadataVersion == metadata.version()) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = indexTable;
+            if (current != null && current.metadataVersion == metadata.version()) {
+                return current;
+            }
+
+            final Map<String, Long> topology = topologyOf(metadata);
+
+            if (current != null && current.topology.equals(topology)) {
+                current = new IndexTable(current, metadata.version());
+            } else {
+                final List<Set<String>> concreteIndices = new ArrayList<>(patterns.size());
+                for (IndexPattern ip : patterns) {
+                    concreteIndices.add(ip.getResolvedIndexPattern(null, resolver, cs, false));
+                }
+                current = new IndexTable(metadata.version(), topology, concreteIndices);
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Rebuilt index table for {} index patterns and {} indices", patterns.size(), topology.size());
+                }
+            }
+
+            indexTable = current;
+            return current;
+        }
+    }
+
+    private static Map<String, Long> topologyOf(Metadata metadata) {
+        final Map<String, Long> topology = new HashMap<>(metadata.indices().size());
+        final Iterator<IndexMetadata> it = metadata.indices().valuesIt();
+        while (it.hasNext()) {
+            final IndexMetadata indexMetadata = it.next();
+            topology.put(indexMetadata.getIndex().getName(), (indexMetadata.getAliasesVersion() << 2)
+                    | (IndexMetadata.INDEX_HIDDEN_SETTING.get(indexMetadata.getSettings()) ? 2 : 0)
+                    | (indexMetadata.getState() == IndexMetadata.State.CLOSE ? 1 : 0));
+        }
+        return topology;
+    }
+
+    /**
+     * Maps index names to the positions of the compiled index patterns covering them.
+     * An index is covered by a pattern if the pattern matches the index name or resolves to it via an alias.
+     */
+    public final class IndexTable {
+
+        private final long metadataVersion;
+        private final Map<String, Long> topology;
+        private final List<Set<String>> concreteIndices;
+        private final ConcurrentMap<String, BitSet> patternsByIndex;
+
+        private IndexTable(long metadataVersion, Map<String, Long> topology, List<Set<String>> concreteIndices) {
+            this.metadataVersion = metadataVersion;
+            this.topology = topology;
+            this.concreteIndices = concreteIndices;
+            this.patternsByIndex = new ConcurrentHashMap<>();
+        }
+
+        private IndexTable(IndexTable other, long metadataVersion) {
+            this.metadataVersion = metadataVersion;
+            this.topology = other.topology;
+            this.concreteIndices = other.concreteIndices;
+            this.patternsByIndex = other.patternsByIndex;
+        }
+
+        public BitSet getPatternsForIndex(String index) {
+            BitSet result = patternsByIndex.get(index);
+            if (result == null) {
+                result = new BitSet(patterns.size());
+                for (int i = 0; i < patternMatchers.length; i++) {
+                    if (concreteIndices.get(i).contains(index) || patternMatchers[i].test(index)) {
+                        result.set(i);
+                    }
+                }
+                if (patternsByIndex.size() < MAX_CACHED_INDICES) {
+                    patternsByIndex.putIfAbsent(index, result);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -61,6 +61,7 @@ import org.opensearch.security.securityconf.impl.v6.RoleMappingsV6;
 import org.opensearch.security.securityconf.impl.v6.RoleV6;
 import org.opensearch.security.securityconf.impl.v6.RoleV6.Index;
 import org.opensearch.security.support.ConfigConstants;
+import org.opensearch.security.support.ReverseDnsCache;
 import org.opensearch.security.support.WildcardMatcher;
 import org.opensearch.security.user.User;
 
@@ -82,7 +83,8 @@ public class ConfigModelV6 extends ConfigModel {
             SecurityDynamicConfiguration<ActionGroupsV6> actiongroups,
             SecurityDynamicConfiguration<RoleMappingsV6> rolesmapping,
             DynamicConfigModel dcm,
-            Settings opensearchSettings) {
+            Settings opensearchSettings,
+            ReverseDnsCache reverseDnsCache) {
         
         this.roles = roles;
         
@@ -98,7 +100,7 @@ public class ConfigModelV6 extends ConfigModel {
         agr = reloadActionGroups(actiongroups);
         securityRoles = reload(roles);
         tenantHolder = new TenantHolder(roles);
-        roleMappingHolder = new RoleMappingHolder(rolesmapping, dcm.getHostsResolverMode());
+        roleMappingHolder = new RoleMappingHolder(rolesmapping, dcm.getHostsResolverMode(), reverseDnsCache);
     }
     
     public Set<String> getAllConfiguredTenantNames() {
@@ -1107,14 +1109,17 @@ public class ConfigModelV6 extends ConfigModel {
         private ListMultimap<String, String> bars;
         private ListMultimap<String, String> hosts;
         private final String hostResolverMode;
+        private final ReverseDnsCache reverseDnsCache;
 
         private List<WildcardMatcher> userMatchers;
         private List<WildcardMatcher> barMatchers;
         private List<WildcardMatcher> hostMatchers;
 
-        private RoleMappingHolder(final SecurityDynamicConfiguration<RoleMappingsV6> rolesMapping, final String hostResolverMode) {
+        private RoleMappingHolder(final SecurityDynamicConfiguration<RoleMappingsV6> rolesMapping, final String hostResolverMode,
+                final ReverseDnsCache reverseDnsCache) {
 
             this.hostResolverMode = hostResolverMode;
+            this.reverseDnsCache = reverseDnsCache;
             
             if (rolesMapping != null) {
 
@@ -1203,12 +1208,16 @@ public class ConfigModelV6 extends ConfigModel {
                         }
                     }
 
-                    if (caller.address() != null && hostResolverMode.equalsIgnoreCase("ip-hostname-lookup")) {
+                    if (caller.address() != null && caller.address().getAddress() != null
+                            && hostResolverMode.equalsIgnoreCase("ip-hostname-lookup")) {
 
-                        final String resolvedHostName = caller.address().getHostName();
+                        // null while the lookup is pending
+                        final String resolvedHostName = reverseDnsCache.getHostName(caller.address().getAddress());
 
-                        for (String p : WildcardMatcher.getAllMatchingPatterns(hostMatchers, resolvedHostName)) {
-                            securityRoles.addAll(hosts.get(p));
+                        if (resolvedHostName != null) {
+                            for (String p : WildcardMatcher.getAllMatchingPatterns(hostMatchers, resolvedHostName)) {
+                                securityRoles.addAll(hosts.get(p));
+                            }
                         }
                     }
                 }
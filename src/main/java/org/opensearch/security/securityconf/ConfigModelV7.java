@@ -18,6 +18,7 @@
 package org.opensearch.security.securityconf;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -36,6 +37,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -62,6 +65,7 @@ import org.opensearch.security.securityconf.impl.v7.RoleV7;
 import org.opensearch.security.securityconf.impl.v7.RoleV7.Index;
 import org.opensearch.security.securityconf.impl.v7.TenantV7;
 import org.opensearch.security.support.ConfigConstants;
+import org.opensearch.security.support.ReverseDnsCache;
 import org.opensearch.security.support.WildcardMatcher;
 import org.opensearch.security.user.User;
 
@@ -69,6 +73,9 @@ import static org.opensearch.cluster.metadata.IndexAbstraction.Type.ALIAS;
 
 public class ConfigModelV7 extends ConfigModel {
 
+    private static final int DLS_FLS_CACHE_SIZE = 1000;
+    private static final int MAPPED_ROLES_CACHE_SIZE = 10000;
+
     protected final Logger log = LogManager.getLogger(this.getClass());
     private ConfigConstants.RolesMappingResolution rolesMappingResolution;
     private ActionGroupResolver agr = null;
@@ -84,7 +91,8 @@ public class ConfigModelV7 extends ConfigModel {
             SecurityDynamicConfiguration<ActionGroupsV7> actiongroups,
             SecurityDynamicConfiguration<TenantV7> tenants,
             DynamicConfigModel dcm,
-            Settings opensearchSettings) {
+            Settings opensearchSettings,
+            ReverseDnsCache reverseDnsCache) {
 
         this.roles = roles;
         this.tenants = tenants;
@@ -101,7 +109,7 @@ public class ConfigModelV7 extends ConfigModel {
         agr = reloadActionGroups(actiongroups);
         securityRoles = reload(roles);
         tenantHolder = new TenantHolder(roles, tenants);
-        roleMappingHolder = new RoleMappingHolder(rolemappings, dcm.getHostsResolverMode());
+        roleMappingHolder = new RoleMappingHolder(rolemappings, dcm.getHostsResolverMode(), reverseDnsCache);
     }
     
     public Set<String> getAllConfiguredTenantNames() {
@@ -271,6 +279,8 @@ public class ConfigModelV7 extends ConfigModel {
                 _securityRoles.addSecurityRole(future.get());
             }
 
+            _securityRoles.compiledIndexPrivileges = new CompiledIndexPrivileges(_securityRoles.roles);
+            _securityRoles.dlsFlsCache = CacheBuilder.newBuilder().maximumSize(DLS_FLS_CACHE_SIZE).build();
             return _securityRoles;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -290,6 +300,9 @@ public class ConfigModelV7 extends ConfigModel {
         protected final Logger log = LogManager.getLogger(this.getClass());
 
         final Set<SecurityRole> roles;
+        private CompiledIndexPrivileges compiledIndexPrivileges;
+        // shared by all filtered copies, a config change creates a new model and thus a new cache
+        private Cache<DlsFlsCacheKey, EvaluatedDlsFlsConfig> dlsFlsCache;
 
         private SecurityRoles(int roleCount) {
             roles = new HashSet<>(roleCount);
@@ -347,6 +360,8 @@ public class ConfigModelV7 extends ConfigModel {
                     retVal.addSecurityRole(sr);
                 }
             }
+            retVal.compiledIndexPrivileges = compiledIndexPrivileges;
+            retVal.dlsFlsCache = dlsFlsCache;
             return retVal;
         }
 
@@ -363,7 +378,42 @@ public class ConfigModelV7 extends ConfigModel {
 
                 return EvaluatedDlsFlsConfig.EMPTY;
             }
-        	
+
+            if (dlsFlsCache == null) {
+                return evaluateDlsFls(user, dfmEmptyOverwritesAll, resolver, cs);
+            }
+
+            // the resolved index patterns depend on the indices and aliases of the cluster, the templated patterns and
+            // queries on the attributes of the user
+            final DlsFlsCacheKey key = new DlsFlsCacheKey(getRoleNames(), getSubstitutedTemplates(user), dfmEmptyOverwritesAll,
+                    cs.state().metadata().version());
+            EvaluatedDlsFlsConfig result = dlsFlsCache.getIfPresent(key);
+            if (result == null) {
+                result = evaluateDlsFls(user, dfmEmptyOverwritesAll, resolver, cs);
+                dlsFlsCache.put(key, result);
+            }
+            return result;
+        }
+
+        private Map<String, String> getSubstitutedTemplates(User user) {
+            Map<String, String> result = null;
+            for (SecurityRole role : roles) {
+                for (IndexPattern ip : role.getIpatterns()) {
+                    if (ip.isTemplated()) {
+                        result = result == null ? new HashMap<>() : result;
+                        result.put(ip.indexPattern, ip.getUnresolvedIndexPattern(user));
+                    }
+                    if (ip.isDlsQueryTemplated()) {
+                        result = result == null ? new HashMap<>() : result;
+                        result.put(ip.dlsQuery, ip.getDlsQuery(user));
+                    }
+                }
+            }
+            return result == null ? Collections.emptyMap() : result;
+        }
+
+        private EvaluatedDlsFlsConfig evaluateDlsFls(User user, boolean dfmEmptyOverwritesAll, IndexNameExpressionResolver resolver,
+                ClusterService cs) {
             Map<String, Set<String>> dlsQueriesByIndex = new HashMap<String, Set<String>>();            
             Map<String, Set<String>> flsFields = new HashMap<String, Set<String>>();
             Map<String, Set<String>> maskedFieldsMap = new HashMap<String, Set<String>>();
@@ -469,7 +519,7 @@ public class ConfigModelV7 extends ConfigModel {
         //return true on success
         public boolean get(Resolved resolved, User user, String[] actions, IndexNameExpressionResolver resolver, ClusterService cs) {
             for (SecurityRole sr : roles) {
-                if (ConfigModelV7.impliesTypePerm(sr.getIpatterns(), resolved, user, actions, resolver, cs)) {
+                if (ConfigModelV7.impliesTypePerm(compiledIndexPrivileges, Collections.singleton(sr), resolved, user, actions, resolver, cs)) {
                     return true;
                 }
             }
@@ -483,9 +533,7 @@ public class ConfigModelV7 extends ConfigModel {
         //rolespan
         public boolean impliesTypePermGlobal(Resolved resolved, User user, String[] actions, IndexNameExpressionResolver resolver,
                 ClusterService cs) {
-            Set<IndexPattern> ipatterns = new HashSet<ConfigModelV7.IndexPattern>();
-            roles.stream().forEach(p -> ipatterns.addAll(p.getIpatterns()));
-            return ConfigModelV7.impliesTypePerm(ipatterns, resolved, user, actions, resolver, cs);
+            return ConfigModelV7.impliesTypePerm(compiledIndexPrivileges, roles, resolved, user, actions, resolver, cs);
         }
         
         private boolean containsDlsFlsConfig() {
@@ -501,6 +549,79 @@ public class ConfigModelV7 extends ConfigModel {
         }
     }
 
+    private static final class MappedRolesKey {
+        private final String userName;
+        private final Set<String> backendRoles;
+        private final Set<String> securityRoles;
+        private final String caller;
+        private final int hashCode;
+
+        private MappedRolesKey(String userName, Set<String> backendRoles, Set<String> securityRoles, String caller) {
+            this.userName = userName;
+            this.backendRoles = backendRoles;
+            this.securityRoles = securityRoles;
+            this.caller = caller;
+            this.hashCode = Objects.hash(userName, backendRoles, securityRoles, caller);
+        }
+
+        private MappedRolesKey copy() {
+            return new MappedRolesKey(userName, ImmutableSet.copyOf(backendRoles), ImmutableSet.copyOf(securityRoles), caller);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MappedRolesKey)) {
+                return false;
+            }
+            final MappedRolesKey other = (MappedRolesKey) obj;
+            return Objects.equals(userName, other.userName) && Objects.equals(caller, other.caller)
+                    && backendRoles.equals(other.backendRoles) && securityRoles.equals(other.securityRoles);
+        }
+    }
+
+    private static final class DlsFlsCacheKey {
+        private final Set<String> roleNames;
+        private final Map<String, String> substitutedTemplates;
+        private final boolean dfmEmptyOverwritesAll;
+        private final long metadataVersion;
+        private final int hashCode;
+
+        private DlsFlsCacheKey(Set<String> roleNames, Map<String, String> substitutedTemplates, boolean dfmEmptyOverwritesAll,
+                long metadataVersion) {
+            this.roleNames = roleNames;
+            this.substitutedTemplates = substitutedTemplates;
+            this.dfmEmptyOverwritesAll = dfmEmptyOverwritesAll;
+            this.metadataVersion = metadataVersion;
+            this.hashCode = Objects.hash(roleNames, substitutedTemplates, dfmEmptyOverwritesAll, metadataVersion);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DlsFlsCacheKey)) {
+                return false;
+            }
+            final DlsFlsCacheKey other = (DlsFlsCacheKey) obj;
+            return metadataVersion == other.metadataVersion && dfmEmptyOverwritesAll == other.dfmEmptyOverwritesAll
+                    && roleNames.equals(other.roleNames) && substitutedTemplates.equals(other.substitutedTemplates);
+        }
+    }
+
     public static class SecurityRole {
         private final String name;
         private final Set<IndexPattern> ipatterns;
@@ -659,6 +780,7 @@ public class ConfigModelV7 extends ConfigModel {
         private final Set<String> fls = new HashSet<>();
         private final Set<String> maskedFields = new HashSet<>();
         private final Set<String> perms = new HashSet<>();
+        private WildcardMatcher permsMatcher;
 
         public IndexPattern(String indexPattern) {
             super();
@@ -682,6 +804,7 @@ public class ConfigModelV7 extends ConfigModel {
         public IndexPattern addPerm(Set<String> perms) {
             if (perms != null) {
                 this.perms.addAll(perms);
+                this.permsMatcher = null;
             }
             return this;
         }
@@ -787,6 +910,14 @@ public class ConfigModelV7 extends ConfigModel {
             return replaceProperties(dlsQuery, user);
         }
 
+        public boolean isTemplated() {
+            return indexPattern.contains("${");
+        }
+
+        public boolean isDlsQueryTemplated() {
+            return dlsQuery != null && dlsQuery.contains("${");
+        }
+
         public boolean hasDlsQuery() {
             return dlsQuery != null && !dlsQuery.isEmpty();
         }
@@ -808,7 +939,12 @@ public class ConfigModelV7 extends ConfigModel {
         }
         
         public WildcardMatcher getPerms() {
-            return WildcardMatcher.from(perms);
+            WildcardMatcher matcher = permsMatcher;
+            if (matcher == null) {
+                matcher = WildcardMatcher.from(perms);
+                permsMatcher = matcher;
+            }
+            return matcher;
         }
 
         
@@ -977,9 +1113,9 @@ public class ConfigModelV7 extends ConfigModel {
     private static final class IndexMatcherAndPermissions {
         private WildcardMatcher matcher;
         private WildcardMatcher perms;
-        public IndexMatcherAndPermissions(Set<String> patterns, Set<String> perms) {
+        public IndexMatcherAndPermissions(Set<String> patterns, WildcardMatcher perms) {
             this.matcher = WildcardMatcher.from(patterns);
-            this.perms = WildcardMatcher.from(perms);
+            this.perms = perms;
         }
 
         public boolean matches(String index, String action) {
@@ -987,31 +1123,54 @@ public class ConfigModelV7 extends ConfigModel {
         }
     }
 
-    private static boolean impliesTypePerm(Set<IndexPattern> ipatterns, Resolved resolved, User user, String[] requestedActions,
-                                           IndexNameExpressionResolver resolver, ClusterService cs) {
+    private static boolean impliesTypePerm(CompiledIndexPrivileges compiled, Collection<SecurityRole> roles, Resolved resolved, User user,
+                                           String[] requestedActions, IndexNameExpressionResolver resolver, ClusterService cs) {
         Set<String> resolvedRequestedIndices = resolved.getAllIndices();
+
+        // patterns with user attributes can only be resolved per request
+        final Set<IndexPattern> templatedPatterns = compiled.getTemplatedPatterns(roles);
         IndexMatcherAndPermissions[] indexMatcherAndPermissions;
         if (resolved.isLocalAll()) {
-            indexMatcherAndPermissions = ipatterns
+            indexMatcherAndPermissions = templatedPatterns
                     .stream()
                     .filter(indexPattern -> "*".equals(indexPattern.getUnresolvedIndexPattern(user)))
-                    .map(p -> new IndexMatcherAndPermissions(p.getResolvedIndexPattern(user, resolver, cs, true), p.perms))
+                    .map(p -> new IndexMatcherAndPermissions(p.getResolvedIndexPattern(user, resolver, cs, true), p.getPerms()))
                     .toArray(IndexMatcherAndPermissions[]::new);
         } else {
-            indexMatcherAndPermissions = ipatterns
+            indexMatcherAndPermissions = templatedPatterns
                     .stream()
-                    .map(p -> new IndexMatcherAndPermissions(p.getResolvedIndexPattern(user, resolver, cs, true), p.perms))
+                    .map(p -> new IndexMatcherAndPermissions(p.getResolvedIndexPattern(user, resolver, cs, true), p.getPerms()))
                     .toArray(IndexMatcherAndPermissions[]::new);
         }
-        return resolvedRequestedIndices
-                .stream()
-                .allMatch(index ->
-                        Arrays.stream(requestedActions).allMatch(action ->
-                                Arrays.stream(indexMatcherAndPermissions).anyMatch(ipap ->
-                                        ipap.matches(index, action)
-                                )
-                        )
-                );
+
+        // all other patterns are looked up in the compiled tables
+        final BitSet rolePatterns = compiled.getPatterns(roles);
+        if (resolved.isLocalAll()) {
+            rolePatterns.and(compiled.getLocalAllPatterns());
+        }
+        final BitSet[] permittedPatternsByAction = new BitSet[requestedActions.length];
+        for (int i = 0; i < requestedActions.length; i++) {
+            permittedPatternsByAction[i] = (BitSet) rolePatterns.clone();
+            permittedPatternsByAction[i].and(compiled.getPatternsForAction(requestedActions[i]));
+        }
+        final CompiledIndexPrivileges.IndexTable indexTable = resolved.isLocalAll() ? null : compiled.getIndexTable(resolver, cs);
+
+        for (String index : resolvedRequestedIndices) {
+            final BitSet indexPatterns = indexTable == null ? null : indexTable.getPatternsForIndex(index);
+            for (int i = 0; i < requestedActions.length; i++) {
+                final boolean compiledMatch = indexPatterns == null
+                        ? !permittedPatternsByAction[i].isEmpty()
+                        : indexPatterns.intersects(permittedPatternsByAction[i]);
+                if (compiledMatch) {
+                    continue;
+                }
+                final String action = requestedActions[i];
+                if (!Arrays.stream(indexMatcherAndPermissions).anyMatch(ipap -> ipap.matches(index, action))) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
     
     
@@ -1124,14 +1283,21 @@ public class ConfigModelV7 extends ConfigModel {
         private ListMultimap<String, String> bars;
         private ListMultimap<String, String> hosts;
         private final String hostResolverMode;
+        private final ReverseDnsCache reverseDnsCache;
 
         private List<WildcardMatcher> userMatchers;
         private List<WildcardMatcher> barMatchers;
         private List<WildcardMatcher> hostMatchers;
 
-        private RoleMappingHolder(final SecurityDynamicConfiguration<RoleMappingsV7> rolemappings, final String hostResolverMode) {
+        // the holder is replaced on every configuration change, which also drops the cache
+        private final Cache<MappedRolesKey, Set<String>> mappedRolesCache = CacheBuilder.newBuilder().maximumSize(MAPPED_ROLES_CACHE_SIZE)
+                .build();
+
+        private RoleMappingHolder(final SecurityDynamicConfiguration<RoleMappingsV7> rolemappings, final String hostResolverMode,
+                final ReverseDnsCache reverseDnsCache) {
 
             this.hostResolverMode = hostResolverMode;
+            this.reverseDnsCache = reverseDnsCache;
             
             if (roles != null) {
 
@@ -1175,6 +1341,52 @@ public class ConfigModelV7 extends ConfigModel {
                 return Collections.emptySet();
             }
 
+            final String resolvedHostName = resolveHostName(caller);
+            final MappedRolesKey key = mappedRolesKey(user, caller, resolvedHostName);
+
+            Set<String> mappedRoles = mappedRolesCache.getIfPresent(key);
+
+            if (mappedRoles == null) {
+                mappedRoles = evaluate(user, caller, resolvedHostName);
+                mappedRolesCache.put(key.copy(), mappedRoles);
+            }
+
+            return mappedRoles;
+        }
+
+        /**
+         * @return the host name of the caller if it is needed for the host mappings, or null if it is not needed or
+         * not known yet, in which case the caller is mapped by its IP address and host string only
+         */
+        private String resolveHostName(final TransportAddress caller) {
+            if (hosts.isEmpty() || caller == null || caller.address() == null || caller.address().getAddress() == null
+                    || !hostResolverMode.equalsIgnoreCase("ip-hostname-lookup")) {
+                return null;
+            }
+
+            return reverseDnsCache.getHostName(caller.address().getAddress());
+        }
+
+        /**
+         * @return the key of the mapped roles of the user, which is a view on the roles of the user
+         */
+        private MappedRolesKey mappedRolesKey(final User user, final TransportAddress caller, final String resolvedHostName) {
+            if (hosts.isEmpty() || caller == null || rolesMappingResolution == ConfigConstants.RolesMappingResolution.BACKENDROLES_ONLY) {
+                return new MappedRolesKey(user.getName(), user.getRoles(), user.getSecurityRoles(), null);
+            }
+
+            String callerKey = caller.getAddress();
+
+            if (caller.address() != null
+                    && (hostResolverMode.equalsIgnoreCase("ip-hostname") || hostResolverMode.equalsIgnoreCase("ip-hostname-lookup"))) {
+                callerKey += "/" + caller.address().getHostString() + "/" + resolvedHostName;
+            }
+
+            return new MappedRolesKey(user.getName(), user.getRoles(), user.getSecurityRoles(), callerKey);
+        }
+
+        private Set<String> evaluate(final User user, final TransportAddress caller, final String resolvedHostName) {
+
             final Set<String> securityRoles = new HashSet<>(user.getSecurityRoles());
 
             if (rolesMappingResolution == ConfigConstants.RolesMappingResolution.BOTH
@@ -1218,10 +1430,7 @@ public class ConfigModelV7 extends ConfigModel {
                         }
                     }
 
-                    if (caller.address() != null && hostResolverMode.equalsIgnoreCase("ip-hostname-lookup")) {
-
-                        final String resolvedHostName = caller.address().getHostName();
-
+                    if (resolvedHostName != null) {
                         for (String p : WildcardMatcher.getAllMatchingPatterns(hostMatchers, resolvedHostName)) {
                             securityRoles.addAll(hosts.get(p));
                         }
@@ -21,15 +21,22 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import org.opensearch.security.resolver.IndexResolverReplacer.Resolved;
 import org.opensearch.security.support.WildcardMatcher;
 
 public class EvaluatedDlsFlsConfig {
     public static EvaluatedDlsFlsConfig EMPTY = new EvaluatedDlsFlsConfig(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+    private static final int MAX_FILTERED_BY_INDICES = 100;
 
     private final Map<String, Set<String>> dlsQueriesByIndex;
     private final Map<String, Set<String>> flsByIndex;
     private final Map<String, Set<String>> fieldMaskingByIndex;
+    // evaluated configs are cached per user roles, so the same indices tend to be requested again;
+    // created on the first filter call, as most configs, like the filtered ones, are never filtered themselves
+    private volatile Cache<Set<String>, EvaluatedDlsFlsConfig> filteredByIndices;
 
     public EvaluatedDlsFlsConfig(Map<String, Set<String>> dlsQueriesByIndex, Map<String, Set<String>> flsByIndex,
             Map<String, Set<String>> fieldMaskingByIndex) {
@@ -91,12 +98,32 @@ public class EvaluatedDlsFlsConfig {
             return this;
         } else {
             Set<String> allIndices = indices.getAllIndices();
-            
-            return new EvaluatedDlsFlsConfig(filter(dlsQueriesByIndex, allIndices), filter(flsByIndex, allIndices),
-                    filter(fieldMaskingByIndex, allIndices));
+
+            final Cache<Set<String>, EvaluatedDlsFlsConfig> filteredByIndices = getFilteredByIndices();
+            EvaluatedDlsFlsConfig result = filteredByIndices.getIfPresent(allIndices);
+            if (result == null) {
+                result = new EvaluatedDlsFlsConfig(filter(dlsQueriesByIndex, allIndices), filter(flsByIndex, allIndices),
+                        filter(fieldMaskingByIndex, allIndices));
+                filteredByIndices.put(allIndices, result);
+            }
+            return result;
         }
     }
 
+    private Cache<Set<String>, EvaluatedDlsFlsConfig> getFilteredByIndices() {
+        Cache<Set<String>, EvaluatedDlsFlsConfig> result = filteredByIndices;
+        if (result == null) {
+            synchronized (this) {
+                result = filteredByIndices;
+                if (result == null) {
+                    result = CacheBuilder.newBuilder().maximumSize(MAX_FILTERED_BY_INDICES).build();
+                    filteredByIndices = result;
+                }
+            }
+        }
+        return result;
+    }
+
     public EvaluatedDlsFlsConfig withoutDls() {
         if (!hasDls()) {
             return this;
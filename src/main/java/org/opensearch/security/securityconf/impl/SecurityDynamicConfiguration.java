@@ -34,8 +34,11 @@ package org.opensearch.security.securityconf.impl;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
@@ -290,6 +293,39 @@ public class SecurityDynamicConfiguration<T> implements ToXContent {
         return true;
     }
     
+    /**
+     * @return the keys of the entries which were added, removed or changed in the other configuration, or null if the
+     * configurations are not of the same type and version and thus cannot be compared entry by entry
+     */
+    @JsonIgnore
+    public Set<String> changedKeys(SecurityDynamicConfiguration<?> other) {
+        if (other.ctype == null || !other.ctype.equals(this.ctype) || other.version != this.version) {
+            return null;
+        }
+
+        final Set<String> changedKeys = new HashSet<>();
+
+        try {
+            for (Entry<String, T> entry : centries.entrySet()) {
+                final Object otherValue = other.centries.get(entry.getKey());
+                if (otherValue == null || !Objects.equals(DefaultObjectMapper.writeValueAsString(entry.getValue(), false),
+                        DefaultObjectMapper.writeValueAsString(otherValue, false))) {
+                    changedKeys.add(entry.getKey());
+                }
+            }
+        } catch (Exception e) {
+            throw ExceptionsHelper.convertToOpenSearchException(e);
+        }
+
+        for (String key : other.centries.keySet()) {
+            if (!centries.containsKey(key)) {
+                changedKeys.add(key);
+            }
+        }
+
+        return changedKeys;
+    }
+
     @JsonIgnore
     @SuppressWarnings({ "rawtypes" })
     public boolean containsAny(SecurityDynamicConfiguration other) {
@@ -0,0 +1,187 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.support;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.io.BaseEncoding;
+
+import org.opensearch.OpenSearchException;
+import org.opensearch.common.bytes.BytesReference;
+import org.opensearch.common.io.stream.BytesStreamOutput;
+import org.opensearch.common.io.stream.StreamInput;
+import org.opensearch.common.io.stream.StreamOutput;
+import org.opensearch.security.user.User;
+
+/**
+ * Compact binary encoding of the objects which are passed in transport headers (users, remote addresses,
+ * DLS/FLS/masked field maps and source field contexts). It is written with {@link StreamOutput} and does
+ * neither need reflection nor class checks when reading.
+ *
+ * The first byte of the encoded bytes is the format version. It can never be the first byte of a JDK serialized
+ * stream (0xAC), so {@link Base64Helper} can tell both formats apart.
+ */
+class Base64CustomHelper {
+
+    static final byte FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte MAP = 2;
+    private static final byte SET = 3;
+    private static final byte LIST = 4;
+    private static final byte USER = 5;
+    private static final byte INET_SOCKET_ADDRESS = 6;
+    private static final byte SOURCE_FIELDS_CONTEXT = 7;
+
+    /**
+     * @return the encoded object or null if the object contains values which are not supported by this format
+     */
+    static String serializeObject(final Serializable object) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeByte(FORMAT_VERSION);
+            if (!writeValue(out, object)) {
+                return null;
+            }
+            return BaseEncoding.base64().encode(BytesReference.toBytes(out.bytes()));
+        } catch (final IOException e) {
+            throw new OpenSearchException("Instance {} of class {} is not serializable", e, object, object.getClass());
+        }
+    }
+
+    static Serializable deserializeObject(final byte[] bytes) {
+        try (StreamInput in = StreamInput.wrap(bytes)) {
+            final byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new OpenSearchException("Unsupported serialization format version {}", version);
+            }
+            return (Serializable) readValue(in);
+        } catch (final IOException e) {
+            throw new OpenSearchException(e);
+        }
+    }
+
+    private static boolean writeValue(final StreamOutput out, final Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            final Map<?, ?> map = (Map<?, ?>) value;
+            out.writeVInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!writeValue(out, entry.getKey()) || !writeValue(out, entry.getValue())) {
+                    return false;
+                }
+            }
+        } else if (value instanceof Set || value instanceof List) {
+            out.writeByte(value instanceof Set ? SET : LIST);
+            final Collection<?> collection = (Collection<?>) value;
+            out.writeVInt(collection.size());
+            for (Object element : collection) {
+                if (!writeValue(out, element)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof User) {
+            out.writeByte(USER);
+            writeUser(out, (User) value);
+        } else if (value instanceof InetSocketAddress && ((InetSocketAddress) value).getAddress() != null) {
+            out.writeByte(INET_SOCKET_ADDRESS);
+            final InetSocketAddress address = (InetSocketAddress) value;
+            out.writeByteArray(address.getAddress().getAddress());
+            out.writeString(address.getHostString());
+            out.writeVInt(address.getPort());
+        } else if (value instanceof SourceFieldsContext) {
+            out.writeByte(SOURCE_FIELDS_CONTEXT);
+            final SourceFieldsContext sourceFieldsContext = (SourceFieldsContext) value;
+            out.writeOptionalStringArray(sourceFieldsContext.getIncludes());
+            out.writeOptionalStringArray(sourceFieldsContext.getExcludes());
+            out.writeBoolean(sourceFieldsContext.isFetchSource());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static Object readValue(final StreamInput in) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readString();
+            case MAP: {
+                final int size = in.readVInt();
+                final Map<Object, Object> map = new HashMap<>(size);
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case SET: {
+                final int size = in.readVInt();
+                final Set<Object> set = new HashSet<>(size);
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue(in));
+                }
+                return set;
+            }
+            case LIST: {
+                final int size = in.readVInt();
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case USER:
+                return readUser(in);
+            case INET_SOCKET_ADDRESS: {
+                final byte[] address = in.readByteArray();
+                final String host = in.readString();
+                final int port = in.readVInt();
+                return new InetSocketAddress(InetAddress.getByAddress(host, address), port);
+            }
+            case SOURCE_FIELDS_CONTEXT:
+                return new SourceFieldsContext(in.readOptionalStringArray(), in.readOptionalStringArray(), in.readBoolean());
+            default:
+                throw new IOException("Unknown type " + type);
+        }
+    }
+
+    // Subclasses of User like LdapUser are written as plain users, their additional
+    // state is only needed by the authentication backends on the node which created them
+    private static void writeUser(final StreamOutput out, final User user) throws IOException {
+        out.writeString(user.getName());
+        out.writeStringCollection(user.getRoles());
+        out.writeStringCollection(user.getSecurityRoles());
+        out.writeOptionalString(user.getRequestedTenant());
+        out.writeMap(user.getCustomAttributesMap(), StreamOutput::writeString, StreamOutput::writeOptionalString);
+        out.writeBoolean(user.isInjected());
+    }
+
+    private static User readUser(final StreamInput in) throws IOException {
+        final User user = new User(in.readString(), in.readList(StreamInput::readString), null);
+        user.addSecurityRoles(in.readList(StreamInput::readString));
+        user.setRequestedTenant(in.readOptionalString());
+        user.addAttributes(in.readMap(StreamInput::readString, StreamInput::readOptionalString));
+        user.setInjected(in.readBoolean());
+        return user;
+    }
+}
@@ -65,11 +65,18 @@ import com.amazon.dlic.auth.ldap.LdapUser;
 
 import org.opensearch.OpenSearchException;
 import org.opensearch.SpecialPermission;
+import org.opensearch.Version;
 import org.opensearch.common.Strings;
 import org.opensearch.security.user.User;
 
 public class Base64Helper {
 
+    /**
+     * First version which is able to read headers written with {@link Base64CustomHelper}.
+     * Headers sent to nodes before this version have to be JDK serialized.
+     */
+    public static final Version FIRST_CUSTOM_SERIALIZATION_SUPPORTED_VERSION = Version.V_2_0_0;
+
     private static final Set<Class<?>> SAFE_CLASSES = ImmutableSet.of(
         String.class,
         SocketAddress.class,
@@ -159,9 +166,25 @@ public class Base64Helper {
     }
 
     public static String serializeObject(final Serializable object) {
+        return serializeObject(object, false);
+    }
+
+    /**
+     * Serializes the object in the compact binary format if it supports the object and useJDKSerialization is false,
+     * with JDK serialization otherwise. Use JDK serialization for anything read by nodes before
+     * {@link #FIRST_CUSTOM_SERIALIZATION_SUPPORTED_VERSION}.
+     */
+    public static String serializeObject(final Serializable object, final boolean useJDKSerialization) {
 
         Preconditions.checkArgument(object != null, "object must not be null");
 
+        if (!useJDKSerialization) {
+            final String serialized = Base64CustomHelper.serializeObject(object);
+            if (serialized != null) {
+                return serialized;
+            }
+        }
+
         final ByteArrayOutputStream bos = new ByteArrayOutputStream();
         try (final ObjectOutputStream out = SafeObjectOutputStream.create(bos)) {
             out.writeObject(object);
@@ -177,6 +200,11 @@ public class Base64Helper {
         Preconditions.checkArgument(!Strings.isNullOrEmpty(string), "string must not be null or empty");
 
         final byte[] bytes = BaseEncoding.base64().decode(string);
+
+        if (!isJDKSerialized(bytes)) {
+            return Base64CustomHelper.deserializeObject(bytes);
+        }
+
         final ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
         try (SafeObjectInputStream in = new SafeObjectInputStream(bis)) {
             return (Serializable) in.readObject();
@@ -185,6 +213,27 @@ public class Base64Helper {
         }
     }
 
+    /**
+     * Converts a serialized object to JDK serialization if it was written in the compact binary format
+     */
+    public static String ensureJDKSerialized(final String string) {
+
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(string), "string must not be null or empty");
+
+        final byte[] bytes = BaseEncoding.base64().decode(string);
+
+        if (isJDKSerialized(bytes)) {
+            return string;
+        }
+
+        return serializeObject(Base64CustomHelper.deserializeObject(bytes), true);
+    }
+
+    private static boolean isJDKSerialized(final byte[] bytes) {
+        // java.io.ObjectStreamConstants.STREAM_MAGIC
+        return bytes.length >= 2 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+    }
+
     private final static class SafeObjectInputStream extends ObjectInputStream {
 
         public SafeObjectInputStream(InputStream in) throws IOException {
@@ -64,8 +64,13 @@ public class ConfigConstants {
     
     public static final String OPENDISTRO_SECURITY_MASKED_FIELD_HEADER = OPENDISTRO_SECURITY_CONFIG_PREFIX+"masked_fields";
 
+    public static final String OPENDISTRO_SECURITY_SOURCE_FIELD_CONTEXT_HEADER = OPENDISTRO_SECURITY_CONFIG_PREFIX+"source_field_context";
+
+    public static final String OPENDISTRO_SECURITY_DESERIALIZED_HEADER_CACHE = OPENDISTRO_SECURITY_CONFIG_PREFIX+"deserialized_header_cache_t";
+
 
     public static final String OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER = OPENDISTRO_SECURITY_CONFIG_PREFIX+"doc_allowlist";
+    public static final String OPENDISTRO_SECURITY_AUDIT_SAMPLING_KEY_HEADER = OPENDISTRO_SECURITY_CONFIG_PREFIX+"audit_sampling_key";
     public static final String OPENDISTRO_SECURITY_DOC_ALLOWLIST_TRANSIENT = OPENDISTRO_SECURITY_CONFIG_PREFIX+"doc_allowlist_t";
 
     public static final String OPENDISTRO_SECURITY_FILTER_LEVEL_DLS_DONE = OPENDISTRO_SECURITY_CONFIG_PREFIX+"filter_level_dls_done";
@@ -149,6 +154,12 @@ public class ConfigConstants {
     public static final String SECURITY_AUDIT_CONFIG_ENDPOINTS = "plugins.security.audit.endpoints";
     public static final String SECURITY_AUDIT_THREADPOOL_SIZE = "plugins.security.audit.threadpool.size";
     public static final String SECURITY_AUDIT_THREADPOOL_MAX_QUEUE_LEN = "plugins.security.audit.threadpool.max_queue_len";
+    public static final String SECURITY_AUDIT_THREADPOOL_OVERFLOW_POLICY = "plugins.security.audit.threadpool.overflow_policy";
+    public static final String SECURITY_AUDIT_THREADPOOL_BLOCK_TIMEOUT_MS = "plugins.security.audit.threadpool.block_timeout_ms";
+    public static final String SECURITY_AUDIT_THREADPOOL_BATCH_SIZE = "plugins.security.audit.threadpool.batch_size";
+    public static final String SECURITY_AUDIT_IGNORE_INDICES = "plugins.security.audit.ignore_indices";
+    public static final String SECURITY_AUDIT_SAMPLING_CATEGORIES = "plugins.security.audit.sampling.categories";
+    public static final String SECURITY_AUDIT_SAMPLING_RATE = "plugins.security.audit.sampling.rate";
     public static final String OPENDISTRO_SECURITY_AUDIT_LOG_REQUEST_BODY = "opendistro_security.audit.log_request_body";
     public static final String OPENDISTRO_SECURITY_AUDIT_RESOLVE_INDICES = "opendistro_security.audit.resolve_indices";
     public static final String OPENDISTRO_SECURITY_AUDIT_ENABLE_REST = "opendistro_security.audit.enable_rest";
@@ -169,6 +180,12 @@ public class ConfigConstants {
     // Internal / External OpenSearch
     public static final String SECURITY_AUDIT_OPENSEARCH_INDEX = "index";
     public static final String SECURITY_AUDIT_OPENSEARCH_TYPE = "type";
+    public static final String SECURITY_AUDIT_OPENSEARCH_BULK_ENABLED = "bulk.enabled";
+    public static final String SECURITY_AUDIT_OPENSEARCH_BULK_MAX_ACTIONS = "bulk.max_actions";
+    public static final String SECURITY_AUDIT_OPENSEARCH_BULK_MAX_BYTES = "bulk.max_bytes";
+    public static final String SECURITY_AUDIT_OPENSEARCH_BULK_MAX_QUEUE_LEN = "bulk.max_queue_len";
+    public static final String SECURITY_AUDIT_OPENSEARCH_BULK_MAX_RETRIES = "bulk.max_retries";
+    public static final String SECURITY_AUDIT_OPENSEARCH_BULK_FLUSH_INTERVAL_MS = "bulk.flush_interval_ms";
     
     // External OpenSearch
     public static final String SECURITY_AUDIT_EXTERNAL_OPENSEARCH_HTTP_ENDPOINTS = "http_endpoints";
@@ -214,6 +231,8 @@ public class ConfigConstants {
     public static final String SECURITY_NODES_DN_DYNAMIC_CONFIG_ENABLED = "plugins.security.nodes_dn_dynamic_config_enabled";
     public static final String SECURITY_DISABLED = "plugins.security.disabled";
     public static final String SECURITY_CACHE_TTL_MINUTES = "plugins.security.cache.ttl_minutes";
+    public static final String SECURITY_HOSTS_RESOLVER_CACHE_TTL = "plugins.security.hosts_resolver.cache.ttl";
+    public static final String SECURITY_HOSTS_RESOLVER_CACHE_NEGATIVE_TTL = "plugins.security.hosts_resolver.cache.negative_ttl";
     public static final String SECURITY_ALLOW_UNSAFE_DEMOCERTIFICATES = "plugins.security.allow_unsafe_democertificates";
     public static final String SECURITY_ALLOW_DEFAULT_INIT_SECURITYINDEX = "plugins.security.allow_default_init_securityindex";
     public static final String SECURITY_BACKGROUND_INIT_IF_SECURITYINDEX_NOT_EXIST = "plugins.security.background_init_if_securityindex_not_exist";
@@ -225,6 +244,8 @@ public class ConfigConstants {
     public static final String OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_READ_WATCHED_FIELDS = "opendistro_security.compliance.history.read.watched_fields";
     public static final String OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_WRITE_WATCHED_INDICES = "opendistro_security.compliance.history.write.watched_indices";
     public static final String OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_WRITE_LOG_DIFFS = "opendistro_security.compliance.history.write.log_diffs";
+    public static final String SECURITY_COMPLIANCE_HISTORY_WRITE_DIFF_INCLUDE_FIELDS = "plugins.security.compliance.history.write.diff_include_fields";
+    public static final String SECURITY_COMPLIANCE_HISTORY_WRITE_DIFF_EXCLUDE_FIELDS = "plugins.security.compliance.history.write.diff_exclude_fields";
     public static final String OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_READ_IGNORE_USERS = "opendistro_security.compliance.history.read.ignore_users";
     public static final String OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_WRITE_IGNORE_USERS = "opendistro_security.compliance.history.write.ignore_users";
     public static final String OPENDISTRO_SECURITY_COMPLIANCE_HISTORY_EXTERNAL_CONFIG_ENABLED  = "opendistro_security.compliance.history.external_config_enabled";
@@ -232,6 +253,10 @@ public class ConfigConstants {
     public static final String SECURITY_COMPLIANCE_IMMUTABLE_INDICES = "plugins.security.compliance.immutable_indices";
     public static final String SECURITY_COMPLIANCE_SALT = "plugins.security.compliance.salt";
     public static final String SECURITY_COMPLIANCE_SALT_DEFAULT = "e1ukloTsQlOgPquJ";//16 chars
+    public static final String SECURITY_MASKED_FIELDS_ORDINAL_CACHE_SIZE = "plugins.security.masked_fields.ordinal_cache.size";
+    public static final String SECURITY_DLS_BITSET_CACHE_SIZE = "plugins.security.dls.bitset_cache.size";
+    public static final String SECURITY_DLS_TERMS_LOOKUP_CACHE_SIZE = "plugins.security.dls.terms_lookup_cache.size";
+    public static final String SECURITY_DLS_QUERY_CACHE_SIZE = "plugins.security.dls.query_cache.size";
     public static final String SECURITY_COMPLIANCE_HISTORY_INTERNAL_CONFIG_ENABLED  = "opendistro_security.compliance.history.internal_config_enabled";
     public static final String SECURITY_SSL_ONLY = "plugins.security.ssl_only";
     public static final String SECURITY_CONFIG_SSL_DUAL_MODE_ENABLED = "plugins.security_config.ssl_dual_mode_enabled";
@@ -0,0 +1,91 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.support;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.opensearch.common.util.concurrent.ThreadContext;
+
+/**
+ * Holds the already deserialized values of security headers of one thread context, so that the DLS/FLS/masked field
+ * maps are decoded at most once per request even though several components of a shard level operation need them.
+ *
+ * The cache lives in a transient of the thread context and is dropped together with it. Every entry remembers the header
+ * value it was decoded from and is only used as long as the header still has exactly this value.
+ */
+public final class DeserializedHeaderCache {
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private DeserializedHeaderCache() {
+    }
+
+    static Serializable deserialize(final ThreadContext context, final String headerName, final String headerValue) {
+        DeserializedHeaderCache cache = context.getTransient(ConfigConstants.OPENDISTRO_SECURITY_DESERIALIZED_HEADER_CACHE);
+
+        if (cache == null) {
+            cache = new DeserializedHeaderCache();
+            context.putTransient(ConfigConstants.OPENDISTRO_SECURITY_DESERIALIZED_HEADER_CACHE, cache);
+        }
+
+        final Entry entry = cache.entries.get(headerName);
+
+        if (entry != null && (entry.headerValue == headerValue || entry.headerValue.equals(headerValue))) {
+            HITS.increment();
+            return entry.value;
+        }
+
+        MISSES.increment();
+        final Serializable value = Base64Helper.deserializeObject(headerValue);
+        cache.entries.put(headerName, new Entry(headerValue, value));
+        return value;
+    }
+
+    /**
+     * @return number of header lookups which were answered from the cache since node start
+     */
+    public static long getHitCount() {
+        return HITS.sum();
+    }
+
+    /**
+     * @return number of header lookups which needed to deserialize the header value since node start
+     */
+    public static long getMissCount() {
+        return MISSES.sum();
+    }
+
+    /**
+     * @return the hit and miss counts and the hit rate since node start
+     */
+    public static Map<String, Object> getStats() {
+        final long hits = getHitCount();
+        final long misses = getMissCount();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("hit_rate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return result;
+    }
+
+    private static final class Entry {
+        private final String headerValue;
+        private final Serializable value;
+
+        private Entry(final String headerValue, final Serializable value) {
+            this.headerValue = headerValue;
+            this.value = value;
+        }
+    }
+}
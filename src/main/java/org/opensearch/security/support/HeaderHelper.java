@@ -32,13 +32,24 @@ package org.opensearch.security.support;
 
 import java.io.Serializable;
 import java.util.Map;
+import java.util.Set;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
 
 import org.opensearch.common.util.concurrent.ThreadContext;
 
 public class HeaderHelper {
 
+    private static final Set<String> SERIALIZED_HEADER_NAMES = ImmutableSet.of(
+            ConfigConstants.OPENDISTRO_SECURITY_USER_HEADER,
+            ConfigConstants.OPENDISTRO_SECURITY_REMOTE_ADDRESS_HEADER,
+            ConfigConstants.OPENDISTRO_SECURITY_DLS_QUERY_HEADER,
+            ConfigConstants.OPENDISTRO_SECURITY_FLS_FIELDS_HEADER,
+            ConfigConstants.OPENDISTRO_SECURITY_MASKED_FIELD_HEADER,
+            ConfigConstants.OPENDISTRO_SECURITY_SOURCE_FIELD_CONTEXT_HEADER
+    );
+
     public static boolean isInterClusterRequest(final ThreadContext context) {
         return context.getTransient(ConfigConstants.OPENDISTRO_SECURITY_SSL_TRANSPORT_INTERCLUSTER_REQUEST) == Boolean.TRUE;
     }
@@ -75,12 +86,41 @@ public class HeaderHelper {
         final String objectAsBase64 = getSafeFromHeader(context, headerName);
 
         if (!Strings.isNullOrEmpty(objectAsBase64)) {
-            return Base64Helper.deserializeObject(objectAsBase64);
+            return DeserializedHeaderCache.deserialize(context, headerName, objectAsBase64);
         }
 
         return null;
     }
+
+    /**
+     * The returned maps are shared by all consumers of the current request and must not be modified.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Set<String>> getDlsQueriesFromHeader(final ThreadContext context) {
+        return (Map<String, Set<String>>) deserializeSafeFromHeader(context, ConfigConstants.OPENDISTRO_SECURITY_DLS_QUERY_HEADER);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Set<String>> getFlsFieldsFromHeader(final ThreadContext context) {
+        return (Map<String, Set<String>>) deserializeSafeFromHeader(context, ConfigConstants.OPENDISTRO_SECURITY_FLS_FIELDS_HEADER);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Set<String>> getMaskedFieldsFromHeader(final ThreadContext context) {
+        return (Map<String, Set<String>>) deserializeSafeFromHeader(context, ConfigConstants.OPENDISTRO_SECURITY_MASKED_FIELD_HEADER);
+    }
+
+    public static SourceFieldsContext getSourceFieldsContextFromHeader(final ThreadContext context) {
+        return (SourceFieldsContext) deserializeSafeFromHeader(context, ConfigConstants.OPENDISTRO_SECURITY_SOURCE_FIELD_CONTEXT_HEADER);
+    }
     
+    /**
+     * @return names of all headers whose values are written with {@link Base64Helper#serializeObject(Serializable)}
+     */
+    public static Set<String> getAllSerializedHeaderNames() {
+        return SERIALIZED_HEADER_NAMES;
+    }
+
     public static boolean isTrustedClusterRequest(final ThreadContext context) {
         return context.getTransient(ConfigConstants.OPENDISTRO_SECURITY_SSL_TRANSPORT_TRUSTED_CLUSTER_REQUEST) == Boolean.TRUE;
     }
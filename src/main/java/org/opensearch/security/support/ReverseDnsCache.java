@@ -0,0 +1,161 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.support;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.opensearch.SpecialPermission;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.unit.TimeValue;
+
+/**
+ * Node wide cache of the host names of the callers which are matched against the hosts of the role mappings in
+ * {@code ip-hostname-lookup} mode.
+ *
+ * Lookups never block the calling thread: if the host name of an address is not cached yet, it is resolved on the
+ * {@link #THREAD_POOL_NAME} thread pool and the caller is mapped by its IP address only in the meantime. Expired
+ * entries are served until they have been resolved again. Addresses which cannot be resolved are cached as well, for
+ * a shorter time.
+ */
+public final class ReverseDnsCache {
+
+    public static final String THREAD_POOL_NAME = "security_reverse_dns";
+
+    private static final Logger log = LogManager.getLogger(ReverseDnsCache.class);
+    private static final int MAX_SIZE = 10000;
+
+    private final Cache<InetAddress, Entry> cache = CacheBuilder.newBuilder().maximumSize(MAX_SIZE).build();
+    private final Set<InetAddress> pending = ConcurrentHashMap.newKeySet();
+    private final Executor executor;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder failedLookups = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+
+    public ReverseDnsCache(final Settings settings, final Executor executor) {
+        this.executor = executor;
+        this.ttlNanos = settings.getAsTime(ConfigConstants.SECURITY_HOSTS_RESOLVER_CACHE_TTL, TimeValue.timeValueMinutes(10)).nanos();
+        this.negativeTtlNanos = settings.getAsTime(ConfigConstants.SECURITY_HOSTS_RESOLVER_CACHE_NEGATIVE_TTL,
+                TimeValue.timeValueMinutes(1)).nanos();
+    }
+
+    /**
+     * @return the host name of the address, or null if it is not known yet or cannot be resolved
+     */
+    public String getHostName(final InetAddress address) {
+        final Entry entry = cache.getIfPresent(address);
+
+        if (entry == null) {
+            misses.increment();
+            resolveAsync(address);
+            return null;
+        }
+
+        hits.increment();
+
+        if (System.nanoTime() - entry.expiresAtNanos > 0) {
+            resolveAsync(address);
+        }
+
+        return entry.hostName;
+    }
+
+    private void resolveAsync(final InetAddress address) {
+        if (!pending.add(address)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    resolve(address);
+                } finally {
+                    pending.remove(address);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(address);
+            log.debug("Reverse lookup of {} was rejected", address, e);
+        }
+    }
+
+    private void resolve(final InetAddress address) {
+        final long start = System.nanoTime();
+        String hostName = null;
+
+        try {
+            // an address without host name, so that the reverse lookup is performed in any case
+            final InetAddress unresolved = InetAddress.getByAddress(address.getAddress());
+
+            final SecurityManager sm = System.getSecurityManager();
+            if (sm != null) {
+                sm.checkPermission(new SpecialPermission());
+            }
+
+            final String resolved = AccessController.doPrivileged((PrivilegedAction<String>) unresolved::getHostName);
+
+            // the textual address is returned if the address cannot be resolved
+            if (!resolved.equals(unresolved.getHostAddress())) {
+                hostName = resolved;
+            }
+        } catch (UnknownHostException | RuntimeException e) {
+            log.debug("Reverse lookup of {} failed", address, e);
+        }
+
+        final long end = System.nanoTime();
+        lookups.increment();
+        lookupNanos.add(end - start);
+
+        if (hostName == null) {
+            failedLookups.increment();
+        }
+
+        cache.put(address, new Entry(hostName, end + (hostName != null ? ttlNanos : negativeTtlNanos)));
+    }
+
+    public Map<String, Object> getStats() {
+        final long lookupCount = lookups.sum();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.size());
+        result.put("hits", hits.sum());
+        result.put("misses", misses.sum());
+        result.put("lookups", lookupCount);
+        result.put("failed_lookups", failedLookups.sum());
+        result.put("pending_lookups", pending.size());
+        result.put("avg_lookup_time_millis", lookupCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(lookupNanos.sum() / lookupCount));
+        return result;
+    }
+
+    private static final class Entry {
+        private final String hostName;
+        private final long expiresAtNanos;
+
+        private Entry(final String hostName, final long expiresAtNanos) {
+            this.hostName = hostName;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -64,6 +64,12 @@ public class SourceFieldsContext implements Serializable {
         super();
     }
 
+    SourceFieldsContext(String[] includes, String[] excludes, boolean fetchSource) {
+        this.includes = includes;
+        this.excludes = excludes;
+        this.fetchSource = fetchSource;
+    }
+
     public SourceFieldsContext(SearchRequest request) {
         if (request.source() != null && request.source().fetchSource() != null) {
             includes = request.source().fetchSource().includes();
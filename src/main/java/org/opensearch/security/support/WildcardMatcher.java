@@ -30,11 +30,14 @@
 
 package org.opensearch.security.support;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -44,6 +47,11 @@ import java.util.stream.Stream;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
+import org.apache.lucene.util.automaton.Automata;
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.automaton.TooComplexToDeterminizeException;
 
 public abstract class WildcardMatcher implements Predicate<String> {
 
@@ -170,7 +178,8 @@ public abstract class WildcardMatcher implements Predicate<String> {
         return from(pattern, true);
     }
 
-    // This may in future use more optimized techniques to combine multiple WildcardMatchers in a single automaton
+    // Multiple matchers are combined by MatcherCombiner, which compiles exact and simple wildcard patterns
+    // into hash lookups and a single automaton
     public static <T> WildcardMatcher from(Stream<T> stream, boolean caseSensitive) {
         Collection<WildcardMatcher> matchers = stream.map(t -> {
             if (t instanceof String) {
@@ -456,24 +465,69 @@ public abstract class WildcardMatcher implements Predicate<String> {
     // MatcherCombiner is a combination of a set of matchers
     // matches if any of the set do
     // Empty MultiMatcher always returns false
+    //
+    // Exact patterns are looked up in a hash set and simple wildcard patterns are compiled
+    // into a single deterministic automaton, so that testing a candidate against a large set
+    // of patterns costs O(length of candidate) rather than O(number of patterns).
+    // Case-insensitive patterns are compiled separately and tested with the lower cased candidate.
+    // Regex patterns and anything that cannot be compiled are tested one by one.
     private static final class MatcherCombiner extends WildcardMatcher {
 
+        // below this number of simple patterns testing them one by one is cheaper than building an automaton
+        private static final int MIN_PATTERNS_FOR_AUTOMATON = 8;
+
         private final Collection<WildcardMatcher> wildcardMatchers;
         private final int hashCode;
 
+        private final CompiledPatterns caseSensitive;
+        private final CompiledPatterns caseInsensitive;
+        private final WildcardMatcher[] uncompiled;
+
         MatcherCombiner(Collection<WildcardMatcher> wildcardMatchers) {
             Preconditions.checkArgument(wildcardMatchers.size() > 1);
             this.wildcardMatchers = wildcardMatchers;
             hashCode = wildcardMatchers.hashCode();
+
+            final CompiledPatterns.Builder caseSensitiveBuilder = new CompiledPatterns.Builder();
+            final CompiledPatterns.Builder caseInsensitiveBuilder = new CompiledPatterns.Builder();
+            final List<WildcardMatcher> uncompiled = new ArrayList<>();
+
+            for (WildcardMatcher matcher : wildcardMatchers) {
+                if (matcher instanceof CasefoldingMatcher) {
+                    if (!caseInsensitiveBuilder.add(((CasefoldingMatcher) matcher).inner, matcher)) {
+                        uncompiled.add(matcher);
+                    }
+                } else if (!caseSensitiveBuilder.add(matcher, matcher)) {
+                    uncompiled.add(matcher);
+                }
+            }
+
+            this.caseSensitive = caseSensitiveBuilder.build(uncompiled);
+            this.caseInsensitive = caseInsensitiveBuilder.build(uncompiled);
+            this.uncompiled = uncompiled.toArray(new WildcardMatcher[0]);
         }
 
         @Override
         public boolean test(String candidate) {
-            return wildcardMatchers.stream().anyMatch(m -> m.test(candidate));
+            if (caseSensitive != null && caseSensitive.test(candidate)) {
+                return true;
+            }
+            if (caseInsensitive != null && caseInsensitive.test(candidate.toLowerCase())) {
+                return true;
+            }
+            for (WildcardMatcher matcher : uncompiled) {
+                if (matcher.test(candidate)) {
+                    return true;
+                }
+            }
+            return false;
         }
 
         @Override
         public Optional<WildcardMatcher> findFirst(final String candidate) {
+            if (!test(candidate)) {
+                return Optional.empty();
+            }
             return wildcardMatchers.stream().filter(m -> m.test(candidate)).findFirst();
         }
 
@@ -493,4 +547,100 @@ public abstract class WildcardMatcher implements Predicate<String> {
         @Override
         public String toString() { return wildcardMatchers.toString(); }
     }
+
+    // Exact patterns in a hash set plus simple wildcard patterns compiled into one automaton
+    private static final class CompiledPatterns {
+
+        private final Set<String> exact;
+        private final CharacterRunAutomaton automaton;
+
+        private CompiledPatterns(Set<String> exact, CharacterRunAutomaton automaton) {
+            this.exact = exact;
+            this.automaton = automaton;
+        }
+
+        boolean test(String candidate) {
+            if (exact.contains(candidate)) {
+                return true;
+            }
+            if (automaton == null) {
+                return false;
+            }
+            // step through UTF-16 chars rather than code points, so that '?' matches
+            // exactly one char like SimpleMatcher does
+            int state = 0;
+            for (int i = 0; i < candidate.length(); i++) {
+                state = automaton.step(state, candidate.charAt(i));
+                if (state == -1) {
+                    return false;
+                }
+            }
+            return automaton.isAccept(state);
+        }
+
+        private static final class Builder {
+
+            private final Set<String> exact = new HashSet<>();
+            private final List<SimpleMatcher> simple = new ArrayList<>();
+            private final List<WildcardMatcher> simpleOriginals = new ArrayList<>();
+
+            // matcher is the case-sensitive matcher to compile, original the matcher it was unwrapped from
+            boolean add(WildcardMatcher matcher, WildcardMatcher original) {
+                if (matcher instanceof Exact) {
+                    exact.add(((Exact) matcher).pattern);
+                    return true;
+                } else if (matcher instanceof SimpleMatcher) {
+                    simple.add((SimpleMatcher) matcher);
+                    simpleOriginals.add(original);
+                    return true;
+                }
+                return false;
+            }
+
+            // returns null if there is nothing to compile, simple patterns which are
+            // not worth or too complex to compile are added to uncompiled
+            CompiledPatterns build(List<WildcardMatcher> uncompiled) {
+                if (exact.isEmpty() && simple.isEmpty()) {
+                    return null;
+                }
+
+                CharacterRunAutomaton automaton = null;
+                if (simple.size() >= MatcherCombiner.MIN_PATTERNS_FOR_AUTOMATON) {
+                    final List<Automaton> automata = new ArrayList<>(simple.size());
+                    for (SimpleMatcher matcher : simple) {
+                        automata.add(toAutomaton(matcher.pattern));
+                    }
+                    try {
+                        automaton = new CharacterRunAutomaton(Operations.union(automata), Operations.DEFAULT_DETERMINIZE_WORK_LIMIT);
+                    } catch (TooComplexToDeterminizeException e) {
+                        automaton = null;
+                    }
+                }
+
+                if (automaton == null) {
+                    uncompiled.addAll(simpleOriginals);
+                    if (exact.isEmpty()) {
+                        return null;
+                    }
+                }
+
+                return new CompiledPatterns(ImmutableSet.copyOf(exact), automaton);
+            }
+
+            private static Automaton toAutomaton(String pattern) {
+                final List<Automaton> automata = new ArrayList<>(pattern.length());
+                for (int i = 0; i < pattern.length(); i++) {
+                    final char c = pattern.charAt(i);
+                    if (c == '*') {
+                        automata.add(Automata.makeAnyString());
+                    } else if (c == '?') {
+                        automata.add(Automata.makeCharRange(Character.MIN_VALUE, Character.MAX_VALUE));
+                    } else {
+                        automata.add(Automata.makeChar(c));
+                    }
+                }
+                return automata.isEmpty() ? Automata.makeEmptyString() : Operations.concatenate(automata);
+            }
+        }
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.amazon.dlic.auth.http.jwt;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.user.AuthCredentials;
+
+public class JwtCredentialsCacheTest {
+
+    @Test
+    public void testCachedCredentialsAreCopied() {
+        final JwtCredentialsCache cache = new JwtCredentialsCache(Settings.EMPTY);
+        final AuthCredentials credentials = new AuthCredentials("Leonard McCoy", "role1", "role2").markComplete();
+        credentials.addAttribute("attr.jwt.sub", "Leonard McCoy");
+
+        Assert.assertNull(cache.get("token"));
+        cache.put(cache.getGeneration(), "token", credentials, null, null);
+
+        final AuthCredentials cached = cache.get("token");
+        Assert.assertNotSame(credentials, cached);
+        Assert.assertEquals("Leonard McCoy", cached.getUsername());
+        Assert.assertEquals(ImmutableSet.of("role1", "role2"), cached.getBackendRoles());
+        Assert.assertEquals(credentials.getAttributes(), cached.getAttributes());
+        Assert.assertTrue(cached.isComplete());
+        Assert.assertNull(cache.get("other token"));
+    }
+
+    @Test
+    public void testValidityWindow() {
+        final JwtCredentialsCache cache = new JwtCredentialsCache(Settings.EMPTY);
+        final AuthCredentials credentials = new AuthCredentials("Leonard McCoy").markComplete();
+        final long now = System.currentTimeMillis();
+
+        cache.put(cache.getGeneration(), "expired", credentials, null, now - 1000);
+        cache.put(cache.getGeneration(), "not yet valid", credentials, now + 60000, null);
+        cache.put(cache.getGeneration(), "valid", credentials, now - 1000, now + 60000);
+
+        Assert.assertNull(cache.get("expired"));
+        Assert.assertNull(cache.get("not yet valid"));
+        Assert.assertNotNull(cache.get("valid"));
+        // expired tokens are dropped, tokens which become valid later are kept
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testClockSkewTolerance() {
+        final JwtCredentialsCache cache = new JwtCredentialsCache(Settings.builder()
+                .put(JwtCredentialsCache.CLOCK_SKEW_TOLERANCE_SETTING, 30).build());
+        final AuthCredentials credentials = new AuthCredentials("Leonard McCoy").markComplete();
+        final long now = System.currentTimeMillis();
+
+        cache.put(cache.getGeneration(), "recently expired", credentials, null, now - 10000);
+        cache.put(cache.getGeneration(), "almost valid", credentials, now + 10000, null);
+        cache.put(cache.getGeneration(), "expired", credentials, null, now - 60000);
+
+        Assert.assertNotNull(cache.get("recently expired"));
+        Assert.assertNotNull(cache.get("almost valid"));
+        Assert.assertNull(cache.get("expired"));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        final JwtCredentialsCache cache = new JwtCredentialsCache(Settings.EMPTY);
+        final AuthCredentials credentials = new AuthCredentials("Leonard McCoy").markComplete();
+
+        cache.put(cache.getGeneration(), "token", credentials, null, null);
+        final long generation = cache.getGeneration();
+        cache.invalidateAll();
+        Assert.assertNull(cache.get("token"));
+
+        // a token verified before the keys changed is not cached afterwards
+        cache.put(generation, "token", credentials, null, null);
+        Assert.assertNull(cache.get("token"));
+
+        cache.put(cache.getGeneration(), "token", credentials, null, null);
+        Assert.assertNotNull(cache.get("token"));
+    }
+
+    @Test
+    public void testDisabled() {
+        final JwtCredentialsCache cache = new JwtCredentialsCache(Settings.builder().put(JwtCredentialsCache.CACHE_SIZE_SETTING, 0).build());
+
+        cache.put(cache.getGeneration(), "token", new AuthCredentials("Leonard McCoy").markComplete(), null, null);
+        Assert.assertNull(cache.get("token"));
+        Assert.assertEquals(0, cache.size());
+    }
+}
@@ -15,15 +15,25 @@
 
 package com.amazon.dlic.auth.http.jwt.keybyoidc;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
 
 import com.google.common.collect.ImmutableMap;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 import org.opensearch.common.settings.Settings;
+import org.opensearch.security.auth.AuthDomain;
+import org.opensearch.security.auth.BackendRegistry;
+import org.opensearch.security.auth.internal.NoOpAuthenticationBackend;
+import org.opensearch.security.http.HTTPBasicAuthenticator;
+import org.opensearch.security.securityconf.DynamicConfigModel;
 import org.opensearch.security.user.AuthCredentials;
 import org.opensearch.security.util.FakeRestRequest;
 
@@ -173,4 +183,34 @@ public class HTTPJwtKeyByOpenIdConnectAuthenticatorTest {
 		Assert.assertEquals(3, creds.getAttributes().size());
 	}
 
+	@Test
+	public void testKeySetStatsAreReported() {
+		Settings settings = Settings.builder().put("openid_connect_url", mockIdpServer.getDiscoverUri()).build();
+
+		HTTPJwtKeyByOpenIdConnectAuthenticator jwtAuth = new HTTPJwtKeyByOpenIdConnectAuthenticator(settings, null);
+
+		try {
+			Assert.assertNotNull(jwtAuth.extractCredentials(new FakeRestRequest(
+					ImmutableMap.of("Authorization", TestJwts.MC_COY_SIGNED_OCT_1), new HashMap<String, String>()), null));
+
+			DynamicConfigModel dcm = Mockito.mock(DynamicConfigModel.class);
+			Mockito.when(dcm.getRestAuthDomains()).thenReturn(new TreeSet<>(Arrays.asList(
+					new AuthDomain(new NoOpAuthenticationBackend(Settings.EMPTY, null), jwtAuth, false, 0),
+					new AuthDomain(new NoOpAuthenticationBackend(Settings.EMPTY, null), new HTTPBasicAuthenticator(Settings.EMPTY, null), false, 1))));
+			Mockito.when(dcm.getRestAuthorizers()).thenReturn(Collections.emptySet());
+
+			BackendRegistry backendRegistry = new BackendRegistry(Settings.EMPTY, null, null, null, null);
+			backendRegistry.onDynamicConfigModelChanged(dcm);
+
+			Map<String, Object> stats = backendRegistry.getAuthenticatorStats();
+			Assert.assertEquals(Collections.singleton("jwt-key-by-oidc/0"), stats.keySet());
+
+			Map<?, ?> keySetStats = (Map<?, ?>) stats.get("jwt-key-by-oidc/0");
+			Assert.assertEquals(TestJwk.Jwks.ALL.getKeys().size(), keySetStats.get("keys"));
+			Assert.assertEquals(1L, keySetStats.get("refreshes"));
+			Assert.assertEquals(0L, keySetStats.get("failed_refreshes"));
+		} finally {
+			jwtAuth.destroy();
+		}
+	}
 }
@@ -77,6 +77,60 @@ public class SelfRefreshingKeySetTest {
 
 	}
 
+	@Test(timeout = 10000)
+	public void unknownKidIsRejectedWithoutWaitingTest() throws Exception {
+		BlockingMockKeySetProvider provider = new BlockingMockKeySetProvider();
+		provider.unblock();
+
+		final SelfRefreshingKeySet selfRefreshingKeySet = new SelfRefreshingKeySet(provider);
+
+		Assert.assertEquals(TestJwk.OCT_1_K, selfRefreshingKeySet.getKey("kid/a").getProperty("k"));
+
+		provider.block();
+
+		for (String kid : new String[] { "kid/X", "kid/Y" }) {
+			try {
+				selfRefreshingKeySet.getKey(kid);
+				Assert.fail("Expected a BadCredentialsException");
+			} catch (BadCredentialsException e) {
+				// the refresh is still blocked
+			}
+		}
+
+		// known keys are still served while the keys are being refreshed
+		Assert.assertEquals(TestJwk.OCT_2_K, selfRefreshingKeySet.getKey("kid/b").getProperty("k"));
+
+		Assert.assertEquals(2, selfRefreshingKeySet.getRefreshCount());
+		Assert.assertEquals(2, selfRefreshingKeySet.getRejectedGetCount());
+		Assert.assertEquals(0, selfRefreshingKeySet.getQueuedGetCount());
+
+		provider.unblock();
+		selfRefreshingKeySet.destroy();
+	}
+
+	@Test(timeout = 10000)
+	public void proactiveRefreshTest() throws Exception {
+		final SelfRefreshingKeySet selfRefreshingKeySet = new SelfRefreshingKeySet(new MockKeySetProvider() {
+			@Override
+			public long getKeySetMaxAgeMs() {
+				return 0;
+			}
+		});
+
+		selfRefreshingKeySet.setMinRefreshIntervalMs(10);
+
+		Assert.assertEquals(TestJwk.OCT_1_K, selfRefreshingKeySet.getKey("kid/a").getProperty("k"));
+
+		while (selfRefreshingKeySet.getRefreshCount() < 3) {
+			Thread.sleep(10);
+		}
+
+		selfRefreshingKeySet.destroy();
+
+		Assert.assertEquals(0, selfRefreshingKeySet.getFailedRefreshCount());
+		Assert.assertEquals(TestJwk.OCT_2_K, selfRefreshingKeySet.getKey("kid/b").getProperty("k"));
+	}
+
 	static class MockKeySetProvider implements KeySetProvider {
 
 		@Override
@@ -106,6 +160,10 @@ public class SelfRefreshingKeySetTest {
 			notifyAll();
 		}
 
+		public synchronized void block() {
+			blocked = true;
+		}
+
 		public synchronized void waitForCalled() throws InterruptedException {
 			while (!called) {
 				wait();
@@ -0,0 +1,70 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.apache.http.HttpStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.test.DynamicSecurityConfig;
+import org.opensearch.security.test.SingleClusterTest;
+import org.opensearch.security.test.helper.file.FileHelper;
+import org.opensearch.security.test.helper.rest.RestHelper;
+import org.opensearch.security.test.helper.rest.RestHelper.HttpResponse;
+
+public class SecurityStatsTests extends SingleClusterTest {
+
+    @Test
+    public void testStats() throws Exception {
+        final RestHelper rh = setupAdminRestHelper();
+
+        HttpResponse res = rh.executeGetRequest("_plugins/_security/stats");
+        Assert.assertEquals(res.getBody(), HttpStatus.SC_OK, res.getStatusCode());
+        JsonNode stats = DefaultObjectMapper.readTree(res.getBody());
+        for (String section : new String[] { "audit", "dls_bitset_cache", "terms_lookup_cache", "dls_query_cache", "reverse_dns_cache",
+                "authenticators", "deserialized_header_cache" }) {
+            Assert.assertTrue(section + " missing in " + res.getBody(), stats.has(section));
+        }
+        Assert.assertTrue(stats.get("dls_query_cache").has("hits"));
+
+        res = rh.executeGetRequest("_opendistro/_security/stats/dls_query_cache,reverse_dns_cache");
+        Assert.assertEquals(res.getBody(), HttpStatus.SC_OK, res.getStatusCode());
+        stats = DefaultObjectMapper.readTree(res.getBody());
+        Assert.assertEquals(2, stats.size());
+        Assert.assertTrue(stats.has("dls_query_cache"));
+        Assert.assertTrue(stats.has("reverse_dns_cache"));
+
+        res = rh.executeGetRequest("_plugins/_security/stats/unknown");
+        Assert.assertEquals(res.getBody(), HttpStatus.SC_NOT_FOUND, res.getStatusCode());
+    }
+
+    @Test
+    public void testStatsAreForbiddenForNonAdmins() throws Exception {
+        final RestHelper rh = setupAdminRestHelper();
+        rh.sendAdminCertificate = false;
+
+        final HttpResponse res = rh.executeGetRequest("_plugins/_security/stats", encodeBasicHeader("admin", "admin"));
+        Assert.assertEquals(res.getBody(), HttpStatus.SC_FORBIDDEN, res.getStatusCode());
+    }
+
+    private RestHelper setupAdminRestHelper() throws Exception {
+        final Settings settings = Settings.builder()
+                .put("plugins.security.ssl.http.enabled", true)
+                .put("plugins.security.ssl.http.keystore_filepath", FileHelper.getAbsoluteFilePathFromClassPath("node-0-keystore.jks"))
+                .put("plugins.security.ssl.http.truststore_filepath", FileHelper.getAbsoluteFilePathFromClassPath("truststore.jks"))
+                .build();
+        setup(Settings.EMPTY, new DynamicSecurityConfig(), settings, true);
+
+        final RestHelper rh = restHelper();
+        rh.enableHTTPClientSSL = true;
+        rh.trustHTTPServerCertificate = true;
+        rh.sendAdminCertificate = true;
+        rh.keystore = "kirk-keystore.jks";
+        return rh;
+    }
+}
@@ -30,6 +30,9 @@
 
 package org.opensearch.security;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import org.bouncycastle.crypto.generators.OpenBSDBCrypt;
@@ -110,6 +113,42 @@ public class UtilTests {
         assertTrue(!WildcardMatcher.from("ABC").test( "abc"));
     }
 
+    @Test
+    public void testWildcardMatcherCombiner() {
+        final List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            patterns.add("logs-" + i + "-*");
+            patterns.add("metrics-?" + i);
+            patterns.add("exact-" + i);
+        }
+        patterns.add("/regex-\\d+/");
+        final WildcardMatcher matcher = WildcardMatcher.from(patterns);
+
+        assertTrue(matcher.test("logs-7-2022.01.01"));
+        assertTrue(matcher.test("logs-49-"));
+        assertFalse(matcher.test("logs-50-2022.01.01"));
+        assertTrue(matcher.test("metrics-a12"));
+        assertFalse(matcher.test("metrics-"));
+        assertFalse(matcher.test("metrics-ab12"));
+        assertTrue(matcher.test("exact-3"));
+        assertFalse(matcher.test("exact-3a"));
+        assertTrue(matcher.test("regex-123"));
+        assertFalse(matcher.test("regex-"));
+        assertFalse(matcher.test(""));
+        assertEquals("exact-3", matcher.findFirst("exact-3").get().toString());
+        assertFalse(matcher.findFirst("nomatch").isPresent());
+
+        final WildcardMatcher caseInsensitive = WildcardMatcher.from(patterns, false);
+        assertTrue(caseInsensitive.test("LOGS-7-2022.01.01"));
+        assertTrue(caseInsensitive.test("Metrics-X12"));
+        assertTrue(caseInsensitive.test("EXACT-3"));
+        assertFalse(caseInsensitive.test("EXACT-3A"));
+        assertTrue(caseInsensitive.test("REGEX-1"));
+
+        final WildcardMatcher withAny = WildcardMatcher.from(Arrays.asList("a*", "b?", "*"));
+        assertTrue(withAny.test("anything"));
+    }
+
     @Test
     public void testMapFromArray() {
         Map<Object, Object> map = SecurityUtils.mapFromArray((Object)null);
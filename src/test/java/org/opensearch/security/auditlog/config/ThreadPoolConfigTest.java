@@ -87,4 +87,28 @@ public class ThreadPoolConfigTest {
         assertEquals(8, config.getThreadPoolSize());
         assertEquals(50, config.getThreadPoolMaxQueueLen());
     }
+
+    @Test
+    public void testOverflowPolicyFromSettings() {
+        // arrange
+        Settings settings = Settings.builder()
+                .put("plugins.security.audit.threadpool.overflow_policy", "drop_oldest")
+                .put("plugins.security.audit.threadpool.batch_size", "16")
+                .build();
+
+        // assert
+        ThreadPoolConfig config = ThreadPoolConfig.getConfig(settings);
+        assertEquals(ThreadPoolConfig.OverflowPolicy.DROP_OLDEST, config.getOverflowPolicy());
+        assertEquals(16, config.getBatchSize());
+        assertEquals(ThreadPoolConfig.OverflowPolicy.FALLBACK, ThreadPoolConfig.getConfig(Settings.EMPTY).getOverflowPolicy());
+    }
+
+    @Test
+    public void testInvalidOverflowPolicy() {
+        // arrange
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Incorrect overflow policy: unknown configured for audit logging.");
+        // act
+        ThreadPoolConfig.getConfig(Settings.builder().put("plugins.security.audit.threadpool.overflow_policy", "unknown").build());
+    }
 }
@@ -30,12 +30,14 @@ import org.opensearch.cluster.node.DiscoveryNode;
 import org.opensearch.cluster.service.ClusterService;
 import org.opensearch.common.bytes.BytesReference;
 import org.opensearch.common.collect.Tuple;
+import org.opensearch.common.xcontent.XContentHelper;
 import org.opensearch.common.xcontent.XContentType;
 import org.opensearch.security.auditlog.AuditLog;
 import org.opensearch.security.securityconf.impl.CType;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -140,4 +142,20 @@ public class AuditMessageTest {
         message.addSecurityConfigTupleToRequestBody(new Tuple<>(XContentType.JSON, ref), internalUsersDocId);
         assertEquals("Hash in tuple is __HASH__", message.getAsMap().get(AuditMessage.REQUEST_BODY));
     }
+
+    @Test
+    public void testJsonMatchesMap() {
+        message.addTransportHeaders(TEST_TRANSPORT_HEADERS, true);
+        message.addIndices(new String[]{"index-1", "index-2"});
+        message.addTaskId(1);
+        message.addComplianceDocVersion(3);
+
+        final Map<String, Object> fromJson = XContentHelper.convertToMap(message.toJsonBytes(), true, XContentType.JSON).v2();
+        assertEquals(message.getAsMap().keySet(), fromJson.keySet());
+        assertEquals(ImmutableMap.of("test-header", "test-4"), fromJson.get(AuditMessage.TRANSPORT_REQUEST_HEADERS));
+        assertEquals(ImmutableList.of("index-1", "index-2"), fromJson.get(AuditMessage.INDICES));
+        assertEquals("AUTHENTICATED", fromJson.get(AuditMessage.CATEGORY));
+        assertEquals(message.toString(), message.toJson());
+        assertTrue(((String) fromJson.get(AuditMessage.UTC_TIMESTAMP)).endsWith("+00:00"));
+    }
 }
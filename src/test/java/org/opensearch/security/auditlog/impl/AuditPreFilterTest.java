@@ -0,0 +1,113 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.auditlog.impl;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.rest.RestRequest;
+import org.opensearch.security.support.ConfigConstants;
+import org.opensearch.tasks.Task;
+import org.opensearch.tasks.TaskId;
+
+public class AuditPreFilterTest {
+
+    @Test
+    public void testIgnoredIndices() {
+        final AuditPreFilter filter = new AuditPreFilter(Settings.builder()
+                .putList(ConfigConstants.SECURITY_AUDIT_IGNORE_INDICES, "logs-*", "metrics")
+                .build());
+
+        Assert.assertTrue(filter.areAllIndicesIgnored(new String[] { "logs-1", "metrics" }));
+        Assert.assertFalse(filter.areAllIndicesIgnored(new String[] { "logs-1", "audit" }));
+        Assert.assertFalse(filter.areAllIndicesIgnored(new String[0]));
+        Assert.assertFalse(new AuditPreFilter(Settings.EMPTY).areAllIndicesIgnored(new String[] { "logs-1" }));
+    }
+
+    @Test
+    public void testSamplingIsDeterministicPerRequest() {
+        final AuditPreFilter filter = samplingFilter();
+
+        int logged = 0;
+        for (long id = 0; id < 10000; id++) {
+            final Task task = task(id, TaskId.EMPTY_TASK_ID);
+            final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+            final boolean sampledOut = filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, task, threadContext, "node-1");
+            Assert.assertEquals(sampledOut, filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, task, threadContext, "node-1"));
+            Assert.assertEquals(sampledOut, filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, task, null, "node-1"));
+            Assert.assertFalse(filter.isSampledOut(AuditCategory.MISSING_PRIVILEGES, task, threadContext, "node-1"));
+            if (!sampledOut) {
+                logged++;
+            }
+        }
+        Assert.assertTrue("logged " + logged, logged > 800 && logged < 1200);
+
+        // child requests of nodes which do not forward the sampling key share the decision of their parent task
+        final TaskId parent = new TaskId("node-1", 42);
+        final boolean parentDecision = filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, task(42, TaskId.EMPTY_TASK_ID), null, "node-1");
+        for (long id = 2; id < 50; id++) {
+            Assert.assertEquals(parentDecision, filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, task(id, parent),
+                    new ThreadContext(Settings.EMPTY), "node-2"));
+        }
+    }
+
+    @Test
+    public void testSamplingKeyIsSharedByAllRequestLevels() {
+        final AuditPreFilter filter = samplingFilter();
+
+        for (long id = 0; id < 100; id++) {
+            final RestRequest restRequest = Mockito.mock(RestRequest.class);
+            Mockito.when(restRequest.getRequestId()).thenReturn(id);
+
+            // the REST layer of the coordinating node derives the key
+            final ThreadContext coordinating = new ThreadContext(Settings.EMPTY);
+            final boolean decision = filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, restRequest, coordinating, "node-1");
+            final String samplingKey = coordinating.getHeader(ConfigConstants.OPENDISTRO_SECURITY_AUDIT_SAMPLING_KEY_HEADER);
+            Assert.assertNotNull(samplingKey);
+
+            // the top-level task (bulk) keeps it
+            final Task bulk = task(1000 + id, TaskId.EMPTY_TASK_ID);
+            Assert.assertEquals(decision, filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, bulk, coordinating, "node-1"));
+            Assert.assertEquals(samplingKey, coordinating.getHeader(ConfigConstants.OPENDISTRO_SECURITY_AUDIT_SAMPLING_KEY_HEADER));
+
+            // bulk[s] and bulk[s][p] on other nodes receive it as forwarded header
+            final Task shardBulk = task(2000 + id, new TaskId("node-1", bulk.getId()));
+            final Task primaryBulk = task(3000 + id, new TaskId("node-2", shardBulk.getId()));
+            Assert.assertEquals(decision, filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, shardBulk, forwarded(samplingKey), "node-2"));
+            Assert.assertEquals(decision, filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, primaryBulk, forwarded(samplingKey), "node-3"));
+        }
+    }
+
+    @Test
+    public void testNoSamplingByDefault() {
+        final AuditPreFilter filter = new AuditPreFilter(Settings.EMPTY);
+        for (long id = 0; id < 100; id++) {
+            Assert.assertFalse(filter.isSampledOut(AuditCategory.GRANTED_PRIVILEGES, task(id, TaskId.EMPTY_TASK_ID), new ThreadContext(Settings.EMPTY), "node-1"));
+        }
+    }
+
+    private static AuditPreFilter samplingFilter() {
+        return new AuditPreFilter(Settings.builder()
+                .putList(ConfigConstants.SECURITY_AUDIT_SAMPLING_CATEGORIES, "GRANTED_PRIVILEGES")
+                .put(ConfigConstants.SECURITY_AUDIT_SAMPLING_RATE, 10)
+                .build());
+    }
+
+    private static ThreadContext forwarded(final String samplingKey) {
+        final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_AUDIT_SAMPLING_KEY_HEADER, samplingKey);
+        return threadContext;
+    }
+
+    private static Task task(final long id, final TaskId parent) {
+        return new Task(id, "transport", "indices:data/read/search", "", parent, Collections.emptyMap());
+    }
+}
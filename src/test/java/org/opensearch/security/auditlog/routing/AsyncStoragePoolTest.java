@@ -0,0 +1,123 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.auditlog.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.auditlog.config.ThreadPoolConfig;
+import org.opensearch.security.auditlog.config.ThreadPoolConfig.OverflowPolicy;
+import org.opensearch.security.auditlog.helper.LoggingSink;
+import org.opensearch.security.auditlog.helper.MockAuditMessageFactory;
+import org.opensearch.security.auditlog.impl.AuditMessage;
+import org.opensearch.security.auditlog.sink.AuditLogSink;
+
+public class AsyncStoragePoolTest {
+
+    @Test
+    public void testRingBuffer() {
+        final AuditMessageRingBuffer buffer = new AuditMessageRingBuffer(3);
+        Assert.assertEquals(4, buffer.capacity());
+
+        final List<AuditMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            messages.add(MockAuditMessageFactory.validAuditMessage());
+        }
+
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 4; i++) {
+                Assert.assertTrue(buffer.offer(messages.get(i)));
+            }
+            Assert.assertFalse(buffer.offer(messages.get(4)));
+            Assert.assertEquals(4, buffer.size());
+            Assert.assertSame(messages.get(0), buffer.poll());
+
+            final List<AuditMessage> drained = new ArrayList<>();
+            Assert.assertEquals(2, buffer.drainTo(drained, 2));
+            Assert.assertSame(messages.get(1), drained.get(0));
+            Assert.assertSame(messages.get(2), drained.get(1));
+            Assert.assertSame(messages.get(3), buffer.poll());
+            Assert.assertNull(buffer.poll());
+            Assert.assertTrue(buffer.isEmpty());
+        }
+    }
+
+    @Test
+    public void testStoresAllMessages() {
+        final AsyncStoragePool pool = new AsyncStoragePool(new ThreadPoolConfig(1, 100));
+        final LoggingSink sink = new LoggingSink("test", Settings.EMPTY, null, null);
+
+        for (int i = 0; i < 50; i++) {
+            pool.submit(MockAuditMessageFactory.validAuditMessage(), sink);
+        }
+        pool.close();
+
+        Assert.assertEquals(50, sink.messages.size());
+        final Map<?, ?> stats = (Map<?, ?>) pool.getStats().get("test");
+        Assert.assertEquals(50L, stats.get("enqueued"));
+        Assert.assertEquals(50L, stats.get("stored"));
+        Assert.assertEquals(0, stats.get("queue_depth"));
+    }
+
+    @Test
+    public void testFallbackPolicy() throws Exception {
+        final LoggingSink fallback = new LoggingSink("fallback", Settings.EMPTY, null, null);
+        final Map<?, ?> stats = fillQueue(OverflowPolicy.FALLBACK, fallback);
+
+        Assert.assertEquals(3L, stats.get("spilled_to_fallback"));
+        Assert.assertEquals(0L, stats.get("dropped"));
+        Assert.assertEquals(3, fallback.messages.size());
+    }
+
+    @Test
+    public void testDropNewestPolicy() throws Exception {
+        final LoggingSink fallback = new LoggingSink("fallback", Settings.EMPTY, null, null);
+        final Map<?, ?> stats = fillQueue(OverflowPolicy.DROP_NEWEST, fallback);
+
+        Assert.assertEquals(3L, stats.get("dropped"));
+        Assert.assertEquals(3L, stats.get("stored"));
+        Assert.assertTrue(fallback.messages.isEmpty());
+    }
+
+    /**
+     * Blocks the only worker and submits five more messages to a queue with space for two of them
+     */
+    private Map<?, ?> fillQueue(final OverflowPolicy policy, final AuditLogSink fallback) throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AuditLogSink sink = new AuditLogSink("blocking", Settings.EMPTY, null, fallback) {
+            @Override
+            protected boolean doStore(AuditMessage msg) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+
+        final AsyncStoragePool pool = new AsyncStoragePool(new ThreadPoolConfig(1, 2, policy, 0, 1));
+        pool.submit(MockAuditMessageFactory.validAuditMessage(), sink);
+        Assert.assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 5; i++) {
+            pool.submit(MockAuditMessageFactory.validAuditMessage(), sink);
+        }
+
+        release.countDown();
+        pool.close();
+        return (Map<?, ?>) pool.getStats().get("blocking");
+    }
+}
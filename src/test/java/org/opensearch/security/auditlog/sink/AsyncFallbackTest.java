@@ -0,0 +1,65 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.auditlog.sink;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.auditlog.config.ThreadPoolConfig;
+import org.opensearch.security.auditlog.helper.MockAuditMessageFactory;
+import org.opensearch.security.auditlog.impl.AuditMessage;
+import org.opensearch.security.auditlog.routing.AsyncStoragePool;
+
+public class AsyncFallbackTest {
+
+    @Test
+    public void testFailedMessagesAreStoredOnTheSpillThread() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch stored = new CountDownLatch(1);
+        final AuditLogSink fallback = new AuditLogSink("fallback", Settings.EMPTY, null, null) {
+            @Override
+            protected boolean doStore(AuditMessage msg) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                stored.countDown();
+                return true;
+            }
+        };
+        // fails every message like a producer callback reporting an error
+        final AuditLogSink sink = new AuditLogSink("failing", Settings.EMPTY, null, fallback) {
+            @Override
+            protected boolean doStore(AuditMessage msg) {
+                storeInFallbackSink(msg);
+                return true;
+            }
+        };
+
+        final AsyncStoragePool pool = new AsyncStoragePool(new ThreadPoolConfig(1, 10));
+        pool.submit(MockAuditMessageFactory.validAuditMessage(), sink);
+
+        // the fallback sink blocks, but the failing sink keeps going
+        final AuditMessage msg = MockAuditMessageFactory.validAuditMessage();
+        final long start = System.nanoTime();
+        sink.storeInFallbackSink(msg);
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 5);
+
+        release.countDown();
+        Assert.assertTrue(stored.await(10, TimeUnit.SECONDS));
+        pool.close();
+
+        final Map<?, ?> stats = (Map<?, ?>) pool.getStats().get("failing");
+        Assert.assertEquals(2L, stats.get("spilled_to_fallback"));
+        Assert.assertEquals(2L, stats.get("fallback_stored"));
+    }
+}
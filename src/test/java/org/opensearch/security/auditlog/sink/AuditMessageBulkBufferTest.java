@@ -0,0 +1,74 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.auditlog.sink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.auditlog.helper.LoggingSink;
+import org.opensearch.security.auditlog.helper.MockAuditMessageFactory;
+import org.opensearch.security.support.ConfigConstants;
+
+public class AuditMessageBulkBufferTest {
+
+    private final Settings settings = Settings.builder().put(ConfigConstants.SECURITY_AUDIT_RETRY_DELAY_MS, 0).build();
+
+    @Test
+    public void testFlushInBatches() {
+        final Settings sinkSettings = Settings.builder()
+                .put(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_ACTIONS, 2)
+                .put(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_FLUSH_INTERVAL_MS, 60000)
+                .build();
+        final LoggingSink fallback = new LoggingSink("fallback", settings, null, null);
+        final LoggingSink sink = new LoggingSink("test", settings, null, fallback);
+        final List<List<AuditMessageBulkBuffer.Document>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        final AuditMessageBulkBuffer buffer = new AuditMessageBulkBuffer(sink, settings, sinkSettings, documents -> {
+            batches.add(documents);
+            return Collections.emptyList();
+        });
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(buffer.add(MockAuditMessageFactory.validAuditMessage(), "audit-" + i));
+        }
+        buffer.close();
+
+        Assert.assertEquals(0, buffer.size());
+        Assert.assertEquals(5, batches.stream().mapToInt(List::size).sum());
+        Assert.assertTrue(batches.stream().allMatch(b -> b.size() <= 2));
+        Assert.assertEquals("audit-0", batches.get(0).get(0).getIndex());
+        Assert.assertTrue(fallback.messages.isEmpty());
+    }
+
+    @Test
+    public void testPartialFailuresAreRetriedAndStoredInFallback() {
+        final Settings sinkSettings = Settings.builder()
+                .put(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_MAX_RETRIES, 2)
+                .put(ConfigConstants.SECURITY_AUDIT_OPENSEARCH_BULK_FLUSH_INTERVAL_MS, 60000)
+                .build();
+        final LoggingSink fallback = new LoggingSink("fallback", settings, null, null);
+        final LoggingSink sink = new LoggingSink("test", settings, null, fallback);
+        final List<String> written = Collections.synchronizedList(new ArrayList<>());
+
+        final AuditMessageBulkBuffer buffer = new AuditMessageBulkBuffer(sink, settings, sinkSettings, documents -> {
+            documents.stream().filter(d -> !d.getIndex().equals("broken")).forEach(d -> written.add(d.getIndex()));
+            return documents.stream().filter(d -> d.getIndex().equals("broken")).collect(Collectors.toList());
+        });
+
+        Assert.assertTrue(buffer.add(MockAuditMessageFactory.validAuditMessage(), "audit"));
+        Assert.assertTrue(buffer.add(MockAuditMessageFactory.validAuditMessage(), "broken"));
+        buffer.close();
+
+        Assert.assertEquals(Collections.singletonList("audit"), written);
+        Assert.assertEquals(1, fallback.messages.size());
+    }
+}
@@ -32,6 +32,7 @@ import org.opensearch.common.xcontent.yaml.YamlXContent;
 import org.opensearch.security.auditlog.AbstractAuditlogiUnitTest;
 import org.opensearch.security.auditlog.helper.MockAuditMessageFactory;
 import org.opensearch.security.auditlog.impl.AuditCategory;
+import org.opensearch.security.auditlog.impl.AuditMessage;
 import org.opensearch.security.test.helper.file.FileHelper;
 
 public class KafkaSinkTest extends AbstractAuditlogiUnitTest {
@@ -63,6 +64,36 @@ public class KafkaSinkTest extends AbstractAuditlogiUnitTest {
 
 	}
 
+	@Test
+	public void testProducerPropertiesDefaults() {
+		final Properties defaults = KafkaSink.getProducerProperties(Settings.builder()
+				.put("bootstrap_servers", "localhost:9092")
+				.put("topic_name", "compliance")
+				.put("partition_key", "user")
+				.build());
+		Assert.assertEquals("localhost:9092", defaults.get("bootstrap.servers"));
+		Assert.assertEquals("lz4", defaults.get("compression.type"));
+		Assert.assertEquals("20", defaults.get("linger.ms"));
+		Assert.assertFalse(defaults.containsKey("topic.name"));
+		Assert.assertFalse(defaults.containsKey("partition.key"));
+
+		final Properties configured = KafkaSink.getProducerProperties(Settings.builder()
+				.put("compression_type", "none")
+				.put("linger_ms", "0")
+				.build());
+		Assert.assertEquals("none", configured.get("compression.type"));
+		Assert.assertEquals("0", configured.get("linger.ms"));
+	}
+
+	@Test
+	public void testPartitionKey() {
+		final AuditMessage msg = MockAuditMessageFactory.validAuditMessage();
+		msg.addIndices(new String[] { "index-1", "index-2" });
+		Assert.assertNull(KafkaSink.PartitionKey.NONE.of(msg));
+		Assert.assertEquals("index-1", KafkaSink.PartitionKey.INDEX.of(msg));
+		Assert.assertEquals("John Doe", KafkaSink.PartitionKey.USER.of(msg));
+	}
+
 	private KafkaConsumer<Long, String> createConsumer() {
 		Properties props = new Properties();
 		props.put("bootstrap.servers", embeddedKafka.getEmbeddedKafka().getBrokersAsString());
@@ -0,0 +1,72 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.compliance;
+
+import java.util.Collections;
+
+import com.flipkart.zjsonpatch.JsonDiff;
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.bytes.BytesArray;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.security.DefaultObjectMapper;
+
+public class XContentDiffTest {
+
+    private final XContentDiff diff = new XContentDiff(Collections.emptyList(), Collections.emptyList());
+
+    @Test
+    public void testEqualSources() throws Exception {
+        Assert.assertEquals("", diff("{\"a\":1,\"b\":{\"c\":\"x\"}}", "{\"a\":1,\"b\":{\"c\":\"x\"}}"));
+        Assert.assertEquals("", diff("{\"a\":1,\"b\":[1,2]}", "{\"a\":1, \"b\": [1, 2]}"));
+        Assert.assertEquals("", diff("{\"a\":1,\"b\":2}", "{\"b\":2,\"a\":1}"));
+    }
+
+    @Test
+    public void testSameResultAsJsonDiff() throws Exception {
+        assertSameAsJsonDiff("{\"a\":1,\"b\":\"x\"}", "{\"a\":2,\"b\":\"x\"}");
+        assertSameAsJsonDiff("{\"a\":1,\"b\":{\"c\":\"x\",\"d\":true}}", "{\"a\":1,\"b\":{\"c\":\"y\",\"d\":false}}");
+        assertSameAsJsonDiff("{\"a\":1,\"b\":2}", "{\"a\":1}");
+        assertSameAsJsonDiff("{\"a\":1}", "{\"a\":1,\"b\":{\"c\":[1,2]}}");
+        assertSameAsJsonDiff("{\"a\":[1,2,3]}", "{\"a\":[1,3,4]}");
+        assertSameAsJsonDiff("{\"a\":{\"b\":1}}", "{\"a\":\"flat\"}");
+        assertSameAsJsonDiff("{\"a/b\":1,\"c~d\":2}", "{\"a/b\":2,\"c~d\":3}");
+        assertSameAsJsonDiff("{\"a\":null}", "{\"a\":1.5}");
+    }
+
+    @Test
+    public void testExcludedFields() throws Exception {
+        final XContentDiff excluding = new XContentDiff(Collections.emptyList(), ImmutableList.of("meta.*", "@timestamp"));
+        Assert.assertEquals("", excluding.diff(
+                new BytesArray("{\"@timestamp\":1,\"meta\":{\"a\":1},\"v\":1}"),
+                new BytesArray("{\"@timestamp\":2,\"meta\":{\"a\":2},\"v\":1}"), XContentType.JSON));
+        Assert.assertEquals("[{\"op\":\"replace\",\"path\":\"/v\",\"value\":2}]", excluding.diff(
+                new BytesArray("{\"@timestamp\":1,\"v\":1}"),
+                new BytesArray("{\"v\":2,\"@timestamp\":2}"), XContentType.JSON));
+    }
+
+    @Test
+    public void testIncludedFields() throws Exception {
+        final XContentDiff including = new XContentDiff(ImmutableList.of("user.name"), Collections.emptyList());
+        Assert.assertEquals("", including.diff(
+                new BytesArray("{\"user\":{\"name\":\"a\",\"age\":1},\"v\":1}"),
+                new BytesArray("{\"user\":{\"name\":\"a\",\"age\":2},\"v\":2}"), XContentType.JSON));
+        Assert.assertEquals("[{\"op\":\"replace\",\"path\":\"/user/name\",\"value\":\"b\"}]", including.diff(
+                new BytesArray("{\"user\":{\"name\":\"a\",\"age\":1}}"),
+                new BytesArray("{\"user\":{\"age\":2,\"name\":\"b\"}}"), XContentType.JSON));
+    }
+
+    private String diff(final String before, final String after) throws Exception {
+        return diff.diff(new BytesArray(before), new BytesArray(after), XContentType.JSON);
+    }
+
+    private void assertSameAsJsonDiff(final String before, final String after) throws Exception {
+        final String expected = JsonDiff.asJson(DefaultObjectMapper.objectMapper.readTree(before), DefaultObjectMapper.objectMapper.readTree(after)).toString();
+        Assert.assertEquals(DefaultObjectMapper.objectMapper.readTree(expected), DefaultObjectMapper.objectMapper.readTree(diff(before, after)));
+    }
+}
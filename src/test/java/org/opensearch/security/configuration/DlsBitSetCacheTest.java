@@ -0,0 +1,108 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.FixedBitSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+
+public class DlsBitSetCacheTest {
+
+    @Test
+    public void testEqualQueriesShareABitSet() throws Exception {
+        final DlsBitSetCache cache = new DlsBitSetCache(Settings.EMPTY);
+
+        try (Directory directory = createIndex("a", "b", "c");
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            final LeafReader leafReader = reader.leaves().get(0).reader();
+            final Query query = new BooleanQuery.Builder()
+                    .add(new TermQuery(new Term("dept", "a")), Occur.SHOULD)
+                    .add(new TermQuery(new Term("dept", "c")), Occur.SHOULD)
+                    .build();
+            final Query reordered = new BooleanQuery.Builder()
+                    .add(new TermQuery(new Term("dept", "c")), Occur.SHOULD)
+                    .add(new TermQuery(new Term("dept", "a")), Occur.SHOULD)
+                    .build();
+
+            final FixedBitSet bits = cache.getOrCompute(leafReader.getCoreCacheHelper(), Arrays.asList(query, null, null),
+                    () -> bitSet(3, 0, 2));
+            Assert.assertSame(bits, cache.getOrCompute(leafReader.getCoreCacheHelper(), Arrays.asList(reordered, null, null),
+                    () -> { throw new AssertionError("must not be recomputed"); }));
+
+            Assert.assertNotSame(bits, cache.getOrCompute(leafReader.getCoreCacheHelper(),
+                    Arrays.asList(query, Collections.singleton("dept"), null), () -> bitSet(3, 0)));
+
+            Assert.assertEquals(1L, cache.getStats().get("hits"));
+            Assert.assertEquals(2L, cache.getStats().get("misses"));
+            Assert.assertEquals(2L, cache.getStats().get("entries"));
+            Assert.assertTrue((Long) cache.getStats().get("bytes") > 0);
+        }
+    }
+
+    @Test
+    public void testEntriesAreDroppedOnClose() throws Exception {
+        final DlsBitSetCache cache = new DlsBitSetCache(Settings.EMPTY);
+
+        try (Directory directory = createIndex("a", "b")) {
+            final DirectoryReader reader = DirectoryReader.open(directory);
+            final LeafReader leafReader = reader.leaves().get(0).reader();
+            cache.getOrCompute(leafReader.getCoreCacheHelper(), new TermQuery(new Term("dept", "a")), () -> bitSet(2, 0));
+            Assert.assertEquals(1L, cache.getStats().get("entries"));
+
+            reader.close();
+            Assert.assertEquals(0L, cache.getStats().get("entries"));
+            Assert.assertEquals(0L, cache.getStats().get("bytes"));
+        }
+    }
+
+    @Test
+    public void testWithoutCoreCacheHelperNothingIsCached() throws Exception {
+        final DlsBitSetCache cache = new DlsBitSetCache(Settings.EMPTY);
+        final FixedBitSet bits = bitSet(1, 0);
+        Assert.assertSame(bits, cache.getOrCompute(null, "key", () -> bits));
+        Assert.assertEquals(0L, cache.getStats().get("entries"));
+    }
+
+    private static FixedBitSet bitSet(final int length, final int... docs) {
+        final FixedBitSet bits = new FixedBitSet(length);
+        for (int doc : docs) {
+            bits.set(doc);
+        }
+        return bits;
+    }
+
+    private static Directory createIndex(final String... values) throws Exception {
+        final Directory directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (String value : values) {
+                final Document document = new Document();
+                document.add(new StringField("dept", value, Field.Store.NO));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        return directory;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.search.builder.SearchSourceBuilder;
+import org.opensearch.security.support.Base64Helper;
+import org.opensearch.security.support.ConfigConstants;
+
+public class DlsFlsValveImplTest {
+
+    @Test
+    public void testRestrictionsDigestIsIndependentOfOrder() {
+        final Map<String, Set<String>> queries = ImmutableMap.of("logs-*",
+                new LinkedHashSet<>(Arrays.asList("{\"term\":{\"a\":1}}", "{\"term\":{\"b\":2}}")));
+        final Map<String, Set<String>> reorderedQueries = ImmutableMap.of("logs-*",
+                new LinkedHashSet<>(Arrays.asList("{\"term\":{\"b\":2}}", "{\"term\":{\"a\":1}}")));
+
+        final String digest = DlsFlsValveImpl.getRestrictionsDigest(threadContext(null), queries, "logs-1");
+        Assert.assertNotNull(digest);
+        Assert.assertEquals(digest, DlsFlsValveImpl.getRestrictionsDigest(threadContext(null), reorderedQueries, "logs-1"));
+        Assert.assertNull(DlsFlsValveImpl.getRestrictionsDigest(threadContext(null), queries, "other"));
+        Assert.assertNull(DlsFlsValveImpl.getRestrictionsDigest(threadContext(null), null, "logs-1"));
+    }
+
+    @Test
+    public void testRestrictionsDigestDependsOnFls() {
+        final Map<String, Set<String>> queries = ImmutableMap.of("logs-1", ImmutableSet.of("{\"term\":{\"a\":1}}"));
+
+        final String dlsOnly = DlsFlsValveImpl.getRestrictionsDigest(threadContext(null), queries, "logs-1");
+        final String dlsAndFls = DlsFlsValveImpl.getRestrictionsDigest(threadContext(ImmutableMap.of("logs-*", ImmutableSet.of("a"))),
+                queries, "logs-1");
+        final String flsOnly = DlsFlsValveImpl.getRestrictionsDigest(threadContext(ImmutableMap.of("logs-*", ImmutableSet.of("a"))),
+                null, "logs-1");
+
+        Assert.assertNotEquals(dlsOnly, dlsAndFls);
+        Assert.assertNotEquals(dlsAndFls, flsOnly);
+        Assert.assertNotNull(flsOnly);
+    }
+
+    @Test
+    public void testDigestIsAddedToTheSourceStats() {
+        final SearchSourceBuilder source = new SearchSourceBuilder().size(0).stats(Collections.singletonList("group"));
+
+        final SearchSourceBuilder keyed = DlsFlsValveImpl.withRestrictionsDigest(source, "abc");
+        Assert.assertNotSame(source, keyed);
+        Assert.assertEquals(Collections.singletonList("group"), source.stats());
+        Assert.assertEquals(Arrays.asList("group", "_opendistro_security_dls_fls_abc"), keyed.stats());
+        Assert.assertEquals(0, keyed.size());
+
+        Assert.assertSame(source, DlsFlsValveImpl.withRestrictionsDigest(source, null));
+        Assert.assertNull(DlsFlsValveImpl.withRestrictionsDigest(null, "abc"));
+    }
+
+    @Test
+    public void testDigestsSentByClientsAreRemoved() {
+        final SearchSourceBuilder spoofed = new SearchSourceBuilder().stats(Arrays.asList("_opendistro_security_dls_fls_abc", "group"));
+
+        Assert.assertEquals(Collections.singletonList("group"), DlsFlsValveImpl.withRestrictionsDigest(spoofed, null).stats());
+        Assert.assertEquals(Arrays.asList("group", "_opendistro_security_dls_fls_def"),
+                DlsFlsValveImpl.withRestrictionsDigest(spoofed, "def").stats());
+    }
+
+    private static ThreadContext threadContext(final Map<String, Set<String>> flsFields) {
+        final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        if (flsFields != null) {
+            final HashMap<String, Set<String>> header = new HashMap<>();
+            flsFields.forEach((index, fields) -> header.put(index, new HashSet<>(fields)));
+            threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_FLS_FIELDS_HEADER, Base64Helper.serializeObject(header));
+        }
+        return threadContext;
+    }
+}
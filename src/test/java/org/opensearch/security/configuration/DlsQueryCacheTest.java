@@ -0,0 +1,140 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.TermQuery;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.opensearch.Version;
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.xcontent.NamedXContentRegistry;
+import org.opensearch.index.Index;
+import org.opensearch.index.IndexSettings;
+import org.opensearch.index.mapper.MapperService;
+import org.opensearch.index.query.ParsedQuery;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryShardContext;
+import org.opensearch.index.query.RangeQueryBuilder;
+import org.opensearch.search.SearchModule;
+import org.opensearch.security.support.ConfigConstants;
+
+public class DlsQueryCacheTest {
+
+    private static final Set<String> DLS_QUERIES = Collections.singleton("{\"term\":{\"dept\":\"a\"}}");
+
+    @Test
+    public void testMappingVersionChangeInvalidatesEntries() {
+        final DlsQueryCache cache = new DlsQueryCache(Settings.EMPTY);
+        final BooleanQuery query = query("a");
+
+        cache.put(context(1), DLS_QUERIES, false, query);
+        Assert.assertSame(query, cache.get(context(1), DLS_QUERIES, false));
+        Assert.assertNull(cache.get(context(1), DLS_QUERIES, true));
+        Assert.assertNull(cache.get(context(1), Collections.singleton("{\"term\":{\"dept\":\"b\"}}"), false));
+
+        // the mapping determines how the DLS queries are built
+        Assert.assertNull(cache.get(context(2), DLS_QUERIES, false));
+
+        cache.invalidate(new Index("index", "uuid"));
+        Assert.assertNull(cache.get(context(1), DLS_QUERIES, false));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        final DlsQueryCache cache = new DlsQueryCache(Settings.builder().put(ConfigConstants.SECURITY_DLS_QUERY_CACHE_SIZE, "16kb").build());
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(context(1), Collections.singleton("{\"term\":{\"dept\":\"" + i + "\"}}"), false, query(String.valueOf(i)));
+        }
+
+        Assert.assertTrue(cache.size() < 100);
+        Assert.assertTrue(DlsQueryCache.ramBytesUsed(query("a")) > 0);
+    }
+
+    @Test
+    public void testQueriesOfNotCacheableContextsAreNotCached() {
+        final DlsQueryCache cache = new DlsQueryCache(Settings.EMPTY);
+        final DlsQueryParser parser = new DlsQueryParser(
+                new NamedXContentRegistry(new SearchModule(Settings.EMPTY, Collections.emptyList()).getNamedXContents()), cache);
+
+        final QueryShardContext cacheable = context(1);
+        Assert.assertNotNull(parser.parse(DLS_QUERIES, cacheable));
+        Assert.assertEquals(1, cache.size());
+
+        // queries using now or scripts mark the context as not cacheable while they are built
+        final Set<String> nowQueries = Collections.singleton("{\"range\":{\"timestamp\":{\"gte\":\"now-1d\"}}}");
+        Assert.assertNotNull(parser.parse(nowQueries, context(1)));
+        Assert.assertNull(cache.get(context(1), nowQueries, false));
+
+        // the same holds for contexts which are not cacheable before
+        final Set<String> otherQueries = Collections.singleton("{\"term\":{\"dept\":\"b\"}}");
+        final QueryShardContext notCacheable = context(1);
+        setCacheable(notCacheable, false);
+        Assert.assertNotNull(parser.parse(otherQueries, notCacheable));
+        Assert.assertNull(cache.get(context(1), otherQueries, false));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    private static BooleanQuery query(final String dept) {
+        return new BooleanQuery.Builder().add(new TermQuery(new Term("dept", dept)), Occur.SHOULD).setMinimumNumberShouldMatch(1).build();
+    }
+
+    private static QueryShardContext context(final long mappingVersion) {
+        final IndexMetadata indexMetadata = IndexMetadata.builder("index")
+                .settings(Settings.builder()
+                        .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                        .put(IndexMetadata.SETTING_INDEX_UUID, "uuid")
+                        .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                        .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0))
+                .mappingVersion(mappingVersion)
+                .build();
+
+        final QueryShardContext context = Mockito.mock(QueryShardContext.class);
+        final MapperService mapperService = Mockito.mock(MapperService.class);
+        Mockito.when(context.getIndexSettings()).thenReturn(new IndexSettings(indexMetadata, Settings.EMPTY));
+        Mockito.when(context.getShardId()).thenReturn(0);
+        Mockito.when(context.getMapperService()).thenReturn(mapperService);
+        Mockito.when(context.toQuery(Mockito.any(QueryBuilder.class))).thenAnswer(invocation -> {
+            final QueryBuilder queryBuilder = invocation.getArgument(0);
+            if (queryBuilder instanceof RangeQueryBuilder) {
+                // as QueryShardContext.nowInMillis()
+                setCacheable(context, false);
+            }
+            return new ParsedQuery(new TermQuery(new Term("dept", queryBuilder.toString())));
+        });
+        setCacheable(context, true);
+        return context;
+    }
+
+    /**
+     * Sets the flag behind the final QueryShardContext.isCacheable(), which mocks cannot stub.
+     */
+    private static void setCacheable(final QueryShardContext context, final boolean cacheable) {
+        for (Class<?> type = QueryShardContext.class; type != null; type = type.getSuperclass()) {
+            try {
+                final Field field = type.getDeclaredField("cacheable");
+                field.setAccessible(true);
+                field.setBoolean(context, cacheable);
+                return;
+            } catch (NoSuchFieldException e) {
+                // declared by a super class
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        throw new IllegalStateException("QueryShardContext has no cacheable flag");
+    }
+}
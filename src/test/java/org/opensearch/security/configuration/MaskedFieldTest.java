@@ -0,0 +1,77 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.apache.lucene.util.BytesRef;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+
+public class MaskedFieldTest {
+
+    private final Salt salt = Salt.from(Settings.EMPTY);
+    private final Salt otherSalt = new Salt("0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    public void testDefaultMasking() {
+        final MaskedField maskedField = new MaskedField("name", salt);
+        final MaskedField otherMaskedField = new MaskedField("name", otherSalt);
+
+        for (String value : new String[] {"", "john", "a longer value with umlauts äöü"}) {
+            Assert.assertEquals(blake2b(value, salt), maskedField.mask(value));
+            Assert.assertEquals(blake2b(value, otherSalt), otherMaskedField.mask(value));
+            Assert.assertEquals(blake2b(value, salt), maskedField.mask(value));
+        }
+    }
+
+    @Test
+    public void testAlgorithmMasking() throws Exception {
+        final MaskedField maskedField = new MaskedField("name::SHA-256", salt);
+        final String expected = Hex.toHexString(MessageDigest.getInstance("SHA-256").digest("john".getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertEquals(expected, maskedField.mask("john"));
+        Assert.assertEquals(expected, maskedField.mask("john"));
+        Assert.assertEquals(new BytesRef(expected), maskedField.mask(new BytesRef("john")));
+    }
+
+    @Test
+    public void testRegexMasking() {
+        final MaskedField maskedField = new MaskedField("name::/[0-9]{3}/::XXX::/^(.)/::*", salt);
+
+        Assert.assertEquals("*rder-XXX-XXX", maskedField.mask("order-123-456"));
+        Assert.assertEquals(new BytesRef("*rder-XXX"), maskedField.mask(new BytesRef("order-123")));
+        Assert.assertArrayEquals("*XX".getBytes(StandardCharsets.UTF_8), maskedField.mask("123".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testBytesRefWithOffset() {
+        final MaskedField maskedField = new MaskedField("name", salt);
+        final BytesRef value = new BytesRef("xxjohnxx".getBytes(StandardCharsets.UTF_8), 2, 4);
+
+        Assert.assertEquals(new BytesRef(blake2b("john", salt)), maskedField.mask(value));
+        Assert.assertNull(maskedField.mask((BytesRef) null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownAlgorithm() throws Exception {
+        new MaskedField("name::NO-SUCH-ALGORITHM", salt).isValid();
+    }
+
+    private static String blake2b(final String value, final Salt salt) {
+        final byte[] in = value.getBytes(StandardCharsets.UTF_8);
+        final Blake2bDigest digest = new Blake2bDigest(null, 32, null, salt.getSalt16());
+        digest.update(in, 0, in.length);
+        final byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return Hex.toHexString(out);
+    }
+}
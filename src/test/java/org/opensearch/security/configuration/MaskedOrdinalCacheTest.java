@@ -0,0 +1,134 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.security.support.ConfigConstants;
+
+public class MaskedOrdinalCacheTest {
+
+    private final Salt salt = Salt.from(Settings.EMPTY);
+    private final MaskedField maskedField = new MaskedField("name", salt);
+
+    @Test
+    public void testMaskedOrdinalsFollowMaskedTermOrder() throws Exception {
+        final MaskedOrdinalCache cache = new MaskedOrdinalCache(Settings.EMPTY);
+
+        try (Directory directory = createIndex("a", "b", "c", "d");
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            final LeafReader leafReader = reader.leaves().get(0).reader();
+            final SortedDocValues docValues = leafReader.getSortedDocValues("name");
+
+            final MaskedOrdinalCache.MaskedOrdinals ordinals = cache.get(leafReader.getCoreCacheHelper(), "name", maskedField, salt,
+                    docValues.getValueCount(), docValues::termsEnum);
+            Assert.assertNotNull(ordinals);
+            Assert.assertSame(ordinals, cache.get(leafReader.getCoreCacheHelper(), "name", maskedField, salt,
+                    docValues.getValueCount(), () -> { throw new AssertionError("must not be rebuilt"); }));
+            Assert.assertEquals(1, cache.getMissCount());
+            Assert.assertEquals(1, cache.getHitCount());
+
+            Assert.assertEquals(4, ordinals.getValueCount());
+            for (int ord = 1; ord < ordinals.getValueCount(); ord++) {
+                Assert.assertTrue(ordinals.lookupOrd(ord - 1).compareTo(ordinals.lookupOrd(ord)) < 0);
+            }
+            for (int segmentOrd = 0; segmentOrd < docValues.getValueCount(); segmentOrd++) {
+                final BytesRef masked = maskedField.mask(docValues.lookupOrd(segmentOrd));
+                final int maskedOrd = ordinals.maskedOrd(segmentOrd);
+                Assert.assertEquals(masked, ordinals.lookupOrd(maskedOrd));
+                Assert.assertEquals(maskedOrd, ordinals.lookupTerm(masked));
+            }
+            Assert.assertTrue(ordinals.lookupTerm(new BytesRef("not a hash")) < 0);
+        }
+    }
+
+    @Test
+    public void testTermsMaskedToTheSameValueShareAnOrdinal() throws Exception {
+        final MaskedOrdinalCache cache = new MaskedOrdinalCache(Settings.EMPTY);
+        final MaskedField regexMaskedField = new MaskedField("name::/[a-z]/::x", salt);
+
+        try (Directory directory = createIndex("a1", "b1", "c2", "d0");
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            final LeafReader leafReader = reader.leaves().get(0).reader();
+            final SortedDocValues docValues = leafReader.getSortedDocValues("name");
+
+            final MaskedOrdinalCache.MaskedOrdinals ordinals = cache.get(leafReader.getCoreCacheHelper(), "name", regexMaskedField,
+                    salt, docValues.getValueCount(), docValues::termsEnum);
+
+            Assert.assertEquals(3, ordinals.getValueCount());
+            Assert.assertEquals(new BytesRef("x0"), ordinals.lookupOrd(0));
+            Assert.assertEquals(new BytesRef("x1"), ordinals.lookupOrd(1));
+            Assert.assertEquals(new BytesRef("x2"), ordinals.lookupOrd(2));
+            Assert.assertEquals(1, ordinals.maskedOrd(0));
+            Assert.assertEquals(1, ordinals.maskedOrd(1));
+            Assert.assertEquals(2, ordinals.maskedOrd(2));
+            Assert.assertEquals(0, ordinals.maskedOrd(3));
+        }
+    }
+
+    @Test
+    public void testEntriesAreSeparatedBySaltAndDroppedOnClose() throws Exception {
+        final MaskedOrdinalCache cache = new MaskedOrdinalCache(Settings.EMPTY);
+        final Salt otherSalt = new Salt("0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+        try (Directory directory = createIndex("a", "b")) {
+            final DirectoryReader reader = DirectoryReader.open(directory);
+            final LeafReader leafReader = reader.leaves().get(0).reader();
+            final SortedDocValues docValues = leafReader.getSortedDocValues("name");
+
+            final MaskedOrdinalCache.MaskedOrdinals ordinals = cache.get(leafReader.getCoreCacheHelper(), "name", maskedField, salt,
+                    2, docValues::termsEnum);
+            final MaskedOrdinalCache.MaskedOrdinals otherOrdinals = cache.get(leafReader.getCoreCacheHelper(), "name",
+                    new MaskedField("name", otherSalt), otherSalt, 2, docValues::termsEnum);
+            Assert.assertNotSame(ordinals, otherOrdinals);
+            Assert.assertEquals(2, cache.size());
+
+            reader.close();
+            Assert.assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testTooLargeSegmentsAreNotCached() throws Exception {
+        final MaskedOrdinalCache cache = new MaskedOrdinalCache(Settings.builder()
+                .put(ConfigConstants.SECURITY_MASKED_FIELDS_ORDINAL_CACHE_SIZE, "1kb").build());
+
+        try (Directory directory = createIndex("a");
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            final LeafReader leafReader = reader.leaves().get(0).reader();
+            final SortedDocValues docValues = leafReader.getSortedDocValues("name");
+            Assert.assertNotNull(cache.get(leafReader.getCoreCacheHelper(), "name", maskedField, salt, 1, docValues::termsEnum));
+            Assert.assertNull(cache.get(leafReader.getCoreCacheHelper(), "name", maskedField, salt, 100, docValues::termsEnum));
+        }
+    }
+
+    private static Directory createIndex(final String... values) throws Exception {
+        final Directory directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (String value : values) {
+                final Document document = new Document();
+                document.add(new SortedDocValuesField("name", new BytesRef(value)));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        return directory;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.bytes.BytesArray;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.xcontent.XContentHelper;
+import org.opensearch.common.xcontent.XContentType;
+import org.opensearch.common.xcontent.support.XContentMapValues;
+
+public class SourceRewriterTest {
+
+    private static final String SOURCE = "{\"name\":\"john\",\"age\":42,\"empty\":{},"
+            + "\"address\":{\"street\":\"main\",\"city\":\"x\",\"geo\":{\"lat\":1.5,\"lon\":2.5}},"
+            + "\"tags\":[\"a\",\"b\"],\"items\":[{\"id\":1,\"secret\":\"s\"},{\"secret\":\"t\"},[1,2]],"
+            + "\"dotted.field\":{\"inner\":true},\"nothing\":null}";
+
+    private final MaskedField maskedName = new MaskedField("name", Salt.from(Settings.EMPTY));
+
+    @Test
+    public void testTopLevelFields() throws Exception {
+        assertSource("{\"name\":\"john\",\"address\":{\"street\":\"main\",\"city\":\"x\",\"geo\":{\"lat\":1.5,\"lon\":2.5}}}",
+                new SourceRewriter(ImmutableSet.of("name", "address"), Collections.emptySet(), true, null).rewrite(bytes(SOURCE)));
+
+        final Map<String, Object> excluded = toMap(new SourceRewriter(Collections.emptySet(), ImmutableSet.of("items", "tags", "age"),
+                true, null).rewrite(bytes(SOURCE)));
+        Assert.assertEquals(ImmutableSet.of("name", "empty", "address", "dotted.field", "nothing"), excluded.keySet());
+    }
+
+    @Test
+    public void testPatternsMatchXContentMapValuesFilter() throws Exception {
+        assertSameAsFilter(new String[] {"address.street", "items.secret"}, null);
+        assertSameAsFilter(new String[] {"address.*", "tags"}, null);
+        assertSameAsFilter(new String[] {"*.lat", "empty", "dotted.field"}, null);
+        assertSameAsFilter(new String[] {"items", "nothing"}, null);
+        assertSameAsFilter(null, new String[] {"address.geo.*", "items.secret"});
+        assertSameAsFilter(null, new String[] {"a*", "dotted.field.inner"});
+        assertSameAsFilter(null, new String[] {"*.id", "empty"});
+    }
+
+    @Test
+    public void testMasking() throws Exception {
+        final MaskedField maskedCity = new MaskedField("address.city", Salt.from(Settings.EMPTY));
+        final MaskedField maskedTags = new MaskedField("tags", Salt.from(Settings.EMPTY));
+        final SourceRewriter rewriter = new SourceRewriter(null, null, false, field -> {
+            switch (field) {
+                case "name":
+                    return maskedName;
+                case "address.city":
+                    return maskedCity;
+                case "tags":
+                    return maskedTags;
+                case "items.secret":
+                    return maskedName;
+                default:
+                    return null;
+            }
+        });
+
+        final Map<String, Object> source = toMap(rewriter.rewrite(bytes(SOURCE)));
+        Assert.assertEquals(maskedName.mask("john"), source.get("name"));
+        Assert.assertEquals(maskedCity.mask("x"), XContentMapValues.extractValue("address.city", source));
+        Assert.assertEquals("main", XContentMapValues.extractValue("address.street", source));
+        Assert.assertEquals(Arrays.asList(maskedTags.mask("a"), maskedTags.mask("b")), source.get("tags"));
+        Assert.assertEquals(42, source.get("age"));
+        // objects within arrays are not masked
+        Assert.assertEquals(toMap(bytes(SOURCE)).get("items"), source.get("items"));
+    }
+
+    @Test
+    public void testMaskingAfterFiltering() throws Exception {
+        final SourceRewriter rewriter = new SourceRewriter(new HashSet<>(Arrays.asList("na*", "age")), Collections.emptySet(), false,
+                field -> "name".equals(field) ? maskedName : null);
+        Assert.assertEquals("{\"name\":\"" + maskedName.mask("john") + "\",\"age\":42}",
+                new String(rewriter.rewrite(bytes(SOURCE)), StandardCharsets.UTF_8));
+    }
+
+    private static void assertSameAsFilter(final String[] includes, final String[] excludes) throws Exception {
+        final Set<String> includeSet = includes == null ? Collections.emptySet() : new HashSet<>(Arrays.asList(includes));
+        final Set<String> excludeSet = excludes == null ? Collections.emptySet() : new HashSet<>(Arrays.asList(excludes));
+        final byte[] rewritten = new SourceRewriter(includeSet, excludeSet, false, null).rewrite(bytes(SOURCE));
+        Assert.assertEquals(Arrays.toString(includes) + " " + Arrays.toString(excludes),
+                XContentMapValues.filter(includes, excludes).apply(toMap(bytes(SOURCE))), toMap(rewritten));
+    }
+
+    private static void assertSource(final String expected, final byte[] actual) {
+        Assert.assertEquals(expected, new String(actual, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(final String source) {
+        return source.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Object> toMap(final byte[] source) {
+        return XContentHelper.convertToMap(new BytesArray(source), true, XContentType.JSON).v2();
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.lucene.search.join.ScoreMode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.opensearch.action.ActionListener;
+import org.opensearch.action.get.GetRequest;
+import org.opensearch.action.get.GetResponse;
+import org.opensearch.client.Client;
+import org.opensearch.common.bytes.BytesArray;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.index.Index;
+import org.opensearch.index.engine.Engine;
+import org.opensearch.index.get.GetResult;
+import org.opensearch.index.query.BoolQueryBuilder;
+import org.opensearch.index.query.QueryBuilder;
+import org.opensearch.index.query.QueryBuilders;
+import org.opensearch.index.query.TermsQueryBuilder;
+import org.opensearch.index.shard.ShardId;
+import org.opensearch.indices.TermsLookup;
+import org.opensearch.security.user.User;
+
+public class TermsLookupCacheTest {
+
+    private final TermsLookup termsLookup = new TermsLookup("lookup", "1", "allowed");
+    private final Map<TermsLookupCache.Key, List<Object>> terms = Collections.singletonMap(new TermsLookupCache.Key(termsLookup),
+            Arrays.asList("a", "b"));
+
+    @Test
+    public void testReplaceNestedTermsLookup() {
+        final BoolQueryBuilder query = QueryBuilders.boolQuery().minimumShouldMatch(1)
+                .should(QueryBuilders.boolQuery().must(QueryBuilders.termQuery("_index", "index_a"))
+                        .must(QueryBuilders.constantScoreQuery(new TermsQueryBuilder("dept", termsLookup).queryName("tlq"))))
+                .should(QueryBuilders.termQuery("_index", "index_b"));
+
+        final BoolQueryBuilder expected = QueryBuilders.boolQuery().minimumShouldMatch(1)
+                .should(QueryBuilders.boolQuery().must(QueryBuilders.termQuery("_index", "index_a"))
+                        .must(QueryBuilders.constantScoreQuery(new TermsQueryBuilder("dept", "a", "b").queryName("tlq"))))
+                .should(QueryBuilders.termQuery("_index", "index_b"));
+
+        Assert.assertEquals(expected, TermsLookupCache.replace(query, terms));
+    }
+
+    @Test
+    public void testQueryWithoutTermsLookupIsUnchanged() {
+        final QueryBuilder query = QueryBuilders.boolQuery().must(QueryBuilders.nestedQuery("path",
+                QueryBuilders.termQuery("field", "value"), ScoreMode.None));
+
+        Assert.assertSame(query, TermsLookupCache.replace(query, terms));
+    }
+
+    @Test
+    public void testUnsupportedNesting() {
+        final QueryBuilder query = QueryBuilders.boolQuery().must(QueryBuilders.nestedQuery("path",
+                new TermsQueryBuilder("dept", termsLookup), ScoreMode.None));
+
+        Assert.assertNull(TermsLookupCache.replace(query, terms));
+    }
+
+    @Test
+    public void testEntriesAreScopedToTheUser() {
+        final AtomicInteger fetches = new AtomicInteger();
+        final TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY, termsLookup -> "lookup");
+        final Client client = client(fetches);
+
+        Assert.assertEquals(new TermsQueryBuilder("dept", "a", "b"), resolve(cache, client, new User("alice")));
+        resolve(cache, client, new User("alice"));
+        Assert.assertEquals(1, fetches.get());
+
+        // the lookup document may be subject to other privileges and restrictions
+        resolve(cache, client, new User("bob"));
+        Assert.assertEquals(2, fetches.get());
+        resolve(cache, client, new User("alice", Collections.singleton("other_backend_role"), null));
+        Assert.assertEquals(3, fetches.get());
+
+        resolve(cache, client, null);
+        resolve(cache, client, null);
+        Assert.assertEquals(5, fetches.get());
+    }
+
+    @Test
+    public void testIndexingOperationsInvalidateEntries() {
+        final AtomicInteger fetches = new AtomicInteger();
+        final TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY, termsLookup -> "lookup");
+        final Client client = client(fetches);
+        final User user = new User("alice");
+        final ShardId shardId = new ShardId("lookup", "_na_", 0);
+
+        resolve(cache, client, user);
+        cache.postIndex(shardId, index("2"), (Engine.IndexResult) null);
+        cache.postIndex(new ShardId("other", "_na_", 0), index("1"), (Engine.IndexResult) null);
+        resolve(cache, client, user);
+        Assert.assertEquals(1, fetches.get());
+
+        cache.postIndex(shardId, index("1"), (Engine.IndexResult) null);
+        resolve(cache, client, user);
+        Assert.assertEquals(2, fetches.get());
+
+        final Engine.Delete delete = Mockito.mock(Engine.Delete.class);
+        Mockito.when(delete.id()).thenReturn("1");
+        cache.postDelete(shardId, delete, (Engine.DeleteResult) null);
+        resolve(cache, client, user);
+        Assert.assertEquals(3, fetches.get());
+
+        cache.invalidate(new Index("lookup", "_na_"));
+        resolve(cache, client, user);
+        Assert.assertEquals(4, fetches.get());
+
+        cache.onConfigModelChanged(null);
+        resolve(cache, client, user);
+        Assert.assertEquals(5, fetches.get());
+    }
+
+    @Test
+    public void testWritesOnlyDiscardFetchesOfTheirDocument() {
+        final AtomicInteger fetches = new AtomicInteger();
+        final List<Runnable> responses = new ArrayList<>();
+        final TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY, termsLookup -> "lookup");
+        final Client client = deferredClient(fetches, responses);
+        final User user = new User("alice");
+        final ShardId shardId = new ShardId("lookup", "_na_", 0);
+
+        // a write to another document while the fetch is pending
+        resolve(cache, client, user);
+        cache.postIndex(shardId, index("2"), (Engine.IndexResult) null);
+        responses.remove(0).run();
+        resolve(cache, client, user);
+        Assert.assertEquals(1, fetches.get());
+        Assert.assertTrue(responses.isEmpty());
+
+        // a write to the document itself while the fetch is pending
+        cache.postIndex(shardId, index("1"), (Engine.IndexResult) null);
+        resolve(cache, client, user);
+        cache.postIndex(shardId, index("1"), (Engine.IndexResult) null);
+        responses.remove(0).run();
+        resolve(cache, client, user);
+        Assert.assertEquals(2, fetches.get());
+        Assert.assertEquals(1, responses.size());
+        responses.remove(0).run();
+        resolve(cache, client, user);
+        Assert.assertEquals(3, fetches.get());
+        Assert.assertTrue(responses.isEmpty());
+    }
+
+    @Test
+    public void testWritesDropTheEntriesOfAllUsersOfTheirDocument() {
+        final AtomicInteger fetches = new AtomicInteger();
+        final TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY, termsLookup -> "lookup");
+        final Client client = client(fetches);
+        final TermsLookup otherLookup = new TermsLookup("lookup", "2", "allowed");
+
+        resolve(cache, client, new User("alice"));
+        resolve(cache, client, new User("bob"));
+        resolve(cache, client, new User("alice"), otherLookup);
+        Assert.assertEquals(3, fetches.get());
+        Assert.assertEquals(2L, cache.getStats().get("documents"));
+        Assert.assertEquals(3L, cache.getStats().get("entries"));
+
+        cache.postIndex(new ShardId("lookup", "_na_", 0), index("1"), (Engine.IndexResult) null);
+        Assert.assertEquals(1L, cache.getStats().get("entries"));
+        resolve(cache, client, new User("alice"), otherLookup);
+        Assert.assertEquals(3, fetches.get());
+        resolve(cache, client, new User("alice"));
+        resolve(cache, client, new User("bob"));
+        Assert.assertEquals(5, fetches.get());
+    }
+
+    @Test
+    public void testNotCachedWithoutLocalShardCopy() {
+        final AtomicInteger fetches = new AtomicInteger();
+        final TermsLookupCache cache = new TermsLookupCache(Settings.EMPTY, termsLookup -> null);
+        final Client client = client(fetches);
+
+        resolve(cache, client, new User("alice"));
+        resolve(cache, client, new User("alice"));
+        Assert.assertEquals(2, fetches.get());
+    }
+
+    private QueryBuilder resolve(final TermsLookupCache cache, final Client client, final User user) {
+        return resolve(cache, client, user, termsLookup);
+    }
+
+    private static QueryBuilder resolve(final TermsLookupCache cache, final Client client, final User user, final TermsLookup termsLookup) {
+        final AtomicReference<QueryBuilder> result = new AtomicReference<>();
+        cache.resolve(new TermsQueryBuilder("dept", termsLookup), client, user,
+                ActionListener.wrap(result::set, e -> Assert.fail(e.toString())));
+        return result.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Client client(final AtomicInteger fetches) {
+        final Client client = Mockito.mock(Client.class);
+        Mockito.doAnswer(invocation -> {
+            final GetRequest request = invocation.getArgument(0);
+            fetches.incrementAndGet();
+            ((ActionListener<GetResponse>) invocation.getArgument(1)).onResponse(new GetResponse(new GetResult(request.index(), request.id(),
+                    fetches.get(), 1, 1, true, new BytesArray("{\"allowed\":[\"a\",\"b\"]}"), null, null)));
+            return null;
+        }).when(client).get(Mockito.any(GetRequest.class), Mockito.any(ActionListener.class));
+        return client;
+    }
+
+    /**
+     * A client which only responds once the returned response is run, like a get running concurrently to indexing operations
+     */
+    @SuppressWarnings("unchecked")
+    private static Client deferredClient(final AtomicInteger fetches, final List<Runnable> responses) {
+        final Client client = client(fetches);
+        final Client deferred = Mockito.mock(Client.class);
+        Mockito.doAnswer(invocation -> {
+            responses.add(() -> client.get(invocation.getArgument(0), (ActionListener<GetResponse>) invocation.getArgument(1)));
+            return null;
+        }).when(deferred).get(Mockito.any(GetRequest.class), Mockito.any(ActionListener.class));
+        return deferred;
+    }
+
+    private static Engine.Index index(final String id) {
+        final Engine.Index index = Mockito.mock(Engine.Index.class);
+        Mockito.when(index.id()).thenReturn(id);
+        return index;
+    }
+}
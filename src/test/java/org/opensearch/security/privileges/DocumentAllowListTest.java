@@ -0,0 +1,57 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.privileges;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.security.support.ConfigConstants;
+
+public class DocumentAllowListTest {
+
+    @Test
+    public void testEncodeAndParse() {
+        final DocumentAllowList documentAllowList = new DocumentAllowList();
+        documentAllowList.add("lookup", "1");
+        documentAllowList.add("lookup", "a/b|c\\d");
+        documentAllowList.add("other", "1");
+
+        final DocumentAllowList parsed = DocumentAllowList.parse(documentAllowList.toHeaderValue());
+
+        Assert.assertEquals(documentAllowList, parsed);
+        Assert.assertTrue(parsed.isAllowed("lookup", "1"));
+        Assert.assertTrue(parsed.isAllowed("lookup", "a/b|c\\d"));
+        Assert.assertTrue(parsed.isAllowed("other", "1"));
+        Assert.assertFalse(parsed.isAllowed("other", "a/b|c\\d"));
+        Assert.assertFalse(parsed.isAllowed("unknown", "1"));
+    }
+
+    @Test
+    public void testParseTextFormat() {
+        final DocumentAllowList documentAllowList = new DocumentAllowList();
+        documentAllowList.add("lookup", "1");
+        documentAllowList.add("lookup", "a/b|c\\d");
+
+        Assert.assertEquals(documentAllowList, DocumentAllowList.parse(documentAllowList.toString()));
+        Assert.assertTrue(DocumentAllowList.parse("").isEmpty());
+    }
+
+    @Test
+    public void testDecodedOncePerThreadContext() {
+        final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        Assert.assertNull(DocumentAllowList.get(threadContext));
+
+        final DocumentAllowList documentAllowList = new DocumentAllowList();
+        documentAllowList.add("lookup", "1");
+        threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER, documentAllowList.toHeaderValue());
+
+        final DocumentAllowList parsed = DocumentAllowList.get(threadContext);
+        Assert.assertEquals(documentAllowList, parsed);
+        Assert.assertSame(parsed, DocumentAllowList.get(threadContext));
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.securityconf;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.opensearch.Version;
+import org.opensearch.action.support.IndicesOptions;
+import org.opensearch.cluster.ClusterName;
+import org.opensearch.cluster.ClusterState;
+import org.opensearch.cluster.metadata.AliasMetadata;
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.metadata.Metadata;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.collect.Tuple;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.security.resolver.IndexResolverReplacer.Resolved;
+import org.opensearch.security.securityconf.ConfigModelV7.IndexPattern;
+import org.opensearch.security.securityconf.ConfigModelV7.SecurityRole;
+import org.opensearch.security.securityconf.ConfigModelV7.SecurityRoles;
+import org.opensearch.security.securityconf.impl.CType;
+import org.opensearch.security.securityconf.impl.SecurityDynamicConfiguration;
+import org.opensearch.security.support.ReverseDnsCache;
+import org.opensearch.security.support.WildcardMatcher;
+import org.opensearch.security.user.User;
+
+/**
+ * Compares the compiled index privileges with the evaluation of the index patterns of every role per request,
+ * which is how permissions were checked before they were compiled.
+ */
+public class CompiledIndexPrivilegesTest {
+
+    private static final String ROLES = "{\"_meta\":{\"type\":\"roles\",\"config_version\":2},"
+            + "\"data_reader\":{\"index_permissions\":[{\"index_patterns\":[\"data*\"],\"allowed_actions\":[\"indices:data/read/*\"]}]},"
+            + "\"alias_reader\":{\"index_permissions\":[{\"index_patterns\":[\"alias*\"],\"allowed_actions\":[\"indices:data/read/search\"]}]},"
+            + "\"logs_writer\":{\"index_permissions\":[{\"index_patterns\":[\"logs-1\"],\"allowed_actions\":[\"indices:data/write/*\"]}]},"
+            + "\"all_getter\":{\"index_permissions\":[{\"index_patterns\":[\"*\"],\"allowed_actions\":[\"indices:data/read/get\"]}]},"
+            + "\"own_indices\":{\"index_permissions\":[{\"index_patterns\":[\"${user.name}-*\"],\"allowed_actions\":[\"*\"]}]},"
+            + "\"scoped_search\":{\"index_permissions\":[{\"index_patterns\":[\"${attr.internal.scope}\"],"
+            + "\"allowed_actions\":[\"indices:data/read/search\"]}]}}";
+
+    private static final String[][] ACTIONS = {
+            { "indices:data/read/search" },
+            { "indices:data/read/get" },
+            { "indices:data/write/index" },
+            { "indices:admin/get" },
+            { "indices:data/read/search", "indices:data/read/get" } };
+
+    private static final String[] INDICES = { "data-1", "logs-1", "logs-2", "hidden-1", "alice-1", "bob-1", "alias-a", "missing" };
+
+    private final IndexNameExpressionResolver resolver = new IndexNameExpressionResolver(new ThreadContext(Settings.EMPTY));
+    private final ClusterService clusterService = Mockito.mock(ClusterService.class);
+    private ClusterState clusterState;
+    private ConfigModelV7 configModel;
+
+    @Before
+    public void setUp() throws Exception {
+        Mockito.when(clusterService.state()).thenAnswer(invocation -> clusterState);
+        setMetadata(1, index("data-1", 1, false, false, "alias-a"), index("logs-1", 1, false, false),
+                index("logs-2", 1, false, true, "alias-b"), index("hidden-1", 1, true, false, "alias-a"), index("alice-1", 1, false, false),
+                index("bob-1", 1, false, false));
+
+        final DynamicConfigModel dcm = Mockito.mock(DynamicConfigModel.class);
+        Mockito.when(dcm.getHostsResolverMode()).thenReturn("ip-only");
+        configModel = new ConfigModelV7(SecurityDynamicConfiguration.fromJson(ROLES, CType.ROLES, 2, 0, 0),
+                SecurityDynamicConfiguration.empty(), SecurityDynamicConfiguration.empty(), SecurityDynamicConfiguration.empty(), dcm,
+                Settings.EMPTY, new ReverseDnsCache(Settings.EMPTY, Runnable::run));
+    }
+
+    @Test
+    public void testCompiledEvaluationMatchesPatternEvaluation() {
+        assertSameEvaluation();
+    }
+
+    @Test
+    public void testCompiledEvaluationMatchesPatternEvaluationAfterTopologyChanges() {
+        assertSameEvaluation();
+
+        // close data-1, reopen logs-2, hide logs-1 and move alias-a from data-1 to bob-1
+        setMetadata(2, index("data-1", 1, false, true), index("logs-1", 1, true, false), index("logs-2", 1, false, false, "alias-b"),
+                index("hidden-1", 1, true, false, "alias-a"), index("alice-1", 1, false, false), index("bob-1", 2, false, false, "alias-a"));
+        assertSameEvaluation();
+    }
+
+    @Test
+    public void testExpectedPermissions() {
+        final User alice = user("alice", "logs-*");
+        final SecurityRoles roles = configModel.getSecurityRoles();
+
+        Assert.assertTrue(compiled(roles.filter(ImmutableSet.of("data_reader")), resolved("data-1"), alice, "indices:data/read/search"));
+        Assert.assertFalse(compiled(roles.filter(ImmutableSet.of("data_reader")), resolved("data-1", "logs-1"), alice, "indices:data/read/search"));
+        Assert.assertTrue(compiled(roles.filter(ImmutableSet.of("alias_reader")), resolved("alias-a"), alice, "indices:data/read/search"));
+        Assert.assertTrue(compiled(roles.filter(ImmutableSet.of("alias_reader")), resolved("data-1"), alice, "indices:data/read/search"));
+        Assert.assertFalse(compiled(roles.filter(ImmutableSet.of("logs_writer")), resolved("logs-2"), alice, "indices:data/write/index"));
+
+        // templated patterns are resolved with the attributes of the current user
+        Assert.assertTrue(compiled(roles.filter(ImmutableSet.of("own_indices")), resolved("alice-1"), alice, "indices:admin/get"));
+        Assert.assertFalse(compiled(roles.filter(ImmutableSet.of("own_indices")), resolved("bob-1"), alice, "indices:admin/get"));
+        Assert.assertTrue(compiled(roles.filter(ImmutableSet.of("own_indices")), resolved("bob-1"), user("bob", null), "indices:admin/get"));
+        Assert.assertTrue(compiled(roles.filter(ImmutableSet.of("scoped_search")), resolved("logs-2"), alice, "indices:data/read/search"));
+        Assert.assertFalse(compiled(roles.filter(ImmutableSet.of("scoped_search")), resolved("data-1"), alice, "indices:data/read/search"));
+
+        // requests on all indices need a role granting *, either literally or via user attributes
+        Assert.assertTrue(compiled(roles.filter(ImmutableSet.of("all_getter")), Resolved._LOCAL_ALL, alice, "indices:data/read/get"));
+        Assert.assertFalse(compiled(roles.filter(ImmutableSet.of("data_reader")), Resolved._LOCAL_ALL, alice, "indices:data/read/get"));
+        Assert.assertFalse(compiled(roles.filter(ImmutableSet.of("scoped_search")), Resolved._LOCAL_ALL, alice, "indices:data/read/search"));
+        Assert.assertTrue(compiled(roles.filter(ImmutableSet.of("scoped_search")), Resolved._LOCAL_ALL, user("carol", "*"),
+                "indices:data/read/search"));
+    }
+
+    @Test
+    public void testIndexTableIsRebuiltOnTopologyChangesOnly() {
+        final CompiledIndexPrivileges compiled = new CompiledIndexPrivileges(configModel.getSecurityRoles().getRoles());
+        final BitSet patterns = compiled.getIndexTable(resolver, clusterService).getPatternsForIndex("logs-1");
+
+        // e.g. a mapping update
+        setMetadata(2, index("data-1", 1, false, false, "alias-a"), index("logs-1", 1, false, false),
+                index("logs-2", 1, false, true, "alias-b"), index("hidden-1", 1, true, false, "alias-a"), index("alice-1", 1, false, false),
+                index("bob-1", 1, false, false));
+        Assert.assertSame(patterns, compiled.getIndexTable(resolver, clusterService).getPatternsForIndex("logs-1"));
+
+        // hiding an index changes how wildcards resolve
+        setMetadata(3, index("data-1", 1, false, false, "alias-a"), index("logs-1", 1, true, false),
+                index("logs-2", 1, false, true, "alias-b"), index("hidden-1", 1, true, false, "alias-a"), index("alice-1", 1, false, false),
+                index("bob-1", 1, false, false));
+        Assert.assertNotSame(patterns, compiled.getIndexTable(resolver, clusterService).getPatternsForIndex("logs-1"));
+    }
+
+    private void assertSameEvaluation() {
+        final List<User> users = ImmutableList.of(user("alice", "*"), user("bob", "logs-*"), user("carol", null));
+        final List<Resolved> requests = Arrays.stream(INDICES).map(index -> resolved(index)).collect(Collectors.toList());
+        requests.add(resolved("data-1", "logs-1"));
+        requests.add(resolved("alice-1", "logs-2", "hidden-1"));
+        requests.add(Resolved._LOCAL_ALL);
+
+        final SecurityRoles allRoles = configModel.getSecurityRoles();
+        final List<SecurityRoles> roleSets = allRoles.getRoleNames()
+                .stream()
+                .map(role -> allRoles.filter(Collections.singleton(role)))
+                .collect(Collectors.toList());
+        roleSets.add(allRoles.filter(ImmutableSet.of("data_reader", "own_indices")));
+        roleSets.add(allRoles);
+
+        for (SecurityRoles roles : roleSets) {
+            for (User user : users) {
+                for (Resolved resolved : requests) {
+                    for (String[] actions : ACTIONS) {
+                        final boolean expected = patternEvaluation(roles, resolved, user, actions);
+                        final String message = roles.getRoleNames() + " " + user.getName() + " " + resolved.getAllIndices() + " "
+                                + Arrays.toString(actions);
+                        Assert.assertEquals(message, expected, compiled(roles, resolved, user, actions));
+
+                        // a single role has to grant all actions on all indices
+                        final boolean expectedForOneRole = roles.getRoleNames()
+                                .stream()
+                                .anyMatch(role -> patternEvaluation(allRoles.filter(Collections.singleton(role)), resolved, user, actions));
+                        Assert.assertEquals(message, expectedForOneRole, roles.get(resolved, user, actions, resolver, clusterService));
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean compiled(final SecurityRoles roles, final Resolved resolved, final User user, final String... actions) {
+        return roles.impliesTypePermGlobal(resolved, user, actions, resolver, clusterService);
+    }
+
+    /**
+     * The evaluation of the index patterns of all roles as done before they were compiled
+     */
+    private boolean patternEvaluation(final SecurityRoles roles, final Resolved resolved, final User user, final String[] actions) {
+        final Set<IndexPattern> ipatterns = new HashSet<>();
+        for (SecurityRole role : roles.getRoles()) {
+            ipatterns.addAll(role.getIpatterns());
+        }
+        final List<Tuple<WildcardMatcher, WildcardMatcher>> matchers = ipatterns.stream()
+                .filter(ip -> !resolved.isLocalAll() || "*".equals(ip.getUnresolvedIndexPattern(user)))
+                .map(ip -> new Tuple<>(WildcardMatcher.from(ip.getResolvedIndexPattern(user, resolver, clusterService, true)), ip.getPerms()))
+                .collect(Collectors.toList());
+        return resolved.getAllIndices()
+                .stream()
+                .allMatch(index -> Arrays.stream(actions)
+                        .allMatch(action -> matchers.stream().anyMatch(m -> m.v1().test(index) && m.v2().test(action))));
+    }
+
+    private void setMetadata(final long version, final IndexMetadata... indices) {
+        final Metadata.Builder metadata = Metadata.builder().version(version);
+        for (IndexMetadata indexMetadata : indices) {
+            metadata.put(indexMetadata, false);
+        }
+        clusterState = ClusterState.builder(ClusterName.DEFAULT).metadata(metadata).build();
+    }
+
+    private static IndexMetadata index(final String name, final long aliasesVersion, final boolean hidden, final boolean closed,
+            final String... aliases) {
+        final IndexMetadata.Builder builder = IndexMetadata.builder(name)
+                .settings(Settings.builder()
+                        .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                        .put(IndexMetadata.SETTING_INDEX_UUID, name)
+                        .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                        .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+                        .put(IndexMetadata.INDEX_HIDDEN_SETTING.getKey(), hidden))
+                .state(closed ? IndexMetadata.State.CLOSE : IndexMetadata.State.OPEN)
+                .aliasesVersion(aliasesVersion);
+        for (String alias : aliases) {
+            builder.putAlias(AliasMetadata.builder(alias));
+        }
+        return builder.build();
+    }
+
+    private static User user(final String name, final String scope) {
+        final User user = new User(name);
+        if (scope != null) {
+            user.addAttributes(ImmutableMap.of("attr.internal.scope", scope));
+        }
+        return user;
+    }
+
+    /**
+     * Resolved instances are created by the IndexResolverReplacer only
+     */
+    private static Resolved resolved(final String... indices) {
+        try {
+            final Constructor<Resolved> constructor = Resolved.class.getDeclaredConstructor(ImmutableSet.class, ImmutableSet.class,
+                    ImmutableSet.class, ImmutableSet.class, IndicesOptions.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(ImmutableSet.of(), ImmutableSet.copyOf(indices), ImmutableSet.copyOf(indices), ImmutableSet.of(),
+                    IndicesOptions.lenientExpandOpen());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.securityconf;
+
+import java.lang.reflect.Constructor;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import org.opensearch.Version;
+import org.opensearch.action.support.IndicesOptions;
+import org.opensearch.cluster.ClusterName;
+import org.opensearch.cluster.ClusterState;
+import org.opensearch.cluster.metadata.IndexMetadata;
+import org.opensearch.cluster.metadata.IndexNameExpressionResolver;
+import org.opensearch.cluster.metadata.Metadata;
+import org.opensearch.cluster.service.ClusterService;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.transport.TransportAddress;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.security.resolver.IndexResolverReplacer.Resolved;
+import org.opensearch.security.securityconf.ConfigModelV7.SecurityRoles;
+import org.opensearch.security.securityconf.impl.CType;
+import org.opensearch.security.securityconf.impl.SecurityDynamicConfiguration;
+import org.opensearch.security.support.ReverseDnsCache;
+import org.opensearch.security.user.User;
+
+public class ConfigModelV7Test {
+
+    private static final String ROLES = "{\"_meta\":{\"type\":\"roles\",\"config_version\":2},"
+            + "\"dept_dls\":{\"index_permissions\":[{\"index_patterns\":[\"data*\"],"
+            + "\"dls\":\"{\\\"term\\\":{\\\"dept\\\":\\\"${attr.internal.dept}\\\"}}\",\"allowed_actions\":[\"indices:data/read/*\"]}]},"
+            + "\"own_fls\":{\"index_permissions\":[{\"index_patterns\":[\"${user.name}-*\"],\"fls\":[\"~secret\"],\"allowed_actions\":[\"*\"]}]}}";
+
+    private final IndexNameExpressionResolver resolver = new IndexNameExpressionResolver(new ThreadContext(Settings.EMPTY));
+    private final ClusterService clusterService = Mockito.mock(ClusterService.class);
+    private ClusterState clusterState;
+    private ConfigModelV7 configModel;
+
+    @Before
+    public void setUp() throws Exception {
+        Mockito.when(clusterService.state()).thenAnswer(invocation -> clusterState);
+        setMetadata(1, "data-1", "alice-1", "bob-1", "carol-1");
+
+        configModel = configModel("", "ip-only", Runnable::run);
+    }
+
+    @Test
+    public void testTemplatedDlsQueriesAreCachedPerUserAttributes() {
+        final SecurityRoles roles = configModel.getSecurityRoles().filter(ImmutableSet.of("dept_dls"));
+
+        final EvaluatedDlsFlsConfig alice = getDlsFls(roles, user("alice", "a"));
+        final EvaluatedDlsFlsConfig bob = getDlsFls(roles, user("bob", "b"));
+        Assert.assertNotSame(alice, bob);
+        Assert.assertEquals(ImmutableSet.of("{\"term\":{\"dept\":\"a\"}}"), alice.getDlsQueriesByIndex().get("data-1"));
+        Assert.assertEquals(ImmutableSet.of("{\"term\":{\"dept\":\"b\"}}"), bob.getDlsQueriesByIndex().get("data-1"));
+
+        // only the substituted attributes are part of the key
+        Assert.assertSame(alice, getDlsFls(roles, user("alice", "a")));
+        Assert.assertSame(alice, getDlsFls(roles, user("carol", "a")));
+        Assert.assertNotSame(alice, getDlsFls(roles, user("alice", "b")));
+        Assert.assertSame(bob, getDlsFls(roles, user("alice", "b")));
+
+        // roles are part of the key as well, also for the filtered copies sharing the cache
+        final SecurityRoles moreRoles = configModel.getSecurityRoles().filter(ImmutableSet.of("dept_dls", "own_fls"));
+        Assert.assertNotSame(alice, getDlsFls(moreRoles, user("alice", "a")));
+    }
+
+    @Test
+    public void testTemplatedIndexPatternsAreCachedPerUser() {
+        final SecurityRoles roles = configModel.getSecurityRoles().filter(ImmutableSet.of("own_fls"));
+
+        final EvaluatedDlsFlsConfig alice = getDlsFls(roles, user("alice", null));
+        final EvaluatedDlsFlsConfig bob = getDlsFls(roles, user("bob", null));
+        Assert.assertNotSame(alice, bob);
+        Assert.assertEquals(ImmutableSet.of("alice-1"), alice.getFlsByIndex().keySet());
+        Assert.assertEquals(ImmutableSet.of("bob-1"), bob.getFlsByIndex().keySet());
+        Assert.assertSame(alice, getDlsFls(roles, user("alice", "a")));
+    }
+
+    @Test
+    public void testMetadataVersionChangeInvalidatesCachedConfig() {
+        final SecurityRoles roles = configModel.getSecurityRoles().filter(ImmutableSet.of("dept_dls"));
+
+        final EvaluatedDlsFlsConfig config = getDlsFls(roles, user("alice", "a"));
+        Assert.assertEquals(ImmutableSet.of("data-1"), config.getDlsQueriesByIndex().keySet());
+        Assert.assertSame(config, getDlsFls(roles, user("alice", "a")));
+
+        setMetadata(2, "data-1", "data-2", "alice-1", "bob-1", "carol-1");
+        final EvaluatedDlsFlsConfig updated = getDlsFls(roles, user("alice", "a"));
+        Assert.assertNotSame(config, updated);
+        Assert.assertEquals(ImmutableSet.of("data-1", "data-2"), updated.getDlsQueriesByIndex().keySet());
+        Assert.assertSame(updated, getDlsFls(roles, user("alice", "a")));
+    }
+
+    @Test
+    public void testFilteredConfigsAreReused() {
+        final EvaluatedDlsFlsConfig config = getDlsFls(configModel.getSecurityRoles(), user("alice", "a"));
+
+        final EvaluatedDlsFlsConfig filtered = config.filter(resolved("data-1"));
+        Assert.assertEquals(ImmutableSet.of("data-1"), filtered.getDlsQueriesByIndex().keySet());
+        Assert.assertTrue(filtered.getFlsByIndex().isEmpty());
+        Assert.assertSame(filtered, config.filter(resolved("data-1")));
+        Assert.assertEquals(ImmutableSet.of("alice-1"), config.filter(resolved("data-1", "alice-1")).getFlsByIndex().keySet());
+        Assert.assertSame(config, config.filter(Resolved._LOCAL_ALL));
+    }
+
+    @Test
+    public void testRecentlyFilteredConfigsAreKept() {
+        final EvaluatedDlsFlsConfig config = getDlsFls(configModel.getSecurityRoles(), user("alice", "a"));
+
+        EvaluatedDlsFlsConfig recent = null;
+        for (int i = 0; i < 150; i++) {
+            recent = config.filter(resolved("data-1", "other-" + i));
+            Assert.assertSame(recent, config.filter(resolved("data-1", "other-" + i)));
+        }
+        Assert.assertSame(recent, config.filter(resolved("data-1", "other-149")));
+    }
+
+    @Test
+    public void testMappedRolesKeyDistinguishesUsersBackendRolesAndHosts() throws Exception {
+        final ConfigModelV7 model = configModel("\"user_role\":{\"users\":[\"alice\"]},"
+                + "\"backend_role\":{\"backend_roles\":[\"admins\"]},"
+                + "\"and_backend_role\":{\"and_backend_roles\":[\"a\",\"b\"]},"
+                + "\"host_role\":{\"hosts\":[\"10.0.0.*\"]}", "ip-only", Runnable::run);
+        final TransportAddress local = caller(null, 10, 0, 0, 1);
+        final TransportAddress remote = caller(null, 192, 168, 0, 1);
+
+        final Set<String> alice = model.mapSecurityRoles(backendUser("alice"), remote);
+        Assert.assertEquals(ImmutableSet.of("user_role"), alice);
+        Assert.assertSame(alice, model.mapSecurityRoles(backendUser("alice"), remote));
+        Assert.assertEquals(ImmutableSet.of("user_role", "backend_role"), model.mapSecurityRoles(backendUser("alice", "admins"), remote));
+        Assert.assertEquals(ImmutableSet.of("backend_role"), model.mapSecurityRoles(backendUser("bob", "admins"), remote));
+        Assert.assertEquals(ImmutableSet.of(), model.mapSecurityRoles(backendUser("bob", "a"), remote));
+        Assert.assertEquals(ImmutableSet.of("and_backend_role"), model.mapSecurityRoles(backendUser("bob", "a", "b"), remote));
+        Assert.assertEquals(ImmutableSet.of("host_role"), model.mapSecurityRoles(backendUser("bob"), local));
+        Assert.assertEquals(ImmutableSet.of(), model.mapSecurityRoles(backendUser("bob"), remote));
+        Assert.assertEquals(ImmutableSet.of("user_role", "host_role"), model.mapSecurityRoles(backendUser("alice"), local));
+
+        // security roles injected by the authenticator are kept
+        final User injected = backendUser("bob");
+        injected.addSecurityRoles(Collections.singleton("injected_role"));
+        Assert.assertEquals(ImmutableSet.of("injected_role"), model.mapSecurityRoles(injected, remote));
+        Assert.assertEquals(ImmutableSet.of(), model.mapSecurityRoles(backendUser("bob"), remote));
+    }
+
+    @Test
+    public void testCallerIsOnlyPartOfTheKeyWithHostMappings() throws Exception {
+        final ConfigModelV7 model = configModel("\"user_role\":{\"users\":[\"alice\"]}", "ip-hostname", Runnable::run);
+
+        final Set<String> alice = model.mapSecurityRoles(backendUser("alice"), caller(null, 10, 0, 0, 1));
+        Assert.assertEquals(ImmutableSet.of("user_role"), alice);
+        Assert.assertSame(alice, model.mapSecurityRoles(backendUser("alice"), caller("client.example.com", 192, 168, 0, 1)));
+        Assert.assertSame(alice, model.mapSecurityRoles(backendUser("alice"), null));
+    }
+
+    @Test
+    public void testHostResolverModes() throws Exception {
+        final String rolesMapping = "\"ip_role\":{\"hosts\":[\"10.0.0.1\"]},\"host_role\":{\"hosts\":[\"*.example.com\"]}";
+        final TransportAddress client = caller("client.example.com", 10, 0, 0, 1);
+        final TransportAddress other = caller("client.example.org", 10, 0, 0, 1);
+
+        final ConfigModelV7 ipOnly = configModel(rolesMapping, "ip-only", Runnable::run);
+        Assert.assertEquals(ImmutableSet.of("ip_role"), ipOnly.mapSecurityRoles(backendUser("alice"), client));
+        Assert.assertEquals(ImmutableSet.of("ip_role"), ipOnly.mapSecurityRoles(backendUser("alice"), other));
+
+        final ConfigModelV7 ipHostname = configModel(rolesMapping, "ip-hostname", Runnable::run);
+        Assert.assertEquals(ImmutableSet.of("ip_role", "host_role"), ipHostname.mapSecurityRoles(backendUser("alice"), client));
+        Assert.assertEquals(ImmutableSet.of("ip_role"), ipHostname.mapSecurityRoles(backendUser("alice"), other));
+        Assert.assertEquals(ImmutableSet.of("ip_role", "host_role"), ipHostname.mapSecurityRoles(backendUser("alice"), client));
+    }
+
+    @Test
+    public void testHostnameLookupIsPartOfTheKey() throws Exception {
+        final List<Runnable> lookups = new ArrayList<>();
+        final ConfigModelV7 model = configModel("\"host_role\":{\"hosts\":[\"localhost\"]}", "ip-hostname-lookup", lookups::add);
+        final TransportAddress loopback = caller(null, 127, 0, 0, 1);
+
+        // the reverse lookup is done in the background, until then the caller is mapped by its IP address only
+        Assert.assertEquals(ImmutableSet.of(), model.mapSecurityRoles(backendUser("alice"), loopback));
+        Assert.assertEquals(1, lookups.size());
+        lookups.forEach(Runnable::run);
+
+        Assert.assertEquals(ImmutableSet.of("host_role"), model.mapSecurityRoles(backendUser("alice"), loopback));
+    }
+
+    @Test
+    public void testMappedRolesAreNotKeptOnConfigReload() throws Exception {
+        final ConfigModelV7 model = configModel("\"role_a\":{\"users\":[\"alice\"]}", "ip-only", Runnable::run);
+        Assert.assertEquals(ImmutableSet.of("role_a"), model.mapSecurityRoles(backendUser("alice"), null));
+
+        // a configuration change builds a new model
+        final ConfigModelV7 reloaded = configModel("\"role_b\":{\"users\":[\"alice\"]}", "ip-only", Runnable::run);
+        Assert.assertEquals(ImmutableSet.of("role_b"), reloaded.mapSecurityRoles(backendUser("alice"), null));
+        Assert.assertEquals(ImmutableSet.of("role_a"), model.mapSecurityRoles(backendUser("alice"), null));
+    }
+
+    private ConfigModelV7 configModel(final String rolesMapping, final String hostsResolverMode, final Executor reverseDnsExecutor)
+            throws Exception {
+        final DynamicConfigModel dcm = Mockito.mock(DynamicConfigModel.class);
+        Mockito.when(dcm.getHostsResolverMode()).thenReturn(hostsResolverMode);
+        final String rolesMappingJson = "{\"_meta\":{\"type\":\"rolesmapping\",\"config_version\":2}"
+                + (rolesMapping.isEmpty() ? "" : "," + rolesMapping) + "}";
+        return new ConfigModelV7(SecurityDynamicConfiguration.fromJson(ROLES, CType.ROLES, 2, 0, 0),
+                SecurityDynamicConfiguration.fromJson(rolesMappingJson, CType.ROLESMAPPING, 2, 0, 0), SecurityDynamicConfiguration.empty(),
+                SecurityDynamicConfiguration.empty(), dcm, Settings.EMPTY, new ReverseDnsCache(Settings.EMPTY, reverseDnsExecutor));
+    }
+
+    private EvaluatedDlsFlsConfig getDlsFls(final SecurityRoles roles, final User user) {
+        return roles.getDlsFls(user, false, resolver, clusterService, null);
+    }
+
+    private void setMetadata(final long version, final String... indices) {
+        final Metadata.Builder metadata = Metadata.builder().version(version);
+        for (String index : indices) {
+            metadata.put(IndexMetadata.builder(index)
+                    .settings(Settings.builder()
+                            .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                            .put(IndexMetadata.SETTING_INDEX_UUID, index)
+                            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)), false);
+        }
+        clusterState = ClusterState.builder(ClusterName.DEFAULT).metadata(metadata).build();
+    }
+
+    private static User backendUser(final String name, final String... backendRoles) {
+        return new User(name, Arrays.asList(backendRoles), null);
+    }
+
+    private static TransportAddress caller(final String hostName, final int... address) throws Exception {
+        final byte[] bytes = new byte[address.length];
+        for (int i = 0; i < address.length; i++) {
+            bytes[i] = (byte) address[i];
+        }
+        final InetAddress inetAddress = hostName == null ? InetAddress.getByAddress(bytes) : InetAddress.getByAddress(hostName, bytes);
+        return new TransportAddress(new InetSocketAddress(inetAddress, 9300));
+    }
+
+    private static User user(final String name, final String dept) {
+        final User user = new User(name);
+        if (dept != null) {
+            user.addAttributes(ImmutableMap.of("attr.internal.dept", dept));
+        }
+        return user;
+    }
+
+    /**
+     * Resolved instances are created by the IndexResolverReplacer only
+     */
+    private static Resolved resolved(final String... indices) {
+        try {
+            final Constructor<Resolved> constructor = Resolved.class.getDeclaredConstructor(ImmutableSet.class, ImmutableSet.class,
+                    ImmutableSet.class, ImmutableSet.class, IndicesOptions.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(ImmutableSet.of(), ImmutableSet.copyOf(indices), ImmutableSet.copyOf(indices), ImmutableSet.of(),
+                    IndicesOptions.lenientExpandOpen());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.securityconf.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SecurityDynamicConfigurationTest {
+
+    private static final String META = "\"_meta\":{\"type\":\"internalusers\",\"config_version\":2}";
+
+    @Test
+    public void testChangedKeys() throws Exception {
+        final SecurityDynamicConfiguration<?> previous = internalUsers("\"alice\":{\"hash\":\"a\",\"backend_roles\":[\"r1\"]},"
+                + "\"bob\":{\"hash\":\"b\"},\"carol\":{\"hash\":\"c\"}");
+        final SecurityDynamicConfiguration<?> current = internalUsers("\"alice\":{\"hash\":\"a\",\"backend_roles\":[\"r1\"]},"
+                + "\"bob\":{\"hash\":\"b\",\"attributes\":{\"dept\":\"x\"}},\"dave\":{\"hash\":\"d\"}");
+
+        Assert.assertEquals(ImmutableSet.of("bob", "carol", "dave"), previous.changedKeys(current));
+        Assert.assertEquals(ImmutableSet.of(), current.changedKeys(current.deepClone()));
+    }
+
+    @Test
+    public void testChangedKeysOfDifferentTypes() throws Exception {
+        Assert.assertNull(internalUsers("\"alice\":{\"hash\":\"a\"}").changedKeys(SecurityDynamicConfiguration.empty()));
+    }
+
+    private static SecurityDynamicConfiguration<?> internalUsers(final String entries) throws Exception {
+        return SecurityDynamicConfiguration.fromJson("{" + META + "," + entries + "}", CType.INTERNALUSERS, 2, 0, 0);
+    }
+}
@@ -19,9 +19,13 @@ import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.regex.Pattern;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.BaseEncoding;
 import org.junit.Assert;
 import org.junit.Test;
@@ -31,6 +35,7 @@ import org.opensearch.action.search.SearchRequest;
 import org.opensearch.security.user.User;
 
 import static org.opensearch.security.support.Base64Helper.deserializeObject;
+import static org.opensearch.security.support.Base64Helper.ensureJDKSerialized;
 import static org.opensearch.security.support.Base64Helper.serializeObject;
 
 public class Base64HelperTest {
@@ -110,4 +115,53 @@ public class Base64HelperTest {
         }
         deserializeObject(BaseEncoding.base64().encode(bos.toByteArray()));
     }
+
+    @Test
+    public void testUserWithAttributesCustomAndJDKSerialization() {
+        User user = new User("user", Arrays.asList("backend_role1", "backend_role2"), null);
+        user.addSecurityRoles(Arrays.asList("role1"));
+        user.setRequestedTenant("tenant");
+        user.addAttributes(ImmutableMap.of("attr.key", "value"));
+        user.setInjected(true);
+
+        for (boolean useJDKSerialization : new boolean[] { true, false }) {
+            User deserialized = (User) deserializeObject(serializeObject(user, useJDKSerialization));
+            Assert.assertEquals(user.getName(), deserialized.getName());
+            Assert.assertEquals(user.getRoles(), deserialized.getRoles());
+            Assert.assertEquals(user.getSecurityRoles(), deserialized.getSecurityRoles());
+            Assert.assertEquals(user.getRequestedTenant(), deserialized.getRequestedTenant());
+            Assert.assertEquals(user.getCustomAttributesMap(), deserialized.getCustomAttributesMap());
+            Assert.assertTrue(deserialized.isInjected());
+        }
+    }
+
+    @Test
+    public void testDlsFlsMapCustomSerialization() {
+        HashMap<String, Set<String>> map = new HashMap<>();
+        map.put("index1", ImmutableSet.of("{\"term\":{\"a\":1}}"));
+        map.put("index2", ImmutableSet.of("field1", "~field2"));
+
+        String custom = serializeObject(map);
+        String jdk = serializeObject(map, true);
+        Assert.assertTrue(custom.length() < jdk.length());
+        Assert.assertEquals(map, deserializeObject(custom));
+        Assert.assertEquals(map, deserializeObject(jdk));
+    }
+
+    @Test
+    public void testEnsureJDKSerialized() {
+        InetSocketAddress inetSocketAddress = new InetSocketAddress("127.0.0.1", 9300);
+        String custom = serializeObject(inetSocketAddress);
+        String jdk = ensureJDKSerialized(custom);
+        Assert.assertNotEquals(custom, jdk);
+        Assert.assertEquals(jdk, ensureJDKSerialized(jdk));
+        Assert.assertEquals(inetSocketAddress, deserializeObject(jdk));
+        Assert.assertEquals(inetSocketAddress, deserializeObject(custom));
+    }
+
+    @Test
+    public void testSourceFieldsContextCustomSerialization() {
+        SourceFieldsContext sourceFieldsContext = new SourceFieldsContext(new String[] { "a*" }, null, false);
+        Assert.assertEquals(sourceFieldsContext.toString(), ds(sourceFieldsContext).toString());
+    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+
+public class DeserializedHeaderCacheTest {
+
+    @Test
+    public void testHeaderIsDeserializedOncePerContext() {
+        final HashMap<String, Set<String>> queries = new HashMap<>();
+        queries.put("index", ImmutableSet.of("{\"match_all\":{}}"));
+
+        final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_DLS_QUERY_HEADER, Base64Helper.serializeObject(queries));
+
+        final long hits = DeserializedHeaderCache.getHitCount();
+        final long misses = DeserializedHeaderCache.getMissCount();
+
+        final Map<String, Set<String>> first = HeaderHelper.getDlsQueriesFromHeader(threadContext);
+        final Map<String, Set<String>> second = HeaderHelper.getDlsQueriesFromHeader(threadContext);
+
+        Assert.assertEquals(queries, first);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(misses + 1, DeserializedHeaderCache.getMissCount());
+        Assert.assertEquals(hits + 1, DeserializedHeaderCache.getHitCount());
+        Assert.assertNull(HeaderHelper.getFlsFieldsFromHeader(threadContext));
+
+        final Map<String, Object> stats = DeserializedHeaderCache.getStats();
+        Assert.assertTrue((Long) stats.get("hits") >= hits + 1);
+        Assert.assertTrue((Long) stats.get("misses") >= misses + 1);
+        final double hitRate = (Double) stats.get("hit_rate");
+        Assert.assertTrue(hitRate > 0 && hitRate < 1);
+
+        try (ThreadContext.StoredContext ctx = threadContext.stashContext()) {
+            threadContext.putHeader(ConfigConstants.OPENDISTRO_SECURITY_DLS_QUERY_HEADER, Base64Helper.serializeObject(queries));
+            Assert.assertNotSame(first, HeaderHelper.getDlsQueriesFromHeader(threadContext));
+        }
+    }
+}
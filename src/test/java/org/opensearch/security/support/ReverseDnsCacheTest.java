@@ -0,0 +1,54 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.support;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.common.settings.Settings;
+
+public class ReverseDnsCacheTest {
+
+    @Test
+    public void testLookupIsAsynchronous() throws Exception {
+        final List<Runnable> tasks = new ArrayList<>();
+        final ReverseDnsCache reverseDnsCache = new ReverseDnsCache(Settings.EMPTY, tasks::add);
+        final InetAddress address = InetAddress.getByAddress(new byte[] {127, 0, 0, 1});
+
+        Assert.assertNull(reverseDnsCache.getHostName(address));
+        Assert.assertNull(reverseDnsCache.getHostName(address));
+        // the pending lookup is not scheduled twice
+        Assert.assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+
+        final String expected = InetAddress.getByAddress(address.getAddress()).getHostName();
+        Assert.assertEquals(expected.equals(address.getHostAddress()) ? null : expected, reverseDnsCache.getHostName(address));
+        Assert.assertEquals(1, tasks.size());
+
+        final Map<String, Object> stats = reverseDnsCache.getStats();
+        Assert.assertEquals(1L, stats.get("hits"));
+        Assert.assertEquals(2L, stats.get("misses"));
+        Assert.assertEquals(1L, stats.get("lookups"));
+        Assert.assertEquals(0, stats.get("pending_lookups"));
+    }
+
+    @Test
+    public void testRejectedLookup() throws Exception {
+        final ReverseDnsCache reverseDnsCache = new ReverseDnsCache(Settings.EMPTY, task -> {
+            throw new RejectedExecutionException();
+        });
+
+        Assert.assertNull(reverseDnsCache.getHostName(InetAddress.getByAddress(new byte[] {127, 0, 0, 1})));
+        Assert.assertEquals(0, reverseDnsCache.getStats().get("pending_lookups"));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.opensearch.security.transport;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.opensearch.Version;
+import org.opensearch.common.settings.Settings;
+import org.opensearch.common.util.concurrent.ThreadContext;
+import org.opensearch.security.privileges.DocumentAllowList;
+import org.opensearch.security.support.Base64Helper;
+import org.opensearch.security.support.ConfigConstants;
+
+public class SecurityInterceptorHeaderBwcTest {
+
+    @Test
+    public void testHeadersForNodesBeforeCustomSerialization() {
+        final DocumentAllowList documentAllowList = allowList();
+        final Map<String, String> headers = headers(documentAllowList);
+
+        Assert.assertTrue(SecurityInterceptor.ensureHeadersReadableBy(Version.V_1_0_0, headers));
+
+        // older nodes only parse the text format
+        final String allowListHeader = headers.get(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER);
+        Assert.assertEquals(documentAllowList.toString(), allowListHeader);
+        Assert.assertEquals(documentAllowList, DocumentAllowList.parse(allowListHeader));
+
+        final String remoteAddressHeader = headers.get(ConfigConstants.OPENDISTRO_SECURITY_REMOTE_ADDRESS_HEADER);
+        Assert.assertEquals(Base64Helper.ensureJDKSerialized(remoteAddressHeader), remoteAddressHeader);
+    }
+
+    @Test
+    public void testHeadersForCurrentNodes() {
+        final Map<String, String> headers = headers(allowList());
+        final Map<String, String> expected = new HashMap<>(headers);
+
+        Assert.assertFalse(SecurityInterceptor.ensureHeadersReadableBy(Version.CURRENT, headers));
+        Assert.assertEquals(expected, headers);
+    }
+
+    @Test
+    public void testTextFormatIsKept() {
+        final String text = allowList().toString();
+        Assert.assertEquals(text, DocumentAllowList.ensureTextFormat(text));
+    }
+
+    private static DocumentAllowList allowList() {
+        final DocumentAllowList documentAllowList = new DocumentAllowList();
+        documentAllowList.add("lookup", "1");
+        documentAllowList.add("lookup", "a/b|c\\d");
+        return documentAllowList;
+    }
+
+    private static Map<String, String> headers(final DocumentAllowList documentAllowList) {
+        final ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        documentAllowList.applyTo(threadContext);
+
+        final Map<String, String> headers = new HashMap<>(threadContext.getHeaders());
+        Assert.assertNotEquals(documentAllowList.toString(), headers.get(ConfigConstants.OPENDISTRO_SECURITY_DOC_ALLOWLIST_HEADER));
+        headers.put(ConfigConstants.OPENDISTRO_SECURITY_REMOTE_ADDRESS_HEADER,
+                Base64Helper.serializeObject(new InetSocketAddress("127.0.0.1", 9300)));
+        return headers;
+    }
+}